@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
@@ -79,6 +80,10 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
     private boolean isStateGatherer = false;
     private long firstAllowedStateBroadcast = Long.MAX_VALUE;
     private long tickStartTime = Long.MAX_VALUE;
+    /** Arrival time of the oldest event which may change the cluster state and is not yet part of a generated state */
+    private long firstUngeneratedEventTime = Long.MAX_VALUE;
+    /** Arrival time of the oldest event which is part of a generated cluster state which is not yet published */
+    private long firstUnpublishedEventTime = Long.MAX_VALUE;
 
     private List<RemoteClusterControllerTask> tasksPendingStateRecompute = new ArrayList<>();
     // Invariant: queued task versions are monotonically increasing with queue position
@@ -313,12 +318,14 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
     @Override
     public void handleNewNodeState(NodeInfo node, NodeState newState) {
         verifyInControllerThread();
+        registerEvent();
         stateChangeHandler.handleNewReportedNodeState(latestCandidateClusterState(), node, newState, this);
     }
 
     @Override
     public void handleNewWantedNodeState(NodeInfo node, NodeState newState) {
         verifyInControllerThread();
+        registerEvent();
         wantedStateChanged = true;
         stateChangeHandler.proposeNewNodeState(stateVersionTracker.getVersionedClusterState(), node, newState);
     }
@@ -337,6 +344,7 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
     @Override
     public void handleMissingNode(NodeInfo node) {
         verifyInControllerThread();
+        registerEvent();
         stateChangeHandler.handleMissingNode(stateVersionTracker.getVersionedClusterState(), node, this);
     }
     @Override
@@ -363,6 +371,16 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
         }
     }
 
+    /**
+     * Registers that an event which may lead to a new cluster state is being processed. The event is timed
+     * from when the node state reply or ZooKeeper event being processed arrived, or now if it has no such origin.
+     */
+    private void registerEvent() {
+        long eventTime = Math.min(timer.getCurrentTimeInMillis(),
+                                  Math.min(stateGatherer.getFirstPendingResponseTime(), database.getFirstPendingEventTime()));
+        firstUngeneratedEventTime = Math.min(firstUngeneratedEventTime, eventTime);
+    }
+
     private void storeClusterStateVersionToZooKeeper(ClusterState state) {
         try {
             database.saveLatestSystemStateVersion(databaseContext, state.getVersion());
@@ -385,6 +403,7 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
      */
     public void handleFleetData(Map<Integer, Integer> data) {
         verifyInControllerThread();
+        registerEvent();
         log.log(LogLevel.SPAM, "Sending fleet data event on to master election handler");
         metricUpdater.updateMasterElectionMetrics(data);
         masterElectionHandler.handleFleetData(data);
@@ -572,6 +591,7 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
             }
             if ( ! didWork && ! waitingForCycle) {
                 monitor.wait(options.cycleWaitTime);
+                awaitMoreEvents();
             }
             if ( ! isRunning()) { return; }
             tickStartTime = timer.getCurrentTimeInMillis();
@@ -585,6 +605,23 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
         }
     }
 
+    /**
+     * If we were woken up by node state replies or ZooKeeper events, wait a little longer so that bursts
+     * of events are handled in a single cycle, producing a single new cluster state.
+     * Reconfiguration, shutdown and callers waiting for a cycle are not delayed.
+     * The wait is bounded by real elapsed time, as the timer may be a fake one which does not advance while waiting.
+     */
+    private void awaitMoreEvents() throws InterruptedException {
+        if (options.eventDebounceTime <= 0) return;
+        if ( ! stateGatherer.hasPendingResponses() && ! database.hasPendingEvents()) return;
+
+        long endNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.eventDebounceTime);
+        long remainingNanos;
+        while (isRunning() && ! waitingForCycle && nextOptions == null && (remainingNanos = endNanos - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(monitor, remainingNanos);
+        }
+    }
+
     private boolean updateMasterElectionState() throws InterruptedException {
         try {
             return masterElectionHandler.watchMasterElection(database, databaseContext);
@@ -641,6 +678,9 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
             sentAny = systemStateBroadcaster.broadcastNewState(database, databaseContext, communicator, this);
             if (sentAny) {
                 nextStateSendTime = currentTime + options.minTimeBetweenNewSystemStates;
+                if (firstUnpublishedEventTime <= currentTime)
+                    metricUpdater.recordEventToPublishedStateLatency(currentTime - firstUnpublishedEventTime);
+                firstUnpublishedEventTime = Long.MAX_VALUE;
             }
         }
         return sentAny;
@@ -769,6 +809,12 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
                 final AnnotatedClusterState before = stateVersionTracker.getAnnotatedVersionedClusterState();
 
                 stateVersionTracker.promoteCandidateToVersionedState(timeNowMs);
+                if (firstUngeneratedEventTime <= timeNowMs) {
+                    metricUpdater.recordEventToNewStateLatency(timeNowMs - firstUngeneratedEventTime);
+                    if (isMaster) // only the master publishes states
+                        firstUnpublishedEventTime = Math.min(firstUnpublishedEventTime, firstUngeneratedEventTime);
+                }
+                firstUngeneratedEventTime = Long.MAX_VALUE;
                 emitEventsForAlteredStateEdges(before, stateVersionTracker.getAnnotatedVersionedClusterState(), timeNowMs);
                 handleNewSystemState(stateVersionTracker.getVersionedClusterState());
                 stateWasChanged = true;
@@ -870,6 +916,7 @@ public class FleetController implements NodeStateOrHostInfoChangeHandler, NodeAd
             if (isMaster) {
                 eventLog.add(new ClusterEvent(ClusterEvent.Type.MASTER_ELECTION, "This node is no longer fleetcontroller master.", timer.getCurrentTimeInMillis()));
                 firstAllowedStateBroadcast = Long.MAX_VALUE;
+                firstUnpublishedEventTime = Long.MAX_VALUE;
                 metricUpdater.noLongerMaster();
                 failAllVersionDependentTasks();
             }
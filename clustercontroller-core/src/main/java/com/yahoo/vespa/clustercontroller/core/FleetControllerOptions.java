@@ -83,6 +83,11 @@ public class FleetControllerOptions implements Cloneable {
      * such as slobrok changes, so shouldn't set this too high.
      */
     public int cycleWaitTime = 100;
+    /**
+     * Milliseconds to wait after being woken up by a node state reply or a ZooKeeper event before processing it,
+     * such that bursts of events (e.g. many nodes going down at once) are coalesced into a single new cluster state.
+     */
+    public int eventDebounceTime = 10;
     /**
      * Minimum time to pass (in milliseconds) before broadcasting our first systemstate. Set small in unit tests,
      * but should be a few seconds in a real system to prevent new nodes taking over from disturbing the system by
@@ -189,6 +194,7 @@ public class FleetControllerOptions implements Cloneable {
         sb.append("<tr><td><nobr>Zookeeper session timeout</nobr></td><td align=\"right\">").append(RealTimer.printDuration(zooKeeperSessionTimeout)).append("</td></tr>");
 
         sb.append("<tr><td><nobr>Cycle wait time</nobr></td><td align=\"right\">").append(cycleWaitTime).append(" ms</td></tr>");
+        sb.append("<tr><td><nobr>Event debounce time</nobr></td><td align=\"right\">").append(eventDebounceTime).append(" ms</td></tr>");
         sb.append("<tr><td><nobr>Minimum time before first clusterstate broadcast as master</nobr></td><td align=\"right\">").append(RealTimer.printDuration(minTimeBeforeFirstSystemStateBroadcast)).append("</td></tr>");
         sb.append("<tr><td><nobr>Minimum time between official cluster states</nobr></td><td align=\"right\">").append(RealTimer.printDuration(minTimeBetweenNewSystemStates)).append("</td></tr>");
         sb.append("<tr><td><nobr>Slobrok mirror backoff policy</nobr></td><td align=\"right\">").append(slobrokBackOffPolicy == null ? "default" : "overridden").append("</td></tr>");
@@ -80,6 +80,16 @@ public class MetricUpdater {
         }
     }
 
+    /** Records the time from the oldest event contributing to a new cluster state until that state was generated */
+    public void recordEventToNewStateLatency(long millis) {
+        metricReporter.set("event-to-new-state-latency-ms", millis);
+    }
+
+    /** Records the time from the oldest event contributing to a new cluster state until that state was published */
+    public void recordEventToPublishedStateLatency(long millis) {
+        metricReporter.set("event-to-published-state-latency-ms", millis);
+    }
+
     public void recordNewNodeEvent() {
         // TODO(hakonhall): Replace add() with a persistent aggregate metric.
         metricReporter.add("node-event", 1);
@@ -23,11 +23,15 @@ public class NodeStateGatherer {
     private final Object monitor;
     private final Timer timer;
     private final List<GetNodeStateRequest> replies = new LinkedList<>();
+    /** The time the oldest unprocessed reply arrived, or Long.MAX_VALUE if there are none */
+    private long firstReplyTime = Long.MAX_VALUE;
 
     private class NodeStateWaiter implements Communicator.Waiter<GetNodeStateRequest> {
         @Override
         public void done(GetNodeStateRequest reply) {
             synchronized (monitor) {
+                if (replies.isEmpty())
+                    firstReplyTime = timer.getCurrentTimeInMillis();
                 replies.add(reply);
                 monitor.notifyAll();
             }
@@ -92,6 +96,20 @@ public class NodeStateGatherer {
         return sentAnyMessages;
     }
 
+    /** Returns whether there are replies which are not yet processed */
+    public boolean hasPendingResponses() {
+        synchronized (monitor) {
+            return ! replies.isEmpty();
+        }
+    }
+
+    /** Returns the time the oldest reply which is not yet processed arrived, or Long.MAX_VALUE if there are none */
+    public long getFirstPendingResponseTime() {
+        synchronized (monitor) {
+            return firstReplyTime;
+        }
+    }
+
     /** Reads replies to get node state requests and create events. */
     public boolean processResponses(NodeStateOrHostInfoChangeHandler listener) {
         boolean processedAnyResponses = false;
@@ -147,6 +165,7 @@ public class NodeStateGatherer {
 
             }
             replies.clear();
+            firstReplyTime = Long.MAX_VALUE;
         }
         return processedAnyResponses;
     }
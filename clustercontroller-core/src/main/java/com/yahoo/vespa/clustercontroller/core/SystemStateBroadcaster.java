@@ -142,15 +142,22 @@ public class SystemStateBroadcaster {
         }
 
         List<NodeInfo> recipients = resolveStateVersionSendSet(dbContext);
+        ClusterState modifiedState = null; // the same for all nodes needing it, so only built once
         for (NodeInfo node : recipients) {
             if (nodeNeedsToObserveStartupTimestamps(node)) {
-                ClusterState newState = buildModifiedClusterState(dbContext);
-                log.log(LogLevel.DEBUG, "Sending modified system state version " + systemState.getVersion()
-                        + " to node " + node + ": " + newState);
-                communicator.setSystemState(newState, node, waiter);
+                if (modifiedState == null) {
+                    modifiedState = buildModifiedClusterState(dbContext);
+                }
+                if (log.isLoggable(LogLevel.DEBUG)) {
+                    log.log(LogLevel.DEBUG, "Sending modified system state version " + systemState.getVersion()
+                            + " to node " + node + ": " + modifiedState);
+                }
+                communicator.setSystemState(modifiedState, node, waiter);
             } else {
-                log.log(LogLevel.DEBUG, "Sending system state version " + systemState.getVersion() + " to node " + node
-                        + ". (went down time " + node.getWentDownWithStartTime() + ", node start time " + node.getStartTimestamp() + ")");
+                if (log.isLoggable(LogLevel.DEBUG)) {
+                    log.log(LogLevel.DEBUG, "Sending system state version " + systemState.getVersion() + " to node " + node
+                            + ". (went down time " + node.getWentDownWithStartTime() + ", node start time " + node.getStartTimestamp() + ")");
+                }
                 communicator.setSystemState(systemState, node, waiter);
             }
         }
@@ -52,6 +52,7 @@ public class DatabaseHandler {
             log.log(LogLevel.DEBUG, "Fleetcontroller " + nodeIndex + ": Lost contact with zookeeper server");
             synchronized(monitor) {
                 lostZooKeeperConnectionEvent = true;
+                registerEventTime();
                 monitor.notifyAll();
             }
         }
@@ -62,6 +63,7 @@ public class DatabaseHandler {
                     log.log(LogLevel.DEBUG, "Fleetcontroller " + nodeIndex + ": New master data was the same as the last one. Not responding to it");
                 } else {
                     masterDataEvent = data;
+                    registerEventTime();
                 }
                 monitor.notifyAll();
             }
@@ -86,6 +88,8 @@ public class DatabaseHandler {
     private static final int minimumWaitBetweenFailedConnectionAttempts = 10000;
     private boolean lostZooKeeperConnectionEvent = false;
     private Map<Integer, Integer> masterDataEvent = null;
+    /** The time the oldest unprocessed ZooKeeper event arrived, or Long.MAX_VALUE if there are none */
+    private long firstEventTime = Long.MAX_VALUE;
 
     public DatabaseHandler(Timer timer, String zooKeeperAddress, int ourIndex, Object monitor) throws InterruptedException
     {
@@ -96,6 +100,26 @@ public class DatabaseHandler {
         this.zooKeeperAddress = zooKeeperAddress;
     }
 
+    /** Must be called while holding the monitor */
+    private void registerEventTime() {
+        if (firstEventTime == Long.MAX_VALUE)
+            firstEventTime = timer.getCurrentTimeInMillis();
+    }
+
+    /** Returns whether there are ZooKeeper events which are not yet processed by {@link #doNextZooKeeperTask} */
+    public boolean hasPendingEvents() {
+        synchronized (monitor) {
+            return lostZooKeeperConnectionEvent || masterDataEvent != null;
+        }
+    }
+
+    /** Returns the time the oldest ZooKeeper event which is not yet processed arrived, or Long.MAX_VALUE if there are none */
+    public long getFirstPendingEventTime() {
+        synchronized (monitor) {
+            return firstEventTime;
+        }
+    }
+
     private boolean isDatabaseClosedSafe() {
         synchronized (databaseMonitor) {
             return database == null || database.isClosed();
@@ -216,6 +240,7 @@ public class DatabaseHandler {
                 masterDataEvent = null;
                 didWork = true;
             }
+            firstEventTime = Long.MAX_VALUE;
         }
         if (isDatabaseClosedSafe()) {
             long currentTime = timer.getCurrentTimeInMillis();
@@ -33,6 +33,12 @@ public class RPCCommunicator implements Communicator {
     private int nodeStateRequestRoundTripTimeMaxSeconds;
     private final int fleetControllerIndex;
 
+    // The serialized form of the last state sent, as the same state is sent to most nodes
+    private ClusterState lastSerializedState = null;
+    private int lastSerializedVersion;
+    private boolean lastSerializedVerbose;
+    private String lastSerialized;
+
     public RPCCommunicator(
             final Timer t,
             final int index,
@@ -172,10 +178,10 @@ public class RPCCommunicator implements Communicator {
         Request req;
         if (node.getVersion() == 0) {
             req = new Request("setsystemstate");
-            req.parameters().add(new StringValue(state.toString(true)));
+            req.parameters().add(new StringValue(serialize(state, true)));
         } else {
             req = new Request("setsystemstate2");
-            req.parameters().add(new StringValue(state.toString(false)));
+            req.parameters().add(new StringValue(serialize(state, false)));
         }
 
         RPCSetClusterStateRequest stateRequest = new RPCSetClusterStateRequest(node, req, state.getVersion());
@@ -185,6 +191,16 @@ public class RPCCommunicator implements Communicator {
         node.setSystemStateVersionSent(state);
     }
 
+    private String serialize(ClusterState state, boolean verbose) {
+        if (state != lastSerializedState || state.getVersion() != lastSerializedVersion || verbose != lastSerializedVerbose) {
+            lastSerialized = state.toString(verbose);
+            lastSerializedState = state;
+            lastSerializedVersion = state.getVersion();
+            lastSerializedVerbose = verbose;
+        }
+        return lastSerialized;
+    }
+
     // protected for testing.
     protected int generateNodeStateRequestTimeoutMs() {
         final double intervalFraction = Math.random();
@@ -6,6 +6,7 @@ import com.yahoo.vdslib.distribution.ConfiguredNode;
 import com.yahoo.vdslib.state.*;
 import com.yahoo.vespa.clustercontroller.core.database.DatabaseHandler;
 import com.yahoo.vespa.clustercontroller.core.testutils.StateWaiter;
+import com.yahoo.vespa.clustercontroller.utils.util.MetricReporter;
 import com.yahoo.vespa.clustercontroller.utils.util.NoMetricReporter;
 import org.junit.Before;
 import org.junit.Test;
@@ -17,6 +18,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 public class StateChangeTest extends FleetControllerTest {
@@ -33,6 +38,10 @@ public class StateChangeTest extends FleetControllerTest {
     }
 
     private void initialize(FleetControllerOptions options) throws Exception {
+        initialize(options, new NoMetricReporter());
+    }
+
+    private void initialize(FleetControllerOptions options, MetricReporter metricReporter) throws Exception {
         List<Node> nodes = new ArrayList<>();
         for (int i = 0; i < options.nodes.size(); ++i) {
             nodes.add(new Node(NodeType.STORAGE, i));
@@ -40,7 +49,7 @@ public class StateChangeTest extends FleetControllerTest {
         }
 
         communicator = new DummyCommunicator(nodes, timer);
-        MetricUpdater metricUpdater = new MetricUpdater(new NoMetricReporter(), options.fleetControllerIndex);
+        MetricUpdater metricUpdater = new MetricUpdater(metricReporter, options.fleetControllerIndex);
         eventLog = new EventLog(timer, metricUpdater);
         ContentCluster cluster = new ContentCluster(options.clusterName, options.nodes, options.storageDistribution,
                                                     options.minStorageNodesUp, options.minRatioOfStorageNodesUp);
@@ -163,6 +172,63 @@ public class StateChangeTest extends FleetControllerTest {
                 "Event: storage.0: Altered node state in cluster state from 'I, i 0.100 (read)' to 'U'\n");
     }
 
+    @Test
+    public void testTimeFromNodeStateReplyToPublishedStateIsReported() throws Exception {
+        FleetControllerOptions options = new FleetControllerOptions("mycluster", createNodes(10));
+        options.nodeStateRequestTimeoutMS = 60 * 60 * 1000;
+        options.minTimeBetweenNewSystemStates = 0;
+        SetMetricRecorder metrics = new SetMetricRecorder();
+        initialize(options, metrics);
+        ctrl.tick();
+
+        communicator.setNodeState(new Node(NodeType.DISTRIBUTOR, 0), State.DOWN, "Closed at other end");
+        timer.advanceTime(300); // The reply waits for the controller to process it
+        ctrl.tick();
+
+        assertEquals("version:4 distributor:10 .0.s:d storage:10", ctrl.getSystemState().toString());
+        assertEquals(300L, metrics.values.get("cluster-controller.event-to-new-state-latency-ms"));
+        assertEquals(300L, metrics.values.get("cluster-controller.event-to-published-state-latency-ms"));
+    }
+
+    @Test
+    public void testEventDebouncingDoesNotStallTheCycleWhenTheTimerIsFake() throws Exception {
+        FleetControllerOptions options = new FleetControllerOptions("mycluster", createNodes(10));
+        options.nodeStateRequestTimeoutMS = 60 * 60 * 1000;
+        options.eventDebounceTime = 100;
+        initialize(options);
+        ctrl.tick();
+        ctrl.tick();
+
+        options.cycleWaitTime = 60 * 1000; // an idle tick now waits until the reply below arrives
+        Node distributor = new Node(NodeType.DISTRIBUTOR, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(() -> {
+                Thread.sleep(500);
+                return communicator.setNodeState(distributor, State.DOWN, "Closed at other end");
+            });
+            Future<?> ticks = executor.submit(() -> {
+                while ( ! ctrl.getReportedNodeState(distributor).getState().equals(State.DOWN))
+                    ctrl.tick();
+                return null;
+            });
+            ticks.get(30, TimeUnit.SECONDS); // the fake timer is never advanced
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class SetMetricRecorder extends NoMetricReporter {
+
+        final Map<String, Number> values = new HashMap<>();
+
+        @Override
+        public void set(String name, Number value, Context context) {
+            values.put(name, value);
+        }
+
+    }
+
     @Test
     public void testNodeGoingDownAndUp() throws Exception {
         FleetControllerOptions options = new FleetControllerOptions("mycluster", createNodes(10));
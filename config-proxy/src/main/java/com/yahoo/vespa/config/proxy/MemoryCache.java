@@ -8,6 +8,7 @@ import com.yahoo.vespa.config.ConfigKey;
 import com.yahoo.vespa.config.RawConfig;
 import com.yahoo.vespa.config.protocol.CompressionType;
 import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.PayloadStore;
 import com.yahoo.vespa.defaults.Defaults;
 
 import java.io.File;
@@ -29,13 +30,25 @@ public class MemoryCache {
     private static final String DEFAULT_DUMP_DIR = Defaults.getDefaults().underVespaHome("var/vespa/cache/config");
 
     private final ConcurrentHashMap<ConfigCacheKey, RawConfig> cache = new ConcurrentHashMap<>(500, 0.75f);
+    private final PayloadStore payloadStore;
+
+    public MemoryCache() {
+        this(PayloadStore.shared());
+    }
+
+    MemoryCache(PayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
 
     public RawConfig get(ConfigCacheKey key) {
         return cache.get(key);
     }
 
     /**
-     * Put in cache, except when config has an error
+     * Put in cache, except when config has an error. The payload is shared with other configs
+     * having the same payload. It is kept in the form received from upstream, which is normally compressed,
+     * so that it can be served to clients as is.
+     *
      * @param config config to put in cache
      */
     public void put(RawConfig config) {
@@ -44,7 +57,16 @@ public class MemoryCache {
         if (log.isLoggable(LogLevel.DEBUG)) {
             log.log(LogLevel.DEBUG, "Putting '" + config + "' into memory cache");
         }
-        cache.put(new ConfigCacheKey(config.getKey(), config.getDefMd5()), config);
+        cache.put(new ConfigCacheKey(config.getKey(), config.getDefMd5()), withInternedPayload(config));
+    }
+
+    private RawConfig withInternedPayload(RawConfig config) {
+        if (config.getPayload() == null) return config;
+
+        Payload payload = payloadStore.internAsIs(config.getPayload());
+        if (payload == config.getPayload()) return config;
+        return new RawConfig(config.getKey(), config.getDefMd5(), payload, config.getConfigMd5(), config.getGeneration(),
+                             config.errorCode(), config.getDefContent(), config.getVespaVersion());
     }
 
     boolean containsKey(ConfigCacheKey key) {
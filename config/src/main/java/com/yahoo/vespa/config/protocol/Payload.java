@@ -18,6 +18,7 @@ public class Payload {
 
     private final Utf8Array data;
     private final CompressionInfo compressionInfo;
+    private int hash = 0; // Lazily computed, 0 means not computed yet
     private final static LZ4PayloadCompressor compressor = new LZ4PayloadCompressor();
 
     private Payload(ConfigPayload payload) {
@@ -95,7 +96,16 @@ public class Payload {
 
     @Override
     public int hashCode() {
-        return data.hashCode() + 31 * compressionInfo.hashCode();
+        // Payloads are used as keys when interned (see PayloadStore), so use a hash which
+        // spreads better than the one of Utf8Array, and cache it as payloads are immutable
+        int h = hash;
+        if (h == 0) {
+            for (int i = 0; i < data.getByteLength(); i++)
+                h = 31 * h + data.getByte(i);
+            h = h + 31 * compressionInfo.hashCode();
+            hash = h;
+        }
+        return h;
     }
 
 }
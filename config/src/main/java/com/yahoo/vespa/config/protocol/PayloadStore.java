@@ -0,0 +1,89 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A content addressed store of config payloads. Payloads are interned on their content, so that caches
+ * holding equal payloads (e.g. the same config requested with many config ids, or by many applications)
+ * share a single byte array. Stored payloads are LZ4 compressed, which is also the form
+ * they are served in to clients requesting compressed config, so serving them requires no re-encoding.
+ * Payloads are only weakly held by the store, and will be collected when no cache refers to them,
+ * so caches must keep the interned payload instance itself, not just its data.
+ *
+ * This class is thread safe.
+ *
+ * @author agent
+ */
+public class PayloadStore {
+
+    private static final PayloadStore shared = new PayloadStore();
+
+    private final Interner<Payload> payloads = Interners.newWeakInterner();
+
+    /** Canonical compressed payloads by the md5 of their uncompressed content, such that each is compressed once */
+    private final Map<String, PayloadReference> compressedByMd5 = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Payload> collected = new ReferenceQueue<>();
+
+    /** Returns the store shared by all config caches in this process */
+    public static PayloadStore shared() { return shared; }
+
+    /**
+     * Returns the canonical LZ4 compressed instance of the given payload. The given payload is compressed
+     * before being interned if it is not compressed already.
+     */
+    public Payload intern(Payload payload) {
+        return payloads.intern(payload.withCompression(CompressionType.LZ4));
+    }
+
+    /**
+     * Returns the canonical LZ4 compressed instance of the given uncompressed payload, looked up by the md5
+     * of its content, such that the payload is only compressed if no equal payload is stored already.
+     *
+     * @param payload the uncompressed payload
+     * @param md5 the md5 of the content of the payload, as computed by ConfigUtils.getMd5
+     */
+    public Payload intern(Payload payload, String md5) {
+        removeCollected();
+        PayloadReference reference = compressedByMd5.get(md5);
+        Payload compressed = (reference == null) ? null : reference.get();
+        if (compressed != null) return compressed;
+
+        compressed = intern(payload);
+        compressedByMd5.put(md5, new PayloadReference(md5, compressed, collected));
+        return compressed;
+    }
+
+    /**
+     * Returns the canonical instance of the given payload, keeping the compression it has.
+     * Use this for payloads which should be served uncompressed.
+     */
+    public Payload internAsIs(Payload payload) {
+        return payloads.intern(payload);
+    }
+
+    private void removeCollected() {
+        Reference<? extends Payload> reference;
+        while ((reference = collected.poll()) != null)
+            compressedByMd5.remove(((PayloadReference)reference).md5, reference);
+    }
+
+    private static class PayloadReference extends WeakReference<Payload> {
+
+        private final String md5;
+
+        PayloadReference(String md5, Payload payload, ReferenceQueue<Payload> queue) {
+            super(payload, queue);
+            this.md5 = md5;
+        }
+
+    }
+
+}
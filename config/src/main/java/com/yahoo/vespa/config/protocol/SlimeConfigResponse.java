@@ -20,8 +20,7 @@ import java.util.List;
  */
 public class SlimeConfigResponse implements ConfigResponse {
 
-    private final Utf8Array payload;
-    private final CompressionInfo compressionInfo;
+    private final Payload payload;
     private final InnerCNode targetDef;
     private final long generation;
     private final String configMd5;
@@ -32,23 +31,27 @@ public class SlimeConfigResponse implements ConfigResponse {
     }
 
     public SlimeConfigResponse(Utf8Array payload, InnerCNode targetDef, long generation, String configMd5, CompressionInfo compressionInfo) {
+        this(Payload.from(payload, compressionInfo), targetDef, generation, configMd5);
+    }
+
+    /** Creates a response keeping the given payload instance, which may be shared with other responses */
+    public SlimeConfigResponse(Payload payload, InnerCNode targetDef, long generation, String configMd5) {
         this.payload = payload;
         this.targetDef = targetDef;
         this.generation = generation;
         this.configMd5 = configMd5;
-        this.compressionInfo = compressionInfo;
     }
 
     @Override
     public Utf8Array getPayload() {
-        return payload;
+        return payload.getData();
     }
 
     @Override
     public List<String> getLegacyPayload() {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ConfigFileFormat format = new ConfigFileFormat(targetDef);
-        Payload v1payload = Payload.from(payload, compressionInfo).withCompression(CompressionType.UNCOMPRESSED);
+        Payload v1payload = payload.withCompression(CompressionType.UNCOMPRESSED);
         try {
             ConfigPayload.fromUtf8Array(v1payload.getData()).serialize(baos, format);
             return Arrays.asList(baos.toString("UTF-8").split("\\n"));
@@ -69,16 +72,16 @@ public class SlimeConfigResponse implements ConfigResponse {
 
     @Override
     public void serialize(OutputStream os, CompressionType type) throws IOException {
-        os.write(Payload.from(payload, compressionInfo).withCompression(type).getData().getBytes());
+        os.write(payload.withCompression(type).getData().getBytes());
     }
 
     @Override
     public String toString() {
         return "generation=" + generation +  "\n" +
                 "configmd5=" + configMd5 +  "\n" +
-                Payload.from(payload, compressionInfo).withCompression(CompressionType.UNCOMPRESSED);
+                payload.withCompression(CompressionType.UNCOMPRESSED);
     }
 
     @Override
-    public CompressionInfo getCompressionInfo() { return compressionInfo; }
+    public CompressionInfo getCompressionInfo() { return payload.getCompressionInfo(); }
 }
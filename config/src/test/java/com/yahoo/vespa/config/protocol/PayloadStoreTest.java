@@ -0,0 +1,53 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author agent
+ */
+public class PayloadStoreTest {
+
+    @Test
+    public void testThatEqualPayloadsAreInterned() {
+        PayloadStore store = new PayloadStore();
+        Payload a = store.intern(Payload.from("{\"foo\":13}"));
+        Payload b = store.intern(Payload.from("{\"foo\":13}"));
+        Payload c = store.intern(Payload.from("{\"foo\":14}"));
+        assertSame(a, b);
+        assertNotSame(a, c);
+    }
+
+    @Test
+    public void testThatPayloadsAreStoredCompressed() {
+        PayloadStore store = new PayloadStore();
+        Payload payload = store.intern(Payload.from("{\"foo\":13}"));
+        assertThat(payload.getCompressionInfo().getCompressionType(), is(CompressionType.LZ4));
+        assertThat(payload.toString(), is("{\"foo\":13}"));
+        assertSame(payload.getData(), payload.withCompression(CompressionType.LZ4).getData());
+    }
+
+    @Test
+    public void testThatPayloadsWithAStoredMd5AreNotCompressedAgain() {
+        PayloadStore store = new PayloadStore();
+        Payload payload = store.intern(Payload.from("{\"foo\":13}"), "md5-1");
+        assertThat(payload.getCompressionInfo().getCompressionType(), is(CompressionType.LZ4));
+        assertSame(payload, store.intern(Payload.from("{\"foo\":13}"), "md5-1"));
+        assertSame(payload, store.intern(Payload.from("not compressed since the md5 is known"), "md5-1"));
+        assertNotSame(payload, store.intern(Payload.from("{\"foo\":14}"), "md5-2"));
+    }
+
+    @Test
+    public void testThatCompressionIsKeptWhenInternedAsIs() {
+        PayloadStore store = new PayloadStore();
+        Payload payload = store.internAsIs(Payload.from("{\"foo\":13}"));
+        assertThat(payload.getCompressionInfo().getCompressionType(), is(CompressionType.UNCOMPRESSED));
+        assertSame(payload, store.internAsIs(Payload.from("{\"foo\":13}")));
+    }
+
+}
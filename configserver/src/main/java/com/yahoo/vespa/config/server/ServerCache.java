@@ -20,6 +20,7 @@ public class ServerCache {
     private final Map<ConfigDefinitionKey, ConfigDefinition> defs = new ConcurrentHashMap<>();
 
     // NOTE: The reason we do a double mapping here is to dedup configs that have the same md5.
+    // The payloads of the responses are in addition shared between caches, see PayloadStore
     private final Map<ConfigCacheKey, String> md5Sums = new ConcurrentHashMap<>();
     private final Map<String, ConfigResponse> md5ToConfig = new ConcurrentHashMap<>();
 
@@ -4,29 +4,40 @@ package com.yahoo.vespa.config.server.rpc;
 import com.yahoo.config.codegen.InnerCNode;
 import com.yahoo.text.Utf8Array;
 import com.yahoo.vespa.config.ConfigPayload;
-import com.yahoo.vespa.config.LZ4PayloadCompressor;
 import com.yahoo.vespa.config.protocol.CompressionInfo;
 import com.yahoo.vespa.config.protocol.CompressionType;
 import com.yahoo.vespa.config.protocol.ConfigResponse;
+import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.PayloadStore;
 import com.yahoo.vespa.config.protocol.SlimeConfigResponse;
 import com.yahoo.vespa.config.util.ConfigUtils;
 
 /**
- * Compressor that compresses config payloads to lz4.
+ * Compressor that compresses config payloads to lz4. The compressed payloads are interned in a
+ * {@link PayloadStore} by the md5 of their content, such that equal payloads are compressed once,
+ * share storage and are served without re-encoding.
  *
  * @author lulf
  * @since 5.19
  */
 public class LZ4ConfigResponseFactory implements ConfigResponseFactory {
 
-    private static LZ4PayloadCompressor compressor = new LZ4PayloadCompressor();
+    private final PayloadStore payloadStore;
+
+    public LZ4ConfigResponseFactory() {
+        this(PayloadStore.shared());
+    }
+
+    public LZ4ConfigResponseFactory(PayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
 
     @Override
     public ConfigResponse createResponse(ConfigPayload payload, InnerCNode defFile, long generation) {
         Utf8Array rawPayload = payload.toUtf8Array(true);
         String configMd5 = ConfigUtils.getMd5(rawPayload);
-        CompressionInfo info = CompressionInfo.create(CompressionType.LZ4, rawPayload.getByteLength());
-        Utf8Array compressed = new Utf8Array(compressor.compress(rawPayload.getBytes()));
-        return new SlimeConfigResponse(compressed, defFile, generation, configMd5, info);
+        CompressionInfo info = CompressionInfo.create(CompressionType.UNCOMPRESSED, rawPayload.getByteLength());
+        Payload compressed = payloadStore.intern(Payload.from(rawPayload, info), configMd5);
+        return new SlimeConfigResponse(compressed, defFile, generation, configMd5);
     }
 }
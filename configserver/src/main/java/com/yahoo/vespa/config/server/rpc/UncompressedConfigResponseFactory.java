@@ -7,23 +7,37 @@ import com.yahoo.vespa.config.ConfigPayload;
 import com.yahoo.vespa.config.protocol.CompressionInfo;
 import com.yahoo.vespa.config.protocol.CompressionType;
 import com.yahoo.vespa.config.protocol.ConfigResponse;
+import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.PayloadStore;
 import com.yahoo.vespa.config.protocol.SlimeConfigResponse;
 import com.yahoo.vespa.config.util.ConfigUtils;
 
 /**
- * Simply returns an uncompressed payload.
+ * Simply returns an uncompressed payload. Payloads are interned in a {@link PayloadStore} without
+ * being compressed, such that equal payloads share storage.
  *
  * @author lulf
  * @since 5.19
  */
 public class UncompressedConfigResponseFactory implements ConfigResponseFactory {
 
+    private final PayloadStore payloadStore;
+
+    public UncompressedConfigResponseFactory() {
+        this(PayloadStore.shared());
+    }
+
+    public UncompressedConfigResponseFactory(PayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
+
     @Override
     public ConfigResponse createResponse(ConfigPayload payload, InnerCNode defFile, long generation) {
         Utf8Array rawPayload = payload.toUtf8Array(true);
         String configMd5 = ConfigUtils.getMd5(rawPayload);
         CompressionInfo info = CompressionInfo.create(CompressionType.UNCOMPRESSED, rawPayload.getByteLength());
-        return new SlimeConfigResponse(rawPayload, defFile, generation, configMd5, info);
+        Payload stored = payloadStore.internAsIs(Payload.from(rawPayload, info));
+        return new SlimeConfigResponse(stored, defFile, generation, configMd5);
     }
 
 }
@@ -14,6 +14,7 @@ import org.junit.Test;
 import java.io.StringReader;
 
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -47,4 +48,12 @@ public class ConfigResponseFactoryTest {
         assertThat(response.getGeneration(), is(3l));
         assertThat(response.getPayload().getByteLength(), is(3));
     }
+
+    @Test
+    public void testThatEqualPayloadsAreShared() {
+        LZ4ConfigResponseFactory responseFactory = new LZ4ConfigResponseFactory();
+        ConfigResponse response1 = responseFactory.createResponse(ConfigPayload.empty(), def, 3);
+        ConfigResponse response2 = responseFactory.createResponse(ConfigPayload.empty(), def, 4);
+        assertSame(response1.getPayload(), response2.getPayload());
+    }
 }
@@ -2,9 +2,14 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 
 import static com.yahoo.container.core.AccessLogConfig.FileHandler.RotateScheme.DATE;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 /**
@@ -12,13 +17,30 @@ import java.util.logging.Logger;
  */
 class AccessLogHandler {
 
+    private static final Logger log = Logger.getLogger(AccessLogHandler.class.getName());
+
+    private static final String QUEUE_SIZE_METRIC = "accessLogQueueSize";
+    private static final String DROPPED_ENTRIES_METRIC = "accessLogDroppedEntries";
+    private static final long queueSizeReportIntervalMillis = 1000;
+    private static final long dropWarningIntervalMillis = 60 * 1000;
+
     public Logger access = Logger.getAnonymousLogger();
     private LogFileHandler logFileHandler;
 
+    /** The metric receiving the queue size and dropped entries, or null to not report them */
+    private final Metric metric;
+    private volatile long lastQueueSizeReport = 0;
+    private final AtomicLong lastDropWarning = new AtomicLong(0);
+
     public AccessLogHandler(AccessLogConfig.FileHandler config) {
+        this(config, null);
+    }
+
+    public AccessLogHandler(AccessLogConfig.FileHandler config, Metric metric) {
+        this.metric = metric;
         access.setUseParentHandlers(false);
 
-        logFileHandler = new LogFileHandler(config.rotateScheme());
+        logFileHandler = new LogFileHandler(config.rotateScheme(), config.compression());
 
         logFileHandler.setFilePattern(config.pattern());
         logFileHandler.setRotationTimes(config.rotation());
@@ -33,6 +55,42 @@ class AccessLogHandler {
         access.addHandler(this.logFileHandler);
     }
 
+    /**
+     * Logs the given entry. The entry is formatted by the given formatter on the thread
+     * writing the log file, not by the caller. If the log file writer is too far behind
+     * the entry is dropped rather than blocking the caller. Drops are counted in the
+     * {@value #DROPPED_ENTRIES_METRIC} metric and logged as a warning at most once a minute.
+     */
+    void log(AccessLogEntry entry, Function<AccessLogEntry, String> formatter) {
+        long now = System.currentTimeMillis();
+        if ( ! logFileHandler.publishOrDrop(new EntryRecord(entry, formatter)))
+            entryDropped(now);
+        if (metric != null && now - lastQueueSizeReport >= queueSizeReportIntervalMillis) {
+            lastQueueSizeReport = now;
+            metric.set(QUEUE_SIZE_METRIC, queueSize(), null);
+        }
+    }
+
+    private void entryDropped(long now) {
+        if (metric != null)
+            metric.add(DROPPED_ENTRIES_METRIC, 1, null);
+
+        long lastWarning = lastDropWarning.get();
+        if (now - lastWarning >= dropWarningIntervalMillis && lastDropWarning.compareAndSet(lastWarning, now))
+            log.warning("Dropping access log entries as the log writer is behind: " + droppedEntries() +
+                        " entries dropped in total, " + queueSize() + " entries waiting to be written");
+    }
+
+    /** Returns the number of entries waiting to be written */
+    int queueSize() {
+        return logFileHandler.getQueueSize();
+    }
+
+    /** Returns the number of entries dropped because the writer was too far behind */
+    long droppedEntries() {
+        return logFileHandler.getDroppedRecords();
+    }
+
     private void createSymlink(AccessLogConfig.FileHandler config, LogFileHandler handler) {
         if (!config.symlink().isEmpty())
             handler.setSymlinkName(config.symlink());
@@ -49,4 +107,28 @@ class AccessLogHandler {
     void rotateNow() {
         logFileHandler.rotateNow();
     }
+
+    /** A log record whose message is formatted from an access log entry when it is written */
+    @SuppressWarnings("serial")
+    private static class EntryRecord extends LogRecord {
+
+        private final AccessLogEntry entry;
+        private final Function<AccessLogEntry, String> formatter;
+        private String message = null;
+
+        EntryRecord(AccessLogEntry entry, Function<AccessLogEntry, String> formatter) {
+            super(Level.INFO, null);
+            this.entry = entry;
+            this.formatter = formatter;
+        }
+
+        @Override
+        public String getMessage() {
+            if (message == null)
+                message = formatter.apply(entry);
+            return message;
+        }
+
+    }
+
 }
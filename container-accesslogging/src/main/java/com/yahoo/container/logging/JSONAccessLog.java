@@ -1,9 +1,9 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging;
 
+import com.google.inject.Inject;
 import com.yahoo.container.core.AccessLogConfig;
-
-import java.util.logging.Level;
+import com.yahoo.jdisc.Metric;
 
 /**
  * Log a message in Vespa JSON access log format.
@@ -16,12 +16,17 @@ public final class JSONAccessLog implements  AccessLogInterface {
     private final AccessLogHandler logHandler;
 
     public JSONAccessLog(AccessLogConfig config) {
-        logHandler = new AccessLogHandler(config.fileHandler());
+        this(config, null);
+    }
+
+    @Inject
+    public JSONAccessLog(AccessLogConfig config, Metric metric) {
+        logHandler = new AccessLogHandler(config.fileHandler(), metric);
     }
 
     @Override
     public void log(AccessLogEntry logEntry) {
-        logHandler.access.log(Level.INFO, new JSONFormatter(logEntry).format() + '\n');
+        logHandler.log(logEntry, entry -> new JSONFormatter(entry).format() + '\n');
     }
 
     // TODO: This is never called. We should have a DI provider and call this method from its deconstruct.
@@ -7,20 +7,28 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.StreamHandler;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 
 /**
  * <p>Implements log file naming/rotating logic for container logs.</p>
  *
+ * <p>Records are queued and written by a separate thread. The writer thread formats
+ * all the records it finds in the queue as one batch, and writes the batch to the file
+ * in a single write. Files may be gzip compressed as they are written.</p>
+ *
  * <p>Overridden methods: publish</p>
  *
  * <p>Added methods: setFilePattern, setRotationTimes, rotateNow (+ few others)</p>
@@ -29,8 +37,13 @@ import java.util.regex.Pattern;
  */
 public class LogFileHandler extends StreamHandler {
 
+    /** The max number of records formatted and written as one batch */
+    private static final int maxBatchSize = 1000;
+
     /** True to use the sequence file name scheme, false (default) to use the date scheme */
     private final boolean useSequenceNameScheme;
+    /** True to write gzip compressed files */
+    private final boolean compress;
     private long[] rotationTimes = {0}; //default to one log per day, at midnight
     private String filePattern = "./log.%T";  // default to current directory, ms time stamp
     private long lastRotationTime = -1; // absolute time (millis since epoch) of current file start
@@ -40,6 +53,7 @@ public class LogFileHandler extends StreamHandler {
     private String fileName;
     private String symlinkName = null;
     private ArrayBlockingQueue<LogRecord> logQueue = new ArrayBlockingQueue<>(100000);
+    private final AtomicLong droppedRecords = new AtomicLong(0);
     LogRecord rotateCmd = new LogRecord(Level.SEVERE, "rotateNow");
 
     static private class LogThread extends Thread {
@@ -63,15 +77,16 @@ public class LogFileHandler extends StreamHandler {
         }
 
         private void storeLogRecords() throws InterruptedException {
+            List<LogRecord> batch = new ArrayList<>(maxBatchSize);
             while (!isInterrupted()) {
                 LogRecord r = logFileHandler.logQueue.poll(100, TimeUnit.MILLISECONDS);
                 if (r != null) {
-                    if (r == logFileHandler.rotateCmd) {
-                        logFileHandler.internalRotateNow();
+                    batch.add(r);
+                    logFileHandler.logQueue.drainTo(batch, maxBatchSize - 1);
+                    if (logFileHandler.internalPublish(batch)) {
                         lastFlush = System.nanoTime();
-                    } else {
-                        logFileHandler.internalPublish(r);
                     }
+                    batch.clear();
                     flushIfOld(3, TimeUnit.SECONDS);
                 } else {
                     flushIfOld(100, TimeUnit.MILLISECONDS);
@@ -94,8 +109,14 @@ public class LogFileHandler extends StreamHandler {
     }
 
     public LogFileHandler(AccessLogConfig.FileHandler.RotateScheme.Enum rotateScheme) {
+        this(rotateScheme, AccessLogConfig.FileHandler.Compression.Enum.NONE);
+    }
+
+    public LogFileHandler(AccessLogConfig.FileHandler.RotateScheme.Enum rotateScheme,
+                          AccessLogConfig.FileHandler.Compression.Enum compression) {
         super();
         this.useSequenceNameScheme = rotateScheme == AccessLogConfig.FileHandler.RotateScheme.Enum.SEQUENCE;
+        this.compress = compression == AccessLogConfig.FileHandler.Compression.Enum.GZIP;
         init();
     }
 
@@ -107,6 +128,7 @@ public class LogFileHandler extends StreamHandler {
     public LogFileHandler(OutputStream out, Formatter formatter,boolean useSequenceNameScheme) {
         super(out,formatter);
         this.useSequenceNameScheme=useSequenceNameScheme;
+        this.compress = false;
         init();
     }
 
@@ -127,20 +149,84 @@ public class LogFileHandler extends StreamHandler {
         }
     }
 
-    private void internalPublish(LogRecord r) throws InterruptedException {
-        // first check to see if new file needed.
-        // if so, use this.internalRotateNow() to do it
+    /**
+     * Queues the given record for writing unless the queue is full, in which case
+     * the record is dropped. Use this rather than blocking when records are less important
+     * than the callers, like access log entries logged by request threads.
+     *
+     * @return whether the record was queued
+     */
+    public boolean publishOrDrop(LogRecord r) {
+        if (logQueue.offer(r)) return true;
 
-        long now = System.currentTimeMillis();
-        if (nextRotationTime <= 0) {
-            nextRotationTime = getNextRotationTime(now); // lazy initialization
+        droppedRecords.incrementAndGet();
+        return false;
+    }
+
+    /** Returns the number of records currently waiting to be written */
+    public int getQueueSize() {
+        return logQueue.size();
+    }
+
+    /** Returns the number of records dropped by {@link #publishOrDrop} since this was created */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Formats and writes a batch of records, rotating the file first if needed.
+     *
+     * @return whether the file was rotated by a rotate command in the batch
+     */
+    private boolean internalPublish(List<LogRecord> records) throws InterruptedException {
+        boolean rotated = false;
+        StringBuilder formatted = new StringBuilder();
+        for (LogRecord r : records) {
+            if (r == rotateCmd) {
+                write(formatted);
+                internalRotateNow();
+                rotated = true;
+                continue;
+            }
+
+            // first check to see if new file needed.
+            // if so, use this.internalRotateNow() to do it
+            long now = System.currentTimeMillis();
+            if (nextRotationTime <= 0) {
+                nextRotationTime = getNextRotationTime(now); // lazy initialization
+            }
+            if (now > nextRotationTime || currentOutputStream == null) {
+                write(formatted);
+                internalRotateNow();
+            }
+            if ( ! isLoggable(r)) continue;
+
+            // count records, and format
+            numberOfRecords++;
+            try {
+                formatted.append(getFormatter().format(r));
+            } catch (Exception e) {
+                reportError(null, e, java.util.logging.ErrorManager.FORMAT_FAILURE);
+            }
         }
-        if (now > nextRotationTime || currentOutputStream == null) {
-            internalRotateNow();
+        write(formatted);
+        return rotated;
+    }
+
+    /** Writes the given formatted records to the current file in one write, and clears the builder */
+    private void write(StringBuilder formatted) {
+        if (formatted.length() == 0) return;
+        try {
+            currentOutputStream.write(formatted.toString().getBytes(charset()));
+        } catch (IOException e) {
+            reportError(null, e, java.util.logging.ErrorManager.WRITE_FAILURE);
         }
-        // count records, and publish
-        numberOfRecords++;
-        super.publish(r);
+        formatted.setLength(0);
+    }
+
+    private Charset charset() {
+        String encoding = getEncoding();
+        return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
     }
 
     /**
@@ -220,7 +306,7 @@ public class LogFileHandler extends StreamHandler {
         // use super.setOutputStream to switch to a new file
 
         long now = System.currentTimeMillis();
-        fileName = LogFormatter.insertDate(filePattern, now);
+        fileName = LogFormatter.insertDate(filePattern, now) + (compress ? ".gz" : "");
         super.flush();
         super.close();
 
@@ -229,7 +315,10 @@ public class LogFileHandler extends StreamHandler {
 
         try {
             checkAndCreateDir(fileName);
-            FileOutputStream os = new FileOutputStream(fileName, true); // append mode, for safety
+            OutputStream os = new FileOutputStream(fileName, true); // append mode, for safety
+            if (compress) {
+                os = new GZIPOutputStream(os, 64 * 1024, true); // sync flush to make the file readable while written
+            }
             super.setOutputStream(os);
             currentOutputStream = os;
         }
@@ -1,14 +1,15 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging;
 
+import com.google.inject.Inject;
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.net.UriTools;
 
 import java.net.URI;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.logging.Level;
 
 /**
  * @author <a href="mailto:borud@yahoo-inc.com">Bjorn Borud</a>
@@ -16,12 +17,18 @@ import java.util.logging.Level;
  */
 public final class VespaAccessLog implements AccessLogInterface {
 
-    private static final SimpleDateFormat dateFormat = createDateFormat();
+    /** Only used by the log writer thread of this, as formatting happens there */
+    private final SimpleDateFormat dateFormat = createDateFormat();
 
     private final AccessLogHandler logHandler;
 
     public VespaAccessLog(AccessLogConfig config) {
-        logHandler = new AccessLogHandler(config.fileHandler());
+        this(config, null);
+    }
+
+    @Inject
+    public VespaAccessLog(AccessLogConfig config, Metric metric) {
+        logHandler = new AccessLogHandler(config.fileHandler(), metric);
     }
 
     private static SimpleDateFormat createDateFormat() {
@@ -30,9 +37,8 @@ public final class VespaAccessLog implements AccessLogInterface {
         return format;
     }
 
-    private String getDate () {
-        Date date = new Date();
-        return dateFormat.format(date);
+    private String getDate(long timeMillis) {
+        return dateFormat.format(new Date(timeMillis));
     }
 
     private String getRequest(final String httpMethod, final URI uri, final String httpVersion) {
@@ -44,8 +50,8 @@ public final class VespaAccessLog implements AccessLogInterface {
         return (user == null) ? "-" : user;
     }
 
-    private void writeLog(String ipAddr, String user, String request, String referer, String agent, long startTime,
-                          long durationMillis, long byteCount, HitCounts hitcounts, int returnCode)
+    private String formatLog(String ipAddr, String user, String request, String referer, String agent, long logTime,
+                             long durationMillis, long byteCount, HitCounts hitcounts, int returnCode)
     {
         long ms = Math.max(0L, durationMillis);
         StringBuilder sb = new StringBuilder()
@@ -53,7 +59,7 @@ public final class VespaAccessLog implements AccessLogInterface {
                 .append(" - ")
                 .append(getUser(user))
                 .append(' ')
-                .append(getDate())
+                .append(getDate(logTime))
                 .append(" \"")
                 .append(request)
                 .append("\" ")
@@ -73,7 +79,7 @@ public final class VespaAccessLog implements AccessLogInterface {
                 .append(" 0.0 ")
                 .append((hitcounts == null) ? 0 : hitcounts.getSummaryCount())
                 .append('\n');
-        logHandler.access.log(Level.INFO, sb.toString());
+        return sb.toString();
     }
 
     private void decimalsOfSecondsFromMilliseconds(long ms, StringBuilder sb) {
@@ -97,7 +103,12 @@ public final class VespaAccessLog implements AccessLogInterface {
 
     @Override
     public void log(final AccessLogEntry accessLogEntry) {
-        writeLog(
+        long logTime = System.currentTimeMillis(); // the entry is formatted later, by the log writer thread
+        logHandler.log(accessLogEntry, entry -> format(entry, logTime));
+    }
+
+    private String format(AccessLogEntry accessLogEntry, long logTime) {
+        return formatLog(
                 accessLogEntry.getIpV4Address(),
                 accessLogEntry.getUser(),
                 getRequest(
@@ -106,7 +117,7 @@ public final class VespaAccessLog implements AccessLogInterface {
                         accessLogEntry.getHttpVersion()),
                 accessLogEntry.getReferer(),
                 accessLogEntry.getUserAgent(),
-                accessLogEntry.getTimeStampMillis(),
+                logTime,
                 accessLogEntry.getDurationBetweenRequestResponseMillis(),
                 accessLogEntry.getReturnedContentSize(),
                 accessLogEntry.getHitCounts(),
@@ -1,9 +1,9 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging;
 
+import com.google.inject.Inject;
 import com.yahoo.container.core.AccessLogConfig;
-
-import java.util.logging.Level;
+import com.yahoo.jdisc.Metric;
 
 /**
  * Log a message in yApache log format.
@@ -15,12 +15,17 @@ public final class YApacheAccessLog implements  AccessLogInterface {
     private final AccessLogHandler logHandler;
 
     public YApacheAccessLog(AccessLogConfig config) {
-        logHandler = new AccessLogHandler(config.fileHandler());
+        this(config, null);
+    }
+
+    @Inject
+    public YApacheAccessLog(AccessLogConfig config, Metric metric) {
+        logHandler = new AccessLogHandler(config.fileHandler(), metric);
     }
 
     @Override
     public void log(final AccessLogEntry logEntry) {
-        logHandler.access.log(Level.INFO, new YApacheFormatter(logEntry).format() + '\n');
+        logHandler.log(logEntry, entry -> new YApacheFormatter(entry).format() + '\n');
     }
 
 
@@ -0,0 +1,91 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.logging;
+
+import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class AccessLogHandlerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test(timeout = 60 * 1000)
+    public void testEntriesAreDroppedAndReportedWhenTheQueueIsFull() throws Exception {
+        AccessLogConfig config = new AccessLogConfig(new AccessLogConfig.Builder().
+                fileHandler(new AccessLogConfig.FileHandler.Builder().
+                        pattern(tempFolder.getRoot().getAbsolutePath() + "/access.%Y%m%d%H%M%S")));
+        RecordingMetric metric = new RecordingMetric();
+        AccessLogHandler handler = new AccessLogHandler(config.fileHandler(), metric);
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Stall the writer thread on the first entry
+            handler.log(new AccessLogEntry(), entry -> {
+                writing.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "first\n";
+            });
+            assertTrue(writing.await(30, TimeUnit.SECONDS));
+
+            // Fill the queue until the first entry is dropped, then drop some more
+            for (int i = 0; handler.droppedEntries() == 0; i++) {
+                assertTrue("The queue is bounded", i < 1000000);
+                handler.log(new AccessLogEntry(), entry -> "queued\n");
+            }
+            for (int i = 0; i < 9; i++)
+                handler.log(new AccessLogEntry(), entry -> "dropped\n");
+
+            assertEquals(10, handler.droppedEntries());
+            assertEquals(10, metric.added("accessLogDroppedEntries"));
+        }
+        finally {
+            release.countDown();
+            handler.shutdown();
+        }
+    }
+
+    private static class RecordingMetric implements Metric {
+
+        private final Map<String, Long> added = new HashMap<>();
+
+        @Override
+        public void set(String key, Number value, Context context) {
+        }
+
+        @Override
+        public synchronized void add(String key, Number value, Context context) {
+            added.merge(key, value.longValue(), Long::sum);
+        }
+
+        @Override
+        public Context createContext(Map<String, ?> properties) {
+            return null;
+        }
+
+        synchronized long added(String key) {
+            return added.getOrDefault(key, 0L);
+        }
+
+    }
+
+}
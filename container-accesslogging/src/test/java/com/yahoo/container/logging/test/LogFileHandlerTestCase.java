@@ -1,11 +1,18 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging.test;
 
+import com.yahoo.container.core.AccessLogConfig;
 import com.yahoo.container.logging.LogFileHandler;
 import com.yahoo.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -13,6 +20,7 @@ import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.SimpleFormatter;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
 
@@ -23,6 +31,9 @@ import static org.junit.Assert.assertEquals;
 // These tests take too long, and are not cleaning up properly. See how this should be done in YApacheLogTestCase
 public class LogFileHandlerTestCase {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * The scenario
      */
@@ -169,4 +180,29 @@ public class LogFileHandlerTestCase {
             deleteOnExit(f2);
     }
 
+    @Test
+    public void testCompressionAndBatching() throws IOException, InterruptedException {
+        String logFilePattern = temporaryFolder.getRoot().getAbsolutePath() + "/compressed";
+        LogFileHandler h = new LogFileHandler(AccessLogConfig.FileHandler.RotateScheme.Enum.SEQUENCE,
+                                              AccessLogConfig.FileHandler.Compression.Enum.GZIP);
+        h.setFilePattern(logFilePattern);
+        h.setFormatter(new Formatter() {
+            public String format(LogRecord r) { return r.getMessage() + "\n"; }
+        });
+        for (int i = 0; i < 2000; i++)
+            h.publish(new LogRecord(Level.INFO, "message " + i));
+        for (int n = 0; n < 20 * 1000 && (h.getQueueSize() > 0 || h.getFileName() == null); n++)
+            Thread.sleep(1);
+        h.shutdown();
+        h.close();
+
+        assertEquals(logFilePattern + ".gz", h.getFileName());
+        assertEquals(0, h.getDroppedRecords());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(h.getFileName()))))) {
+            for (int i = 0; i < 2000; i++)
+                assertEquals("message " + i, reader.readLine());
+            assertEquals(null, reader.readLine());
+        }
+    }
+
 }
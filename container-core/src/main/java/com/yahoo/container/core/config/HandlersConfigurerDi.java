@@ -13,9 +13,11 @@ import com.yahoo.container.core.DiagnosticsConfig;
 import com.yahoo.container.di.ComponentDeconstructor;
 import com.yahoo.container.di.Container;
 import com.yahoo.container.di.componentgraph.core.ComponentGraph;
+import com.yahoo.container.di.componentgraph.core.Node;
 import com.yahoo.container.di.config.SubscriberFactory;
 import com.yahoo.container.di.osgi.OsgiUtil;
 import com.yahoo.container.logging.AccessLog;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.application.OsgiFramework;
 import com.yahoo.jdisc.handler.RequestHandler;
 import com.yahoo.jdisc.service.ClientProvider;
@@ -27,10 +29,13 @@ import com.yahoo.osgi.OsgiImpl;
 import com.yahoo.statistics.Statistics;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.wiring.BundleWiring;
+import scala.collection.JavaConverters;
 import scala.collection.immutable.Set;
+import scala.concurrent.duration.Duration;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.logging.Logger;
@@ -50,6 +55,8 @@ public class HandlersConfigurerDi {
 
     private static final Logger log = Logger.getLogger(HandlersConfigurerDi.class.getName());
 
+    static final String CONSTRUCTION_TIME_METRIC = "jdisc.component.construction_time";
+
     public static class RegistriesHack {
 
         @Inject
@@ -143,6 +150,25 @@ public class HandlersConfigurerDi {
 
         RegistriesHack registriesHack = currentGraph.getInstance(RegistriesHack.class);
         assert (registriesHack != null);
+        reportConstructionTimes(currentGraph);
+    }
+
+    /** Reports the time spent constructing each component created for the given graph, if it contains a metric */
+    private static void reportConstructionTimes(ComponentGraph graph) {
+        Metric metric;
+        try {
+            metric = graph.getInstance(Metric.class);
+        } catch (IllegalStateException e) {
+            log.log(LogLevel.DEBUG, "No metric component, not reporting component construction times");
+            return;
+        }
+        for (Node node : JavaConverters.asJavaIterableConverter(graph.nodes()).asJava()) {
+            if (node.constructionTime().isEmpty()) continue;
+
+            Duration time = node.constructionTime().get();
+            metric.set(CONSTRUCTION_TIME_METRIC, time.toMillis(),
+                       metric.createContext(Collections.singletonMap("component", node.componentId().stringValue())));
+        }
     }
 
     @SuppressWarnings("deprecation")
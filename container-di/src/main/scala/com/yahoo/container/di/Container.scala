@@ -1,10 +1,12 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.di
 
+import java.util.concurrent.Executors
 import java.util.logging.{Level, Logger}
 import java.util.{IdentityHashMap, Random}
 
 import com.google.inject.{Guice, Injector}
+import com.yahoo.concurrent.ThreadFactoryFactory
 import com.yahoo.config._
 import com.yahoo.config.subscription.ConfigInterruptedException
 import com.yahoo.container.bundle.BundleInstantiationSpecification
@@ -20,7 +22,7 @@ import com.yahoo.vespa.config.ConfigKey
 import scala.collection.JavaConverters._
 import scala.concurrent.duration._
 import scala.language.postfixOps
-import scala.math.max
+import scala.math.{max, min}
 
 
 /**
@@ -209,7 +211,13 @@ class Container(
   }
 
   private def constructComponents(graph: ComponentGraph) {
-    graph.nodes foreach (_.newOrCachedInstance())
+    val executor = Executors.newFixedThreadPool(constructionThreads,
+                                                ThreadFactoryFactory.getDaemonThreadFactory("component-construction"))
+    try {
+      graph.constructInstances(executor)
+    } finally {
+      executor.shutdownNow()
+    }
   }
 
   def shutdown(graph: ComponentGraph, deconstructor: ComponentDeconstructor) {
@@ -236,6 +244,9 @@ class Container(
 object Container {
   val log = Logger.getLogger(classOf[Container].getName)
 
+  /** The max number of components constructed in parallel */
+  val constructionThreads = min(max(Runtime.getRuntime.availableProcessors, 1), 8)
+
   def getConfig[T <: ConfigInstance](key: ConfigKey[T], configs: Map[ConfigKeyT, ConfigInstance]) : T = {
     key.getConfigClass.cast(configs.getOrElse(key.asInstanceOf[ConfigKeyT], sys.error("Missing config " + key)))
   }
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.di.componentgraph.core
 
+import java.util.concurrent.{Callable, ExecutionException, ExecutorService, Future}
 import java.util.logging.Logger
 
 import com.yahoo.component.provider.ComponentRegistry
@@ -25,6 +26,7 @@ import com.yahoo.container.di.removeStackTrace
 import scala.util.Try
 import scala.Some
 
+import scala.concurrent.duration._
 import scala.language.existentials
 
 /**
@@ -133,6 +135,69 @@ class ComponentGraph(val generation: Long = 0) {
 
   def allComponentsAndProviders = nodes map {_.instance.get}
 
+  /**
+   * Creates the instances of all nodes, one level of the dependency graph at a time. The nodes on a level
+   * only use nodes on earlier levels, and are created in parallel by the given executor.
+   * If creating any node on a level fails, all nodes on that level are still completed before the failure
+   * of the node with the lowest component id is rethrown, so the reported error does not depend on timing.
+   */
+  def constructInstances(executor: ExecutorService) {
+    val start = System.nanoTime()
+    val contextClassLoader = Thread.currentThread.getContextClassLoader
+
+    def construct(node: Node) = new Callable[AnyRef] {
+      override def call() = {
+        val thread = Thread.currentThread
+        val previousClassLoader = thread.getContextClassLoader
+        thread.setContextClassLoader(contextClassLoader)
+        try node.newOrCachedInstance()
+        finally thread.setContextClassLoader(previousClassLoader)
+      }
+    }
+
+    def awaitAll(futures: List[(Node, Future[AnyRef])]): Option[Throwable] = {
+      val failures = futures flatMap { case (node, future) =>
+        try {
+          future.get()
+          None
+        } catch {
+          case e: ExecutionException => Some(e.getCause)
+          case e: InterruptedException =>
+            futures foreach (_._2.cancel(true))
+            throw e
+        }
+      }
+      failures.headOption
+    }
+
+    for (level <- dependencyLevels(nodesById.values.toList)) {
+      val sortedLevel = level.sortBy(_.componentId.toString)
+      val failure = sortedLevel match {
+        case List(single) => // no need to hand over a single node
+          single.newOrCachedInstance()
+          None
+        case _ =>
+          awaitAll(sortedLevel map (node => node -> executor.submit(construct(node))))
+      }
+      failure foreach (e => throw e)
+    }
+    logConstructionTimes((System.nanoTime() - start).nanos)
+  }
+
+  private def logConstructionTimes(total: Duration) {
+    val constructed = nodesById.values.toList.collect {
+      case node if node.constructionTime.isDefined => node -> node.constructionTime.get
+    }
+    for ((node, time) <- constructed)
+      log.log(LogLevel.DEBUG, s"Constructed ${node.idAndType} in ${time.toMillis} ms")
+
+    if (constructed.nonEmpty) {
+      val slowest = constructed.sortBy { case (_, time) => -time.toNanos }.take(5) map { case (node, time) => s"${node.componentId} (${time.toMillis} ms)" }
+      log.info(s"Constructed ${constructed.size} components for generation $generation in ${total.toMillis} ms. " +
+               s"Slowest: ${slowest.mkString(", ")}")
+    }
+  }
+
   private def completeComponentRegistryNode(registry: ComponentRegistryNode) {
     registry.injectAll(osgiComponentsOfClass(registry.componentClass))
   }
@@ -302,6 +367,28 @@ object ComponentGraph {
     isBindingAnnotation(annotation.getClass)
   }
 
+  /**
+   * Groups the nodes of the graph into levels, bottom-up, such that the nodes on each level
+   * only use nodes on earlier levels.
+   */
+  def dependencyLevels(nodes: List[Node]): List[List[Node]] = {
+    val numIncoming = mutable.Map[ComponentId, Int]().withDefaultValue(0)
+    nodes.foreach(_.usedComponents.foreach(used => numIncoming(used.componentId) += 1))
+
+    @tailrec
+    def levels(result: List[List[Node]], remaining: List[Node]): List[List[Node]] = {
+      if (remaining.isEmpty) {
+        result
+      } else {
+        val (ready, notReady) = remaining.partition(node => numIncoming(node.componentId) == 0)
+        require(!ready.isEmpty, "There's a cycle in the graph.")
+        ready.foreach(_.usedComponents.foreach(used => numIncoming(used.componentId) -= 1))
+        levels(ready :: result, notReady)
+      }
+    }
+    levels(List(), nodes)
+  }
+
   /**
    * The returned list is the nodes from the graph bottom-up.
    * @return A list where a earlier than b in the list implies that there is no path from a to b
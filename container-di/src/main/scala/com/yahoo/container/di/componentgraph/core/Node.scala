@@ -7,6 +7,8 @@ import com.yahoo.container.di.componentgraph.Provider
 import com.google.inject.Key
 import Node._
 
+import scala.concurrent.duration._
+
 /**
  * @author Tony Vaagenes
  * @author gjoranv
@@ -17,6 +19,9 @@ abstract class Node(val componentId: ComponentId) {
 
   var instance : Option[AnyRef] = None
 
+  /** The time spent creating the instance of this node, if it was created for this graph rather than reused */
+  @volatile var constructionTime : Option[Duration] = None
+
   var componentsToInject = List[Node]()
 
   /**
@@ -30,7 +35,9 @@ abstract class Node(val componentId: ComponentId) {
   def newOrCachedInstance() : AnyRef = {
     component(
       instance.getOrElse {
+        val start = System.nanoTime()
         instance = Some(newInstance())
+        constructionTime = Some((System.nanoTime() - start).nanos)
         instance.get
       })
   }
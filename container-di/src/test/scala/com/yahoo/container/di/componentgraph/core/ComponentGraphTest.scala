@@ -289,6 +289,53 @@ class ComponentGraphTest {
     }
   }
 
+  @Test
+  def components_are_constructed_level_by_level_in_parallel() {
+    val injectedComponent = mockComponentNode(classOf[SimpleComponent])
+    val target1 = mockComponentNode(classOf[ComponentTakingComponent])
+    val target2 = mockComponentNode(classOf[ComponentTakingComponent])
+    target1.inject(injectedComponent)
+    target2.inject(injectedComponent)
+
+    val componentGraph = new ComponentGraph
+    componentGraph.add(injectedComponent)
+    componentGraph.add(target1)
+    componentGraph.add(target2)
+    componentGraph.complete()
+
+    val levels = ComponentGraph.dependencyLevels(componentGraph.nodes.toList)
+    assertThat(levels.map(_.size), is(List(1, 2)))
+    assertThat(levels.head.head, sameInstance(injectedComponent))
+
+    val executor = Executors.newFixedThreadPool(2)
+    try componentGraph.constructInstances(executor)
+    finally executor.shutdown()
+
+    val instance1 = target1.instance.get.asInstanceOf[ComponentTakingComponent]
+    val instance2 = target2.instance.get.asInstanceOf[ComponentTakingComponent]
+    assertThat(instance1.injectedComponent, sameInstance(instance2.injectedComponent))
+    assertTrue(componentGraph.nodes.forall(_.constructionTime.isDefined))
+  }
+
+  @Test
+  def failure_of_component_with_lowest_id_is_reported_when_constructing_in_parallel() {
+    val componentGraph = new ComponentGraph
+    componentGraph.add(mockComponentNodeWithId(classOf[ComponentThatThrows], "b"))
+    componentGraph.add(mockComponentNodeWithId(classOf[ComponentThatThrows], "a"))
+    componentGraph.add(mockComponentNodeWithId(classOf[ComponentThatThrows], "c"))
+    componentGraph.complete()
+
+    val executor = Executors.newFixedThreadPool(3)
+    try {
+      componentGraph.constructInstances(executor)
+      fail("Exception expected.")
+    } catch {
+      case e: ComponentNode.ComponentConstructorException => assertThat(e.getMessage, containsString("'a'"))
+    } finally {
+      executor.shutdown()
+    }
+  }
+
   @Test(expected = classOf[IllegalArgumentException])
   def abstract_classes_are_rejected() {
     new ComponentNode(ComponentId.fromString("Test"), "", classOf[AbstractClass])
@@ -467,6 +514,10 @@ object ComponentGraphTest {
 
   class ComponentCausingCycle(component: ComponentCausingCycle) extends AbstractComponent
 
+  class ComponentThatThrows extends AbstractComponent {
+    throw new RuntimeException("Failed constructing component")
+  }
+
   class SimpleComponentProviderThatThrows extends Provider[SimpleComponent] {
     def get() = throw new AssertionError("Should never be called.")
     def deconstruct() {}
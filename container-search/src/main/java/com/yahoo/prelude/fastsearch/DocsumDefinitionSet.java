@@ -2,7 +2,7 @@
 package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.slime.BinaryFormat;
-import com.yahoo.slime.Slime;
+import com.yahoo.slime.Inspector;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.vespa.config.search.SummaryConfig;
 import com.yahoo.prelude.ConfigurationException;
@@ -81,8 +81,9 @@ public final class DocsumDefinitionSet {
             hit.addSummary(docsum);
         } else {
             DocsumDefinition docsumDefinition = lookupDocsum(summaryClass);
-            Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
-            hit.addSummary(docsumDefinition, new SlimeAdapter(value.get()));
+            // Only the fields which are actually accessed are decoded
+            Inspector value = BinaryFormat.view(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
+            hit.addSummary(docsumDefinition, new SlimeAdapter(value));
         }
     }
 
@@ -146,6 +146,11 @@ public class PhraseMatcher {
         if ( ! matchPhraseItems && item instanceof PhraseItem ) return;
 
         CompositeItem owner=(CompositeItem)item;
+        if ( ! matchAll && ! ignorePluralForm && ! (owner instanceof NotItem)) {
+            matchLongestPhrases(owner, phrases);
+            return;
+        }
+
         int i=0;
         int checkItemCount=owner.getItemCount();
         if (owner instanceof NotItem)
@@ -164,6 +169,39 @@ public class PhraseMatcher {
         }
     }
 
+    /**
+     * Finds the longest phrases in the given composite by passing each sequence of terms in the same index
+     * to the automaton at once, and recurses into the items which are not terms.
+     */
+    private void matchLongestPhrases(CompositeItem owner, MatchedPhrases phrases) {
+        FSA.State state = phraseFSA.getState();
+        String[] words = new String[owner.getItemCount()];
+        FSA.PhraseHandler handler = (start, length, phraseState) ->
+                phrases.add(new Phrase(owner, null, start, length, phraseState.dataString()));
+
+        int runStart = 0;
+        String runIndex = null;
+        for (int i = 0; i < words.length; i++) {
+            Item current = owner.getItem(i);
+            if ( ! (current instanceof TermItem)) {
+                state.matchPhrases(words, runStart, i, handler);
+                recursivelyMatchPhrases(current, phrases);
+                runStart = i + 1;
+                continue;
+            }
+
+            TermItem termItem = (TermItem)current;
+            if (i > runStart && ! termItem.getIndexName().equals(runIndex)) {
+                state.matchPhrases(words, runStart, i, handler);
+                runStart = i;
+            }
+            if (i == runStart)
+                runIndex = termItem.getIndexName();
+            words[i] = toLowerCase(termItem.stringValue());
+        }
+        state.matchPhrases(words, runStart, words.length, handler);
+    }
+
     /**
      * If (!matchAll), finds longest possible phrase starting at the
      * given index in the owner and adds it to phrases.
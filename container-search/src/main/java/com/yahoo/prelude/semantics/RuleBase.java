@@ -117,6 +117,7 @@ public class RuleBase {
      * for that rule base.</p>
      */
     public void include(RuleBase include) {
+        analyzer.uncompile();
         productionRules.add(new IncludeDirective(include));
         includedNames.addAll(include.includedNames);
         includedNames.add(include.getName());
@@ -286,6 +287,7 @@ public class RuleBase {
 
     // Note that included rules are added though a list iterator, not this */
     public void addRule(ProductionRule productionRule) {
+        analyzer.uncompile();
         productionRules.add(productionRule);
     }
 
@@ -302,6 +304,7 @@ public class RuleBase {
     public void initialize() {
         inlineIncluded();
         makeReferences();
+        analyzer.compile();
     }
 
     /**
@@ -52,14 +52,47 @@ public class RuleBaseBenchmark {
     }
 
 
+    /**
+     * Measures how the time to evaluate a query scales with the number of rules,
+     * using generated synonym rule bases of increasing size where few rules match each query.
+     */
+    public void benchmarkScaling(int iterations) throws IOException, ParseException {
+        String[] queries = new String[] { "term1 foo", "term5 bar term17", "no matching terms here", "term99" };
+        System.out.print("BENCHMARK: scaling with rule count, iterations=" + iterations + "\n");
+        for (int ruleCount = 100; ruleCount <= 100000; ruleCount *= 10) {
+            StringBuilder rules = new StringBuilder();
+            for (int i = 0; i < ruleCount; i++)
+                rules.append("term").append(i).append(" +> synonym").append(i).append(";\n");
+            RuleBase ruleBase = RuleBase.createFromString("scaling" + ruleCount, rules.toString(), null);
+
+            for (int i = 0; i < iterations / 10; i++) // warmup
+                analyze(ruleBase, queries);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                analyze(ruleBase, queries);
+            long elapsedNanos = System.nanoTime() - start;
+            System.out.print("           rules=" + ruleCount +
+                             " microseconds per query=" + (elapsedNanos / 1000 / ((long)iterations * queries.length)) + "\n");
+        }
+    }
+
+    private void analyze(RuleBase ruleBase, String[] queries) {
+        for (String queryString : queries)
+            ruleBase.analyze(new Query("?query=" + queryString.replace(' ', '+')), 0);
+    }
+
     public static void main(String[] args) {
-        if(args.length<3){
+        if ((args.length != 2 || ! args[0].equals("-scaling")) && args.length < 3) {
             System.out.println("USAGE: RuleBaseBenchmark ruleBaseFile queryFile iterations");
+            System.out.println("       RuleBaseBenchmark -scaling iterations");
             System.exit(1);
         }
 
         try {
-            new RuleBaseBenchmark().benchmark(args[0],args[1],Integer.parseInt(args[2]));
+            if (args[0].equals("-scaling"))
+                new RuleBaseBenchmark().benchmarkScaling(Integer.parseInt(args[1]));
+            else
+                new RuleBaseBenchmark().benchmark(args[0],args[1],Integer.parseInt(args[2]));
         }
         catch (Exception e) {
             System.out.println("ERROR: " + collectMessage(e));
@@ -110,6 +110,9 @@ public class Evaluation {
 
     public int getQuerySize() { return flattenedItems.size(); }
 
+    /** Returns the items of the query as of the last reset, or modification through this */
+    List<FlattenedItem> items() { return flattenedItems; }
+
     /** Advances to the next item as current item */
     public void next() {
         currentIndex++;
@@ -7,6 +7,7 @@ import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.RuleBaseException;
 import com.yahoo.prelude.semantics.rule.ProductionRule;
 
+import java.util.BitSet;
 import java.util.ListIterator;
 
 /**
@@ -19,10 +20,26 @@ public class RuleEngine {
 
     private RuleBase rules;
 
+    /** The rules of the rule base indexed by the terms which may match them, or null if not compiled */
+    private RuleIndex index=null;
+
     public RuleEngine(RuleBase rules) {
         this.rules=rules;
     }
 
+    /**
+     * Indexes the rules of the rule base such that only the rules which may match a query are evaluated for it.
+     * This must be called again if the rules are changed after it is called.
+     */
+    public void compile() {
+        index=new RuleIndex(rules.rules());
+    }
+
+    /** Discards the rule index if any, such that all rules are evaluated for each query until compile is called */
+    public void uncompile() {
+        index=null;
+    }
+
     /**
      * Evaluates a rule base over a query
      *
@@ -32,19 +49,28 @@ public class RuleEngine {
      *         If there is an error, this query is destroyed (unusable)
      */
     public String evaluate(Query query,int traceLevel) {
-        // TODO: This is O(query size*rule base size). We'll eventually need to create indices
-        //       on rules to look up rule candidates per term to make it O(query size) instead
-        //       Probably create indices on the first term like Prolog implementations use to
-
         boolean matchedAnything=false;
         Evaluation evaluation=new Evaluation(query,traceLevel);
         evaluation.setStemming(rules.getStemming());
         evaluation.trace(2,"Evaluating query '" + evaluation.getQuery().getModel().getQueryTree().getRoot() + "':");
-        for (ListIterator<ProductionRule> i=rules.ruleIterator(); i.hasNext(); ) {
-            evaluation.reset();
-            ProductionRule rule=i.next();
-            boolean matched=matchRuleAtAllStartPoints(evaluation,rule);
-            matchedAnything|=matched;
+        RuleIndex index=this.index;
+        if (index==null) {
+            for (ListIterator<ProductionRule> i=rules.ruleIterator(); i.hasNext(); ) {
+                evaluation.reset();
+                ProductionRule rule=i.next();
+                boolean matched=matchRuleAtAllStartPoints(evaluation,rule);
+                matchedAnything|=matched;
+            }
+        }
+        else {
+            BitSet candidates=index.candidates(evaluation);
+            for (int i=candidates.nextSetBit(0); i>=0; i=candidates.nextSetBit(i+1)) {
+                evaluation.reset();
+                boolean matched=matchRuleAtAllStartPoints(evaluation,index.get(i));
+                if (matched) // the query is changed, so later rules may now match new terms
+                    index.addCandidates(evaluation,candidates);
+                matchedAnything|=matched;
+            }
         }
 
         if (!matchedAnything) return null;
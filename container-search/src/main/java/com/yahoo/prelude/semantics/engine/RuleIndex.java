@@ -0,0 +1,86 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.semantics.engine;
+
+import com.yahoo.prelude.semantics.rule.ProductionRule;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the rules of a rule base by the terms which may cause them to match,
+ * used to find the candidate rules for a query without trying every rule.
+ * A rule where no such terms are known is a candidate for every query.
+ * This is immutable.
+ *
+ * @author agent
+ */
+class RuleIndex {
+
+    /** The indexed rules, in evaluation order */
+    private final List<ProductionRule> rules;
+
+    /** The rules which may match any query */
+    private final BitSet unindexedRules = new BitSet();
+
+    /** The rules which can only match a query containing a term, by term */
+    private final Map<String, int[]> rulesByTerm = new HashMap<>();
+
+    RuleIndex(List<ProductionRule> rules) {
+        this.rules = new ArrayList<>(rules);
+        Map<String, List<Integer>> rulesByTerm = new HashMap<>();
+        for (int i = 0; i < this.rules.size(); i++) {
+            ProductionRule rule = this.rules.get(i);
+            Set<String> terms = rule.getCondition() == null ? null : rule.getCondition().requiredTerms();
+            if (terms == null) {
+                unindexedRules.set(i);
+                continue;
+            }
+            for (String term : terms)
+                rulesByTerm.computeIfAbsent(term, k -> new ArrayList<>(1)).add(i);
+        }
+        for (Map.Entry<String, List<Integer>> entry : rulesByTerm.entrySet())
+            this.rulesByTerm.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /** Returns the rule at the given index */
+    ProductionRule get(int index) { return rules.get(index); }
+
+    /** Returns the number of rules in this */
+    int size() { return rules.size(); }
+
+    /** Returns the number of rules which are candidates for every query */
+    int unindexedSize() { return unindexedRules.cardinality(); }
+
+    /** Returns the indexes of the rules which may match the query of the given evaluation */
+    BitSet candidates(Evaluation evaluation) {
+        BitSet candidates = (BitSet)unindexedRules.clone();
+        addCandidates(evaluation, candidates);
+        return candidates;
+    }
+
+    /** Adds the indexes of the rules which may match the query of the given evaluation to the given set */
+    void addCandidates(Evaluation evaluation, BitSet candidates) {
+        for (FlattenedItem item : evaluation.items()) {
+            String term = item.getItem().stringValue();
+            if (term == null) continue;
+            addCandidates(term, candidates);
+            if (evaluation.getStemming() && term.length() >= 3) { // see TermCondition
+                addCandidates(term + "s", candidates);
+                if (term.endsWith("s"))
+                    addCandidates(term.substring(0, term.length() - 1), candidates);
+            }
+        }
+    }
+
+    private void addCandidates(String term, BitSet candidates) {
+        int[] rules = rulesByTerm.get(term);
+        if (rules == null) return;
+        for (int rule : rules)
+            candidates.set(rule);
+    }
+
+}
@@ -1,7 +1,9 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.prelude.semantics.rule;
 
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 
@@ -26,6 +28,18 @@ public class ChoiceCondition extends CompositeCondition {
         return false;
     }
 
+    /** Returns the union of the required terms of the alternatives, or null if any alternative has none */
+    protected Set<String> requiredTerms(Set<NamedCondition> visited) {
+        if (getNameSpace()!=null) return null;
+        Set<String> terms=new HashSet<>();
+        for (Iterator<Condition> i=conditionIterator(); i.hasNext(); ) {
+            Set<String> subConditionTerms=i.next().requiredTerms(visited);
+            if (subConditionTerms==null) return null;
+            terms.addAll(subConditionTerms);
+        }
+        return terms;
+    }
+
     protected String toInnerString() {
          return toInnerString(", ");
      }
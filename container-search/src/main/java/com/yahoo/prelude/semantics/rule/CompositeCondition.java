@@ -3,6 +3,7 @@ package com.yahoo.prelude.semantics.rule;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
@@ -89,6 +90,21 @@ public abstract class CompositeCondition extends Condition {
         }
     }
 
+    /**
+     * Returns the smallest set of required terms of any subcondition, as all subconditions
+     * must match by default. Conditions matching if any subcondition matches must override this.
+     */
+    protected Set<String> requiredTerms(Set<NamedCondition> visited) {
+        if (getNameSpace()!=null) return null;
+        Set<String> smallest=null;
+        for (Condition condition : conditions) {
+            Set<String> terms=condition.requiredTerms(visited);
+            if (terms!=null && (smallest==null || terms.size()<smallest.size()))
+                smallest=terms;
+        }
+        return smallest;
+    }
+
     /** Whether this should be output with parentheses, default is parent!=null */
     protected boolean useParentheses() {
         return getParent()!=null;
@@ -6,6 +6,9 @@ import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.engine.FlattenedItem;
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Superclass of all kinds of conditions of production rules
  *
@@ -208,6 +211,23 @@ public abstract class Condition {
         return false;
     }
 
+    /**
+     * Returns a set of terms of which at least one must be present in a query for this condition
+     * to match it, or null if this may match queries without any particular term.
+     * This is used to index rules, and is only valid after references are made.
+     */
+    public final Set<String> requiredTerms() {
+        return requiredTerms(new HashSet<>());
+    }
+
+    /**
+     * Override to return the terms of which one is required for this to match.
+     * Returns null (no required terms) by default.
+     *
+     * @param visited the named conditions currently being visited, to avoid following cyclic references
+     */
+    protected Set<String> requiredTerms(Set<NamedCondition> visited) { return null; }
+
     /** Override if references needs to be set in this condition of its children */
     public void makeReferences(RuleBase rules) { }
 
@@ -12,6 +12,7 @@ import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 import com.yahoo.protect.Validator;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A reference to a named condition
@@ -109,6 +110,17 @@ public class ConditionReference extends Condition {
         }
     }
 
+    protected Set<String> requiredTerms(Set<NamedCondition> visited) {
+        if (namedCondition==null) return null; // automata reference, or not initialized
+        if ( ! visited.add(namedCondition)) return null; // recursive reference
+        try {
+            return namedCondition.getCondition().requiredTerms(visited);
+        }
+        finally {
+            visited.remove(namedCondition);
+        }
+    }
+
     protected boolean hasOpenChoicepoint(RuleEvaluation e) {
         if (namedCondition==null) return false;
         return namedCondition.getCondition().hasOpenChoicepoint(e);
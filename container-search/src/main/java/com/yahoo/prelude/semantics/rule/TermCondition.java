@@ -5,6 +5,9 @@ import com.yahoo.prelude.query.TermItem;
 import com.yahoo.prelude.semantics.engine.NameSpace;
 import com.yahoo.prelude.semantics.engine.RuleEvaluation;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * A term in a rule
  *
@@ -57,6 +60,11 @@ public class TermCondition extends Condition {
         }
     }
 
+    protected Set<String> requiredTerms(Set<NamedCondition> visited) {
+        if (getNameSpace()!=null) return null;
+        return Collections.singleton(term);
+    }
+
     /** Returns a non-null replacement term if there is a match, null otherwise */
     private String termMatches(TermItem queryTerm,boolean stemming){
         String queryTermString=queryTerm.stringValue();
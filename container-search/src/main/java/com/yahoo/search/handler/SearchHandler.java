@@ -23,6 +23,7 @@ import com.yahoo.container.logging.AccessLog;
 import com.yahoo.container.protect.FreezeDetector;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.CachingLinguistics;
 import com.yahoo.log.LogLevel;
 import com.yahoo.net.HostName;
 import com.yahoo.net.UriTools;
@@ -81,6 +82,7 @@ public class SearchHandler extends LoggingRequestHandler {
 
     /** Event name for number of connections to the search subsystem */
     private static final String SEARCH_CONNECTIONS = "search_connections";
+    private static final String LINGUISTICS_CACHE_HIT_RATE = "linguistics_cache_hit_rate";
 
     private static Logger log = Logger.getLogger(SearchHandler.class.getName());
 
@@ -107,6 +109,9 @@ public class SearchHandler extends LoggingRequestHandler {
 
     private final Linguistics linguistics;
 
+    /** The linguistics caching the results of query term processing, or null if not caching */
+    private final CachingLinguistics cachingLinguistics;
+
     private final CompiledQueryProfileRegistry queryProfileRegistry;
     
     /** If present, responses from this will set the HTTP response header with this key to the host name of this */
@@ -153,7 +158,14 @@ public class SearchHandler extends LoggingRequestHandler {
         QueryProfileRegistry queryProfileRegistry = QueryProfileConfigurer.createFromConfig(queryProfileConfig);
         this.queryProfileRegistry = queryProfileRegistry.compile();
 
-        this.linguistics = linguistics;
+        if (linguistics != null && clusters.linguisticscachesize() > 0) {
+            this.cachingLinguistics = new CachingLinguistics(linguistics, clusters.linguisticscachesize());
+            this.linguistics = cachingLinguistics;
+        }
+        else {
+            this.cachingLinguistics = null;
+            this.linguistics = linguistics;
+        }
         this.maxThreads = examineExecutor(executor);
 
         searchConnections = new Value(SEARCH_CONNECTIONS, statistics,
@@ -388,6 +400,8 @@ public class SearchHandler extends LoggingRequestHandler {
             execution.context().setDetailedDiagnostics(true);
         }
         Result result = execution.search(query);
+        if (cachingLinguistics != null)
+            metric.set(LINGUISTICS_CACHE_HIT_RATE, cachingLinguistics.getHitRate(), null);
 
         if (result.getTemplating() == null)
             result.getTemplating().setRenderer(renderer);
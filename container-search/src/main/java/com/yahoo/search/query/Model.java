@@ -75,6 +75,7 @@ public class Model implements Cloneable {
     private Language language = null;
     private Locale locale = null;
     private QueryTree queryTree = null; // The query tree to execute. This is lazily created from the program
+    private SharedQueryTree sharedQueryTree = null; // Set instead of queryTree while the query tree is shared with clones
     private String defaultIndex = null;
     private Query.Type type = Query.Type.ALL;
     private Query parent;
@@ -138,8 +139,8 @@ public class Model implements Cloneable {
         language = Language.fromEncoding(encoding);
         if (language != Language.UNKNOWN) return language;
 
-        if (queryTree != null)
-            language = languageBelow(queryTree);
+        if (hasQueryTree())
+            language = languageBelow(getQueryTree());
         if (language != Language.UNKNOWN) return language;
         
         Linguistics linguistics = execution.context().getLinguistics();
@@ -237,6 +238,10 @@ public class Model implements Cloneable {
     public void setQueryString(String queryString) {
         if (queryString==null) queryString="";
         this.queryString = queryString;
+        if (sharedQueryTree != null) {
+            sharedQueryTree.release();
+            sharedQueryTree = null;
+        }
         queryTree=null; // Cause parsing of the new query string next time the tree is accessed
     }
 
@@ -254,6 +259,10 @@ public class Model implements Cloneable {
      * (i.e query parsing is lazy)
      */
     public QueryTree getQueryTree() {
+        if (sharedQueryTree != null) {
+            queryTree = sharedQueryTree.acquire();
+            sharedQueryTree = null;
+        }
         if (queryTree == null) {
             Parser parser = ParserFactory.newInstance(type, ParserEnvironment.fromExecutionContext(execution.context()));
             queryTree = parser.parse(Parsable.fromQueryModel(this));
@@ -264,6 +273,11 @@ public class Model implements Cloneable {
         return queryTree;
     }
 
+    /** Returns whether this has a query tree, such that accessing it does not cause parsing */
+    private boolean hasQueryTree() {
+        return queryTree != null || sharedQueryTree != null;
+    }
+
     /**
      * Returns the filter string set for this query.
      * The filter is included in the query tree at the time the query tree is parsed
@@ -324,7 +338,7 @@ public class Model implements Cloneable {
                 QueryHelper.equals(other.type, this.type) ))
             return false;
 
-        if (other.queryTree == null && this.queryTree == null) // don't cause query parsing
+        if ( ! other.hasQueryTree() && ! this.hasQueryTree()) // don't cause query parsing
             return QueryHelper.equals(other.queryString, this.queryString) &&
                    QueryHelper.equals(other.filter, this.filter);
         else // make sure we compare a parsed variant of both
@@ -341,8 +355,15 @@ public class Model implements Cloneable {
     public Object clone() {
         try {
             Model clone = (Model) super.clone();
-            if (queryTree != null)
-                clone.queryTree = this.queryTree.clone();
+            if (queryTree != null) { // share the query tree until it is accessed
+                sharedQueryTree = new SharedQueryTree(queryTree);
+                queryTree = null;
+            }
+            clone.queryTree = null;
+            if (sharedQueryTree != null) {
+                sharedQueryTree.addOwner();
+                clone.sharedQueryTree = sharedQueryTree;
+            }
             if (sources !=null)
                 clone.sources = new LinkedHashSet<>(this.sources);
             if (restrict !=null)
@@ -437,7 +458,7 @@ public class Model implements Cloneable {
 
     @Override
     public String toString() {
-        return "query representation [queryTree: " + queryTree + ", filter: " + filter + "]";
+        return "query representation [queryTree: " + (hasQueryTree() ? getQueryTree() : null) + ", filter: " + filter + "]";
     }
 
     /** Prepares this for binary serialization. For internal use. */
@@ -543,4 +564,37 @@ public class Model implements Cloneable {
         return null;
     }
 
+    /**
+     * A query tree shared by a model and its clones until they access it.
+     * Each owner but the last to access it gets a copy, such that cloning a model
+     * is cheap when the clone or the original does not access the query tree.
+     */
+    private static final class SharedQueryTree {
+
+        private final QueryTree queryTree;
+
+        /** The number of models sharing this query tree */
+        private int owners = 1;
+
+        SharedQueryTree(QueryTree queryTree) {
+            this.queryTree = queryTree;
+        }
+
+        synchronized void addOwner() {
+            owners++;
+        }
+
+        /** Returns the query tree for exclusive use by the calling owner, which must not call this again */
+        synchronized QueryTree acquire() {
+            if (--owners == 0) return queryTree;
+            return queryTree.clone();
+        }
+
+        /** Gives up ownership of this query tree without using it */
+        synchronized void release() {
+            owners--;
+        }
+
+    }
+
 }
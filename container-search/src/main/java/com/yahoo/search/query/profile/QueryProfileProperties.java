@@ -31,6 +31,8 @@ public class QueryProfileProperties extends Properties {
 
     /** Values which has been overridden at runtime, or null if none */
     private Map<CompoundName, Object> values = null;
+    /** Whether the values map is shared with a clone of this and must be copied before it is modified */
+    private boolean valuesShared = false;
     /** Query profile references which has been overridden at runtime, or null if none. Earlier values has precedence */
     private List<Pair<CompoundName, CompiledQueryProfile>> references = null;
 
@@ -123,6 +125,9 @@ public class QueryProfileProperties extends Properties {
             else {
                 if (values == null)
                     values = new HashMap<>();
+                else if (valuesShared)
+                    values = new HashMap<>(values);
+                valuesShared = false;
                 values.put(name, value);
             }
         }
@@ -250,8 +255,16 @@ public class QueryProfileProperties extends Properties {
     @Override
     public QueryProfileProperties clone() {
         QueryProfileProperties clone = (QueryProfileProperties)super.clone();
-        if (this.values != null)
+        if (this.values == null) return clone;
+
+        if (com.yahoo.search.query.properties.PropertyMap.hasOnlyImmutableValues(this.values)) { // share until changed
+            this.valuesShared = true;
+            clone.valuesShared = true;
+        }
+        else {
             clone.values = PropertyMap.cloneMap(this.values);
+            clone.valuesShared = false;
+        }
         return clone;
     }
 
@@ -9,9 +9,14 @@ import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.SubstituteString;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,6 +29,9 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
 
     private static final Pattern namePattern=Pattern.compile("[$a-zA-Z_/][-$a-zA-Z0-9_/()]*");
 
+    /** The max number of distinct dimension bindings to keep resolved values for */
+    private static final int maxResolvedValues = 128;
+
     private final CompiledQueryProfileRegistry registry;
 
     /** The type of this, or null if none */
@@ -41,6 +49,15 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
     /** Values which are not overridable in this. Used as a set. */
     private final DimensionalMap<CompoundName, Object> unoverridables;
 
+    /** The dimensions the values of this depends on */
+    private final String[] dimensions;
+
+    /** The values of this resolved for a binding of the dimensions, by binding. Access must synchronize on this. */
+    private final ResolvedValuesCache resolvedValues = new ResolvedValuesCache(maxResolvedValues);
+
+    /** The values of this if it has no dimensions, null otherwise */
+    private final ResolvedValues dimensionlessValues;
+
     /**
      * Creates a new query profile from an id.
      */
@@ -59,6 +76,8 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         this.types = types;
         this.references = references;
         this.unoverridables = unoverridables;
+        this.dimensions = dimensionsOf(entries);
+        this.dimensionlessValues = dimensions.length == 0 ? new ResolvedValues(Collections.emptyMap()) : null;
         if ( ! id.isAnonymous())
             validateName(id.getName());
     }
@@ -129,14 +148,11 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
      */
     public Map<String, Object> listValues(CompoundName prefix, Map<String,String> context, Properties substitution) {
         Map<String, Object> values = new HashMap<>();
-        for (Map.Entry<CompoundName, DimensionalValue<Object>> entry : entries.entrySet()) {
+        for (Map.Entry<CompoundName, Object> entry : getValues(context).entrySet()) {
             if ( entry.getKey().size() <= prefix.size()) continue;
             if ( ! entry.getKey().hasPrefix(prefix)) continue;
 
-            Object value = entry.getValue().get(context);
-            if (value == null) continue;
-
-            value = substitute(value, context, substitution);
+            Object value = substitute(entry.getValue(), context, substitution);
             CompoundName suffixName = entry.getKey().rest(prefix.size());
             values.put(suffixName.toString(), value);
         }
@@ -153,7 +169,54 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return get(new CompoundName(name), context, substitution);
     }
     public final Object get(CompoundName name, Map<String, String> context, Properties substitution) {
-        return substitute(entries.get(name, context), context, substitution);
+        return substitute(resolvedValues(context).get(name), context, substitution);
+    }
+
+    /**
+     * Returns all the values of this in the given context, without substitution, as an immutable map.
+     * The values are resolved once for each distinct binding of the dimensions of this and cached,
+     * such that looking up many values in the same context is cheap.
+     *
+     * @param context the context in which to resolve, or null if none
+     */
+    public Map<CompoundName, Object> getValues(Map<String, String> context) {
+        return resolvedValues(context).all();
+    }
+
+    /**
+     * Returns the values of this for the binding of the dimensions of this in the given context.
+     * At most {@link #maxResolvedValues} bindings are kept. When more are used, the least recently used
+     * binding is dropped.
+     */
+    private ResolvedValues resolvedValues(Map<String, String> context) {
+        if (dimensionlessValues != null) return dimensionlessValues;
+
+        ValuesKey key = new ValuesKey(dimensions, context);
+        synchronized (resolvedValues) {
+            ResolvedValues values = resolvedValues.get(key);
+            if (values == null) {
+                values = new ResolvedValues(key.toContext(dimensions));
+                resolvedValues.put(key, values);
+            }
+            return values;
+        }
+    }
+
+    private Map<CompoundName, Object> resolveValues(Map<String, String> context) {
+        Map<CompoundName, Object> values = new HashMap<>();
+        for (Map.Entry<CompoundName, DimensionalValue<Object>> entry : entries.entrySet()) {
+            Object value = entry.getValue().get(context);
+            if (value != null)
+                values.put(entry.getKey(), value);
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static String[] dimensionsOf(DimensionalMap<CompoundName, Object> entries) {
+        Set<String> dimensions = new LinkedHashSet<>();
+        for (Map.Entry<CompoundName, DimensionalValue<Object>> entry : entries.entrySet())
+            entry.getValue().addDimensionsTo(dimensions);
+        return dimensions.toArray(new String[dimensions.size()]);
     }
 
     private Object substitute(Object value, Map<String,String> context, Properties substitution) {
@@ -180,4 +243,98 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return "query profile '" + getId()  + "'" + (type!=null ? " of type '" + type.getId() + "'" : "");
     }
 
+    /** The values of the dimensions of a profile in some context */
+    private static final class ValuesKey {
+
+        private final String[] values;
+        private final int hashCode;
+
+        ValuesKey(String[] dimensions, Map<String, String> context) {
+            values = new String[dimensions.length];
+            if (context != null) {
+                for (int i = 0; i < dimensions.length; i++)
+                    values[i] = context.get(dimensions[i]);
+            }
+            hashCode = Arrays.hashCode(values);
+        }
+
+        /** Returns the context containing just the values of this, given the dimensions this was created from */
+        Map<String, String> toContext(String[] dimensions) {
+            Map<String, String> context = new HashMap<>();
+            for (int i = 0; i < dimensions.length; i++) {
+                if (values[i] != null)
+                    context.put(dimensions[i], values[i]);
+            }
+            return Collections.unmodifiableMap(context);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof ValuesKey)) return false;
+            return Arrays.equals(this.values, ((ValuesKey)o).values);
+        }
+
+    }
+
+    /** A map of resolved values which drops the least recently used binding when it grows beyond a max size */
+    @SuppressWarnings("serial")
+    private static class ResolvedValuesCache extends LinkedHashMap<ValuesKey, ResolvedValues> {
+
+        private final int maxSize;
+
+        ResolvedValuesCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ValuesKey, ResolvedValues> entry) {
+            return size() > maxSize;
+        }
+
+    }
+
+    /** The values of this for one binding of its dimensions, each resolved when first requested */
+    private final class ResolvedValues {
+
+        private final Map<String, String> context;
+
+        /** The values resolved so far. Names without a value are not cached, as they may be any name. */
+        private final Map<CompoundName, Object> values = new ConcurrentHashMap<>();
+
+        /** All the values of this, or null if they have not been requested */
+        private volatile Map<CompoundName, Object> allValues = null;
+
+        ResolvedValues(Map<String, String> context) {
+            this.context = context;
+        }
+
+        /** Returns the value of the given name, or null if none */
+        Object get(CompoundName name) {
+            Map<CompoundName, Object> all = allValues;
+            if (all != null) return all.get(name);
+
+            Object value = values.get(name);
+            if (value == null) {
+                value = entries.get(name, context);
+                if (value != null)
+                    values.put(name, value);
+            }
+            return value;
+        }
+
+        /** Returns all the values, as an immutable map */
+        Map<CompoundName, Object> all() {
+            Map<CompoundName, Object> all = allValues;
+            if (all == null) // resolving concurrently in multiple threads is harmless
+                allValues = all = resolveValues(context);
+            return all;
+        }
+
+    }
+
 }
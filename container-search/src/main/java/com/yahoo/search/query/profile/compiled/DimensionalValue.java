@@ -4,6 +4,7 @@ package com.yahoo.search.query.profile.compiled;
 import com.yahoo.search.query.profile.DimensionBinding;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,6 +49,12 @@ public class DimensionalValue<VALUE> {
 
     public boolean isEmpty() { return values.isEmpty(); }
 
+    /** Adds the dimensions which some value of this depends on to the given collection */
+    void addDimensionsTo(Collection<String> dimensions) {
+        for (Value<VALUE> value : values)
+            value.binding().addDimensionsTo(dimensions);
+    }
+
     @Override
     public String toString() {
         return values.toString();
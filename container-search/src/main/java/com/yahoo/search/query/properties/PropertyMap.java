@@ -10,7 +10,8 @@ import java.util.HashMap;
  * A Map backing of Properties.
  * <p>
  * When this is cloned it will deep copy not only the model object map, but also each
- * clonable member inside the map.
+ * clonable member inside the map. If there are no clonable members, the map is instead shared
+ * with the clone until either of them changes it.
  * <p>
  * Subclassing is supported, a hook can be implemented to provide conditional inclusion in the map.
  * By default - all properties are accepted, so set is never propagated.
@@ -26,11 +27,17 @@ public class PropertyMap extends Properties {
     /** The properties of this */
     private Map<CompoundName, Object> properties = new LinkedHashMap<>();
 
+    /** Whether the properties map is shared with a clone of this and must be copied before it is modified */
+    private boolean propertiesShared = false;
+
     public void set(CompoundName name, Object value, Map<String,String> context) {
-        if (shouldSet(name, value))
+        if (shouldSet(name, value)) {
+            ensurePropertiesOwned();
             properties.put(name, value);
-        else
+        }
+        else {
             super.set(name, value, context);
+        }
     }
 
     /**
@@ -50,12 +57,26 @@ public class PropertyMap extends Properties {
      * Returns a direct reference to the map containing the properties set in this instance.
      */
     public Map<CompoundName, Object> propertyMap() {
+        ensurePropertiesOwned();
         return properties;
     }
 
+    private void ensurePropertiesOwned() {
+        if ( ! propertiesShared) return;
+        properties = new LinkedHashMap<>(properties);
+        propertiesShared = false;
+    }
+
     @Override
     public PropertyMap clone() {
         PropertyMap clone = (PropertyMap)super.clone();
+        if (hasOnlyImmutableValues(properties)) { // share until changed
+            propertiesShared = true;
+            clone.propertiesShared = true;
+            return clone;
+        }
+
+        clone.propertiesShared = false;
         clone.properties = new HashMap<>();
         for (Map.Entry<CompoundName, Object> entry : this.properties.entrySet()) {
             Object cloneValue = cloneHelper.clone(entry.getValue());
@@ -79,6 +100,16 @@ public class PropertyMap extends Properties {
         return map;
     }
 
+    /**
+     * Returns whether no values in the given map are clonable, such that a shallow copy of the map
+     * is equivalent to a deep copy. Values which are not clonable are not copied when cloning properties.
+     */
+    public static boolean hasOnlyImmutableValues(Map<?, ?> map) {
+        for (Object value : map.values())
+            if (value instanceof Cloneable) return false;
+        return true;
+    }
+
     /** Clones this object if it is clonable, and the clone is public. Returns null if not */
     public static Object clone(Object object) {
         return cloneHelper.clone(object);
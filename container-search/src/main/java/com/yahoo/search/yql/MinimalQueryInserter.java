@@ -2,6 +2,10 @@
 package com.yahoo.search.yql;
 
 import com.google.common.annotations.Beta;
+import com.google.inject.Inject;
+import com.yahoo.metrics.simple.Gauge;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.metrics.simple.MetricSettings;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
@@ -18,6 +22,8 @@ import com.yahoo.yolean.chain.After;
 import com.yahoo.yolean.chain.Before;
 import com.yahoo.yolean.chain.Provides;
 
+import java.util.Optional;
+
 /**
  * Minimal combinator for YQL+ syntax and heuristically parsed user queries.
  *
@@ -36,7 +42,21 @@ public class MinimalQueryInserter extends Searcher {
     private static final CompoundName MAX_HITS = new CompoundName("maxHits");
     private static final CompoundName MAX_OFFSET = new CompoundName("maxOffset");
 
+    /** The max number of distinct YQL program shapes to keep parsed programs for */
+    private static final int PROGRAM_CACHE_SIZE = 1000;
+
+    private final YqlProgramCache programCache;
+    private final Gauge parseTime;
+
     public MinimalQueryInserter() {
+        this(MetricReceiver.nullImplementation);
+    }
+
+    @Inject
+    public MinimalQueryInserter(MetricReceiver metrics) {
+        programCache = new YqlProgramCache(PROGRAM_CACHE_SIZE, metrics);
+        parseTime = metrics.declareGauge("yql_parse_time", Optional.empty(),
+                                         new MetricSettings.Builder().histogram(true).build());
     }
 
     @Override
@@ -48,7 +68,9 @@ public class MinimalQueryInserter extends Searcher {
         YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
         parser.setQueryParser(false);
         parser.setUserQuery(query);
+        parser.setProgramCache(programCache);
         QueryTree newTree;
+        long startTime = System.nanoTime();
         try {
             newTree = parser.parse(Parsable.fromQueryModel(query.getModel())
                                            .setQuery(query.properties().getString(YQL)));
@@ -56,6 +78,7 @@ public class MinimalQueryInserter extends Searcher {
             return new Result(query, ErrorMessage.createInvalidQueryParameter(
                               "Could not instantiate query from YQL", e));
         }
+        parseTime.sample((System.nanoTime() - startTime) / 1_000_000.0);
         if (parser.getOffset() != null) {
             int maxHits = query.properties().getInteger(MAX_HITS);
             int maxOffset = query.properties().getInteger(MAX_OFFSET);
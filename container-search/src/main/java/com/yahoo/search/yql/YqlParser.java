@@ -198,6 +198,7 @@ public class YqlParser implements Parser {
     private Version segmenterVersion;
     private boolean queryParser = true;
     private boolean resegment = false;
+    private YqlProgramCache programCache = null;
     private final Deque<OperatorNode<?>> annotationStack = new ArrayDeque<>();
     private final ParserEnvironment environment;
 
@@ -728,7 +729,10 @@ public class YqlParser implements Parser {
     private OperatorNode<?> parseYqlProgram() {
         OperatorNode<?> ast;
         try {
-            ast = new ProgramParser().parse("query", currentlyParsing.getQuery());
+            if (programCache != null)
+                ast = programCache.parse(currentlyParsing.getQuery());
+            else
+                ast = new ProgramParser().parse("query", currentlyParsing.getQuery());
         } catch (Exception e) {
             throw new IllegalArgumentException(e);
         }
@@ -1465,6 +1469,9 @@ public class YqlParser implements Parser {
     @Beta
     public void setUserQuery(@NonNull Query userQuery) { this.userQuery = userQuery; }
 
+    /** Sets a cache of parsed programs to use and update when parsing, or null (default) to parse every program */
+    void setProgramCache(YqlProgramCache programCache) { this.programCache = programCache; }
+
     @Beta
     public Set<String> getYqlSummaryFields() { return yqlSummaryFields; }
 
@@ -0,0 +1,211 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.yahoo.metrics.simple.Counter;
+import com.yahoo.metrics.simple.MetricReceiver;
+import org.antlr.v4.runtime.RecognitionException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of parsed YQL programs, keyed by the shape of the program: The program text with each
+ * string literal replaced by a parameter marker. Programs which differ only in their string literals
+ * (typically the terms searched for) are parsed once, and the parsed program is reused by binding the
+ * literals of each program to the parameters of the cached one.
+ * <p>
+ * Programs where some string literal is not a plain value in the parsed program are parsed each time,
+ * and counted as misses.
+ * <p>
+ * This is thread safe.
+ *
+ * @author agent
+ */
+final class YqlProgramCache {
+
+    private static final char markerChar = '\u0001';
+
+    private final Map<String, Template> templates;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates a program cache
+     *
+     * @param maxSize the max number of program shapes to keep
+     * @param metrics the receiver of the cache hit and miss counts
+     */
+    YqlProgramCache(int maxSize, MetricReceiver metrics) {
+        this.templates = Collections.synchronizedMap(new TemplateMap(maxSize));
+        this.hits = metrics.declareCounter("yql_program_cache_hits");
+        this.misses = metrics.declareCounter("yql_program_cache_misses");
+    }
+
+    /** Returns the parsed form of the given YQL program. The returned program may be modified by the caller. */
+    OperatorNode<?> parse(String program) throws IOException, RecognitionException {
+        Shape shape = Shape.of(program);
+        if (shape == null) return new ProgramParser().parse("query", program); // unterminated string: Fail in the parser
+
+        Template template = templates.get(shape.text);
+        if (template != null && template.isBindable()) {
+            hits.add();
+            return template.bind(shape.values);
+        }
+
+        misses.add();
+        if (template != null) return new ProgramParser().parse("query", program); // known not to be bindable
+        OperatorNode<?> parsedShape;
+        try {
+            parsedShape = new ProgramParser().parse("query", shape.text);
+        }
+        catch (Exception e) { // report errors in terms of the original program
+            return new ProgramParser().parse("query", program);
+        }
+        template = new Template(parsedShape);
+        Set<String> boundMarkers = new HashSet<>();
+        OperatorNode<?> bound = template.bind(shape.values, boundMarkers);
+        if (boundMarkers.size() != shape.values.size()) { // some literal is not used as a plain value
+            templates.put(shape.text, Template.unbindable);
+            return new ProgramParser().parse("query", program);
+        }
+        templates.put(shape.text, template);
+        return bound;
+    }
+
+    /** Returns the number of program shapes currently cached */
+    int size() { return templates.size(); }
+
+    /** A program with its string literals replaced by markers, and the values of those literals by marker */
+    static final class Shape {
+
+        final String text;
+        final Map<String, String> values;
+
+        private Shape(String text, Map<String, String> values) {
+            this.text = text;
+            this.values = values;
+        }
+
+        /** Returns the shape of the given program, or null if it contains an unterminated string */
+        static Shape of(String program) {
+            StringBuilder text = new StringBuilder(program.length());
+            Map<String, String> values = new HashMap<>();
+            int i = 0;
+            while (i < program.length()) {
+                char c = program.charAt(i);
+                if (c != '"' && c != '\'') {
+                    text.append(c);
+                    i++;
+                    continue;
+                }
+
+                int end = endOfString(program, i);
+                if (end < 0) return null;
+                String marker = markerChar + String.valueOf(values.size()) + markerChar;
+                values.put(marker, StringUnescaper.unquote(program.substring(i, end)));
+                text.append('"').append(marker).append('"');
+                i = end;
+            }
+            return new Shape(text.toString(), values);
+        }
+
+        /** Returns the index after the string starting at the given quote, or -1 if it is not terminated */
+        private static int endOfString(String program, int start) {
+            char quote = program.charAt(start);
+            for (int i = start + 1; i < program.length(); i++) {
+                char c = program.charAt(i);
+                if (c == '\\')
+                    i++;
+                else if (c == quote)
+                    return i + 1;
+            }
+            return -1;
+        }
+
+    }
+
+    /** A parsed program shape */
+    private static final class Template {
+
+        static final Template unbindable = new Template(null);
+
+        private final OperatorNode<?> program;
+
+        Template(OperatorNode<?> program) {
+            this.program = program;
+        }
+
+        boolean isBindable() { return program != null; }
+
+        OperatorNode<?> bind(Map<String, String> values) {
+            return bind(values, new HashSet<>());
+        }
+
+        /** Returns a copy of the program of this where all markers are replaced by their values */
+        OperatorNode<?> bind(Map<String, String> values, Set<String> boundMarkers) {
+            return (OperatorNode<?>)bindValue(program, values, boundMarkers);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Object bindValue(Object value, Map<String, String> values, Set<String> boundMarkers) {
+            if (value instanceof String) {
+                String boundValue = values.get(value);
+                if (boundValue == null) return value;
+                boundMarkers.add((String)value);
+                return boundValue;
+            }
+            else if (value instanceof OperatorNode) {
+                OperatorNode<?> node = (OperatorNode<?>)value;
+                Object[] arguments = new Object[node.getArguments().length];
+                for (int i = 0; i < arguments.length; i++)
+                    arguments[i] = bindValue(node.getArguments()[i], values, boundMarkers);
+                Map<String, Object> annotations = (Map<String, Object>)bindValue(node.getAnnotations(), values, boundMarkers);
+                return OperatorNode.create(node.getLocation(), annotations, node.getOperator(), arguments);
+            }
+            else if (value instanceof List) {
+                List<Object> boundList = new ArrayList<>(((List<?>)value).size());
+                for (Object element : (List<?>)value)
+                    boundList.add(bindValue(element, values, boundMarkers));
+                return value instanceof ImmutableList ? ImmutableList.copyOf(boundList) : boundList;
+            }
+            else if (value instanceof Map) {
+                ImmutableMap.Builder<Object, Object> boundMap = ImmutableMap.builder();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet())
+                    boundMap.put(bindValue(entry.getKey(), values, boundMarkers),
+                                 bindValue(entry.getValue(), values, boundMarkers));
+                return boundMap.build();
+            }
+            else { // numbers, booleans and other immutable values
+                return value;
+            }
+        }
+
+    }
+
+    @SuppressWarnings("serial")
+    private static class TemplateMap extends LinkedHashMap<String, Template> {
+
+        private final int maxSize;
+
+        TemplateMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> entry) {
+            return size() > maxSize;
+        }
+
+    }
+
+}
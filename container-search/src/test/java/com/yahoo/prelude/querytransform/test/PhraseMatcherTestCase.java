@@ -2,7 +2,9 @@
 package com.yahoo.prelude.querytransform.test;
 
 import com.yahoo.prelude.query.AndItem;
+import com.yahoo.prelude.query.CompositeItem;
 import com.yahoo.prelude.query.IntItem;
+import com.yahoo.prelude.query.OrItem;
 import com.yahoo.prelude.query.WordItem;
 import com.yahoo.prelude.querytransform.PhraseMatcher;
 
@@ -249,4 +251,51 @@ public class PhraseMatcherTestCase extends junit.framework.TestCase {
         assertEquals("test",i.getReplace());
         assertFalse(i.hasNext());
     }
+
+    public void testLongestPhraseMatchingInNestedComposites() {
+        PhraseMatcher matcher=new PhraseMatcher("src/test/java/com/yahoo/prelude/querytransform/test/test-fsa.fsa");
+        AndItem and=new AndItem();
+        and.addItem(new WordItem("noisebefore"));
+        and.addItem(new WordItem("this"));
+        and.addItem(new WordItem("is"));
+        and.addItem(new WordItem("a"));
+        and.addItem(new WordItem("test"));
+        OrItem or=new OrItem();
+        or.addItem(new WordItem("noise"));
+        or.addItem(new WordItem("AWord"));
+        and.addItem(or);
+        and.addItem(new WordItem("tudor"));
+        and.addItem(new WordItem("vidor"));
+        List<PhraseMatcher.Phrase> matches=matcher.matchPhrases(and);
+
+        assertNotNull(matches);
+        assertEquals(3,matches.size());
+        assertPhrase(and,1,4,matches.get(0));
+        assertPhrase(or,1,1,matches.get(1));
+        assertPhrase(and,6,2,matches.get(2));
+    }
+
+    public void testPhrasesDoNotSpanIndexes() {
+        PhraseMatcher matcher=new PhraseMatcher("src/test/java/com/yahoo/prelude/querytransform/test/test-fsa.fsa");
+        AndItem and=new AndItem();
+        and.addItem(new WordItem("this"));
+        and.addItem(new WordItem("is"));
+        and.addItem(new WordItem("a"));
+        and.addItem(new WordItem("test", "title"));
+        and.addItem(new WordItem("tudor", "title"));
+        and.addItem(new WordItem("vidor", "title"));
+        List<PhraseMatcher.Phrase> matches=matcher.matchPhrases(and);
+
+        assertNotNull(matches);
+        assertEquals(1,matches.size());
+        assertPhrase(and,4,2,matches.get(0));
+    }
+
+    private void assertPhrase(CompositeItem owner,int startIndex,int length,PhraseMatcher.Phrase phrase) {
+        assertEquals(owner,phrase.getOwner());
+        assertEquals(startIndex,phrase.getStartIndex());
+        assertEquals(length,phrase.getLength());
+        assertEquals("",phrase.getData());
+    }
+
 }
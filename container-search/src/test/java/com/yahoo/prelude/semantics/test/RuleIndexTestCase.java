@@ -0,0 +1,83 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.semantics.test;
+
+import com.yahoo.prelude.semantics.RuleBase;
+import com.yahoo.prelude.semantics.parser.ParseException;
+import com.yahoo.prelude.semantics.rule.ProductionRule;
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests indexing of rules by the terms they require
+ *
+ * @author agent
+ */
+public class RuleIndexTestCase extends junit.framework.TestCase {
+
+    public RuleIndexTestCase(String name) {
+        super(name);
+    }
+
+    public void testRequiredTerms() throws IOException, ParseException {
+        RuleBase rules = RuleBase.createFromString("test",
+                                                   "[brand] :- sony, canon, [camera];\n" +
+                                                   "[camera] :- digital camera, slr;\n" +
+                                                   "[brand] -> brand:[brand];\n" +
+                                                   "foo bar baz +> qux;\n" +
+                                                   "digital [brand] +> qux;\n" +
+                                                   "[...] foo +> qux;\n" +
+                                                   "!foo +> qux;\n",
+                                                   null);
+        assertEquals(set("sony", "canon", "digital", "slr"), requiredTerms(rules, 0));
+        assertEquals(set("foo"), requiredTerms(rules, 1));
+        assertEquals(set("digital"), requiredTerms(rules, 2));
+        assertEquals(set("foo"), requiredTerms(rules, 3));
+        assertNull(requiredTerms(rules, 4));
+    }
+
+    public void testRulesMatchingProducedTermsAreEvaluated() throws IOException, ParseException {
+        RuleBase rules = RuleBase.createFromString("test",
+                                                   "foo -> bar;\n" +
+                                                   "bar -> baz;\n" +
+                                                   "cars -> vehicles;\n",
+                                                   null);
+        assertAnalyzed("baz", "foo", rules);
+        assertAnalyzed("baz", "bar", rules);
+        assertAnalyzed("vehicles", "car", rules);
+        assertAnalyzed("qux", "qux", rules);
+    }
+
+    public void testRulesAreEvaluatedInOrder() throws IOException, ParseException {
+        RuleBase rules = RuleBase.createFromString("test",
+                                                   "bar -> baz;\n" +
+                                                   "foo -> bar;\n",
+                                                   null);
+        assertAnalyzed("bar", "foo", rules);
+    }
+
+    public void testRulesAddedAfterInitializationAreEvaluated() throws IOException, ParseException {
+        RuleBase rules = RuleBase.createFromString("test", "foo -> bar;\n", null);
+        ProductionRule rule = RuleBase.createFromString("other", "bar -> baz;\n", null).rules().get(0);
+        rules.addRule(rule);
+        assertAnalyzed("baz", "foo", rules);
+    }
+
+    private Set<String> requiredTerms(RuleBase rules, int ruleIndex) {
+        return rules.rules().get(ruleIndex).getCondition().requiredTerms();
+    }
+
+    private void assertAnalyzed(String expected, String queryString, RuleBase rules) {
+        Query query = new Query("?query=" + queryString);
+        rules.analyze(query, 0);
+        assertEquals(expected, query.getModel().getQueryTree().getRoot().toString());
+    }
+
+    private Set<String> set(String ... terms) {
+        return new HashSet<>(Arrays.asList(terms));
+    }
+
+}
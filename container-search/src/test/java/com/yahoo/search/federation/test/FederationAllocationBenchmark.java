@@ -0,0 +1,75 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.federation.test;
+
+import com.yahoo.prelude.query.AndItem;
+import com.yahoo.prelude.query.WordItem;
+import com.yahoo.search.Query;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated per federated query to 10 sources,
+ * most of which is spent cloning the query per source.
+ *
+ * @author agent
+ */
+public class FederationAllocationBenchmark {
+
+    private static final int sourceCount = 10;
+
+    public void run() {
+        FederationTester tester = new FederationTester();
+        for (int i = 0; i < sourceCount; i++)
+            tester.addSearchChain("source" + i, new AddHitsWithRelevanceSearcher("source" + i, i + 1));
+
+        out("Warming up...");
+        for (int i = 0; i < 10000; i++)
+            tester.search(createQuery());
+
+        out("Running...");
+        int queries = 10000;
+        long queryBytes = 0, cloneBytes = 0;
+        for (int i = 0; i < queries; i++) {
+            Query query = createQuery();
+            long start = allocatedBytes();
+            tester.search(query);
+            queryBytes += allocatedBytes() - start;
+
+            start = allocatedBytes();
+            query.clone();
+            cloneBytes += allocatedBytes() - start;
+        }
+        out("Allocated " + (queryBytes / queries) + " bytes per query federated to " + sourceCount + " sources");
+        out("Allocated " + (cloneBytes / queries) + " bytes per query clone");
+    }
+
+    private Query createQuery() {
+        Query query = new Query("?query=ignored&hits=20&ranking=myprofile&ranking.features.query(weight)=0.5" +
+                                "&presentation.summary=mysummary&custom1=value1&custom2=value2&custom3=value3");
+        AndItem and = new AndItem();
+        for (int i = 0; i < 50; i++)
+            and.addItem(new WordItem("word" + i, "default"));
+        query.getModel().getQueryTree().setRoot(and);
+        return query;
+    }
+
+    /** Returns the bytes allocated by all threads, as federation may execute sources in other threads */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( ! (bean instanceof com.sun.management.ThreadMXBean)) return 0;
+        long bytes = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(bean.getAllThreadIds()))
+            if (allocated > 0)
+                bytes += allocated;
+        return bytes;
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) {
+        new FederationAllocationBenchmark().run();
+    }
+
+}
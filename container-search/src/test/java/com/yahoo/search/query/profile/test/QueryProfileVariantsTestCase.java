@@ -3,6 +3,7 @@ package com.yahoo.search.query.profile.test;
 
 import com.yahoo.jdisc.http.HttpRequest.Method;
 import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.profile.BackedOverridableQueryProfile;
@@ -204,6 +205,51 @@ public class QueryProfileVariantsTestCase extends junit.framework.TestCase {
         assertEquals(null,ctest.get("InX1Only"));
     }
 
+    public void testValuesAreResolvedOncePerBinding() {
+        QueryProfile test=new QueryProfile("test");
+        test.setDimensions(new String[] {"x","y"});
+        test.set("a","a.default", (QueryProfileRegistry)null);
+        test.set("b","b.default", (QueryProfileRegistry)null);
+        test.set("a","a.x1",new String[] {"x1"}, null);
+        test.set("b","b.x1.y1",new String[] {"x1","y1"}, null);
+
+        CompiledQueryProfile ctest = test.compile(null);
+
+        Map<CompoundName, Object> x1y1 = ctest.getValues(toMap("x=x1", "y=y1"));
+        assertEquals("a.x1", x1y1.get(new CompoundName("a")));
+        assertEquals("b.x1.y1", x1y1.get(new CompoundName("b")));
+        assertSame(x1y1, ctest.getValues(toMap("x=x1", "y=y1", "z=ignored")));
+
+        Map<CompoundName, Object> x1y2 = ctest.getValues(toMap("x=x1", "y=y2"));
+        assertNotSame(x1y1, x1y2);
+        assertEquals("a.x1", x1y2.get(new CompoundName("a")));
+        assertEquals("b.default", x1y2.get(new CompoundName("b")));
+        assertEquals("a.default", ctest.getValues(null).get(new CompoundName("a")));
+
+        try {
+            x1y1.put(new CompoundName("c"), "c");
+            fail("Expected resolved values to be immutable");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testValuesWithMoreBindingsThanAreCached() {
+        QueryProfile test=new QueryProfile("test");
+        test.setDimensions(new String[] {"x"});
+        test.set("a","a.default", (QueryProfileRegistry)null);
+        test.set("a","a.x1",new String[] {"x1"}, null);
+
+        CompiledQueryProfile ctest = test.compile(null);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("a.default", ctest.get("a", toMap("x=other" + i)));
+            assertEquals("a.x1", ctest.get("a", toMap("x=x1")));
+            assertNull(ctest.get("b", toMap("x=x1")));
+        }
+        assertEquals("a.x1", ctest.getValues(toMap("x=x1")).get(new CompoundName("a")));
+    }
+
     public void testDimensionsInSuperType() {
         QueryProfile parent=new QueryProfile("parent");
         parent.setDimensions(new String[] {"x","y"});
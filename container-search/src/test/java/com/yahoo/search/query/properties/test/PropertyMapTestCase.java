@@ -31,6 +31,32 @@ public class PropertyMapTestCase extends junit.framework.TestCase {
         assertTrue(first(map.get("nonclonableArray")) == first(mapClone.get("nonclonableArray")));
     }
 
+    public void testCopyOnWriteCloning() {
+        com.yahoo.search.query.properties.PropertyMap map = new com.yahoo.search.query.properties.PropertyMap();
+        map.set("a", "a1");
+        map.set("b", 1);
+
+        com.yahoo.search.query.properties.PropertyMap mapClone = map.clone();
+        assertSame(map.propertyMap().get("a"), mapClone.get("a"));
+        mapClone.set("a", "a2");
+        mapClone.set("c", "c2");
+        map.set("b", 2);
+        assertEquals("a1", map.get("a"));
+        assertEquals(2, map.get("b"));
+        assertNull(map.get("c"));
+        assertEquals("a2", mapClone.get("a"));
+        assertEquals(1, mapClone.get("b"));
+        assertEquals("c2", mapClone.get("c"));
+
+        com.yahoo.search.query.properties.PropertyMap secondClone = map.clone();
+        secondClone.propertyMap().remove("a");
+        assertEquals("a1", map.get("a"));
+        assertNull(secondClone.get("a"));
+
+        map.set("clonable", new ClonableObject());
+        assertNotSame(map.get("clonable"), map.clone().get("clonable"));
+    }
+
     private Object first(Object object) {
         if (object instanceof Object[])
             return ((Object[])object)[0];
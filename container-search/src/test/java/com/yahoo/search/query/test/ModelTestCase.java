@@ -1,7 +1,10 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.test;
 
+import com.yahoo.language.Language;
+import com.yahoo.prelude.query.CompositeItem;
 import com.yahoo.prelude.query.Item;
+import com.yahoo.prelude.query.WordItem;
 import com.yahoo.search.Query;
 import com.yahoo.search.query.Model;
 
@@ -76,6 +79,44 @@ public class ModelTestCase extends junit.framework.TestCase {
         assertEquals("c6/r8",new Query("?query=test1&searchpath=c6/r8").getModel().getSearchPath());
     }
 
+    public void testQueryTreeIsSharedWithClonesUntilAccessed() {
+        Query q1 = new Query("?query=a%20b");
+        Item root = q1.getModel().getQueryTree().getRoot();
+        Query q2 = q1.clone();
+        Query q3 = q2.clone();
+
+        ((CompositeItem)q2.getModel().getQueryTree().getRoot()).addItem(new WordItem("c"));
+        assertEquals("AND a b c", q2.getModel().getQueryTree().toString());
+        assertEquals("AND a b", q3.getModel().getQueryTree().toString());
+        assertNotSame(root, q3.getModel().getQueryTree().getRoot());
+        assertSame("The last user of a shared tree gets the original", root, q1.getModel().getQueryTree().getRoot());
+        assertEquals("AND a b", q1.getModel().getQueryTree().toString());
+
+        Query q4 = q1.clone();
+        q4.getModel().setQueryString("d");
+        assertSame(root, q1.getModel().getQueryTree().getRoot());
+        assertEquals("d", q4.getModel().getQueryTree().toString());
+    }
+
+    public void testChangingTheQueryTreeOfACloneDoesNotChangeOtherClones() {
+        Query q1 = new Query("?query=a%20b");
+        ((CompositeItem)q1.getModel().getQueryTree().getRoot()).getItem(1).setLanguage(Language.GERMAN);
+        String original = q1.getModel().toString();
+        Query q2 = q1.clone();
+        Query q3 = q1.clone();
+
+        WordItem c = new WordItem("c");
+        c.setLanguage(Language.FRENCH);
+        ((CompositeItem)q2.getModel().getQueryTree().getRoot()).addItem(0, c);
+        ((CompositeItem)q1.getModel().getQueryTree().getRoot()).addItem(new WordItem("d"));
+
+        assertEquals("AND c a b", q2.getModel().getQueryTree().toString());
+        assertEquals(Language.FRENCH, q2.getModel().getParsingLanguage());
+        assertEquals(original, q3.getModel().toString());
+        assertEquals(Language.GERMAN, q3.getModel().getParsingLanguage());
+        assertEquals("AND a b d", q1.getModel().getQueryTree().toString());
+    }
+
     public void testClone() {
         Query q= new Query();
         Model sr = new Model(q);
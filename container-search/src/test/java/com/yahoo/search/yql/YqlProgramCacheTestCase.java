@@ -0,0 +1,81 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParserEnvironment;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class YqlProgramCacheTestCase {
+
+    private final YqlProgramCache cache = new YqlProgramCache(10, MetricReceiver.nullImplementation);
+
+    @Test
+    public void testProgramsDifferingOnlyInStringsShareShape() throws Exception {
+        assertParsed("select * from sources * where title contains \"madonna\";");
+        assertParsed("select * from sources * where title contains 'the \\'beatles\\'';");
+        assertEquals(1, cache.size());
+
+        assertParsed("select * from sources * where title contains ([{\"stem\": false}]\"madonna\") limit 10;");
+        assertParsed("select * from sources * where title contains ([{\"stem\": false}]\"prince\") limit 10;");
+        assertParsed("select * from sources * where title contains ([{\"stem\": false}]\"prince\") limit 20;");
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testItemTreesFromCachedPrograms() {
+        assertItems("title:madonna", "select * from sources * where title contains \"madonna\";");
+        assertItems("title:prince", "select * from sources * where title contains \"prince\";");
+        assertItems("AND title:prince artist:\"the purple one\"",
+                    "select * from sources * where title contains \"prince\" and artist contains phrase(\"the\", \"purple\", \"one\");");
+        assertItems("AND title:madonna artist:\"the queen of pop\"",
+                    "select * from sources * where title contains \"madonna\" and artist contains phrase(\"the\", \"queen\", \"of\", \"pop\");");
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testLruEviction() throws Exception {
+        for (int i = 0; i < 20; i++)
+            cache.parse("select * from sources * where title contains \"madonna\" limit " + i + ";");
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void testShape() {
+        YqlProgramCache.Shape shape = YqlProgramCache.Shape.of("where a contains \"x\\\"y\" and b contains 'z'");
+        assertEquals("where a contains \"\u00010\u0001\" and b contains \"\u00011\u0001\"", shape.text);
+        assertEquals("x\"y", shape.values.get("\u00010\u0001"));
+        assertEquals("z", shape.values.get("\u00011\u0001"));
+        assertNull(YqlProgramCache.Shape.of("where a contains \"x"));
+    }
+
+    @Test
+    public void testErrorsAreReportedForTheOriginalProgram() {
+        try {
+            cache.parse("select * from sources * where title contains \"madonna\" and;");
+            fail("Expected exception");
+        }
+        catch (Exception e) {
+            // expected
+        }
+        assertEquals(0, cache.size());
+    }
+
+    private void assertParsed(String program) throws Exception {
+        assertEquals(new ProgramParser().parse("query", program), cache.parse(program));
+    }
+
+    private void assertItems(String expected, String program) {
+        YqlParser parser = new YqlParser(new ParserEnvironment());
+        parser.setProgramCache(cache);
+        assertEquals(expected, parser.parse(new Parsable().setQuery(program)).toString());
+    }
+
+}
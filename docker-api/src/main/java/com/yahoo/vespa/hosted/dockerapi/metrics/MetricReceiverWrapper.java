@@ -67,6 +67,16 @@ public class MetricReceiverWrapper {
         }
     }
 
+    /**
+     * Removes all the metrics declared with the given dimensions in the given application, such that they
+     * are no longer reported.
+     */
+    public void deleteMetricByDimension(String application, Dimensions dimensions) {
+        synchronized (monitor) {
+            getOrCreateApplicationMetrics(application).remove(dimensions);
+        }
+    }
+
     public List<DimensionMetrics> getAllMetrics() {
         synchronized (monitor) {
             List<DimensionMetrics> dimensionMetrics = new ArrayList<>();
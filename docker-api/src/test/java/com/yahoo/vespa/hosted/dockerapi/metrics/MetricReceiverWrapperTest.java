@@ -79,4 +79,17 @@ public class MetricReceiverWrapperTest {
         assertEquals(metricReceiver.getMetricsForDimension(applicationDocker, hostDimension).get("test.gauge"), 42.);
         assertEquals(metricReceiver.getMetricsForDimension(applicationDocker, newDimension).get("test.gauge"), 56.);
     }
+
+    @Test
+    public void testDeleteMetricByDimension() {
+        MetricReceiverWrapper metricReceiver = new MetricReceiverWrapper(MetricReceiver.nullImplementation);
+        metricReceiver.declareGauge(applicationDocker, hostDimension, "test.gauge").sample(42);
+        Dimensions otherDimension = new Dimensions.Builder().add("host", "abcd.yahoo.com").build();
+        metricReceiver.declareGauge(applicationDocker, otherDimension, "test.gauge").sample(56);
+
+        metricReceiver.deleteMetricByDimension(applicationDocker, hostDimension);
+
+        assertEquals(1, metricReceiver.getAllMetricsRaw().size());
+        assertEquals(metricReceiver.getMetricsForDimension(applicationDocker, otherDimension).get("test.gauge"), 56.);
+    }
 }
@@ -0,0 +1,383 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc.jdisc;
+
+import com.yahoo.jdisc.Metric;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A queue of document processing tasks which keeps a separate queue for each chain and returns tasks from
+ * the chain queues in turn, such that documents to a chain are not delayed by a backlog of documents to
+ * slower chains. Every worker thread of the pool takes tasks from all the chain queues, so idle threads
+ * always pick up work queued for any chain.
+ * <p>
+ * The number of new tasks queued for each chain is bounded, such that documents to a chain which is falling
+ * behind are rejected, and returned to the sender as busy, while documents to other chains are still accepted.
+ * Tasks resubmitted after a processor returned LATER are queued first in their chain queue, and are always
+ * accepted. The time tasks spend queued, and the number of tasks queued, is reported per chain.
+ *
+ * @author agent
+ */
+class ChainQueues extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private final static String METRIC_NAME_QUEUE_TIME = "documents_queue_time";
+    private final static String METRIC_NAME_QUEUED = "documents_queued";
+
+    private final int maxQueueSize;
+    private final Metric metric;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    /** The queue of each chain, in the order they are served. Guarded by lock */
+    private final List<ChainQueue> queues = new ArrayList<>();
+    private final Map<String, ChainQueue> queuesByChain = new HashMap<>();
+
+    /** The index of the chain queue to take the next task from. Guarded by lock */
+    private int next = 0;
+
+    /** The total number of queued tasks. Guarded by lock */
+    private int size = 0;
+
+    /**
+     * Creates a set of chain queues
+     *
+     * @param maxQueueSize the max number of new tasks to queue for each chain, or 0 to not limit it
+     * @param metric the metric receiving the queue time and number of queued tasks per chain
+     */
+    ChainQueues(int maxQueueSize, Metric metric) {
+        this.maxQueueSize = maxQueueSize;
+        this.metric = metric;
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        DocumentProcessingTask task = (DocumentProcessingTask)runnable;
+        ChainQueue queue;
+        int queued;
+        lock.lock();
+        try {
+            queue = enqueue(task);
+            if (queue == null) {
+                return false;
+            }
+            queued = queue.entries.size();
+        } finally {
+            lock.unlock();
+        }
+        metric.set(METRIC_NAME_QUEUED, queued, queue.context);
+        return true;
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+        DocumentProcessingTask task = (DocumentProcessingTask)runnable;
+        long nanos = unit.toNanos(timeout);
+        ChainQueue queue;
+        int queued;
+        lock.lockInterruptibly();
+        try {
+            while ((queue = enqueue(task)) == null) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            queued = queue.entries.size();
+        } finally {
+            lock.unlock();
+        }
+        metric.set(METRIC_NAME_QUEUED, queued, queue.context);
+        return true;
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        DocumentProcessingTask task = (DocumentProcessingTask)runnable;
+        ChainQueue queue;
+        int queued;
+        lock.lockInterruptibly();
+        try {
+            while ((queue = enqueue(task)) == null) {
+                notFull.await();
+            }
+            queued = queue.entries.size();
+        } finally {
+            lock.unlock();
+        }
+        metric.set(METRIC_NAME_QUEUED, queued, queue.context);
+    }
+
+    @Override
+    public Runnable poll() {
+        Entry entry;
+        int queued = 0;
+        lock.lock();
+        try {
+            entry = dequeue();
+            if (entry != null) {
+                queued = entry.queue.entries.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return taken(entry, queued);
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        Entry entry;
+        int queued;
+        lock.lockInterruptibly();
+        try {
+            while ((entry = dequeue()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            queued = entry.queue.entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return taken(entry, queued);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        Entry entry;
+        int queued;
+        lock.lockInterruptibly();
+        try {
+            while ((entry = dequeue()) == null) {
+                notEmpty.await();
+            }
+            queued = entry.queue.entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return taken(entry, queued);
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            for (int i = 0; i < queues.size(); i++) {
+                Entry entry = queues.get((next + i) % queues.size()).entries.peekFirst();
+                if (entry != null) {
+                    return entry.task;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        ChainQueue removedFrom = null;
+        int queued = 0;
+        lock.lock();
+        try {
+            for (ChainQueue queue : queues) {
+                for (Iterator<Entry> i = queue.entries.iterator(); i.hasNext(); ) {
+                    if (i.next().task == o) {
+                        i.remove();
+                        size--;
+                        notFull.signalAll();
+                        removedFrom = queue;
+                        queued = queue.entries.size();
+                        break;
+                    }
+                }
+                if (removedFrom != null) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removedFrom == null) {
+            return false;
+        }
+        metric.set(METRIC_NAME_QUEUED, queued, removedFrom.context);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the number of tasks queued for the given chain */
+    int size(String chainName) {
+        lock.lock();
+        try {
+            ChainQueue queue = queuesByChain.get(chainName);
+            return (queue == null) ? 0 : queue.entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns Integer.MAX_VALUE, as there is no total capacity: The number of new tasks is bounded for each chain,
+     * and tasks resubmitted after a processor returned LATER are always accepted.
+     */
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /** Returns an iterator over a snapshot of the tasks in this, which does not support removal */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> tasks = new ArrayList<>();
+        lock.lock();
+        try {
+            for (ChainQueue queue : queues) {
+                for (Entry entry : queue.entries) {
+                    tasks.add(entry.task);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Collections.unmodifiableList(tasks).iterator();
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+        Map<ChainQueue, Integer> queuedByDrainedQueue = new HashMap<>();
+        int drained = 0;
+        lock.lock();
+        try {
+            Entry entry;
+            while (drained < maxElements && (entry = dequeue()) != null) {
+                collection.add(entry.task);
+                queuedByDrainedQueue.put(entry.queue, entry.queue.entries.size());
+                drained++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Map.Entry<ChainQueue, Integer> queued : queuedByDrainedQueue.entrySet()) {
+            metric.set(METRIC_NAME_QUEUED, queued.getValue(), queued.getKey().context);
+        }
+        return drained;
+    }
+
+    /**
+     * Adds a task to the queue of its chain and returns that queue, or returns null if the queue is full.
+     * Must be called while holding the lock.
+     */
+    private ChainQueue enqueue(DocumentProcessingTask task) {
+        ChainQueue queue = queueOf(task.getChainName());
+        if (task.isPostponed()) {
+            queue.entries.addFirst(new Entry(task, queue));
+        } else if (maxQueueSize > 0 && queue.entries.size() >= maxQueueSize) {
+            return null;
+        } else {
+            queue.entries.addLast(new Entry(task, queue));
+        }
+        size++;
+        notEmpty.signal();
+        return queue;
+    }
+
+    /**
+     * Removes and returns the first entry of the next non-empty chain queue, or null if all are empty.
+     * Must be called while holding the lock.
+     */
+    private Entry dequeue() {
+        if (size == 0) {
+            return null;
+        }
+        for (int i = 0; i < queues.size(); i++) {
+            int index = (next + i) % queues.size();
+            Entry entry = queues.get(index).entries.pollFirst();
+            if (entry != null) {
+                next = (index + 1) % queues.size();
+                size--;
+                notFull.signalAll(); // waiters may be waiting for different chain queues
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /** Reports the metrics of taking the given entry, and returns its task */
+    private Runnable taken(Entry entry, int queued) {
+        if (entry == null) {
+            return null;
+        }
+        metric.set(METRIC_NAME_QUEUE_TIME, (System.nanoTime() - entry.queuedAt) / 1000000, entry.queue.context);
+        metric.set(METRIC_NAME_QUEUED, queued, entry.queue.context);
+        return entry.task;
+    }
+
+    private ChainQueue queueOf(String chainName) {
+        ChainQueue queue = queuesByChain.get(chainName);
+        if (queue == null) {
+            queue = new ChainQueue(metric.createContext(Collections.singletonMap("chain", chainDimension(chainName))));
+            queuesByChain.put(chainName, queue);
+            queues.add(queue);
+        }
+        return queue;
+    }
+
+    private static String chainDimension(String chainName) {
+        return (chainName == null) ? null : chainName.replaceAll("[^\\p{Alnum}]", "_");
+    }
+
+    private static class ChainQueue {
+
+        private final Metric.Context context;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        ChainQueue(Metric.Context context) {
+            this.context = context;
+        }
+
+    }
+
+    private static class Entry {
+
+        private final DocumentProcessingTask task;
+        private final ChainQueue queue;
+        private final long queuedAt = System.nanoTime();
+
+        Entry(DocumentProcessingTask task, ChainQueue queue) {
+            this.task = task;
+            this.queue = queue;
+        }
+
+    }
+
+}
@@ -90,11 +90,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                                      DocumentProcessingHandlerParameters params) {
         this(docprocServiceRegistry, documentProcessorComponentRegistry, docFactoryRegistry,
              new DocprocThreadPoolExecutor(params.getMaxNumThreads(),
-                                           (params.getMaxQueueTimeMs() > 0)
-                                               ? new ThroughputLimitQueue<>(params.getMaxQueueTimeMs())
-                                               : (params.getMaxQueueTimeMs() < 0)
-                                                   ? new LinkedBlockingQueue<>()
-                                                   : new PriorityBlockingQueue<>(), //Probably no need to bound this queue, see bug #4254537
+                                           createQueue(params),
                                            new DocprocThreadManager(params.getMaxConcurrentFactor(),
                                                                     params.getDocumentExpansionFactor(),
                                                                     params.getContainerCoreMemoryMb(),
@@ -124,6 +120,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                      .setDocumentExpansionFactor(containerMbusConfig.documentExpansionFactor())
                      .setContainerCoreMemoryMb(containerMbusConfig.containerCoreMemory())
                      .setMaxQueueTimeMs(docprocConfig.maxqueuetimems())
+                     .setMaxChainQueueSize(docprocConfig.maxchainqueuesize())
                      .setDocumentTypeManager(new DocumentTypeManager(docManConfig))
                      .setChainsModel(buildFromConfig(chainsConfig)).setSchemaMap(configureMapping(mappingConfig))
                      .setStatisticsManager(manager)
@@ -131,6 +128,18 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                      .setContainerDocumentConfig(containerDocConfig));
     }
 
+    private static BlockingQueue<Runnable> createQueue(DocumentProcessingHandlerParameters params) {
+        if (params.getMaxChainQueueSize() >= 0) {
+            return new ChainQueues(params.getMaxChainQueueSize(), params.getMetric());
+        } else if (params.getMaxQueueTimeMs() > 0) {
+            return new ThroughputLimitQueue<>(params.getMaxQueueTimeMs());
+        } else if (params.getMaxQueueTimeMs() < 0) {
+            return new LinkedBlockingQueue<>();
+        } else {
+            return new PriorityBlockingQueue<>(); //Probably no need to bound this queue, see bug #4254537
+        }
+    }
+
     @Override
     protected void destroy() {
         threadPool.shutdown();  //calling shutdownNow() seems like a bit of an overkill
@@ -194,9 +203,14 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
         return null;
     }
 
+    /**
+     * Submits a task to the thread pool, or rejects it as busy if too many documents are being processed.
+     * Tasks resubmitted after a processor returned LATER are never rejected due to this limit, as they have
+     * already been accepted.
+     */
     @SuppressWarnings("unchecked")
     void submit(DocumentProcessingTask task) {
-        if (threadPool.isAboveLimit()) {
+        if ( ! task.isPostponed() && threadPool.isAboveLimit()) {
             task.queueFull();
         } else {
             try {
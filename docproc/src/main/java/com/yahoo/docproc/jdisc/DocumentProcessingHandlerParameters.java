@@ -22,6 +22,7 @@ public class DocumentProcessingHandlerParameters {
     private double documentExpansionFactor = 20.0;
     private int containerCoreMemoryMb = 50;
     private long maxQueueTimeMs = 0;
+    private int maxChainQueueSize = -1;
     private DocumentTypeManager documentTypeManager = null;
     private ChainsModel chainsModel = null;
     private SchemaMap schemaMap = null;
@@ -100,6 +101,21 @@ public class DocumentProcessingHandlerParameters {
         return this;
     }
 
+    /**
+     * Returns the maximum number of new documents queued for each chain when each chain has its own queue.&nbsp;The
+     * default value of -1 gives a single queue for all chains, 0 gives chain queues without a size limit.
+     *
+     * @return the maximum number of new documents queued for each chain.
+     */
+    public int getMaxChainQueueSize() {
+        return maxChainQueueSize;
+    }
+
+    public DocumentProcessingHandlerParameters setMaxChainQueueSize(int maxChainQueueSize) {
+        this.maxChainQueueSize = maxChainQueueSize;
+        return this;
+    }
+
     /**
      * Returns the maximum number of thread that the thread pool will ever attempt to run simultaneously.
      *
@@ -39,6 +39,7 @@ public class DocumentProcessingTask implements Comparable<DocumentProcessingTask
     private final static AtomicLong seq = new AtomicLong();
     private final long seqNum;
     private final DocprocService service;
+    private volatile boolean postponed = false;
 
     public DocumentProcessingTask(RequestContext requestContext, DocumentProcessingHandler docprocHandler,
                                   DocprocService service) {
@@ -66,6 +67,7 @@ public class DocumentProcessingTask implements Comparable<DocumentProcessingTask
 
             if (DocumentProcessor.Progress.LATER.equals(progress) && !processings.isEmpty()) {
                 DocumentProcessor.LaterProgress laterProgress = (DocumentProcessor.LaterProgress) progress;
+                postponed = true;
                 docprocHandler.submit(this, laterProgress.getDelay());
             }
         } catch (Error error) {
@@ -212,6 +214,16 @@ public class DocumentProcessingTask implements Comparable<DocumentProcessingTask
         return seqNum;
     }
 
+    /** Returns the name of the chain processing this, or null if none */
+    String getChainName() {
+        return (service == null) ? null : service.getName();
+    }
+
+    /** Returns whether this has been processed before, and is resubmitted because a processor returned LATER */
+    boolean isPostponed() {
+        return postponed;
+    }
+
     private static void logProcessingFailure(Processing processing, Exception exception) {
         //LOGGING ONLY:
         String errorMsg = processing + " failed at " + processing.callStack().getLastPopped();
@@ -0,0 +1,253 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc.jdisc;
+
+import com.yahoo.docproc.jdisc.metric.NullMetric;
+import com.yahoo.jdisc.Metric;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class ChainQueuesTestCase {
+
+    @Test
+    public void requireThatChainQueuesAreServedInTurn() {
+        ChainQueues queues = new ChainQueues(0, new NullMetric());
+        MockedTask slow1 = new MockedTask("slow"), slow2 = new MockedTask("slow"), slow3 = new MockedTask("slow");
+        MockedTask fast1 = new MockedTask("fast"), fast2 = new MockedTask("fast");
+        for (MockedTask task : new MockedTask[] { slow1, slow2, slow3, fast1, fast2 }) {
+            assertTrue(queues.offer(task));
+        }
+        assertEquals(5, queues.size());
+        assertEquals(3, queues.size("slow"));
+        assertEquals(2, queues.size("fast"));
+
+        assertSame(slow1, queues.peek());
+        assertSame(slow1, queues.poll());
+        assertSame(fast1, queues.poll());
+        assertSame(slow2, queues.poll());
+        assertSame(fast2, queues.poll());
+        assertSame(slow3, queues.poll());
+        assertNull(queues.poll());
+        assertTrue(queues.isEmpty());
+    }
+
+    @Test
+    public void requireThatNewTasksAreRejectedWhenTheirChainQueueIsFull() {
+        ChainQueues queues = new ChainQueues(2, new NullMetric());
+        MockedTask slow1 = new MockedTask("slow"), slow2 = new MockedTask("slow");
+        assertTrue(queues.offer(slow1));
+        assertTrue(queues.offer(slow2));
+        assertFalse(queues.offer(new MockedTask("slow")));
+        assertTrue(queues.offer(new MockedTask("fast")));
+
+        MockedTask postponed = new MockedTask("slow", true);
+        assertTrue(queues.offer(postponed));
+        assertEquals(3, queues.size("slow"));
+        assertSame(postponed, queues.poll());
+
+        assertTrue(queues.remove(slow2));
+        assertFalse(queues.remove(slow2));
+        assertEquals(2, queues.size());
+        List<Runnable> drained = new ArrayList<>();
+        assertEquals(2, queues.drainTo(drained));
+        assertEquals(0, queues.size());
+    }
+
+    @Test
+    public void requireThatQueuedTasksAreReportedOnEnqueueAndDequeue() {
+        RecordingMetric metric = new RecordingMetric();
+        ChainQueues queues = new ChainQueues(0, metric);
+        MockedTask slow1 = new MockedTask("slow"), slow2 = new MockedTask("slow"), slow3 = new MockedTask("slow");
+        queues.offer(slow1);
+        queues.offer(slow2);
+        queues.offer(slow3);
+        assertEquals(3, metric.queued.get("slow").intValue());
+
+        queues.poll();
+        assertEquals(2, metric.queued.get("slow").intValue());
+        queues.remove(slow3);
+        assertEquals(1, metric.queued.get("slow").intValue());
+        queues.drainTo(new ArrayList<>());
+        assertEquals(0, metric.queued.get("slow").intValue());
+    }
+
+    @Test
+    public void requireThatOfferWithTimeoutWaitsForRoomInTheChainQueue() throws InterruptedException {
+        ChainQueues queues = new ChainQueues(1, new NullMetric());
+        assertTrue(queues.offer(new MockedTask("slow")));
+        assertFalse(queues.offer(new MockedTask("slow"), 10, TimeUnit.MILLISECONDS));
+
+        Thread taker = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                queues.take();
+            } catch (InterruptedException e) {
+                // test fails below
+            }
+        });
+        taker.start();
+        assertTrue(queues.offer(new MockedTask("slow"), 120, TimeUnit.SECONDS));
+        taker.join();
+        assertEquals(1, queues.size("slow"));
+    }
+
+    @Test
+    public void requireThatThreadPoolRunsAllTasksAndReportsQueueTimePerChain() throws InterruptedException {
+        RecordingMetric metric = new RecordingMetric();
+        ChainQueues queues = new ChainQueues(0, metric);
+        DocprocThreadPoolExecutor pool = new DocprocThreadPoolExecutor(4, queues, new DocprocThreadManager(1000l));
+
+        List<MockedTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new MockedTask((i % 5 == 0) ? "fast" : "slow"));
+        }
+        for (MockedTask task : tasks) {
+            pool.execute(task);
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(120L, TimeUnit.SECONDS));
+
+        for (MockedTask task : tasks) {
+            assertTrue(task.hasBeenRun());
+        }
+        assertTrue(metric.chains.contains("fast"));
+        assertTrue(metric.chains.contains("slow"));
+    }
+
+    @Test
+    public void requireThatThreadPoolRejectsTasksWhenTheirChainQueueIsFull() throws InterruptedException {
+        ChainQueues queues = new ChainQueues(1, new NullMetric());
+        DocprocThreadPoolExecutor pool = new DocprocThreadPoolExecutor(1, queues, new DocprocThreadManager(1000l));
+        Object blocker = new Object();
+        MockedTask running = new MockedTask("slow", false, blocker);
+        synchronized (blocker) {
+            pool.execute(running);
+            pool.execute(new MockedTask("slow"));
+            try {
+                pool.execute(new MockedTask("slow"));
+                fail("Expected the task to be rejected");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            pool.execute(new MockedTask("fast"));
+            running.released = true;
+            blocker.notifyAll();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(120L, TimeUnit.SECONDS));
+    }
+
+    private static class MockedTask extends DocumentProcessingTask {
+
+        private final String chainName;
+        private final boolean postponed;
+        private final Object blocker;
+        private volatile boolean hasBeenRun = false;
+        private boolean released = false;
+
+        MockedTask(String chainName) {
+            this(chainName, false);
+        }
+
+        MockedTask(String chainName, boolean postponed) {
+            this(chainName, postponed, null);
+        }
+
+        MockedTask(String chainName, boolean postponed, Object blocker) {
+            super(null, null, null);
+            this.chainName = chainName;
+            this.postponed = postponed;
+            this.blocker = blocker;
+        }
+
+        @Override
+        public void run() {
+            if (blocker != null) {
+                synchronized (blocker) {
+                    while ( ! released) {
+                        try {
+                            blocker.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+            hasBeenRun = true;
+        }
+
+        @Override
+        String getChainName() {
+            return chainName;
+        }
+
+        @Override
+        boolean isPostponed() {
+            return postponed;
+        }
+
+        @Override
+        public int getApproxSize() {
+            return 333;
+        }
+
+        @Override
+        public String toString() {
+            return chainName + " seqNum " + getSeqNum();
+        }
+
+        boolean hasBeenRun() {
+            return hasBeenRun;
+        }
+
+    }
+
+    private static class RecordingMetric extends NullMetric {
+
+        private final List<Object> chains = new CopyOnWriteArrayList<>();
+        private final Map<Object, Number> queued = new ConcurrentHashMap<>();
+
+        @Override
+        public void set(String key, Number val, Context ctx) {
+            if (key.equals("documents_queue_time")) {
+                chains.add(((ChainContext)ctx).chain);
+            }
+            if (key.equals("documents_queued")) {
+                queued.put(((ChainContext)ctx).chain, val);
+            }
+        }
+
+        @Override
+        public Context createContext(Map<String, ?> properties) {
+            return new ChainContext(properties.get("chain"));
+        }
+
+    }
+
+    private static class ChainContext implements Metric.Context {
+
+        private final Object chain;
+
+        ChainContext(Object chain) {
+            this.chain = chain;
+        }
+
+    }
+
+}
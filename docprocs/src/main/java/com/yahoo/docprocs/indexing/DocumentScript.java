@@ -2,6 +2,7 @@
 package com.yahoo.docprocs.indexing;
 
 import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.Field;
 import com.yahoo.document.annotation.SpanTrees;
@@ -18,9 +19,13 @@ import com.yahoo.document.update.FieldUpdate;
 import com.yahoo.document.update.MapValueUpdate;
 import com.yahoo.document.update.ValueUpdate;
 import com.yahoo.vespa.indexinglanguage.AdapterFactory;
+import com.yahoo.vespa.indexinglanguage.DocumentAdapter;
+import com.yahoo.vespa.indexinglanguage.expressions.CompiledScript;
+import com.yahoo.vespa.indexinglanguage.expressions.ExecutionContext;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
@@ -30,11 +35,33 @@ public class DocumentScript {
     private final String documentType;
     private final Set<String> inputFields;
     private final Expression expression;
+    private final CompiledScript compiledScript;
+    private final ForkJoinPool executor;
 
     public DocumentScript(String documentType, Collection<String> inputFields, Expression expression) {
-        this.documentType = documentType;
+        this(documentType, null, inputFields, expression, null);
+    }
+
+    /**
+     * Creates a document script
+     *
+     * @param documentType the type of the documents this executes on, used to resolve the input fields of the script
+     *        when compiling it
+     * @param executor the pool used to execute independent statements of the script in parallel,
+     *        or null to execute them sequentially in the calling thread
+     */
+    public DocumentScript(DocumentType documentType, Collection<String> inputFields, Expression expression,
+                          ForkJoinPool executor) {
+        this(documentType.getName(), documentType, inputFields, expression, executor);
+    }
+
+    private DocumentScript(String documentTypeName, DocumentType documentType, Collection<String> inputFields,
+                           Expression expression, ForkJoinPool executor) {
+        this.documentType = documentTypeName;
         this.inputFields = new HashSet<>(inputFields);
         this.expression = expression;
+        this.compiledScript = CompiledScript.compile(expression, documentType);
+        this.executor = executor;
     }
 
     public Expression getExpression() { return expression; }
@@ -44,7 +71,9 @@ public class DocumentScript {
             requireThatFieldIsDeclaredInDocument(entry.getKey());
             removeAnyLinguisticsSpanTree(entry.getValue());
         }
-        return expression.execute(adapterFactory, document);
+        DocumentAdapter adapter = adapterFactory.newDocumentAdapter(document);
+        compiledScript.execute(new ExecutionContext(adapter).setExecutor(executor));
+        return adapter.getFullOutput();
     }
 
     public DocumentUpdate execute(AdapterFactory adapterFactory, DocumentUpdate update) {
@@ -60,7 +89,7 @@ public class DocumentScript {
                 removeAnyLinguisticsSpanTree(((AssignFieldPathUpdate)fieldUpdate).getFieldValue());
             }
         }
-        return Expression.execute(expression, adapterFactory, update);
+        return Expression.execute(expression, adapterFactory, update, executor);
     }
 
     private void requireThatFieldIsDeclaredInDocument(Field field) {
@@ -3,15 +3,19 @@ package com.yahoo.docprocs.indexing;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import com.google.inject.Inject;
 import com.yahoo.component.chain.dependencies.After;
 import com.yahoo.component.chain.dependencies.Before;
 import com.yahoo.component.chain.dependencies.Provides;
 import com.yahoo.docproc.DocumentProcessor;
 import com.yahoo.docproc.Processing;
+import com.yahoo.docproc.jdisc.metric.NullMetric;
 import com.yahoo.document.*;
 import com.yahoo.document.config.DocumentmanagerConfig;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.CachingLinguistics;
 import com.yahoo.log.LogLevel;
 import com.yahoo.vespa.configdefinition.IlscriptsConfig;
 import com.yahoo.vespa.indexinglanguage.AdapterFactory;
@@ -30,10 +34,17 @@ public class IndexingProcessor extends DocumentProcessor {
     public final static String INDEXING_START = "indexingStart";
     public final static String INDEXING_END = "indexingEnd";
 
+    private final static String METRIC_NAME_LINGUISTICS_CACHE_HIT_RATE = "linguistics_cache_hit_rate";
+
     private final static FastLogger log = FastLogger.getLogger(IndexingProcessor.class.getName());
     private final DocumentTypeManager docTypeMgr;
     private final ScriptManager scriptMgr;
     private final AdapterFactory adapterFactory;
+    private final Metric metric;
+    private final CachingLinguistics cachingLinguistics;
+
+    /** The pool executing independent script statements in parallel, or null to execute them sequentially */
+    private final ForkJoinPool executor;
 
     private class ExpressionSelector extends SimpleAdapterFactory.SelectExpression {
         @Override
@@ -42,13 +53,28 @@ public class IndexingProcessor extends DocumentProcessor {
         }
     }
 
-    @Inject
     public IndexingProcessor(DocumentmanagerConfig documentmanagerConfig,
                              IlscriptsConfig ilscriptsConfig,
                              Linguistics linguistics) {
+        this(documentmanagerConfig, ilscriptsConfig, linguistics, new NullMetric());
+    }
+
+    @Inject
+    public IndexingProcessor(DocumentmanagerConfig documentmanagerConfig,
+                             IlscriptsConfig ilscriptsConfig,
+                             Linguistics linguistics,
+                             Metric metric) {
+        if (linguistics != null && ilscriptsConfig.linguisticscachesize() > 0)
+            cachingLinguistics = new CachingLinguistics(linguistics, ilscriptsConfig.linguisticscachesize());
+        else
+            cachingLinguistics = null;
+        executor = ilscriptsConfig.parallelthreads() > 0 ? new ForkJoinPool(ilscriptsConfig.parallelthreads()) : null;
         docTypeMgr = DocumentTypeManagerConfigurer.configureNewManager(documentmanagerConfig);
-        scriptMgr = new ScriptManager(docTypeMgr, ilscriptsConfig, linguistics);
+        scriptMgr = new ScriptManager(docTypeMgr, ilscriptsConfig,
+                                      cachingLinguistics != null ? cachingLinguistics : linguistics,
+                                      executor);
         adapterFactory = new SimpleAdapterFactory(new ExpressionSelector());
+        this.metric = metric;
     }
 
     @Override
@@ -72,9 +98,19 @@ public class IndexingProcessor extends DocumentProcessor {
         }
         proc.getDocumentOperations().clear();
         proc.getDocumentOperations().addAll(out);
+        if (cachingLinguistics != null) {
+            metric.set(METRIC_NAME_LINGUISTICS_CACHE_HIT_RATE, cachingLinguistics.getHitRate(), null);
+        }
         return Progress.DONE;
     }
 
+    @Override
+    public void deconstruct() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
     DocumentTypeManager getDocumentTypeManager() {
         return docTypeMgr;
     }
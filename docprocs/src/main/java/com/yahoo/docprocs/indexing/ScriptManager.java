@@ -14,6 +14,7 @@ import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 
 /**
@@ -27,8 +28,19 @@ public class ScriptManager {
     private final DocumentTypeManager docTypeMgr;
 
     public ScriptManager(DocumentTypeManager docTypeMgr, IlscriptsConfig config, Linguistics linguistics) {
+        this(docTypeMgr, config, linguistics, null);
+    }
+
+    /**
+     * Creates the scripts of the given config
+     *
+     * @param executor the pool the scripts use to execute independent statements in parallel,
+     *        or null to execute them sequentially
+     */
+    public ScriptManager(DocumentTypeManager docTypeMgr, IlscriptsConfig config, Linguistics linguistics,
+                         ForkJoinPool executor) {
         this.docTypeMgr = docTypeMgr;
-        documentFieldScripts = createScriptsMap(docTypeMgr, config, linguistics);
+        documentFieldScripts = createScriptsMap(docTypeMgr, config, linguistics, executor);
     }
 
 
@@ -72,14 +84,16 @@ public class ScriptManager {
 
     private static Map<String, Map<String, DocumentScript>>  createScriptsMap(DocumentTypeManager docTypeMgr,
                                                                               IlscriptsConfig config,
-                                                                              Linguistics linguistics) {
+                                                                              Linguistics linguistics,
+                                                                              ForkJoinPool executor) {
         Map<String, Map<String, DocumentScript>> documentFieldScripts = new HashMap<>(config.ilscript().size());
         ScriptParserContext parserContext = new ScriptParserContext(linguistics);
         parserContext.getAnnotatorConfig().setMaxTermOccurrences(config.maxtermoccurrences());
         parserContext.getAnnotatorConfig().setMaxTokenLength(config.fieldmatchmaxlength());
 
         for (IlscriptsConfig.Ilscript ilscript : config.ilscript()) {
-            InputExpression.FieldPathOptimizer fieldPathOptimizer = new InputExpression.FieldPathOptimizer(docTypeMgr.getDocumentType(ilscript.doctype()));
+            DocumentType documentType = docTypeMgr.getDocumentType(ilscript.doctype());
+            InputExpression.FieldPathOptimizer fieldPathOptimizer = new InputExpression.FieldPathOptimizer(documentType);
             List<StatementExpression> expressions = new ArrayList<>(ilscript.content().size());
             Map<String, DocumentScript> fieldScripts = new HashMap<>(ilscript.content().size());
             for (String content : ilscript.content()) {
@@ -102,7 +116,7 @@ public class ScriptManager {
                         script = new ScriptExpression(statement);
                         log.log(Level.FINE, "Setting script for field '" + fieldName + "' = " + statement);
                     }
-                    DocumentScript documentScript = new DocumentScript(ilscript.doctype(), inputFieldNameExtractor.getInputFieldNames(), script);
+                    DocumentScript documentScript = new DocumentScript(documentType, inputFieldNameExtractor.getInputFieldNames(), script, executor);
                     fieldScripts.put(fieldName, documentScript);
                 } else {
                     log.log(Level.FINE, "Non single(" + inputFieldNameExtractor.getInputFieldNames().size() +") inputs = " + inputFieldNameExtractor.getInputFieldNames() + ". Script = " + statement);
@@ -111,7 +125,7 @@ public class ScriptManager {
 
             ScriptExpression script = new ScriptExpression(expressions);
             script.select(fieldPathOptimizer, fieldPathOptimizer);
-            fieldScripts.put(FULL, new DocumentScript(ilscript.doctype(), ilscript.docfield(),script));
+            fieldScripts.put(FULL, new DocumentScript(documentType, ilscript.docfield(), script, executor));
             documentFieldScripts.put(ilscript.doctype(), Collections.unmodifiableMap(fieldScripts));
         }
         return Collections.unmodifiableMap(documentFieldScripts);
@@ -21,15 +21,22 @@ import com.yahoo.document.update.MapValueUpdate;
 import com.yahoo.document.update.ValueUpdate;
 import com.yahoo.vespa.indexinglanguage.AdapterFactory;
 import com.yahoo.vespa.indexinglanguage.SimpleAdapterFactory;
+import com.yahoo.vespa.indexinglanguage.expressions.ClearStateExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.GuardExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.IndexExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.LowerCaseExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.SummaryExpression;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -157,6 +164,46 @@ public class DocumentScriptTestCase {
         assertSpanTrees(str, "mySpanTree");
     }
 
+    @Test
+    public void requireThatGeneratedStatementsCanExecuteInParallel() {
+        DocumentType type = new DocumentType("documentType");
+        type.addField("a", DataType.STRING);
+        type.addField("b", DataType.STRING);
+        ScriptExpression expression = new ScriptExpression(newGeneratedStatement("a"), newGeneratedStatement("b"));
+        List<ScriptExpression.Stage> stages = expression.getStages();
+        assertEquals(1, stages.size());
+        assertEquals(2, stages.get(0).getStatements().size());
+
+        ForkJoinPool executor = new ForkJoinPool(2);
+        try {
+            DocumentScript script = new DocumentScript(type, Arrays.asList("a", "b"), expression, executor);
+            Document document = new Document(type, "doc:scheme:");
+            document.setFieldValue("a", new StringFieldValue("A"));
+            document.setFieldValue("b", new StringFieldValue("B"));
+            document = script.execute(ADAPTER_FACTORY, document);
+            assertEquals(new StringFieldValue("a"), document.getFieldValue("a"));
+            assertEquals(new StringFieldValue("b"), document.getFieldValue("b"));
+
+            DocumentUpdate update = new DocumentUpdate(type, "doc:scheme:");
+            update.addFieldUpdate(FieldUpdate.createAssign(type.getField("a"), new StringFieldValue("A")));
+            update.addFieldUpdate(FieldUpdate.createAssign(type.getField("b"), new StringFieldValue("B")));
+            update = script.execute(ADAPTER_FACTORY, update);
+            assertEquals(new StringFieldValue("a"), update.getFieldUpdate("a").getValueUpdate(0).getValue());
+            assertEquals(new StringFieldValue("b"), update.getFieldUpdate("b").getValueUpdate(0).getValue());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Returns a statement like those generated by the config model for each field */
+    private static StatementExpression newGeneratedStatement(String fieldName) {
+        return new StatementExpression(new ClearStateExpression(),
+                                       new GuardExpression(new ScriptExpression(
+                                               new StatementExpression(new InputExpression(fieldName),
+                                                                       new LowerCaseExpression(),
+                                                                       new SummaryExpression(fieldName)))));
+    }
+
     private static FieldValue processDocument(FieldValue fieldValue) {
         DocumentType docType = new DocumentType("myDocumentType");
         docType.addField("myField", fieldValue.getDataType());
@@ -332,7 +332,7 @@ public class StoragePolicy extends ExternalSlobrokPolicy {
             context.setContext(messageContext);
             if (cachedClusterState != null) { // If we have a cached cluster state (regular case), we use that to calculate correct node.
                 try{
-                    Integer target = distribution.getIdealDistributorNode(cachedClusterState, bucketId, owningBucketStates);
+                    Integer target = distribution.getIdealNodeCache(cachedClusterState, owningBucketStates).getIdealDistributorNode(bucketId);
                     // If we have had too many failures towards existing node, reset failure count and send to random
                     if (persistentFailureChecker.tooManyFailures(target)) {
                         sendRandomReason = "Too many failures detected versus distributor " + target + ". Sending to random instead of using cached state.";
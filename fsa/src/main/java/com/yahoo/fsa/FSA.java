@@ -11,6 +11,8 @@ import java.nio.CharBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 
@@ -30,6 +32,9 @@ public class FSA {
         int state = 0;
         int hash = 0;
 
+        /** The state at the longest phrase found by matchPhrases, or null if not used yet */
+        private State longestMatch = null;
+
         private State(FSA fsa) {
             this.fsa = fsa;
             start();
@@ -62,20 +67,88 @@ public class FSA {
         }
 
         public void delta(char chr){
-            CharBuffer chrbuf = CharBuffer.allocate(1);
-            chrbuf.put(0,chr);
-            ByteBuffer buf = fsa.encode(chrbuf);
-            while(state >0 && buf.position()<buf.limit()){
-                delta(buf.get());
+            if ( ! fsa.isUtf8()) {
+                CharBuffer chrbuf = CharBuffer.allocate(1);
+                chrbuf.put(0,chr);
+                ByteBuffer buf = fsa.encode(chrbuf);
+                while(state >0 && buf.position()<buf.limit()){
+                    delta(buf.get());
+                }
+                return;
             }
+            deltaCodePoint(Character.isSurrogate(chr) ? '?' : chr); // as the encoder does with a single surrogate
         }
 
         /** Jumps ahead by string */
         public void delta(String string){
-            ByteBuffer buf = fsa.encode(string);
-            while(state >0 && buf.position()<buf.limit()){
-                delta(buf.get());
+            delta(string, 0, string.length());
+        }
+
+        /** Jumps ahead by a character sequence. This does not allocate if the automaton is UTF-8 encoded. */
+        public void delta(CharSequence chars){
+            delta(chars, 0, chars.length());
+        }
+
+        /**
+         * Jumps ahead by a range of a character sequence. This does not allocate if the automaton is UTF-8 encoded.
+         *
+         * @param chars the characters to jump ahead by
+         * @param start the index of the first character to use
+         * @param end the index after the last character to use
+         */
+        public void delta(CharSequence chars, int start, int end){
+            if ( ! fsa.isUtf8()) {
+                ByteBuffer buf = fsa.encode(CharBuffer.wrap(chars, start, end));
+                while(state >0 && buf.position()<buf.limit()){
+                    delta(buf.get());
+                }
+                return;
+            }
+            for (int i = start; i < end && state > 0; i++) {
+                char c = chars.charAt(i);
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1)))
+                    deltaCodePoint(Character.toCodePoint(c, chars.charAt(++i)));
+                else if (Character.isSurrogate(c))
+                    deltaCodePoint('?'); // as the encoder does with an unpaired surrogate
+                else
+                    deltaCodePoint(c);
+            }
+        }
+
+        /**
+         * Jumps ahead by a range of bytes, which must be encoded in the character encoding of the automaton.
+         * This does not allocate.
+         */
+        public void delta(byte[] bytes, int offset, int length){
+            for (int i = offset; i < offset + length && state > 0; i++)
+                delta(bytes[i]);
+        }
+
+        /** Jumps ahead by the UTF-8 encoding of a code point, stopping if we reach an invalid state */
+        private void deltaCodePoint(int codePoint) {
+            if (codePoint < 0x80) {
+                deltaIfValid(codePoint);
+            }
+            else if (codePoint < 0x800) {
+                deltaIfValid(0xc0 | (codePoint >> 6));
+                deltaIfValid(0x80 | (codePoint & 0x3f));
+            }
+            else if (codePoint < 0x10000) {
+                deltaIfValid(0xe0 | (codePoint >> 12));
+                deltaIfValid(0x80 | ((codePoint >> 6) & 0x3f));
+                deltaIfValid(0x80 | (codePoint & 0x3f));
             }
+            else {
+                deltaIfValid(0xf0 | (codePoint >> 18));
+                deltaIfValid(0x80 | ((codePoint >> 12) & 0x3f));
+                deltaIfValid(0x80 | ((codePoint >> 6) & 0x3f));
+                deltaIfValid(0x80 | (codePoint & 0x3f));
+            }
+        }
+
+        private void deltaIfValid(int symbol) {
+            if (state > 0)
+                delta((byte)symbol);
         }
 
         /**
@@ -84,9 +157,18 @@ public class FSA {
          * @return whether we jumped to a valid state (true) or di nothing (false)
          */
         public boolean tryDelta(String string){
+            return tryDelta((CharSequence)string);
+        }
+
+        /**
+         * Jumps ahead by a character sequence if that puts us into a valid state, does nothing otherwise
+         *
+         * @return whether we jumped to a valid state (true) or did nothing (false)
+         */
+        public boolean tryDelta(CharSequence chars){
             int lastHash=hash;
             int lastState=state;
-            delta(string);
+            delta(chars);
             if (isValid()) return true;
 
             hash=lastHash;
@@ -96,20 +178,32 @@ public class FSA {
 
         /** Jumps ahead by a word -  if this is not the first word, it must be preceeded by space. */
         public void deltaWord(String string){
+            deltaWord((CharSequence)string);
+        }
+
+        /** Jumps ahead by a word -  if this is not the first word, it must be preceeded by space. */
+        public void deltaWord(CharSequence chars){
             if (state!=fsa.start()) {
                 delta((byte)' ');
             }
-            delta(string);
+            delta(chars);
         }
 
         /**
          * Tries to jump ahead by one word. If the given string is not the next complete valid word, nothing is done.
          */
         public boolean tryDeltaWord(String string){
+            return tryDeltaWord((CharSequence)string);
+        }
+
+        /**
+         * Tries to jump ahead by one word. If the given characters are not the next complete valid word, nothing is done.
+         */
+        public boolean tryDeltaWord(CharSequence chars){
             int lastHash=hash;
             int lastState=state;
             tryDelta((byte)' ');
-            delta(string);
+            delta(chars);
             if (isValid() && peekDelta((byte)' ')) return true;
             if (isFinal()) return true;
 
@@ -118,6 +212,44 @@ public class FSA {
             return false;
         }
 
+        /**
+         * Finds the phrases of this automaton in a sequence of words, in a single pass over the words.
+         * At each position the longest phrase starting there is found, and the search continues after it,
+         * or at the next word if there is none. Each phrase is a sequence of complete words separated by space.
+         * This changes the position of this state. No objects are allocated if the automaton is UTF-8 encoded,
+         * except the first time this is called on this state.
+         *
+         * @param words the words to find phrases in. Null words are never part of a phrase.
+         * @param start the index of the first word to search from
+         * @param end the index after the last word to search
+         * @param handler receives each phrase found
+         */
+        public void matchPhrases(CharSequence[] words, int start, int end, PhraseHandler handler) {
+            if (longestMatch == null)
+                longestMatch = new State(fsa);
+
+            int phraseStart = start;
+            while (phraseStart < end) {
+                int longestLength = 0;
+                start();
+                for (int i = phraseStart; i < end && words[i] != null; i++) {
+                    if ( ! tryDeltaWord(words[i])) break;
+                    if (isFinal()) {
+                        longestLength = i - phraseStart + 1;
+                        longestMatch.state = state;
+                        longestMatch.hash = hash;
+                    }
+                }
+                if (longestLength == 0) {
+                    phraseStart++;
+                }
+                else {
+                    handler.phrase(phraseStart, longestLength, longestMatch);
+                    phraseStart += longestLength;
+                }
+            }
+        }
+
         public boolean isFinal(){
             return fsa.isFinal(state);
         }
@@ -154,6 +286,23 @@ public class FSA {
 
     }
 
+    /**
+     * Receives the phrases found by {@link State#matchPhrases}
+     */
+    public interface PhraseHandler {
+
+        /**
+         * Called for each phrase found
+         *
+         * @param start the index of the first word of the phrase
+         * @param length the number of words in the phrase
+         * @param state the state at the end of the phrase, from which the data of the phrase can be retrieved.
+         *        This is only valid during this call.
+         */
+        void phrase(int start, int length, State state);
+
+    }
+
     /**
      * Class used to iterate over all accepted strings in the fsa.
      */
@@ -164,10 +313,11 @@ public class FSA {
          */
         public static class Item {
             private FSA fsa;
-            private java.util.Stack<Byte> string;
+            private byte[] string;
+            private int length;
             private int symbol;
             private int state;
-            private java.util.Stack<Integer> stack;
+            private int[] stack;
 
             /**
              * Constructor
@@ -176,10 +326,11 @@ public class FSA {
              */
             public Item(FSA fsa, int state) {
                 this.fsa = fsa;
-                this.string = new java.util.Stack();
+                this.string = new byte[16];
+                this.length = 0;
                 this.symbol = 0;
                 this.state = state;
-                this.stack = new java.util.Stack();
+                this.stack = new int[16];
             }
 
             /**
@@ -187,25 +338,27 @@ public class FSA {
              */
             public Item(Item item) {
                 this.fsa = item.fsa;
-                this.string = new java.util.Stack();
-                for (java.util.Iterator<Byte> itr = item.string.iterator(); itr.hasNext(); ) {
-                    byte b = itr.next();
-                    this.string.push(b);
-                }
+                this.string = Arrays.copyOf(item.string, item.length);
+                this.length = item.length;
                 this.symbol = item.symbol;
                 this.state = item.state;
                 // no need to fill the stack as this constructor is used by Iterator::next()
                 this.stack = null;
             }
 
-            public String getString() {
-                ByteBuffer buffer = ByteBuffer.allocate(string.size());
-                for (java.util.Iterator<Byte> itr = string.iterator(); itr.hasNext(); ) {
-                    byte b = itr.next();
-                    buffer.put(b);
+            /** Pushes a symbol and the state it was taken from */
+            private void push(byte symbol, int fromState) {
+                if (length == string.length) {
+                    string = Arrays.copyOf(string, length * 2);
+                    stack = Arrays.copyOf(stack, length * 2);
                 }
-                buffer.flip();
-                return fsa.decode(buffer);
+                string[length] = symbol;
+                stack[length] = fromState;
+                length++;
+            }
+
+            public String getString() {
+                return fsa.decode(string, 0, length);
             }
 
             public ByteBuffer getData() {
@@ -217,7 +370,7 @@ public class FSA {
             }
 
             public String toString() {
-                return "string: " + string + "(" + getString() + "), symbol: " + symbol + ", state: " + state;
+                return "string: " + Arrays.toString(Arrays.copyOf(string, length)) + "(" + getString() + "), symbol: " + symbol + ", state: " + state;
             }
         }
 
@@ -239,7 +392,6 @@ public class FSA {
 
         private void findNext() {
             int nextState;
-            int depth;
 
             if (item.symbol == 256 || item.fsa == null) {
                 throw new NoSuchElementException();
@@ -257,8 +409,7 @@ public class FSA {
                     byte symbol = (byte)item.symbol;
                     nextState = item.fsa.delta(item.state, (byte)item.symbol);
                     if (nextState != 0) {
-                        item.string.push((byte)item.symbol);
-                        item.stack.push(item.state);
+                        item.push((byte)item.symbol, item.state);
                         item.state = nextState;
                         item.symbol = 0;
                         if (item.fsa.isFinal(nextState)) {
@@ -266,10 +417,11 @@ public class FSA {
                         }
                     }
                 } else { // backtrack
-                    if ((depth = item.string.size()) > 0) {
-                        byte b = item.string.pop(); // remove the last byte
+                    if (item.length > 0) {
+                        item.length--;
+                        byte b = item.string[item.length]; // remove the last byte
                         item.symbol = b < 0 ? b + 256 : b;
-                        item.state = item.stack.pop();
+                        item.state = item.stack[item.length];
                     } else {
                         item.state = 0;
                         break;
@@ -319,6 +471,7 @@ public class FSA {
     private MappedByteBuffer _data;
     private MappedByteBuffer _phash;
     private Charset _charset;
+    private boolean _utf8;
 
     /**
      * Loads an FSA from a resource file name, which is resolved from the class path of the
@@ -382,6 +535,7 @@ public class FSA {
     private void init(FileInputStream file, String charsetname) {
         try {
             _charset = Charset.forName(charsetname);
+            _utf8 = _charset.equals(StandardCharsets.UTF_8);
 
             _header = file.getChannel().map(MapMode.READ_ONLY,0,256);
             _header.order(ByteOrder.LITTLE_ENDIAN);
@@ -460,6 +614,15 @@ public class FSA {
         return _charset.decode(buf).toString();
     }
 
+    private String decode(byte[] bytes, int offset, int length){
+        return new String(bytes, offset, length, _charset);
+    }
+
+    /** Returns whether this is encoded in UTF-8, such that it can be traversed without encoding to buffers */
+    private boolean isUtf8(){
+        return _utf8;
+    }
+
     public boolean isOk(){
         return _ok;
     }
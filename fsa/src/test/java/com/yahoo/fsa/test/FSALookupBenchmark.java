@@ -0,0 +1,99 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa.test;
+
+import com.yahoo.fsa.FSA;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Measures lookups per second and bytes allocated per lookup in an automaton,
+ * using a reused state, a new state per lookup and bulk phrase matching.
+ *
+ * @author agent
+ */
+public class FSALookupBenchmark {
+
+    private final FSA fsa = new FSA("src/test/fsa/test-iterator.fsa");
+    private final String[] words;
+
+    public FSALookupBenchmark() {
+        List<String> words = new ArrayList<>();
+        for (Iterator<FSA.Iterator.Item> i = fsa.iterator(); i.hasNext(); ) {
+            String word = i.next().getString();
+            words.add(word);
+            words.add(word + "x"); // a miss
+        }
+        this.words = words.toArray(new String[words.size()]);
+    }
+
+    public void run() {
+        int lookups = 10000000;
+
+        out("Warming up...");
+        lookupWithReusedState(lookups);
+        lookupWithNewState(lookups / 10);
+        matchPhrases(lookups);
+
+        measure("reused state", lookups, () -> lookupWithReusedState(lookups));
+        measure("new state per lookup", lookups / 10, () -> lookupWithNewState(lookups / 10));
+        measure("bulk phrase matching", lookups, () -> matchPhrases(lookups));
+    }
+
+    private void measure(String description, int lookups, Runnable lookup) {
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+        lookup.run();
+        long elapsedNanos = System.nanoTime() - startTime;
+        long bytes = allocatedBytes() - startBytes;
+        out(String.format("Lookups with %s: %.0f per second, %.2f bytes allocated per lookup",
+                          description, lookups * 1e9 / elapsedNanos, (double)bytes / lookups));
+    }
+
+    private int lookupWithReusedState(int lookups) {
+        FSA.State state = fsa.getState();
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            state.start();
+            state.delta(words[i % words.length]);
+            if (state.isFinal())
+                found++;
+        }
+        return found;
+    }
+
+    private int lookupWithNewState(int lookups) {
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            if (fsa.lookup(words[i % words.length]) != null)
+                found++;
+        }
+        return found;
+    }
+
+    private int matchPhrases(int lookups) {
+        FSA.State state = fsa.getState();
+        int[] found = new int[1];
+        FSA.PhraseHandler handler = (start, length, phraseState) -> found[0]++;
+        for (int i = 0; i < lookups; i += words.length)
+            state.matchPhrases(words, 0, words.length, handler);
+        return found[0];
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( ! (bean instanceof com.sun.management.ThreadMXBean)) return 0;
+        return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) {
+        new FSALookupBenchmark().run();
+    }
+
+}
@@ -5,6 +5,10 @@ import com.yahoo.fsa.FSA;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author bratseth
@@ -97,4 +101,29 @@ public class FSATestCase extends junit.framework.TestCase {
 
     }
 
+    public void testCharSequenceRangeDelta() {
+        state.delta(new StringBuilder("xxthis is a testxx"), 2, 16);
+        assertTrue(state.isValid());
+        assertTrue(state.isFinal());
+    }
+
+    public void testByteRangeDelta() throws UnsupportedEncodingException {
+        byte[] bytes = "xxawordxx".getBytes("utf-8");
+        state.delta(bytes, 2, 5);
+        assertTrue(state.isValid());
+        assertTrue(state.isFinal());
+    }
+
+    public void testMatchPhrases() {
+        String[] words = { "well", "this", "is", "a", "test", null, "aword", "tudor", "vidor", "tudor" };
+        List<String> phrases = new ArrayList<>();
+        state.matchPhrases(words, 0, words.length,
+                           (start, length, phraseState) -> phrases.add(start + ":" + length + ":" + phraseState.isFinal()));
+        assertEquals(Arrays.asList("1:4:true", "6:1:true", "7:2:true"), phrases);
+
+        phrases.clear();
+        state.matchPhrases(words, 2, 8, (start, length, phraseState) -> phrases.add(start + ":" + length));
+        assertEquals(Arrays.asList("6:1"), phrases);
+    }
+
 }
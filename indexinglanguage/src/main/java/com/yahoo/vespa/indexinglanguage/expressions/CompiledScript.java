@@ -0,0 +1,386 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage.expressions;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.FieldPath;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.vespa.indexinglanguage.AdapterFactory;
+import com.yahoo.vespa.indexinglanguage.DocumentAdapter;
+import com.yahoo.vespa.indexinglanguage.UpdateAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An expression compiled to a flat sequence of instructions, which produces the same output as executing
+ * the expression, but without evaluating the types of the composite expressions for every execution, nor
+ * recursing through them. Scripts, statements, guards and parentheses are flattened, while other composite
+ * expressions are executed as single instructions. Input fields are resolved to field paths when compiling
+ * if a document type is given.
+ * <p>
+ * Compile verified expressions only. When the context has an executor, the independent statements of a script
+ * expression are executed in parallel as by {@link ScriptExpression}, each as a separately compiled sequence.
+ * Instances are immutable and may be executed by multiple threads.
+ *
+ * @author agent
+ */
+public final class CompiledScript {
+
+    private final Expression expression;
+    private final Instruction[] instructions;
+
+    /** The number of script inputs which must be saved during execution */
+    private final int inputSlots;
+
+    /** The input type required by the expression, checked when executing in parallel */
+    private final DataType inputType;
+
+    /** The stages of statements to execute in parallel when the context has an executor, or null if none */
+    private final List<ScriptExpression.Stage> stages;
+
+    /** The compiled statements of the stages */
+    private final Map<StatementExpression, CompiledScript> statements;
+
+    private CompiledScript(Expression expression, List<Instruction> instructions, int inputSlots,
+                           DocumentType documentType) {
+        this.expression = expression;
+        this.instructions = instructions.toArray(new Instruction[instructions.size()]);
+        this.inputSlots = inputSlots;
+        this.inputType = expression.requiredInputType();
+        if (expression instanceof ScriptExpression && ((ScriptExpression)expression).size() > 1) {
+            this.stages = ((ScriptExpression)expression).getStages();
+            this.statements = new IdentityHashMap<>();
+            for (StatementExpression statement : (ScriptExpression)expression) {
+                statements.put(statement, compile(statement, documentType));
+            }
+        } else {
+            this.stages = null;
+            this.statements = Collections.emptyMap();
+        }
+    }
+
+    /** Returns the expression this was compiled from */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /** Returns the number of instructions of this */
+    public int size() {
+        return instructions.length;
+    }
+
+    public Document execute(AdapterFactory factory, Document doc) {
+        return execute(factory.newDocumentAdapter(doc));
+    }
+
+    public Document execute(DocumentAdapter adapter) {
+        execute(new ExecutionContext(adapter));
+        return adapter.getFullOutput();
+    }
+
+    /** Executes this in the given context and returns the resulting value, as {@link Expression#execute} */
+    public FieldValue execute(ExecutionContext context) {
+        if (stages != null && context.getExecutor() != null) {
+            return executeInParallel(context);
+        }
+        FieldValue[] inputs = inputSlots > 0 ? new FieldValue[inputSlots] : null;
+        for (int i = 0; i < instructions.length; ) {
+            i = instructions[i].execute(context, inputs, i);
+        }
+        return context.getValue();
+    }
+
+    private FieldValue executeInParallel(ExecutionContext context) {
+        FieldValue input = context.getValue();
+        if (inputType != null) {
+            if (input == null) {
+                return null;
+            }
+            expression.requireCompatibleInput(inputType, input);
+        }
+        for (ScriptExpression.Stage stage : stages) {
+            stage.execute(context, input, (ctx, statement) -> statements.get(statement).execute(ctx));
+        }
+        context.setValue(input);
+        return context.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "compiled " + expression;
+    }
+
+    /** Compiles an expression without resolving input fields ahead of execution */
+    public static CompiledScript compile(Expression expression) {
+        return compile(expression, null);
+    }
+
+    /**
+     * Compiles an expression
+     *
+     * @param expression the expression to compile
+     * @param documentType the type of the documents this will execute on, used to resolve input fields,
+     *        or null to resolve them on each execution
+     * @throws VerificationException if the expression is not valid
+     */
+    public static CompiledScript compile(Expression expression, DocumentType documentType) {
+        Compiler compiler = new Compiler(documentType);
+        compiler.compile(expression);
+        return new CompiledScript(expression, compiler.instructions, compiler.maxSlots, documentType);
+    }
+
+    private static class Compiler {
+
+        private final DocumentType documentType;
+        private final List<Instruction> instructions = new ArrayList<>();
+        private int slots = 0;
+        private int maxSlots = 0;
+
+        Compiler(DocumentType documentType) {
+            this.documentType = documentType;
+        }
+
+        void compile(Expression exp) {
+            if (exp instanceof ScriptExpression) {
+                int slot = slots++;
+                maxSlots = Math.max(maxSlots, slots);
+                Begin begin = add(new BeginScript(exp, slot));
+                for (Expression statement : (ScriptExpression)exp) {
+                    add(new RestoreInput(slot));
+                    compile(statement);
+                }
+                add(new EndScript(exp, slot));
+                begin.end = instructions.size();
+                slots--;
+            } else if (exp instanceof StatementExpression) {
+                Begin begin = add(new Begin(exp));
+                for (Expression child : (StatementExpression)exp) {
+                    compile(child);
+                }
+                add(new End(exp));
+                begin.end = instructions.size();
+            } else if (exp instanceof GuardExpression) {
+                Begin begin = add(new BeginGuard(exp));
+                compile(((GuardExpression)exp).getInnerExpression());
+                add(new End(exp));
+                begin.end = instructions.size();
+            } else if (exp instanceof ParenthesisExpression) {
+                Begin begin = add(new Begin(exp));
+                compile(((ParenthesisExpression)exp).getInnerExpression());
+                add(new End(exp));
+                begin.end = instructions.size();
+            } else if (exp instanceof InputExpression && resolve((InputExpression)exp) != null) {
+                add(new Input(resolve((InputExpression)exp)));
+            } else {
+                add(new Execute(exp));
+            }
+        }
+
+        private FieldPath resolve(InputExpression exp) {
+            if (documentType == null || exp.getFieldName() == null) {
+                return null;
+            }
+            try {
+                return documentType.buildFieldPath(exp.getFieldName());
+            } catch (IllegalArgumentException e) {
+                return null; // let the expression report this on execution
+            }
+        }
+
+        private <T extends Instruction> T add(T instruction) {
+            instructions.add(instruction);
+            return instruction;
+        }
+
+    }
+
+    private static abstract class Instruction {
+
+        /** Executes this and returns the index of the next instruction to execute */
+        abstract int execute(ExecutionContext ctx, FieldValue[] inputs, int index);
+
+    }
+
+    /** Executes a single expression, which may be composite */
+    private static class Execute extends Instruction {
+
+        private final Expression exp;
+        private final DataType inputType;
+        private final DataType outputType;
+
+        Execute(Expression exp) {
+            this.exp = exp;
+            this.inputType = exp.requiredInputType();
+            this.outputType = compatibilityChecked(exp.createdOutputType());
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            if (inputType != null) {
+                FieldValue input = ctx.getValue();
+                if (input == null) {
+                    return index + 1;
+                }
+                exp.requireCompatibleInput(inputType, input);
+            }
+            exp.doExecute(ctx);
+            if (outputType != null) {
+                exp.requireCompatibleOutput(outputType, ctx.getValue());
+            }
+            return index + 1;
+        }
+
+    }
+
+    /** Reads an input field by a path resolved at compile time */
+    private static class Input extends Instruction {
+
+        private final FieldPath fieldPath;
+
+        Input(FieldPath fieldPath) {
+            this.fieldPath = fieldPath;
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            ctx.setValue(ctx.getInputValue(fieldPath));
+            return index + 1;
+        }
+
+    }
+
+    /** Starts a flattened composite, skipping past its end if it requires input which is not present */
+    private static class Begin extends Instruction {
+
+        final Expression exp;
+        private final DataType inputType;
+
+        /** The index of the instruction following the end of this composite */
+        int end;
+
+        Begin(Expression exp) {
+            this.exp = exp;
+            this.inputType = exp.requiredInputType();
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            if (inputType != null) {
+                FieldValue input = ctx.getValue();
+                if (input == null) {
+                    return end;
+                }
+                exp.requireCompatibleInput(inputType, input);
+            }
+            return index + 1;
+        }
+
+    }
+
+    /** Ends a flattened composite */
+    private static class End extends Instruction {
+
+        private final Expression exp;
+        private final DataType outputType;
+
+        End(Expression exp) {
+            this.exp = exp;
+            this.outputType = compatibilityChecked(exp.createdOutputType());
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            if (outputType != null) {
+                exp.requireCompatibleOutput(outputType, ctx.getValue());
+            }
+            return index + 1;
+        }
+
+    }
+
+    /** Starts a guard, which is executed as a whole by the expression itself when executing updates */
+    private static class BeginGuard extends Begin {
+
+        BeginGuard(Expression exp) {
+            super(exp);
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            if (ctx.getAdapter() instanceof UpdateAdapter) {
+                exp.execute(ctx);
+                return end;
+            }
+            return super.execute(ctx, inputs, index);
+        }
+
+    }
+
+    /** Starts a script by saving its input, which is passed to each of its statements */
+    private static class BeginScript extends Begin {
+
+        private final int slot;
+
+        BeginScript(Expression exp, int slot) {
+            super(exp);
+            this.slot = slot;
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            int next = super.execute(ctx, inputs, index);
+            if (next != end) {
+                inputs[slot] = ctx.getValue();
+            }
+            return next;
+        }
+
+    }
+
+    /** Sets the value to the input of the enclosing script before each of its statements */
+    private static class RestoreInput extends Instruction {
+
+        private final int slot;
+
+        RestoreInput(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            ctx.setValue(inputs[slot]);
+            return index + 1;
+        }
+
+    }
+
+    /** Ends a script by setting the value back to its input */
+    private static class EndScript extends End {
+
+        private final int slot;
+
+        EndScript(Expression exp, int slot) {
+            super(exp);
+            this.slot = slot;
+        }
+
+        @Override
+        int execute(ExecutionContext ctx, FieldValue[] inputs, int index) {
+            ctx.setValue(inputs[slot]);
+            inputs[slot] = null;
+            return super.execute(ctx, inputs, index);
+        }
+
+    }
+
+    /** Returns the given output type, or null if any output is compatible with it */
+    private static DataType compatibilityChecked(DataType outputType) {
+        return outputType == UnresolvedDataType.INSTANCE ? null : outputType;
+    }
+
+}
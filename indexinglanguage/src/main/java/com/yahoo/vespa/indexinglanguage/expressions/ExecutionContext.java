@@ -10,6 +10,7 @@ import com.yahoo.language.detect.Detection;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
@@ -18,18 +19,37 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
 
     private final Map<String, FieldValue> variables = new HashMap<>();
     private final FieldValueAdapter adapter;
+    private final Object adapterLock;
     private FieldValue value;
     private Language language;
+    private ForkJoinPool executor;
 
     public ExecutionContext() {
         this(null);
     }
 
     public ExecutionContext(FieldValueAdapter adapter) {
+        this(adapter, null);
+    }
+
+    private ExecutionContext(FieldValueAdapter adapter, Object adapterLock) {
         this.adapter = adapter;
+        this.adapterLock = adapterLock;
         this.language = Language.UNKNOWN;
     }
 
+    /**
+     * Returns a copy of this context for executing a statement in another thread. The copy has its own value, language
+     * and variables, while access to the adapter is synchronized with all other contexts forked from this.
+     */
+    ExecutionContext fork() {
+        ExecutionContext fork = new ExecutionContext(adapter, adapterLock != null ? adapterLock : this);
+        fork.variables.putAll(variables);
+        fork.value = value;
+        fork.language = language;
+        return fork;
+    }
+
     public ExecutionContext execute(Expression exp) {
         if (exp != null) {
             exp.execute(this);
@@ -47,7 +67,12 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
         if (adapter == null) {
             throw new IllegalStateException("Can not get field '" + fieldName + "' because adapter is null.");
         }
-        return adapter.getInputValue(fieldName);
+        if (adapterLock == null) {
+            return adapter.getInputValue(fieldName);
+        }
+        synchronized (adapterLock) {
+            return adapter.getInputValue(fieldName);
+        }
     }
 
     @Override
@@ -55,7 +80,12 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
         if (adapter == null) {
             throw new IllegalStateException("Can not get field '" + fieldPath + "' because adapter is null.");
         }
-        return adapter.getInputValue(fieldPath);
+        if (adapterLock == null) {
+            return adapter.getInputValue(fieldPath);
+        }
+        synchronized (adapterLock) {
+            return adapter.getInputValue(fieldPath);
+        }
     }
 
     @Override
@@ -68,7 +98,13 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
         if (adapter == null) {
             throw new IllegalStateException("Can not set field '" + fieldName + "' because adapter is null.");
         }
-        adapter.setOutputValue(exp, fieldName, fieldValue);
+        if (adapterLock == null) {
+            adapter.setOutputValue(exp, fieldName, fieldValue);
+        } else {
+            synchronized (adapterLock) {
+                adapter.setOutputValue(exp, fieldName, fieldValue);
+            }
+        }
         return this;
     }
 
@@ -113,6 +149,21 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
         return detected;
     }
 
+    /** Returns the pool used to execute independent statements of scripts in parallel, or null to execute sequentially */
+    public ForkJoinPool getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the pool to use to execute independent statements of scripts in parallel. Statements are independent
+     * when they do not write fields or variables read or written by each other. Set to null (the default) to
+     * execute all statements sequentially in the calling thread.
+     */
+    public ExecutionContext setExecutor(ForkJoinPool executor) {
+        this.executor = executor;
+        return this;
+    }
+
     public FieldValue getValue() {
         return value;
     }
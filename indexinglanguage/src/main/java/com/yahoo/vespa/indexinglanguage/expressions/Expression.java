@@ -12,6 +12,8 @@ import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import com.yahoo.vespa.objects.Selectable;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * @author Simon Thoresen
  */
@@ -31,9 +33,20 @@ public abstract class Expression extends Selectable {
     }
 
     public static DocumentUpdate execute(Expression expression, AdapterFactory factory, DocumentUpdate update) {
+        return execute(expression, factory, update, null);
+    }
+
+    /**
+     * Executes an expression on an update
+     *
+     * @param executor the pool used to execute independent statements in parallel, or null to execute sequentially
+     */
+    public static DocumentUpdate execute(Expression expression, AdapterFactory factory, DocumentUpdate update,
+                                         ForkJoinPool executor) {
         DocumentUpdate ret = null;
         for (UpdateAdapter adapter : factory.newUpdateAdapterList(update)) {
-            DocumentUpdate output = adapter.getExpression(expression).execute(adapter);
+            adapter.getExpression(expression).execute(new ExecutionContext(adapter).setExecutor(executor));
+            DocumentUpdate output = adapter.getOutput();
             if (output == null) {
                 // ignore
             } else if (ret != null) {
@@ -64,23 +77,30 @@ public abstract class Expression extends Selectable {
             if (input == null) {
                 return null;
             }
-            if (!inputType.isValueCompatible(input)) {
-                throw new IllegalArgumentException("Expression '" + this + "' expected " + inputType.getName() +
-                                                   " input, got " + input.getDataType().getName() + ".");
-            }
+            requireCompatibleInput(inputType, input);
         }
         doExecute(context);
         DataType outputType = createdOutputType();
         if (outputType != null) {
-            FieldValue output = context.getValue();
-            if (output != null && !outputType.isValueCompatible(output)) {
-                throw new IllegalStateException("Expression '" + this + "' expected " + outputType.getName() +
-                                                " output, got " + output.getDataType().getName() + ".");
-            }
+            requireCompatibleOutput(outputType, context.getValue());
         }
         return context.getValue();
     }
 
+    final void requireCompatibleInput(DataType inputType, FieldValue input) {
+        if (!inputType.isValueCompatible(input)) {
+            throw new IllegalArgumentException("Expression '" + this + "' expected " + inputType.getName() +
+                                               " input, got " + input.getDataType().getName() + ".");
+        }
+    }
+
+    final void requireCompatibleOutput(DataType outputType, FieldValue output) {
+        if (output != null && !outputType.isValueCompatible(output)) {
+            throw new IllegalStateException("Expression '" + this + "' expected " + outputType.getName() +
+                                            " output, got " + output.getDataType().getName() + ".");
+        }
+    }
+
     protected abstract void doExecute(ExecutionContext ctx);
 
     public final DataType verify() {
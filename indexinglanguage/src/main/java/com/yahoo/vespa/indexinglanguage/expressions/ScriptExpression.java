@@ -1,24 +1,37 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.indexinglanguage.expressions;
 
+import com.yahoo.collections.Pair;
 import com.yahoo.document.DataType;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.simple.SimpleLinguistics;
+import com.yahoo.vespa.indexinglanguage.ExpressionVisitor;
 import com.yahoo.vespa.indexinglanguage.ScriptParser;
 import com.yahoo.vespa.indexinglanguage.ScriptParserContext;
 import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
 
 /**
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
  */
 public class ScriptExpression extends ExpressionList<StatementExpression> {
 
+    /** The statements of this in stages of mutually independent statements, computed on first parallel execution */
+    private volatile List<Stage> stages = null;
+
     public ScriptExpression() {
         super();
     }
@@ -34,12 +47,44 @@ public class ScriptExpression extends ExpressionList<StatementExpression> {
     @Override
     protected void doExecute(ExecutionContext ctx) {
         FieldValue input = ctx.getValue();
-        for (Expression exp : this) {
-            ctx.setValue(input).execute(exp);
+        if (ctx.getExecutor() != null && size() > 1) {
+            for (Stage stage : getStages()) {
+                stage.execute(ctx, input, ExecutionContext::execute);
+            }
+        } else {
+            for (Expression exp : this) {
+                ctx.setValue(input).execute(exp);
+            }
         }
         ctx.setValue(input);
     }
 
+    /**
+     * Returns the statements of this grouped into consecutive stages, such that the statements of each stage may
+     * be executed in any order, or in parallel, after all the statements of the preceding stages have completed.
+     */
+    public List<Stage> getStages() {
+        List<Stage> stages = this.stages;
+        if (stages == null) {
+            this.stages = stages = Collections.unmodifiableList(resolveStages());
+        }
+        return stages;
+    }
+
+    private List<Stage> resolveStages() {
+        List<Stage> stages = new ArrayList<>();
+        Stage current = null;
+        for (StatementExpression statement : this) {
+            Dependencies dependencies = new Dependencies(statement);
+            if (current == null || current.conflictsWith(dependencies)) {
+                current = new Stage();
+                stages.add(current);
+            }
+            current.add(statement, dependencies);
+        }
+        return stages;
+    }
+
     @Override
     protected void doVerify(VerificationContext context) {
         DataType input = context.getValue();
@@ -100,4 +145,146 @@ public class ScriptExpression extends ExpressionList<StatementExpression> {
     public static ScriptExpression newInstance(ScriptParserContext config) throws ParseException {
         return ScriptParser.parseScript(config);
     }
+
+    /** A group of statements which do not depend on each other */
+    public static class Stage {
+
+        private final List<StatementExpression> statements = new ArrayList<>();
+        private final List<Dependencies> dependencies = new ArrayList<>();
+
+        void add(StatementExpression statement, Dependencies dependencies) {
+            this.statements.add(statement);
+            this.dependencies.add(dependencies);
+        }
+
+        boolean conflictsWith(Dependencies candidate) {
+            for (Dependencies existing : dependencies) {
+                if (existing.conflictsWith(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public List<StatementExpression> getStatements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+        /**
+         * Executes the statements of this stage, in parallel if there are more than one
+         *
+         * @param ctx the context to execute in, which must have an executor if there are more than one statement
+         * @param input the input to each statement
+         * @param executor executes a statement in a context
+         */
+        void execute(ExecutionContext ctx, FieldValue input,
+                     BiConsumer<ExecutionContext, StatementExpression> executor) {
+            if (statements.size() == 1) {
+                executor.accept(ctx.setValue(input), statements.get(0));
+                return;
+            }
+
+            ForkJoinPool pool = ctx.getExecutor();
+            List<ExecutionContext> contexts = new ArrayList<>(statements.size());
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(statements.size() - 1);
+            for (int i = 0; i < statements.size(); i++) {
+                ExecutionContext statementContext = ctx.fork().setValue(input);
+                contexts.add(statementContext);
+                if (i > 0) {
+                    StatementExpression statement = statements.get(i);
+                    tasks.add(pool.submit(() -> { executor.accept(statementContext, statement); }));
+                }
+            }
+
+            Throwable failure = null;
+            try {
+                executor.accept(contexts.get(0), statements.get(0));
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            for (ForkJoinTask<?> task : tasks) { // always wait for all, as the tasks write to the shared adapter
+                task.quietlyJoin();
+                if (failure == null && task.isCompletedAbnormally()) {
+                    failure = task.getException();
+                }
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException)failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error)failure;
+            }
+
+            for (int i = 0; i < statements.size(); i++) {
+                for (String variable : dependencies.get(i).variablesWritten) {
+                    ctx.setVariable(variable, contexts.get(i).getVariable(variable));
+                }
+            }
+        }
+
+    }
+
+    /** The fields and variables read and written by a statement */
+    static class Dependencies extends ExpressionVisitor {
+
+        private final Set<String> fieldsRead = new HashSet<>();
+        private final Set<String> fieldsWritten = new HashSet<>();
+        private final Set<String> variablesRead = new HashSet<>();
+        private final Set<String> variablesWritten = new HashSet<>();
+
+        /** Whether this statement changes or depends on state which is not tracked here and must execute alone */
+        private boolean barrier = false;
+
+        Dependencies(StatementExpression statement) {
+            visit(statement);
+        }
+
+        @Override
+        protected void doVisit(Expression exp) {
+            if (exp instanceof InputExpression) {
+                addField(fieldsRead, ((InputExpression)exp).getFieldName());
+            } else if (exp instanceof SelectInputExpression) {
+                for (Pair<String, Expression> entry : ((SelectInputExpression)exp).getCases()) {
+                    addField(fieldsRead, entry.getFirst());
+                }
+            } else if (exp instanceof OutputExpression) {
+                addField(fieldsWritten, ((OutputExpression)exp).getFieldName());
+            } else if (exp instanceof GetVarExpression) {
+                variablesRead.add(((GetVarExpression)exp).getVariableName());
+            } else if (exp instanceof SetVarExpression) {
+                variablesWritten.add(((SetVarExpression)exp).getVariableName());
+            } else if (exp instanceof SetLanguageExpression) {
+                barrier = true;
+            }
+        }
+
+        private void addField(Set<String> fields, String fieldName) {
+            if (fieldName == null) {
+                barrier = true;
+            } else {
+                fields.add(fieldName);
+            }
+        }
+
+        /** Returns whether the result of executing this and the given statements may depend on their order */
+        boolean conflictsWith(Dependencies other) {
+            return barrier || other.barrier ||
+                   intersects(fieldsWritten, other.fieldsWritten) ||
+                   intersects(fieldsWritten, other.fieldsRead) ||
+                   intersects(fieldsRead, other.fieldsWritten) ||
+                   intersects(variablesWritten, other.variablesWritten) ||
+                   intersects(variablesWritten, other.variablesRead) ||
+                   intersects(variablesRead, other.variablesWritten);
+        }
+
+        private static boolean intersects(Set<String> a, Set<String> b) {
+            for (String element : a) {
+                if (b.contains(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
 }
@@ -0,0 +1,152 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.StemMode;
+import com.yahoo.language.simple.SimpleLinguistics;
+import com.yahoo.vespa.indexinglanguage.expressions.AttributeExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ClearStateExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.CompiledScript;
+import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.GuardExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.IndexExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.SummaryExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.TokenizeExpression;
+import com.yahoo.vespa.indexinglanguage.linguistics.AnnotatorConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Measures the number of documents per second fed through an indexing script by interpreting the script
+ * expression, and by executing the compiled script, both for a script tokenizing text fields and for
+ * one only writing attributes, where the cost of interpretation is more visible.
+ *
+ * @author agent
+ */
+public class ScriptExecutionBenchmark {
+
+    private static final int textFieldCount = 5;
+    private static final int attributeFieldCount = 20;
+
+    private final DocumentType documentType = new DocumentType("benchmark");
+    private final SimpleAdapterFactory adapterFactory = new SimpleAdapterFactory();
+    private final List<Document> documents = new ArrayList<>();
+
+    public ScriptExecutionBenchmark() {
+        for (int i = 0; i < textFieldCount; i++)
+            documentType.addField("text" + i, DataType.STRING);
+        for (int i = 0; i < attributeFieldCount; i++)
+            documentType.addField("attribute" + i, DataType.INT);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            Document document = new Document(documentType, "doc:benchmark:" + i);
+            for (int j = 0; j < textFieldCount; j++)
+                document.setFieldValue("text" + j, new StringFieldValue(text(random, 50)));
+            for (int j = 0; j < attributeFieldCount; j++)
+                document.setFieldValue("attribute" + j, new IntegerFieldValue(random.nextInt()));
+            documents.add(document);
+        }
+    }
+
+    public void run() {
+        int documentCount = 50000;
+        measure("text", textScript(new SimpleLinguistics()), documentCount / 10);
+        measure("attribute", attributeScript(), documentCount);
+    }
+
+    private void measure(String name, Expression script, int documentCount) {
+        CompiledScript compiled = CompiledScript.compile(script, documentType);
+        Consumer<Document> interpreted = document -> script.execute(adapterFactory, document);
+        Consumer<Document> compiledExecution = document -> compiled.execute(adapterFactory, document);
+
+        out("Warming up " + name + " script...");
+        feed(interpreted, documentCount);
+        feed(compiledExecution, documentCount);
+
+        measure(name + " script, interpreted", interpreted, documentCount);
+        measure(name + " script, compiled", compiledExecution, documentCount);
+    }
+
+    private void measure(String description, Consumer<Document> execution, int documentCount) {
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+        feed(execution, documentCount);
+        long elapsedNanos = System.nanoTime() - startTime;
+        long bytes = allocatedBytes() - startBytes;
+        out(String.format("Feeding with %s: %.0f documents per second, %.0f bytes allocated per document",
+                          description, documentCount * 1e9 / elapsedNanos, (double)bytes / documentCount));
+    }
+
+    private void feed(Consumer<Document> execution, int documentCount) {
+        for (int i = 0; i < documentCount; i++)
+            execution.accept(new Document(documents.get(i % documents.size()))); // copy to start from unannotated text
+    }
+
+    /** Returns a script like those generated for indexed text fields with summaries */
+    private Expression textScript(Linguistics linguistics) {
+        AnnotatorConfig config = new AnnotatorConfig().setStemMode(StemMode.SHORTEST);
+        List<StatementExpression> statements = new ArrayList<>();
+        for (int i = 0; i < textFieldCount; i++) {
+            String field = "text" + i;
+            statements.add(guarded(new InputExpression(field), new TokenizeExpression(linguistics, config),
+                                   new SummaryExpression(field), new IndexExpression(field)));
+        }
+        return new ScriptExpression(statements);
+    }
+
+    /** Returns a script like those generated for attribute fields with summaries */
+    private Expression attributeScript() {
+        List<StatementExpression> statements = new ArrayList<>();
+        for (int i = 0; i < attributeFieldCount; i++) {
+            String field = "attribute" + i;
+            statements.add(guarded(new InputExpression(field), new AttributeExpression(field),
+                                   new SummaryExpression(field)));
+        }
+        return new ScriptExpression(statements);
+    }
+
+    private StatementExpression guarded(Expression ... expressions) {
+        return new StatementExpression(new ClearStateExpression(),
+                                       new GuardExpression(new ScriptExpression(new StatementExpression(expressions))));
+    }
+
+    private String text(Random random, int wordCount) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) b.append(' ');
+            int length = 2 + random.nextInt(8);
+            for (int j = 0; j < length; j++)
+                b.append((char)('a' + random.nextInt(26)));
+            if (random.nextInt(4) == 0) b.append('s');
+        }
+        return b.toString();
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( ! (bean instanceof com.sun.management.ThreadMXBean)) return 0;
+        return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) {
+        new ScriptExecutionBenchmark().run();
+    }
+
+}
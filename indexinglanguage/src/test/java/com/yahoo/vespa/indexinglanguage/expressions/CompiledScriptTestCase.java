@@ -0,0 +1,185 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage.expressions;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentUpdate;
+import com.yahoo.document.Field;
+import com.yahoo.document.StructDataType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.Struct;
+import com.yahoo.document.update.FieldUpdate;
+import com.yahoo.vespa.indexinglanguage.SimpleAdapterFactory;
+import com.yahoo.vespa.indexinglanguage.SimpleDocumentAdapter;
+import com.yahoo.vespa.indexinglanguage.SimpleTestAdapter;
+import com.yahoo.vespa.indexinglanguage.UpdateAdapter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class CompiledScriptTestCase {
+
+    @Test
+    public void requireThatCompiledScriptProducesTheSameOutputAsTheExpression() {
+        Expression script = newScript(
+                newStatement(new InputExpression("in"), new SetVarExpression("tmp"), new AttributeExpression("out-1")),
+                newStatement(new GuardExpression(newScript(
+                        newStatement(new InputExpression("in"), new ToStringExpression(), new SummaryExpression("out-2")),
+                        newStatement(new ParenthesisExpression(new GetVarExpression("tmp")),
+                                     new AttributeExpression("out-3"))))),
+                newStatement(new SetValueExpression(new IntegerFieldValue(6)),
+                             newScript(newStatement(new SetValueExpression(new IntegerFieldValue(9)),
+                                                    new SetVarExpression("nested"))),
+                             new AttributeExpression("out-4")),
+                newStatement(new InputExpression("in"),
+                             new IfThenExpression(new ThisExpression(), IfThenExpression.Comparator.GT,
+                                                  new SetValueExpression(new IntegerFieldValue(50)),
+                                                  new GetVarExpression("nested")),
+                             new AttributeExpression("out-5")));
+        CompiledScript compiled = CompiledScript.compile(script);
+        assertSame(script, compiled.getExpression());
+        assertEquals(46, compiled.size());
+
+        for (int value : new int[] { 17, 69 }) {
+            SimpleTestAdapter expected = newAdapter(value);
+            SimpleTestAdapter actual = newAdapter(value);
+            ExecutionContext expectedContext = new ExecutionContext(expected);
+            ExecutionContext actualContext = new ExecutionContext(actual);
+            assertEquals(script.execute(expectedContext), compiled.execute(actualContext));
+            for (String field : Arrays.asList("out-1", "out-2", "out-3", "out-4", "out-5")) {
+                assertEquals(expected.getInputValue(field), actual.getInputValue(field));
+            }
+            assertEquals(expectedContext.getVariable("tmp"), actualContext.getVariable("tmp"));
+            assertEquals(expectedContext.getVariable("nested"), actualContext.getVariable("nested"));
+        }
+        SimpleTestAdapter adapter = newAdapter(69);
+        compiled.execute(new ExecutionContext(adapter));
+        assertEquals(new IntegerFieldValue(69), adapter.getInputValue("out-1"));
+        assertEquals(new StringFieldValue("69"), adapter.getInputValue("out-2"));
+        assertEquals(new IntegerFieldValue(69), adapter.getInputValue("out-3"));
+        assertEquals(new IntegerFieldValue(6), adapter.getInputValue("out-4"));
+        assertEquals(new IntegerFieldValue(9), adapter.getInputValue("out-5"));
+    }
+
+    @Test
+    public void requireThatIndependentStatementsAreExecutedInParallelWhenTheContextHasAnExecutor() {
+        ScriptExpression script = newScript(
+                newStatement(new InputExpression("in"), new SetVarExpression("tmp"), new AttributeExpression("out-1")),
+                newStatement(new InputExpression("in"), new ToStringExpression(), new SummaryExpression("out-2")),
+                newStatement(new GetVarExpression("tmp"), new AttributeExpression("out-3")),
+                newStatement(new SetValueExpression(new IntegerFieldValue(6)), new AttributeExpression("out-4")));
+        assertEquals(2, script.getStages().size());
+
+        CompiledScript compiled = CompiledScript.compile(script);
+        ForkJoinPool executor = new ForkJoinPool(4);
+        try {
+            SimpleTestAdapter adapter = newAdapter(69);
+            ExecutionContext context = new ExecutionContext(adapter).setExecutor(executor);
+            compiled.execute(context);
+            assertEquals(new IntegerFieldValue(69), adapter.getInputValue("out-1"));
+            assertEquals(new StringFieldValue("69"), adapter.getInputValue("out-2"));
+            assertEquals(new IntegerFieldValue(69), adapter.getInputValue("out-3"));
+            assertEquals(new IntegerFieldValue(6), adapter.getInputValue("out-4"));
+            assertEquals(new IntegerFieldValue(69), context.getVariable("tmp"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void requireThatExpressionsRequiringMissingInputAreSkipped() {
+        Expression script = newScript(newStatement(new InputExpression("missing"), new LowerCaseExpression(),
+                                                   new AttributeExpression("out-1")),
+                                      newStatement(new SetValueExpression(new IntegerFieldValue(1)),
+                                                   new AttributeExpression("out-3")));
+        SimpleTestAdapter adapter = newAdapter(0);
+        assertNull(CompiledScript.compile(script).execute(new ExecutionContext(adapter)));
+        assertNull(adapter.getInputValue("out-1"));
+        assertEquals(new IntegerFieldValue(1), adapter.getInputValue("out-3"));
+
+        script = newScript(newStatement(new LowerCaseExpression(), new AttributeExpression("out-2")),
+                           newStatement(new SetValueExpression(new IntegerFieldValue(1)),
+                                        new AttributeExpression("out-3")));
+        adapter = newAdapter(0);
+        assertNull(CompiledScript.compile(script).execute(new ExecutionContext(adapter)));
+        assertNull(adapter.getInputValue("out-2"));
+        assertNull(adapter.getInputValue("out-3")); // as the script requires string input
+    }
+
+    @Test
+    public void requireThatInputTypesAreChecked() {
+        Expression script = newStatement(new SetValueExpression(new IntegerFieldValue(1)), new LowerCaseExpression());
+        try {
+            CompiledScript.compile(script).execute(new ExecutionContext(newAdapter(0)));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Expression 'lowercase' expected string input, got int.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void requireThatInputFieldsAreResolvedWhenCompiled() {
+        StructDataType structType = new StructDataType("my_struct");
+        structType.addField(new Field("bar", DataType.STRING));
+        DocumentType docType = new DocumentType("my_doc");
+        docType.addField("foo", structType);
+        docType.addField("out-1", DataType.STRING);
+        docType.addField("out-2", DataType.STRING);
+
+        Struct foo = new Struct(structType);
+        foo.setFieldValue("bar", new StringFieldValue("BAR"));
+        Document doc = new Document(docType, "doc:scheme:");
+        doc.setFieldValue("foo", foo);
+
+        Expression script = newScript(newStatement(new InputExpression("foo.bar"), new LowerCaseExpression(),
+                                                   new AttributeExpression("out-1")),
+                                      newStatement(new InputExpression("unknown"), new AttributeExpression("out-2")));
+        Document output = CompiledScript.compile(script, docType).execute(new SimpleDocumentAdapter(doc));
+        assertEquals(new StringFieldValue("bar"), output.getFieldValue("out-1"));
+        assertNull(output.getFieldValue("out-2"));
+    }
+
+    @Test
+    public void requireThatGuardsAreExecutedByTheExpressionForUpdates() {
+        DocumentType docType = new DocumentType("my_input");
+        docType.addField(new Field("my_int", DataType.INT));
+        docType.addField(new Field("my_str", DataType.STRING));
+        DocumentUpdate docUpdate = new DocumentUpdate(docType, "doc:scheme:");
+        docUpdate.addFieldUpdate(FieldUpdate.createAssign(docType.getField("my_str"), new StringFieldValue("foo")));
+        List<UpdateAdapter> adapters = new SimpleAdapterFactory().newUpdateAdapterList(docUpdate);
+        assertEquals(1, adapters.size());
+
+        Expression guard = new GuardExpression(newStatement(new SetValueExpression(new IntegerFieldValue(1)),
+                                                            new AttributeExpression("my_int")));
+        assertNull(CompiledScript.compile(guard).execute(new ExecutionContext(adapters.get(0))));
+        assertNull(adapters.get(0).getOutput());
+    }
+
+    private static SimpleTestAdapter newAdapter(int value) {
+        SimpleTestAdapter adapter = new SimpleTestAdapter();
+        for (String name : Arrays.asList("in", "out-1", "out-3", "out-4", "out-5")) {
+            adapter.createField(new Field(name, DataType.INT));
+        }
+        adapter.createField(new Field("out-2", DataType.STRING));
+        adapter.setOutputValue(null, "in", new IntegerFieldValue(value));
+        return adapter;
+    }
+
+    private static ScriptExpression newScript(StatementExpression... args) {
+        return new ScriptExpression(args);
+    }
+
+    private static StatementExpression newStatement(Expression... args) {
+        return new StatementExpression(args);
+    }
+
+}
@@ -4,10 +4,13 @@ package com.yahoo.vespa.indexinglanguage.expressions;
 import com.yahoo.document.DataType;
 import com.yahoo.document.Field;
 import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.vespa.indexinglanguage.SimpleTestAdapter;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.yahoo.vespa.indexinglanguage.expressions.ExpressionAssert.assertVerify;
 import static com.yahoo.vespa.indexinglanguage.expressions.ExpressionAssert.assertVerifyThrows;
@@ -114,6 +117,77 @@ public class ScriptTestCase {
         assertEquals(new IntegerFieldValue(9), adapter.getInputValue("out"));
     }
 
+    @Test
+    public void requireThatIndependentStatementsAreStagedTogether() {
+        StatementExpression a = newStatement(new InputExpression("in-1"), new AttributeExpression("out-1"));
+        StatementExpression b = newStatement(new InputExpression("in-2"), new AttributeExpression("out-2"));
+        StatementExpression c = newStatement(new InputExpression("out-1"), new AttributeExpression("out-3"));
+        StatementExpression d = newStatement(new InputExpression("in-1"), new SetVarExpression("tmp"));
+        StatementExpression e = newStatement(new GetVarExpression("tmp"), new AttributeExpression("out-4"));
+        StatementExpression f = newStatement(new SetValueExpression(new StringFieldValue("en")), new SetLanguageExpression());
+        StatementExpression g = newStatement(new InputExpression("in-2"), new IndexExpression("out-5"));
+        StatementExpression h = newStatement(new InputExpression("in-1"), new AttributeExpression("out-5"));
+
+        List<ScriptExpression.Stage> stages = newScript(a, b, c, d, e, f, g, h).getStages();
+        assertEquals(6, stages.size());
+        assertEquals(Arrays.asList(a, b), stages.get(0).getStatements()); // c reads what a writes
+        assertEquals(Arrays.asList(c, d), stages.get(1).getStatements()); // e reads what d writes
+        assertEquals(Arrays.asList(e), stages.get(2).getStatements());    // f changes the language
+        assertEquals(Arrays.asList(f), stages.get(3).getStatements());
+        assertEquals(Arrays.asList(g), stages.get(4).getStatements());    // h writes what g writes
+        assertEquals(Arrays.asList(h), stages.get(5).getStatements());
+    }
+
+    @Test
+    public void requireThatParallelExecutionProducesTheSameOutputAsSequential() {
+        ScriptExpression script = newScript(newStatement(new InputExpression("in-1"), new SetVarExpression("tmp-1"),
+                                                         new AttributeExpression("out-1")),
+                                            newStatement(new InputExpression("in-2"), new SetVarExpression("tmp-2"),
+                                                         new AttributeExpression("out-2")),
+                                            newStatement(new GetVarExpression("tmp-1"), new AttributeExpression("out-3")),
+                                            newStatement(new GetVarExpression("tmp-2"), new AttributeExpression("out-4")));
+        ForkJoinPool executor = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                SimpleTestAdapter adapter = newAdapter(i);
+                ExecutionContext context = new ExecutionContext(adapter).setExecutor(executor);
+                script.execute(context);
+                assertEquals(new IntegerFieldValue(i), adapter.getInputValue("out-1"));
+                assertEquals(new IntegerFieldValue(i + 1), adapter.getInputValue("out-2"));
+                assertEquals(new IntegerFieldValue(i), adapter.getInputValue("out-3"));
+                assertEquals(new IntegerFieldValue(i + 1), adapter.getInputValue("out-4"));
+                assertEquals(new IntegerFieldValue(i + 1), context.getVariable("tmp-2"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void requireThatFailuresInParallelStatementsArePropagated() {
+        ScriptExpression script = newScript(newStatement(new InputExpression("in-1"), new AttributeExpression("out-1")),
+                                            newStatement(new InputExpression("in-2"), new AttributeExpression("out-2")));
+        ForkJoinPool executor = new ForkJoinPool(2);
+        try {
+            script.execute(new ExecutionContext().setExecutor(executor));
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Can not get field 'in-1' because adapter is null.", e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static SimpleTestAdapter newAdapter(int value) {
+        SimpleTestAdapter adapter = new SimpleTestAdapter();
+        for (String name : Arrays.asList("in-1", "in-2", "out-1", "out-2", "out-3", "out-4")) {
+            adapter.createField(new Field(name, DataType.INT));
+        }
+        adapter.setOutputValue(null, "in-1", new IntegerFieldValue(value));
+        adapter.setOutputValue(null, "in-2", new IntegerFieldValue(value + 1));
+        return adapter;
+    }
+
     private static ScriptExpression newScript(StatementExpression... args) {
         return new ScriptExpression(args);
     }
@@ -0,0 +1,402 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.collections.Tuple2;
+import com.yahoo.component.Version;
+import com.yahoo.language.Language;
+import com.yahoo.language.Linguistics;
+import com.yahoo.language.detect.Detector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A linguistics implementation which wraps another and caches the results of tokenizing, stemming,
+ * normalizing, accent removal and segmentation of short inputs, keyed by the input and all the parameters
+ * affecting the result. Since the distribution of terms is skewed, most terms are then processed only once.
+ * <p>
+ * The cache is bounded and shared by all the processors returned by an instance, which is thread safe.
+ * It is divided into segments which are locked separately, such that concurrent lookups of different inputs
+ * do not contend for the same lock. Cached tokens are immutable copies of those returned by the wrapped tokenizer,
+ * and cached stem lists are copied before they are returned, so results cannot be modified through the cache.
+ *
+ * @author agent
+ */
+public class CachingLinguistics implements Linguistics {
+
+    /** The default max length of inputs to cache results for */
+    public static final int defaultMaxInputLength = 64;
+
+    /** The max number of separately locked segments of the cache */
+    private static final int maxSegments = 16;
+
+    /** The min number of results cached in each segment */
+    private static final int minSegmentSize = 64;
+
+    private final Linguistics linguistics;
+    private final int maxInputLength;
+    private final ResultMap[] cacheSegments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a caching linguistics caching results for inputs up to the default max input length
+     *
+     * @param linguistics the linguistics implementation to cache the results of
+     * @param maxSize the max number of results to cache
+     */
+    public CachingLinguistics(Linguistics linguistics, int maxSize) {
+        this(linguistics, maxSize, defaultMaxInputLength);
+    }
+
+    /**
+     * Creates a caching linguistics
+     *
+     * @param linguistics the linguistics implementation to cache the results of
+     * @param maxSize the max number of results to cache
+     * @param maxInputLength the max length of inputs to cache the results for. Longer inputs,
+     *        such as complete field values, are always processed by the wrapped implementation
+     */
+    public CachingLinguistics(Linguistics linguistics, int maxSize, int maxInputLength) {
+        this.linguistics = linguistics;
+        this.maxInputLength = maxInputLength;
+        this.cacheSegments = new ResultMap[Math.max(1, Math.min(maxSegments, maxSize / minSegmentSize))];
+        for (int i = 0; i < cacheSegments.length; i++)
+            cacheSegments[i] = new ResultMap(maxSize / cacheSegments.length);
+    }
+
+    /** Returns the linguistics implementation wrapped by this */
+    public Linguistics getWrapped() { return linguistics; }
+
+    @Override
+    public Stemmer getStemmer() { return new CachingStemmer(linguistics.getStemmer()); }
+
+    @Override
+    public Tokenizer getTokenizer() { return new CachingTokenizer(linguistics.getTokenizer()); }
+
+    @Override
+    public Normalizer getNormalizer() { return new CachingNormalizer(linguistics.getNormalizer()); }
+
+    @Override
+    public Transformer getTransformer() { return new CachingTransformer(linguistics.getTransformer()); }
+
+    @Override
+    public Segmenter getSegmenter() { return new CachingSegmenter(linguistics.getSegmenter()); }
+
+    @Override
+    public Detector getDetector() { return linguistics.getDetector(); }
+
+    @Override
+    public GramSplitter getGramSplitter() { return linguistics.getGramSplitter(); }
+
+    @Override
+    public CharacterClasses getCharacterClasses() { return linguistics.getCharacterClasses(); }
+
+    @Override
+    public Tuple2<String, Version> getVersion(Component component) { return linguistics.getVersion(component); }
+
+    /** Returns the number of lookups which were answered from the cache */
+    public long getHits() { return hits.sum(); }
+
+    /** Returns the number of lookups which were not answered from the cache */
+    public long getMisses() { return misses.sum(); }
+
+    /** Returns the fraction of lookups which were answered from the cache, or 0 if there are no lookups */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    /** Returns the number of results currently cached */
+    public int getSize() {
+        int size = 0;
+        for (ResultMap segment : cacheSegments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /** Returns the cached result for a key, or null if none */
+    private Object get(Key key) {
+        ResultMap segment = segmentOf(key);
+        Object result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result != null)
+            hits.increment();
+        else
+            misses.increment();
+        return result;
+    }
+
+    private void put(Key key, Object result) {
+        ResultMap segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, result);
+        }
+    }
+
+    private ResultMap segmentOf(Key key) {
+        int hash = key.hashCode();
+        return cacheSegments[Math.floorMod(hash ^ (hash >>> 16), cacheSegments.length)];
+    }
+
+    private boolean isCacheable(String input) {
+        return input != null && input.length() <= maxInputLength;
+    }
+
+    private class CachingStemmer implements Stemmer {
+
+        private final Stemmer stemmer;
+
+        CachingStemmer(Stemmer stemmer) { this.stemmer = stemmer; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<StemList> stem(String input, StemMode mode, Language language) {
+            if ( ! isCacheable(input)) return stemmer.stem(input, mode, language);
+
+            Key key = new Key(Component.STEMMER, input, language, mode, false);
+            List<StemList> stems = (List<StemList>)get(key);
+            if (stems == null) {
+                stems = copyOf(stemmer.stem(input, mode, language));
+                put(key, stems);
+            }
+            return copyOf(stems);
+        }
+
+        private List<StemList> copyOf(List<StemList> stems) {
+            List<StemList> copy = new ArrayList<>(stems.size());
+            for (StemList stemList : stems)
+                copy.add(new StemList(stemList.toArray(new String[stemList.size()])));
+            return copy;
+        }
+
+    }
+
+    private class CachingTokenizer implements Tokenizer {
+
+        private final Tokenizer tokenizer;
+
+        CachingTokenizer(Tokenizer tokenizer) { this.tokenizer = tokenizer; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Iterable<Token> tokenize(String input, Language language, StemMode stemMode, boolean removeAccents) {
+            if ( ! isCacheable(input)) return tokenizer.tokenize(input, language, stemMode, removeAccents);
+
+            Key key = new Key(Component.TOKENIZER, input, language, stemMode, removeAccents);
+            List<Token> tokens = (List<Token>)get(key);
+            if (tokens == null) {
+                tokens = new ArrayList<>();
+                for (Token token : tokenizer.tokenize(input, language, stemMode, removeAccents))
+                    tokens.add(new CachedToken(token));
+                tokens = Collections.unmodifiableList(tokens);
+                put(key, tokens);
+            }
+            return tokens;
+        }
+
+        @Override
+        public String getReplacementTerm(String tokenString) { return tokenizer.getReplacementTerm(tokenString); }
+
+    }
+
+    private class CachingNormalizer implements Normalizer {
+
+        private final Normalizer normalizer;
+
+        CachingNormalizer(Normalizer normalizer) { this.normalizer = normalizer; }
+
+        @Override
+        public String normalize(String input) {
+            if ( ! isCacheable(input)) return normalizer.normalize(input);
+
+            Key key = new Key(Component.NORMALIZER, input, null, null, false);
+            String normalized = (String)get(key);
+            if (normalized == null) {
+                normalized = normalizer.normalize(input);
+                if (normalized != null)
+                    put(key, normalized);
+            }
+            return normalized;
+        }
+
+    }
+
+    private class CachingTransformer implements Transformer {
+
+        private final Transformer transformer;
+
+        CachingTransformer(Transformer transformer) { this.transformer = transformer; }
+
+        @Override
+        public String accentDrop(String input, Language language) {
+            if ( ! isCacheable(input)) return transformer.accentDrop(input, language);
+
+            Key key = new Key(Component.TRANSFORMER, input, language, null, false);
+            String transformed = (String)get(key);
+            if (transformed == null) {
+                transformed = transformer.accentDrop(input, language);
+                if (transformed != null)
+                    put(key, transformed);
+            }
+            return transformed;
+        }
+
+    }
+
+    private class CachingSegmenter implements Segmenter {
+
+        private final Segmenter segmenter;
+
+        CachingSegmenter(Segmenter segmenter) { this.segmenter = segmenter; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<String> segment(String input, Language language) {
+            if ( ! isCacheable(input)) return segmenter.segment(input, language);
+
+            Key key = new Key(Component.SEGMENTER, input, language, null, false);
+            List<String> segments = (List<String>)get(key);
+            if (segments == null) {
+                segments = Collections.unmodifiableList(new ArrayList<>(segmenter.segment(input, language)));
+                put(key, segments);
+            }
+            return segments;
+        }
+
+    }
+
+    /** An immutable copy of a token, which can be shared between callers */
+    private static final class CachedToken implements Token {
+
+        private final TokenType type;
+        private final String orig;
+        private final String[] stems;
+        private final Token[] components;
+        private final long offset;
+        private final TokenScript script;
+        private final String tokenString;
+        private final boolean specialToken;
+        private final boolean indexable;
+
+        CachedToken(Token token) {
+            this.type = token.getType();
+            this.orig = token.getOrig();
+            this.stems = new String[token.getNumStems()];
+            for (int i = 0; i < stems.length; i++)
+                stems[i] = token.getStem(i);
+            this.components = new Token[token.getNumComponents()];
+            for (int i = 0; i < components.length; i++)
+                components[i] = new CachedToken(token.getComponent(i));
+            this.offset = token.getOffset();
+            this.script = token.getScript();
+            this.tokenString = token.getTokenString();
+            this.specialToken = token.isSpecialToken();
+            this.indexable = token.isIndexable();
+        }
+
+        @Override
+        public TokenType getType() { return type; }
+
+        @Override
+        public String getOrig() { return orig; }
+
+        @Override
+        public int getNumStems() { return stems.length; }
+
+        @Override
+        public String getStem(int i) { return stems[i]; }
+
+        @Override
+        public int getNumComponents() { return components.length; }
+
+        @Override
+        public Token getComponent(int i) { return components[i]; }
+
+        @Override
+        public long getOffset() { return offset; }
+
+        @Override
+        public TokenScript getScript() { return script; }
+
+        @Override
+        public String getTokenString() { return tokenString; }
+
+        @Override
+        public boolean isSpecialToken() { return specialToken; }
+
+        @Override
+        public boolean isIndexable() { return indexable; }
+
+        @Override
+        public String toString() { return "token '" + orig + "'"; }
+
+    }
+
+    /** The input to and parameters of an operation */
+    private static final class Key {
+
+        private final Component component;
+        private final String input;
+        private final Language language;
+        private final StemMode stemMode;
+        private final boolean removeAccents;
+        private final int hashCode;
+
+        Key(Component component, String input, Language language, StemMode stemMode, boolean removeAccents) {
+            this.component = component;
+            this.input = input;
+            this.language = language;
+            this.stemMode = stemMode;
+            this.removeAccents = removeAccents;
+            this.hashCode = Objects.hash(component, input, language, stemMode, removeAccents);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key)o;
+            return this.hashCode == other.hashCode &&
+                   this.component == other.component &&
+                   this.language == other.language &&
+                   this.stemMode == other.stemMode &&
+                   this.removeAccents == other.removeAccents &&
+                   this.input.equals(other.input);
+        }
+
+    }
+
+    @SuppressWarnings("serial")
+    private static class ResultMap extends LinkedHashMap<Key, Object> {
+
+        private final int maxSize;
+
+        ResultMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> entry) {
+            return size() > maxSize;
+        }
+
+    }
+
+}
@@ -26,6 +26,9 @@ public class SimpleTokenizer implements Tokenizer {
     private final Transformer transformer;
     private final KStemmer stemmer = new KStemmer();
 
+    /** Buffer reused for stemming tokens in place */
+    private char[] stemBuffer = new char[64];
+
     public SimpleTokenizer() {
         this(new SimpleNormalizer(), new SimpleTransformer());
     }
@@ -69,8 +72,26 @@ public class SimpleTokenizer implements Tokenizer {
         if (removeAccents)
             token = transformer.accentDrop(token, language);
         if (stemMode != StemMode.NONE)
-            token = stemmer.stem(token);
+            token = stem(token);
         return token;
     }
 
+    /** Stems a token without allocating unless the stem differs from the token */
+    private String stem(String token) {
+        int length = token.length();
+        if (length + 10 > stemBuffer.length) // leave room for stems longer than the token
+            stemBuffer = new char[(length + 10) * 2];
+        token.getChars(0, length, stemBuffer, 0);
+        int stemLength = stemmer.stemInPlace(stemBuffer, length);
+        if (stemLength < 0) return stemmer.stem(token);
+        if (stemLength == length && isPrefixOf(token, stemBuffer)) return token;
+        return new String(stemBuffer, 0, stemLength);
+    }
+
+    private static boolean isPrefixOf(String string, char[] chars) {
+        for (int i = 0; i < string.length(); i++)
+            if (string.charAt(i) != chars[i]) return false;
+        return true;
+    }
+
 }
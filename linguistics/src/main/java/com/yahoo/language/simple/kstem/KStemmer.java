@@ -1272,13 +1272,39 @@ public class KStemmer {
     return;
   }
   
+  /** Buffer reused to hold the terms given as strings */
+  private char[] termBuffer = new char[32];
+
   public KStemmer() {}
   
   public String stem(String term) {
-    boolean changed = stem(term.toCharArray(), term.length());
+    if (term.length() > termBuffer.length)
+      termBuffer = new char[term.length() * 2];
+    term.getChars(0, term.length(), termBuffer, 0);
+    boolean changed = stem(termBuffer, term.length());
     if (!changed) return term;
     return asString();
   }
+
+  /**
+   * Stems a lowercased term in place, without allocating.
+   *
+   * @param term the array holding the term to stem from index 0, which receives the stem
+   * @param length the length of the term in the array
+   * @return the length of the stem now in the array, which is the given length if the term was not changed,
+   *         or -1 if the stem is longer than the array, in which case the array is not changed
+   */
+  public int stemInPlace(char[] term, int length) {
+    if (!stem(term, length)) return length;
+    if (result != null) {
+      if (result.length() > term.length) return -1;
+      result.getChars(0, result.length(), term, 0);
+      return result.length();
+    }
+    if (word.length() > term.length) return -1;
+    System.arraycopy(word.getArray(), 0, term, 0, word.length());
+    return word.length();
+  }
   
   /**
    * Returns the result of the stem (assuming the word was changed) as a String.
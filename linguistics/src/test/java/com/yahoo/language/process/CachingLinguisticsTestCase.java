@@ -0,0 +1,112 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.simple.SimpleLinguistics;
+import com.yahoo.language.simple.SimpleToken;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class CachingLinguisticsTestCase {
+
+    private final SimpleLinguistics simple = new SimpleLinguistics();
+
+    @Test
+    public void testTokenizationIsCachedByAllParameters() {
+        CachingLinguistics linguistics = new CachingLinguistics(simple, 100);
+        Tokenizer tokenizer = linguistics.getTokenizer();
+
+        Iterable<Token> first = tokenizer.tokenize("Cars Résumé", Language.ENGLISH, StemMode.ALL, true);
+        assertEquals(tokenStrings(simple.getTokenizer().tokenize("Cars Résumé", Language.ENGLISH, StemMode.ALL, true)),
+                     tokenStrings(first));
+        assertSame(first, linguistics.getTokenizer().tokenize("Cars Résumé", Language.ENGLISH, StemMode.ALL, true));
+
+        assertNotSame(first, tokenizer.tokenize("Cars Résumé", Language.ENGLISH, StemMode.ALL, false));
+        assertNotSame(first, tokenizer.tokenize("Cars Résumé", Language.ENGLISH, StemMode.NONE, true));
+        assertNotSame(first, tokenizer.tokenize("Cars Résumé", Language.GERMAN, StemMode.ALL, true));
+
+        assertEquals(1, linguistics.getHits());
+        assertEquals(4, linguistics.getMisses());
+        assertEquals(0.2, linguistics.getHitRate(), 0.0000001);
+    }
+
+    @Test
+    public void testStemmingNormalizationAndTransformationIsCached() {
+        CachingLinguistics linguistics = new CachingLinguistics(simple, 100);
+
+        List<StemList> stems = linguistics.getStemmer().stem("cars", StemMode.ALL, Language.ENGLISH);
+        assertEquals(simple.getStemmer().stem("cars", StemMode.ALL, Language.ENGLISH), stems);
+        List<StemList> cachedStems = linguistics.getStemmer().stem("cars", StemMode.ALL, Language.ENGLISH);
+        assertEquals(stems, cachedStems);
+        assertNotSame(stems, cachedStems);
+
+        assertEquals(simple.getNormalizer().normalize("ﬁ"), linguistics.getNormalizer().normalize("ﬁ"));
+        assertEquals(simple.getNormalizer().normalize("ﬁ"), linguistics.getNormalizer().normalize("ﬁ"));
+
+        assertEquals("resume", linguistics.getTransformer().accentDrop("résumé", Language.FRENCH));
+        assertEquals("resume", linguistics.getTransformer().accentDrop("résumé", Language.FRENCH));
+
+        assertEquals(3, linguistics.getHits());
+        assertEquals(3, linguistics.getMisses());
+        assertEquals(3, linguistics.getSize());
+    }
+
+    @Test
+    public void testCachedResultsCannotBeModifiedByCallers() {
+        CachingLinguistics linguistics = new CachingLinguistics(simple, 100);
+
+        List<StemList> stems = linguistics.getStemmer().stem("cars", StemMode.ALL, Language.ENGLISH);
+        stems.get(0).set(0, "modified");
+        assertEquals(simple.getStemmer().stem("cars", StemMode.ALL, Language.ENGLISH),
+                     linguistics.getStemmer().stem("cars", StemMode.ALL, Language.ENGLISH));
+
+        Token token = linguistics.getTokenizer().tokenize("cars", Language.ENGLISH, StemMode.ALL, false).iterator().next();
+        assertFalse(token instanceof SimpleToken);
+        assertEquals("car", token.getTokenString());
+    }
+
+    @Test
+    public void testLongInputsAreNotCached() {
+        CachingLinguistics linguistics = new CachingLinguistics(simple, 100, 10);
+        Tokenizer tokenizer = linguistics.getTokenizer();
+        tokenizer.tokenize("a longer text to tokenize", Language.ENGLISH, StemMode.NONE, false);
+        tokenizer.tokenize("a longer text to tokenize", Language.ENGLISH, StemMode.NONE, false);
+        assertEquals(0, linguistics.getSize());
+        assertEquals(0, linguistics.getHits() + linguistics.getMisses());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        CachingLinguistics linguistics = new CachingLinguistics(simple, 10);
+        Normalizer normalizer = linguistics.getNormalizer();
+        for (int i = 0; i < 100; i++)
+            normalizer.normalize("term" + i);
+        assertEquals(10, linguistics.getSize());
+
+        CachingLinguistics segmented = new CachingLinguistics(simple, 1000);
+        normalizer = segmented.getNormalizer();
+        for (int i = 0; i < 10000; i++)
+            normalizer.normalize("term" + i);
+        assertTrue(segmented.getSize() <= 1000);
+        assertTrue(segmented.getSize() > 900);
+    }
+
+    private List<String> tokenStrings(Iterable<Token> tokens) {
+        List<String> strings = new ArrayList<>();
+        for (Token token : tokens)
+            strings.add(token.getTokenString());
+        return strings;
+    }
+
+}
@@ -0,0 +1,67 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.process.StemMode;
+import com.yahoo.language.process.Token;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures tokens per second and bytes allocated per token when tokenizing and stemming English text.
+ *
+ * @author agent
+ */
+public class SimpleTokenizerBenchmark {
+
+    private static final String text =
+            "The running dogs happily chased the flying birds across the fields, while the farmers were " +
+            "harvesting their crops and the children played games in the abandoned buildings nearby. " +
+            "Italians and Germans visited the cities, admiring the decorations and the illuminated churches.";
+
+    public void run() {
+        int iterations = 100000;
+
+        out("Warming up...");
+        tokenize(iterations, StemMode.NONE);
+        tokenize(iterations, StemMode.ALL);
+
+        measure("without stemming", iterations, StemMode.NONE);
+        measure("with stemming", iterations, StemMode.ALL);
+    }
+
+    private void measure(String description, int iterations, StemMode stemMode) {
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+        long tokens = tokenize(iterations, stemMode);
+        long elapsedNanos = System.nanoTime() - startTime;
+        long bytes = allocatedBytes() - startBytes;
+        out(String.format("Tokenizing %s: %.0f tokens per second, %.1f bytes allocated per token",
+                          description, tokens * 1e9 / elapsedNanos, (double)bytes / tokens));
+    }
+
+    private long tokenize(int iterations, StemMode stemMode) {
+        SimpleTokenizer tokenizer = new SimpleTokenizer();
+        long tokens = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (Token token : tokenizer.tokenize(text, Language.ENGLISH, stemMode, false))
+                tokens++;
+        }
+        return tokens;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( ! (bean instanceof com.sun.management.ThreadMXBean)) return 0;
+        return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) {
+        new SimpleTokenizerBenchmark().run();
+    }
+
+}
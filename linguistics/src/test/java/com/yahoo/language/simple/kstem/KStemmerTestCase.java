@@ -0,0 +1,38 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple.kstem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class KStemmerTestCase {
+
+    private final KStemmer stemmer = new KStemmer();
+
+    @Test
+    public void testStemmingInPlaceEqualsStemmingStrings() {
+        String[] terms = { "a", "is", "cars", "italians", "aging", "offended", "happiness", "flies", "calories",
+                           "running", "gods", "n4lle", "tralalala", "abilities", "croat" };
+        char[] buffer = new char[64];
+        for (String term : terms) {
+            term.getChars(0, term.length(), buffer, 0);
+            int stemLength = stemmer.stemInPlace(buffer, term.length());
+            assertEquals(term, new KStemmer().stem(term), new String(buffer, 0, stemLength));
+        }
+    }
+
+    @Test
+    public void testStemmingInPlaceIntoTooSmallArray() {
+        char[] buffer = "croat".toCharArray();
+        assertEquals(-1, stemmer.stemInPlace(buffer, buffer.length));
+        assertEquals("croat", new String(buffer));
+
+        buffer = "croat  ".toCharArray();
+        assertEquals(7, stemmer.stemInPlace(buffer, 5));
+        assertEquals("croatia", new String(buffer));
+    }
+
+}
@@ -3,6 +3,8 @@ package com.yahoo.logserver;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import com.yahoo.io.SelectLoopHook;
@@ -14,17 +16,23 @@ import com.yahoo.logserver.handlers.LogHandler;
 /**
  * This is the central point from which LogMessage objects are
  * propagated throughout the logserver architecture.
+ * <p>
+ * Dispatching does not hold any lock while calling the handlers.
+ * In batched mode a lock is only held while adding a message to the
+ * current batch, and full batches are passed on to the handlers
+ * outside of it.
  *
  * @author Bjorn Borud
  */
 public class LogDispatcher implements LogHandler, SelectLoopHook {
     private static final Logger log = Logger.getLogger(LogDispatcher.class.getName());
 
-    private final List<LogHandler> handlers = new ArrayList<>();
-    private int messageCount = 0;
+    private final List<LogHandler> handlers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger messageCount = new AtomicInteger(0);
     private boolean hasBeenShutDown = false;
-    private boolean batchedMode = false;
+    private volatile boolean batchedMode = false;
     private final int batchSize = 5000;
+    private final Object batchMonitor = new Object();
     private List<LogMessage> currentBatchList;
     private int roundCount = 0;
     @SuppressWarnings("unused")
@@ -41,7 +49,7 @@ public class LogDispatcher implements LogHandler, SelectLoopHook {
      * @param msg The LogMessage instance we wish to dispatch to the
      *            plugins
      */
-    public synchronized void handle(LogMessage msg) {
+    public void handle(LogMessage msg) {
         if (msg == null) {
             throw new NullPointerException("LogMessage was null");
         }
@@ -53,32 +61,39 @@ public class LogDispatcher implements LogHandler, SelectLoopHook {
                 h.handle(msg);
             }
         }
-        messageCount++;
+        messageCount.incrementAndGet();
     }
 
     private void addToBatch(LogMessage msg) {
-        if (currentBatchList == null) {
-            currentBatchList = new ArrayList<LogMessage>(batchSize);
+        List<LogMessage> todo = null;
+        synchronized (batchMonitor) {
+            if (currentBatchList == null) {
+                currentBatchList = new ArrayList<LogMessage>(batchSize);
+            }
             currentBatchList.add(msg);
-            return;
+            if (currentBatchList.size() == batchSize) {
+                todo = currentBatchList;
+                currentBatchList = null;
+            }
         }
-
-        currentBatchList.add(msg);
-
-        if (currentBatchList.size() == batchSize) {
-            flushBatch();
+        if (todo != null) {
+            dispatchBatch(todo);
         }
     }
 
     private void flushBatch() {
         List<LogMessage> todo;
-        synchronized(this) {
+        synchronized (batchMonitor) {
             todo = currentBatchList;
             currentBatchList = null;
         }
         if (todo == null) return;
+        dispatchBatch(todo);
+    }
+
+    private void dispatchBatch(List<LogMessage> batch) {
         for (LogHandler ht : handlers) {
-            ht.handle(todo);
+            ht.handle(batch);
         }
     }
 
@@ -124,7 +139,7 @@ public class LogDispatcher implements LogHandler, SelectLoopHook {
         }
         handlers.clear();
 
-        log.log(LogLevel.DEBUG, "Logdispatcher shut down.  Handled " + messageCount + " messages");
+        log.log(LogLevel.DEBUG, "Logdispatcher shut down.  Handled " + messageCount.get() + " messages");
     }
 
     /**
@@ -166,8 +181,8 @@ public class LogDispatcher implements LogHandler, SelectLoopHook {
      *
      * @return Returns the number of messages that we have seen.
      */
-    public synchronized int getMessageCount() {
-        return messageCount;
+    public int getMessageCount() {
+        return messageCount.get();
     }
 
     /**
@@ -178,7 +193,8 @@ public class LogDispatcher implements LogHandler, SelectLoopHook {
             flushBatch();
         }
 
-        lastRoundCount = messageCount - roundCount;
-        roundCount = messageCount;
+        int count = messageCount.get();
+        lastRoundCount = count - roundCount;
+        roundCount = count;
     }
 }
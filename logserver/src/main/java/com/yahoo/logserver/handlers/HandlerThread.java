@@ -10,13 +10,19 @@ import com.yahoo.io.FatalErrorHandler;
 import com.yahoo.log.LogLevel;
 import com.yahoo.log.LogMessage;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This handler implements a dispatcher which runs in its own
  * thread.  The purpose of this handler is to isolate execution
  * of handlers from the main server IO threads.
+ * <p>
+ * Messages are passed to the thread through a bounded ring buffer,
+ * and everything found in the buffer when the thread wakes up is
+ * handed to the handlers as one batch, so the handlers see large
+ * batches when the server is busy.
  *
  * @author Bjorn Borud
  */
@@ -65,7 +71,7 @@ public class HandlerThread extends Thread implements LogHandler {
     }
 
     private final BlockingQueue<ItemOrList> queue;
-    private final List<LogHandler> handlers = new ArrayList<LogHandler>();
+    private final List<LogHandler> handlers = new CopyOnWriteArrayList<>();
     private long count;
     @SuppressWarnings("unused")
     private long droppedCount = 0;
@@ -78,7 +84,7 @@ public class HandlerThread extends Thread implements LogHandler {
 
     public HandlerThread(String name) {
         super(name);
-        queue = new LinkedBlockingQueue<>(queueSize);
+        queue = new ArrayBlockingQueue<>(queueSize);
         log.log(LogLevel.CONFIG, "logserver.queue.size=" + queueSize);
     }
 
@@ -201,24 +207,14 @@ public class HandlerThread extends Thread implements LogHandler {
                 drainList.add(queue.take());
                 queue.drainTo(drainList);
 
-                for (ItemOrList o : drainList) {
-                    // we can get two types of elements here: single log
-                    // messages or lists of log messages, so we need to
-                    // handle them accordingly.
-
-                    if (o.item != null) {
-                        for (LogHandler handler : handlers) {
-                            handler.handle(o.item);
-                        }
-                    } else if (o.list != null) {
-                        for (LogHandler handler : handlers) {
-                            handler.handle(o.list);
-                        }
-                    } else {
-                        throw new IllegalArgumentException("not LogMessage or List: " + o);
-                    }
-                    count++;
+                // we can get two types of elements here: single log
+                // messages or lists of log messages, so we need to
+                // merge them into one batch for the handlers.
+                List<LogMessage> batch = toBatch(drainList);
+                for (LogHandler handler : handlers) {
+                    handler.handle(batch);
                 }
+                count += drainList.size();
             }
         } catch (InterruptedException e) {
             // NOP
@@ -239,4 +235,22 @@ public class HandlerThread extends Thread implements LogHandler {
         }
 
     }
+
+    /** Returns the messages of the given elements as a single list */
+    private static List<LogMessage> toBatch(List<ItemOrList> elements) {
+        if (elements.size() == 1 && elements.get(0).list != null) {
+            return elements.get(0).list;
+        }
+        List<LogMessage> batch = new ArrayList<>(elements.size());
+        for (ItemOrList o : elements) {
+            if (o.item != null) {
+                batch.add(o.item);
+            } else if (o.list != null) {
+                batch.addAll(o.list);
+            } else {
+                throw new IllegalArgumentException("not LogMessage or List: " + o);
+            }
+        }
+        return batch;
+    }
 }
@@ -94,6 +94,15 @@ public class ArchiverHandler extends AbstractLogHandler {
      */
     private LogFilter filter = null;
 
+    /**
+     * The hour (since epoch) and time slot of the last message handled.  Consecutive
+     * messages are usually in the same hour, so this saves computing the slot for each.
+     */
+    private long lastHour = -1;
+    private int lastSlot;
+
+    private static final long millisPerHour = 60 * 60 * 1000;
+
     /**
      * Creates an ArchiverHandler which puts files under
      * the given root directory.
@@ -130,8 +139,8 @@ public class ArchiverHandler extends AbstractLogHandler {
     /**
      * Return the appropriate LogWriter given a log message.
      */
-    private synchronized LogWriter getLogWriter(LogMessage m) throws IOException {
-        Integer slot = dateHash(m.getTime());
+    private LogWriter getLogWriter(LogMessage m) throws IOException {
+        Integer slot = slotOf(m.getTime());
         LogWriter logWriter = logWriterLRUCache.get(slot);
         if (logWriter != null) {
             return logWriter;
@@ -144,6 +153,15 @@ public class ArchiverHandler extends AbstractLogHandler {
         return logWriter;
     }
 
+    private int slotOf(long time) {
+        long hour = Math.floorDiv(time, millisPerHour);
+        if (hour != lastHour) {
+            lastSlot = dateHash(time);
+            lastHour = hour;
+        }
+        return lastSlot;
+    }
+
     /**
      * This method is just a fancy way of generating a stripped
      * down number representing year, month, day and hour in order
@@ -196,7 +214,7 @@ public class ArchiverHandler extends AbstractLogHandler {
         return result.toString();
     }
 
-    public boolean doHandle(LogMessage msg) {
+    public synchronized boolean doHandle(LogMessage msg) {
         try {
             LogWriter logWriter = getLogWriter(msg);
             logWriter.write(msg.toString());
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.logserver.handlers.archive;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -10,6 +11,10 @@ import java.util.logging.Logger;
 import com.yahoo.log.LogLevel;
 
 /**
+ * Writes log messages to a sequence of files with a common prefix, rotating
+ * to the next file when the current one is full.  Output is buffered,
+ * such that files are written in large chunks.
+ * <p>
  * This class is not thread-safe.
  *
  * @author Bjorn Borud
@@ -17,6 +22,9 @@ import com.yahoo.log.LogLevel;
 public class LogWriter extends Writer {
     private static final Logger log = Logger.getLogger(LogWriter.class.getName());
 
+    /** The size of the write buffer of each file */
+    private static final int bufferSize = 64 * 1024;
+
     private long bytesWritten = 0;
     private int generation = 0;
     private int maxSize = 20 * (1024 * 1024);
@@ -69,7 +77,7 @@ public class LogWriter extends Writer {
                 log.log(LogLevel.DEBUG, "nextWriter, new file: " + name);
                 currentFile = f;
                 bytesWritten = 0;
-                return new FileWriter(f, true);
+                return new BufferedWriter(new FileWriter(f, true), bufferSize);
             }
 
             // just skip over directories for now
@@ -83,7 +91,7 @@ public class LogWriter extends Writer {
                 log.fine("nextWriter, resuming " + name + ", length was " + f.length());
                 currentFile = f;
                 bytesWritten = f.length();
-                return new FileWriter(f, true);
+                return new BufferedWriter(new FileWriter(f, true), bufferSize);
             } else {
 
                 log.fine("nextWriter, not resuming " + name
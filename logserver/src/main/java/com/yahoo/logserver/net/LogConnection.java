@@ -5,6 +5,7 @@ import com.yahoo.log.LogLevel;
 import com.yahoo.logserver.LogDispatcher;
 import com.yahoo.log.LogMessage;
 import com.yahoo.log.InvalidLogFormatException;
+import com.yahoo.log.NativeLogTokenizer;
 
 import com.yahoo.io.Connection;
 import com.yahoo.io.Listener;
@@ -40,6 +41,7 @@ public class LogConnection implements Connection {
     public static final int READBUFFER_SIZE = (32 * 1024);
 
     static private final Charset charset = Charset.forName("utf-8");
+    static private final Charset latin1 = Charset.forName("latin1");
 
     // the set of active connections
     private static final Set<LogConnection> activeConnections = new HashSet<>();
@@ -49,6 +51,7 @@ public class LogConnection implements Connection {
     private final LogDispatcher dispatcher;
 
     private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READBUFFER_SIZE);
+    private final NativeLogTokenizer tokenizer = new NativeLogTokenizer();
 
     private final LinkedList<ByteBuffer> writeBufferList = new LinkedList<>();
     private ByteBuffer writeBuffer;
@@ -238,18 +241,44 @@ public class LogConnection implements Connection {
 
         readBuffer.flip();
 
-        String s;
-        while ((s = ReadLine.readLine(readBuffer)) != null) {
-            try {
-                LogMessage msg = LogMessage.parseNativeFormat(s);
-                dispatcher.handle(msg);
+        // tokenize the lines directly from the buffer, skipping empty lines
+        int lineStart = readBuffer.position();
+        for (int i = lineStart; i < readBuffer.limit(); i++) {
+            byte b = readBuffer.get(i);
+            if (b == '\n' || b == '\r') {
+                if (i > lineStart) {
+                    handleLine(lineStart, i);
+                }
+                lineStart = i + 1;
             }
-            catch (InvalidLogFormatException e) {
-                log.log(LogLevel.DEBUG, "Invalid log message", e);
+        }
+
+        // keep any incomplete line at the start of the buffer
+        readBuffer.position(lineStart);
+        readBuffer.compact();
+    }
+
+    private void handleLine(int start, int end) {
+        if ( ! tokenizer.tokenize(readBuffer, start, end)) {
+            if (log.isLoggable(LogLevel.DEBUG)) {
+                log.log(LogLevel.DEBUG, "Invalid log message: " + lineToString(start, end));
             }
+            return;
+        }
+        try {
+            dispatcher.handle(LogMessage.parseNativeFormat(tokenizer));
+        }
+        catch (InvalidLogFormatException e) {
+            log.log(LogLevel.DEBUG, "Invalid log message", e);
         }
     }
 
+    private String lineToString(int start, int end) {
+        ByteBuffer line = readBuffer.duplicate();
+        line.limit(end).position(start);
+        return latin1.decode(line).toString();
+    }
+
     public void close() throws IOException {
         if (log.isLoggable(Level.FINE)) {
             log.log(LogLevel.INFO, this + ": closing");
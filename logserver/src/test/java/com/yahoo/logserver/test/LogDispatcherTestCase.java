@@ -75,6 +75,24 @@ public class LogDispatcherTestCase {
         assertEquals(2, handler.messages.size());
     }
 
+    @Test
+    public void testLogDispatcherBatchModeDispatchesFullBatches() {
+        MockHandler handler = new MockHandler();
+        LogDispatcher dispatcher = new LogDispatcher();
+        dispatcher.setBatchedMode(true);
+        dispatcher.registerLogHandler(handler);
+        for (int i = 0; i < 4999; i++) {
+            dispatcher.handle(sample1);
+        }
+        assertEquals(0, handler.messages.size());
+        dispatcher.handle(sample2);
+        assertEquals(5000, handler.messages.size());
+        assertTrue(sample2 == handler.messages.get(4999));
+        dispatcher.flush();
+        assertEquals(5000, handler.messages.size());
+        assertEquals(5000, dispatcher.getMessageCount());
+    }
+
     @Test
     public void testTestLogHandlerRegistration() {
         MockHandler handler = new MockHandler();
@@ -112,8 +112,7 @@ public class RPCSendV2 extends RPCSend {
     protected Reply createReply(Values ret, String serviceName, Trace trace) {
         CompressionType compression = CompressionType.valueOf(ret.get(3).asInt8());
         byte[] slimeBytes = compressor.decompress(ret.get(5).asData(), compression, ret.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        Inspector root = BinaryFormat.view(slimeBytes);
 
         Version version = new Version(root.field(VERSION_F).asString());
         byte[] payload = root.field(BLOB_F).asData();
@@ -153,8 +152,7 @@ public class RPCSendV2 extends RPCSend {
     protected Params toParams(Values args) {
         CompressionType compression = CompressionType.valueOf(args.get(3).asInt8());
         byte[] slimeBytes = compressor.decompress(args.get(5).asData(), compression, args.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        Inspector root = BinaryFormat.view(slimeBytes);
         Params p = new Params();
         p.version = new Version(root.field(VERSION_F).asString());
         p.route = root.field(ROUTE_F).asString();
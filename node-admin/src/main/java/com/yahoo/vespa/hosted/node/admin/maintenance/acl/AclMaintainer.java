@@ -2,6 +2,7 @@
 package com.yahoo.vespa.hosted.node.admin.maintenance.acl;
 
 import com.yahoo.collections.Pair;
+import com.yahoo.vespa.hosted.dockerapi.Container;
 import com.yahoo.vespa.hosted.dockerapi.ContainerName;
 import com.yahoo.vespa.hosted.node.admin.ContainerAclSpec;
 import com.yahoo.vespa.hosted.node.admin.docker.DockerOperations;
@@ -11,12 +12,18 @@ import com.yahoo.vespa.hosted.node.admin.maintenance.acl.iptables.Command;
 import com.yahoo.vespa.hosted.node.admin.maintenance.acl.iptables.FlushCommand;
 import com.yahoo.vespa.hosted.node.admin.maintenance.acl.iptables.PolicyCommand;
 import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepository;
+import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepositoryWatcher;
 import com.yahoo.vespa.hosted.node.admin.util.PrefixLogger;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +37,10 @@ import java.util.stream.Collectors;
  * <p>
  * The ACL maintainer does not handle IPv4 addresses and is thus only intended to configure ACLs for IPv6-only
  * containers (e.g. any container, except node-admin).
+ * <p>
+ * If the node repository is watched, the ACLs fetched are reused until the nodes of this host change, a running
+ * container has no ACL, or the ACLs are five minutes old, which bounds the delay of changes to the trusted nodes
+ * on other hosts.
  *
  * @author mpolden
  */
@@ -37,18 +48,38 @@ public class AclMaintainer implements Runnable {
 
     private static final PrefixLogger log = PrefixLogger.getNodeAdminLogger(AclMaintainer.class);
     private static final String IPTABLES_COMMAND = "ip6tables";
+    /** The max time to reuse the ACLs fetched when the node repository is watched */
+    private static final Duration maxAclSpecsAge = Duration.ofMinutes(5);
 
     private final DockerOperations dockerOperations;
     private final NodeRepository nodeRepository;
     private final String nodeAdminHostname;
     private final Map<ContainerName, Acl> containerAcls;
 
+    private final Optional<NodeRepositoryWatcher> watcher;
+    private final Clock clock;
+    private final AtomicBoolean nodesChanged = new AtomicBoolean(true);
+    private List<ContainerAclSpec> aclSpecs = null;
+    private Instant aclSpecsFetched = Instant.EPOCH;
+
     public AclMaintainer(DockerOperations dockerOperations, NodeRepository nodeRepository,
                          String nodeAdminHostname) {
+        this(dockerOperations, nodeRepository, nodeAdminHostname, Optional.empty(), Clock.systemUTC());
+    }
+
+    /**
+     * @param watcher the watcher of the nodes of this host, used to tell when to fetch the ACLs again,
+     *                or empty to fetch them each time this runs
+     */
+    public AclMaintainer(DockerOperations dockerOperations, NodeRepository nodeRepository,
+                         String nodeAdminHostname, Optional<NodeRepositoryWatcher> watcher, Clock clock) {
         this.dockerOperations = dockerOperations;
         this.nodeRepository = nodeRepository;
         this.nodeAdminHostname = nodeAdminHostname;
         this.containerAcls = new HashMap<>();
+        this.watcher = watcher;
+        this.clock = clock;
+        watcher.ifPresent(w -> w.addListener(hostnames -> nodesChanged.set(true)));
     }
 
     private boolean isAclActive(ContainerName containerName, Acl acl) {
@@ -85,19 +116,42 @@ public class AclMaintainer implements Runnable {
     }
 
     private synchronized void configureAcls() {
-        final Map<ContainerName, List<ContainerAclSpec>> aclSpecsGroupedByContainerName = nodeRepository
-                .getContainerAclSpecs(nodeAdminHostname).stream()
-                .collect(Collectors.groupingBy(ContainerAclSpec::trustedBy));
-
-        dockerOperations
+        final List<Container> runningContainers = dockerOperations
                 .getAllManagedContainers().stream()
                 .filter(container -> container.state.isRunning())
+                .collect(Collectors.toList());
+        final Map<ContainerName, List<ContainerAclSpec>> aclSpecsGroupedByContainerName = getAclSpecs(runningContainers)
+                .stream()
+                .collect(Collectors.groupingBy(ContainerAclSpec::trustedBy));
+
+        runningContainers.stream()
                 .map(container -> new Pair<>(container, aclSpecsGroupedByContainerName.get(container.name)))
                 .filter(pair -> pair.getSecond() != null)
                 .forEach(pair ->
                         applyAcl(pair.getFirst().name, new Acl(pair.getFirst().pid, pair.getSecond())));
     }
 
+    private List<ContainerAclSpec> getAclSpecs(List<Container> runningContainers) {
+        boolean changed = nodesChanged.getAndSet(false);
+        if (watcher.isPresent() && ! changed && aclSpecs != null && hasAclSpecsOf(runningContainers) &&
+            clock.instant().isBefore(aclSpecsFetched.plus(maxAclSpecsAge)))
+            return aclSpecs;
+
+        try {
+            aclSpecs = nodeRepository.getContainerAclSpecs(nodeAdminHostname);
+            aclSpecsFetched = clock.instant();
+            return aclSpecs;
+        } catch (RuntimeException e) {
+            nodesChanged.set(true);
+            throw e;
+        }
+    }
+
+    private boolean hasAclSpecsOf(List<Container> containers) {
+        Set<ContainerName> trustedBy = aclSpecs.stream().map(ContainerAclSpec::trustedBy).collect(Collectors.toSet());
+        return containers.stream().allMatch(container -> trustedBy.contains(container.name));
+    }
+
     @Override
     public void run() {
         try {
@@ -10,6 +10,7 @@ import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
 import com.yahoo.vespa.hosted.node.admin.maintenance.StorageMaintainer;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAttributes;
 import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepository;
+import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepositoryWatcher;
 import com.yahoo.vespa.hosted.node.admin.orchestrator.Orchestrator;
 import com.yahoo.vespa.hosted.node.admin.orchestrator.OrchestratorException;
 import com.yahoo.vespa.hosted.provision.Node;
@@ -55,6 +56,7 @@ public class NodeAdminStateUpdater {
     private final Thread loopThread;
 
     private final NodeRepository nodeRepository;
+    private final Optional<NodeRepositoryWatcher> watcher;
     private final Orchestrator orchestrator;
     private final NodeAdmin nodeAdmin;
     private final Clock clock;
@@ -74,8 +76,27 @@ public class NodeAdminStateUpdater {
             Clock clock,
             Duration nodeAdminConvergeStateInterval,
             ClassLocking classLocking) {
+        this(nodeRepository, Optional.empty(), orchestrator, storageMaintainer, nodeAdmin, dockerHostHostName, clock,
+             nodeAdminConvergeStateInterval, classLocking);
+    }
+
+    /**
+     * @param watcher the watcher keeping the nodes of this host up to date, to use rather than
+     *                fetching them from the node repository, or empty to fetch them
+     */
+    public NodeAdminStateUpdater(
+            NodeRepository nodeRepository,
+            Optional<NodeRepositoryWatcher> watcher,
+            Orchestrator orchestrator,
+            StorageMaintainer storageMaintainer,
+            NodeAdmin nodeAdmin,
+            String dockerHostHostName,
+            Clock clock,
+            Duration nodeAdminConvergeStateInterval,
+            ClassLocking classLocking) {
         log.info(objectToString() + ": Creating object");
         this.nodeRepository = nodeRepository;
+        this.watcher = watcher;
         this.orchestrator = orchestrator;
         this.nodeAdmin = nodeAdmin;
         this.dockerHostHostName = dockerHostHostName;
@@ -258,7 +279,7 @@ public class NodeAdminStateUpdater {
             }
             final List<ContainerNodeSpec> containersToRun;
             try {
-                containersToRun = nodeRepository.getContainersToRun(dockerHostHostName);
+                containersToRun = getContainersToRun();
             } catch (Exception e) {
                 log.log(LogLevel.WARNING, "Failed fetching container info from node repository", e);
                 return;
@@ -277,16 +298,22 @@ public class NodeAdminStateUpdater {
 
     private List<String> getNodesInActiveState() {
         try {
-            return nodeRepository.getContainersToRun(dockerHostHostName)
-                                 .stream()
-                                 .filter(nodespec -> nodespec.nodeState == Node.State.active)
-                                 .map(nodespec -> nodespec.hostname)
-                                 .collect(Collectors.toList());
+            return getContainersToRun().stream()
+                                       .filter(nodespec -> nodespec.nodeState == Node.State.active)
+                                       .map(nodespec -> nodespec.hostname)
+                                       .collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException("Failed to get nodes from node repo", e);
         }
     }
 
+    /** Returns the nodes of this host as last seen by the watcher, if known, and as fetched from the node repository otherwise */
+    private List<ContainerNodeSpec> getContainersToRun() throws IOException {
+        Optional<Map<String, ContainerNodeSpec>> watchedNodes = watcher.flatMap(NodeRepositoryWatcher::getNodes);
+        if (watchedNodes.isPresent()) return new ArrayList<>(watchedNodes.get().values());
+        return nodeRepository.getContainersToRun(dockerHostHostName);
+    }
+
     public void start() {
         loopThread.start();
     }
@@ -81,7 +81,10 @@ public class NodeAgentImpl implements NodeAgent {
     private int numberOfUnhandledException = 0;
     private Instant lastConverge;
 
-    private final Thread loopThread;
+    /** The thread running ticks of this, or empty if ticks are run by a scheduler shared with other agents */
+    private final Optional<Thread> loopThread;
+    private final Optional<NodeAgentScheduler> scheduler;
+    private final Object tickLock = new Object();
 
     private final ScheduledExecutorService filebeatRestarter =
             Executors.newScheduledThreadPool(1, ThreadFactoryFactory.getDaemonThreadFactory("filebeatrestarter"));
@@ -119,6 +122,27 @@ public class NodeAgentImpl implements NodeAgent {
             final Environment environment,
             final Clock clock,
             final Duration timeBetweenEachConverge) {
+        this(hostName, nodeRepository, orchestrator, dockerOperations, storageMaintainer, aclMaintainer, environment,
+             clock, timeBetweenEachConverge, Optional.empty());
+    }
+
+    /**
+     * Creates a node agent
+     *
+     * @param scheduler the scheduler running the ticks of this, shared with the other agents on this host,
+     *                  or empty to run ticks in a thread owned by this
+     */
+    public NodeAgentImpl(
+            final String hostName,
+            final NodeRepository nodeRepository,
+            final Orchestrator orchestrator,
+            final DockerOperations dockerOperations,
+            final StorageMaintainer storageMaintainer,
+            final AclMaintainer aclMaintainer,
+            final Environment environment,
+            final Clock clock,
+            final Duration timeBetweenEachConverge,
+            final Optional<NodeAgentScheduler> scheduler) {
         this.containerName = ContainerName.fromHostname(hostName);
         this.logger = PrefixLogger.getNodeAgentLogger(NodeAgentImpl.class, containerName);
         this.hostname = hostName;
@@ -132,10 +156,16 @@ public class NodeAgentImpl implements NodeAgent {
         this.timeBetweenEachConverge = timeBetweenEachConverge;
         this.lastConverge = clock.instant();
 
-        this.loopThread = new Thread(() -> {
-            while (!terminated.get()) tick();
-        });
-        this.loopThread.setName("tick-" + hostname);
+        this.scheduler = scheduler;
+        if (scheduler.isPresent()) {
+            this.loopThread = Optional.empty();
+        } else {
+            Thread thread = new Thread(() -> {
+                while (!terminated.get()) tick();
+            });
+            thread.setName("tick-" + hostname);
+            this.loopThread = Optional.of(thread);
+        }
     }
 
     @Override
@@ -183,7 +213,10 @@ public class NodeAgentImpl implements NodeAgent {
         logger.info(message);
         addDebugMessage(message);
 
-        loopThread.start();
+        if (scheduler.isPresent())
+            scheduler.get().register(this);
+        else
+            loopThread.get().start();
 
         serviceRestarter = service -> {
             try {
@@ -206,16 +239,19 @@ public class NodeAgentImpl implements NodeAgent {
         if (!terminated.compareAndSet(false, true)) {
             throw new RuntimeException("Can not re-stop a node agent.");
         }
+        scheduler.ifPresent(s -> s.unregister(this));
         signalWorkToBeDone();
+        synchronized (tickLock) { } // wait for any tick in progress
 
         do {
             try {
-                loopThread.join();
+                if (loopThread.isPresent())
+                    loopThread.get().join();
                 filebeatRestarter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
             } catch (InterruptedException e) {
                 logger.error("Interrupted while waiting for converge thread and filebeatRestarter scheduler to shutdown");
             }
-        } while (loopThread.isAlive() || !filebeatRestarter.isTerminated());
+        } while ((loopThread.isPresent() && loopThread.get().isAlive()) || !filebeatRestarter.isTerminated());
 
         logger.info("Stopped");
     }
@@ -357,7 +393,7 @@ public class NodeAgentImpl implements NodeAgent {
         }
     }
 
-    private void signalWorkToBeDone() {
+    void signalWorkToBeDone() {
         synchronized (monitor) {
             if (!workToDoNow) {
                 workToDoNow = true;
@@ -365,10 +401,18 @@ public class NodeAgentImpl implements NodeAgent {
                 monitor.notifyAll();
             }
         }
+        scheduler.ifPresent(NodeAgentScheduler::wakeup);
     }
 
+    /** Returns whether this has been signalled that there is work to do, or the time between converges has elapsed */
+    boolean isDueForTick() {
+        synchronized (monitor) {
+            return workToDoNow || ! clock.instant().isBefore(lastConverge.plus(timeBetweenEachConverge));
+        }
+    }
+
+    /** Waits until this is due for a tick, and then ticks */
     void tick() {
-        boolean isFrozenCopy;
         synchronized (monitor) {
             while (!workToDoNow) {
                 long remainder = timeBetweenEachConverge.minus(Duration.between(lastConverge, clock.instant())).toMillis();
@@ -380,6 +424,21 @@ public class NodeAgentImpl implements NodeAgent {
                     }
                 } else break;
             }
+        }
+        tickNow();
+    }
+
+    /** Ticks without waiting for this to be due */
+    void tickNow() {
+        synchronized (tickLock) {
+            if (terminated.get() && scheduler.isPresent()) return;
+            tickUnlocked();
+        }
+    }
+
+    private void tickUnlocked() {
+        boolean isFrozenCopy;
+        synchronized (monitor) {
             lastConverge = clock.instant();
             workToDoNow = false;
 
@@ -420,7 +479,7 @@ public class NodeAgentImpl implements NodeAgent {
 
     // Public for testing
     void converge() {
-        final ContainerNodeSpec nodeSpec = nodeRepository.getContainerNodeSpec(hostname)
+        final ContainerNodeSpec nodeSpec = getContainerNodeSpec()
                 .orElseThrow(() ->
                         new IllegalStateException(String.format("Node '%s' missing from node repository.", hostname)));
 
@@ -579,9 +638,15 @@ public class NodeAgentImpl implements NodeAgent {
         }
     }
 
+    private Optional<ContainerNodeSpec> getContainerNodeSpec() {
+        if (scheduler.isPresent()) return scheduler.get().getContainerNodeSpec(hostname);
+        return nodeRepository.getContainerNodeSpec(hostname);
+    }
+
     private Optional<Container> getContainer() {
         if (containerState == ABSENT) return Optional.empty();
-        Optional<Container> container = dockerOperations.getContainer(containerName);
+        Optional<Container> container = scheduler.isPresent() ? scheduler.get().getContainer(containerName)
+                                                              : dockerOperations.getContainer(containerName);
         if (! container.isPresent()) containerState = ABSENT;
         return container;
     }
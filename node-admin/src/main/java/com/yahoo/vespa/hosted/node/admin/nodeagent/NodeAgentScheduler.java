@@ -0,0 +1,263 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.nodeagent;
+
+import com.yahoo.concurrent.ThreadFactoryFactory;
+import com.yahoo.vespa.hosted.dockerapi.Container;
+import com.yahoo.vespa.hosted.dockerapi.ContainerName;
+import com.yahoo.vespa.hosted.dockerapi.metrics.Dimensions;
+import com.yahoo.vespa.hosted.dockerapi.metrics.GaugeWrapper;
+import com.yahoo.vespa.hosted.dockerapi.metrics.MetricReceiverWrapper;
+import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
+import com.yahoo.vespa.hosted.node.admin.docker.DockerOperations;
+import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepository;
+import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepositoryWatcher;
+import com.yahoo.vespa.hosted.node.admin.util.PrefixLogger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the ticks of all the node agents on a host on a small, bounded thread pool,
+ * instead of one thread per node agent.
+ *
+ * Ticks are run in rounds: Each round ticks all agents which are due, or which have been signalled
+ * that there is work to do, and waits for all of them to complete before the next round starts,
+ * so an agent is never ticked concurrently with itself. Within a round, the node specs of all the nodes on
+ * this host are fetched from the node repository at most once, and the managed containers are fetched
+ * from docker at most once, and shared by all the agents ticked in that round.
+ *
+ * If the node repository is watched, the node specs are instead kept up to date by long polling the node repository
+ * for changes, and agents are signalled to tick as soon as their node changes.
+ *
+ * @author agent
+ */
+public class NodeAgentScheduler {
+
+    private static final PrefixLogger logger = PrefixLogger.getNodeAdminLogger(NodeAgentScheduler.class);
+
+    /** How often to check whether any agents are due for a tick when no agent signals work to do */
+    private static final Duration checkInterval = Duration.ofSeconds(1);
+
+    private final NodeRepository nodeRepository;
+    private final DockerOperations dockerOperations;
+    private final String dockerHostHostName;
+    private final MetricReceiverWrapper metricReceiver;
+    private final Clock clock;
+
+    private final Map<NodeAgentImpl, AgentMetrics> agents = new ConcurrentHashMap<>();
+
+    /** Runs the rounds, one at the time */
+    private final ScheduledExecutorService coordinator =
+            Executors.newSingleThreadScheduledExecutor(ThreadFactoryFactory.getDaemonThreadFactory("nodeagentscheduler"));
+    /** Runs the agent ticks of a round */
+    private final ExecutorService tickExecutor;
+
+    private final Optional<NodeRepositoryWatcher> watcher;
+
+    private final AtomicBoolean roundRequested = new AtomicBoolean(false);
+    private volatile Round currentRound = new Round();
+
+    public NodeAgentScheduler(NodeRepository nodeRepository, DockerOperations dockerOperations, String dockerHostHostName,
+                              MetricReceiverWrapper metricReceiver, Clock clock, int threads) {
+        this(nodeRepository, dockerOperations, dockerHostHostName, metricReceiver, clock, threads, Optional.empty());
+    }
+
+    /**
+     * Creates a scheduler
+     *
+     * @param threads the number of threads to use for ticking agents
+     * @param watcher the watcher keeping the node specs of this host up to date, to use rather than
+     *                fetching them in each round, or empty to fetch them. The watcher is started and stopped by the caller.
+     */
+    public NodeAgentScheduler(NodeRepository nodeRepository, DockerOperations dockerOperations, String dockerHostHostName,
+                              MetricReceiverWrapper metricReceiver, Clock clock, int threads,
+                              Optional<NodeRepositoryWatcher> watcher) {
+        this.nodeRepository = nodeRepository;
+        this.dockerOperations = dockerOperations;
+        this.dockerHostHostName = dockerHostHostName;
+        this.metricReceiver = metricReceiver;
+        this.clock = clock;
+        this.tickExecutor = Executors.newFixedThreadPool(threads, ThreadFactoryFactory.getDaemonThreadFactory("nodeagenttick"));
+        this.watcher = watcher;
+        coordinator.scheduleWithFixedDelay(this::runRound,
+                                           checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        watcher.ifPresent(w -> w.addListener(this::nodesChanged));
+    }
+
+    /** Starts ticking the given agent */
+    void register(NodeAgentImpl agent) {
+        agents.put(agent, new AgentMetrics(metricReceiver, dimensionsOf(agent)));
+        wakeup();
+    }
+
+    /**
+     * Stops ticking the given agent and removes its metrics.
+     * A tick of the agent may still be in progress when this returns.
+     */
+    void unregister(NodeAgentImpl agent) {
+        if (agents.remove(agent) != null)
+            metricReceiver.deleteMetricByDimension(MetricReceiverWrapper.APPLICATION_DOCKER, dimensionsOf(agent));
+    }
+
+    private static Dimensions dimensionsOf(NodeAgentImpl agent) {
+        return new Dimensions.Builder().add("host", agent.getHostname()).add("role", "docker").build();
+    }
+
+    /** Requests a round to be run as soon as possible, to tick the agents having work to do */
+    void wakeup() {
+        if ( ! roundRequested.compareAndSet(false, true)) return;
+        try {
+            coordinator.execute(this::runRound);
+        } catch (RejectedExecutionException e) {
+            // stopped
+        }
+    }
+
+    /** Returns the node spec of the given host, as fetched once for all the agents in the current round */
+    Optional<ContainerNodeSpec> getContainerNodeSpec(String hostname) {
+        return currentRound.getContainerNodeSpec(hostname);
+    }
+
+    /** Returns the given container, as fetched once for all the agents in the current round */
+    Optional<Container> getContainer(ContainerName containerName) {
+        return currentRound.getContainer(containerName);
+    }
+
+    /** Signals the agents of the given nodes that there is work to do */
+    private void nodesChanged(Set<String> hostnames) {
+        for (NodeAgentImpl agent : agents.keySet())
+            if (hostnames.contains(agent.getHostname()))
+                agent.signalWorkToBeDone();
+    }
+
+    private void runRound() {
+        roundRequested.set(false);
+        try {
+            List<NodeAgentImpl> dueAgents = agents.keySet().stream()
+                                                  .filter(NodeAgentImpl::isDueForTick)
+                                                  .collect(Collectors.toList());
+            if (dueAgents.isEmpty()) return;
+
+            currentRound = new Round();
+            Instant roundStart = clock.instant();
+            List<Callable<Void>> ticks = new ArrayList<>(dueAgents.size());
+            for (NodeAgentImpl agent : dueAgents)
+                ticks.add(() -> tick(agent, roundStart));
+            tickExecutor.invokeAll(ticks);
+        } catch (InterruptedException e) {
+            logger.info("Interrupted while waiting for node agent ticks to complete");
+        } catch (RuntimeException e) {
+            logger.error("Failed running a round of node agent ticks", e);
+        }
+    }
+
+    private Void tick(NodeAgentImpl agent, Instant roundStart) {
+        Instant tickStart = clock.instant();
+        agent.tickNow();
+        AgentMetrics metrics = agents.get(agent);
+        if (metrics != null) { // not unregistered meanwhile
+            metrics.tickDelay.sample(Duration.between(roundStart, tickStart).toMillis());
+            metrics.tickDuration.sample(Duration.between(tickStart, clock.instant()).toMillis());
+        }
+        return null;
+    }
+
+    /** Stops running ticks. Agents should be stopped before calling this. */
+    public void stop() {
+        coordinator.shutdown();
+        tickExecutor.shutdown();
+        try {
+            coordinator.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            tickExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for node agent ticks to complete");
+        }
+    }
+
+    /** Data fetched at most once for all the agents ticked in a round */
+    private class Round {
+
+        private final Memoized<Optional<Map<String, ContainerNodeSpec>>> nodeSpecs = new Memoized<>(this::fetchNodeSpecs);
+        private final Memoized<Map<ContainerName, Container>> containers = new Memoized<>(this::fetchContainers);
+
+        Optional<ContainerNodeSpec> getContainerNodeSpec(String hostname) {
+            Optional<Map<String, ContainerNodeSpec>> specs = nodeSpecs.get();
+            if (specs.isPresent() && specs.get().containsKey(hostname))
+                return Optional.of(specs.get().get(hostname));
+            return nodeRepository.getContainerNodeSpec(hostname); // not batched: Ask for this node only
+        }
+
+        Optional<Container> getContainer(ContainerName containerName) {
+            return Optional.ofNullable(containers.get().get(containerName));
+        }
+
+        private Optional<Map<String, ContainerNodeSpec>> fetchNodeSpecs() {
+            Optional<Map<String, ContainerNodeSpec>> watchedNodes = watcher.flatMap(NodeRepositoryWatcher::getNodes);
+            if (watchedNodes.isPresent()) return watchedNodes;
+            try {
+                return Optional.of(nodeRepository.getContainersToRun(dockerHostHostName).stream()
+                                                 .collect(Collectors.toMap(spec -> spec.hostname, Function.identity(),
+                                                                           (first, second) -> first)));
+            } catch (Exception e) {
+                logger.warning("Failed fetching the nodes of " + dockerHostHostName + ", fetching each node separately: " +
+                               e.getMessage());
+                return Optional.empty();
+            }
+        }
+
+        private Map<ContainerName, Container> fetchContainers() {
+            return dockerOperations.getAllManagedContainers().stream()
+                                   .collect(Collectors.toMap(container -> container.name, Function.identity(),
+                                                             (first, second) -> first));
+        }
+
+    }
+
+    /** A value which is computed on first access, by one thread, and then shared. Failures are not memoized. */
+    private static class Memoized<T> {
+
+        private final Supplier<T> supplier;
+        private T value = null;
+
+        Memoized(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        synchronized T get() {
+            if (value == null)
+                value = supplier.get();
+            return value;
+        }
+
+    }
+
+    private static class AgentMetrics {
+
+        final GaugeWrapper tickDuration;
+        final GaugeWrapper tickDelay;
+
+        AgentMetrics(MetricReceiverWrapper metricReceiver, Dimensions dimensions) {
+            tickDuration = metricReceiver.declareGauge(MetricReceiverWrapper.APPLICATION_DOCKER, dimensions, "node-agent.tick.duration");
+            tickDelay = metricReceiver.declareGauge(MetricReceiverWrapper.APPLICATION_DOCKER, dimensions, "node-agent.tick.delay");
+        }
+
+    }
+
+}
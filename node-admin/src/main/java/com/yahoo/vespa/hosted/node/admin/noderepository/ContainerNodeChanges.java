@@ -0,0 +1,38 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.noderepository;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The nodes of a docker host which have changed since some generation of the node repository.
+ *
+ * @author agent
+ */
+public class ContainerNodeChanges {
+
+    private final long generation;
+    private final List<ContainerNodeSpec> changed;
+    private final Set<String> hostnames;
+
+    public ContainerNodeChanges(long generation, Collection<ContainerNodeSpec> changed, Collection<String> hostnames) {
+        this.generation = generation;
+        this.changed = ImmutableList.copyOf(changed);
+        this.hostnames = ImmutableSet.copyOf(hostnames);
+    }
+
+    /** Returns the generation of the node repository these are the changes up to, which is the next generation to ask for changes since */
+    public long generation() { return generation; }
+
+    /** Returns the nodes which are added or changed */
+    public List<ContainerNodeSpec> changed() { return changed; }
+
+    /** Returns the hostnames of all the nodes of the host at this generation. Nodes not included here are removed. */
+    public Set<String> hostnames() { return hostnames; }
+
+}
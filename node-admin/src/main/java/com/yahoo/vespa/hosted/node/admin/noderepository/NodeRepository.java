@@ -6,6 +6,7 @@ import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAttributes;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,13 @@ import java.util.Optional;
 public interface NodeRepository {
     List<ContainerNodeSpec> getContainersToRun(String baseHostName) throws IOException;
 
+    /**
+     * Returns the nodes of the given host which have changed since the given node repository generation,
+     * waiting up to the given time for changes to happen if there are none.
+     * Pass a negative generation to get all the nodes.
+     */
+    ContainerNodeChanges getContainersChangedSince(String baseHostName, long generation, Duration maxWait) throws IOException;
+
     Optional<ContainerNodeSpec> getContainerNodeSpec(String hostName);
 
     List<ContainerAclSpec> getContainerAclSpecs(String hostName);
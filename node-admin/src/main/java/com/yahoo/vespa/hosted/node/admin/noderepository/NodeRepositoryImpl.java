@@ -7,6 +7,7 @@ import com.yahoo.vespa.hosted.dockerapi.ContainerName;
 import com.yahoo.vespa.hosted.dockerapi.DockerImage;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAttributes;
 import com.yahoo.vespa.hosted.node.admin.noderepository.bindings.GetAclResponse;
+import com.yahoo.vespa.hosted.node.admin.noderepository.bindings.GetNodeChangesResponse;
 import com.yahoo.vespa.hosted.node.admin.noderepository.bindings.GetNodesResponse;
 import com.yahoo.vespa.hosted.node.admin.noderepository.bindings.NodeMessageResponse;
 import com.yahoo.vespa.hosted.node.admin.noderepository.bindings.UpdateNodeAttributesRequestBody;
@@ -16,6 +17,7 @@ import com.yahoo.vespa.hosted.node.admin.util.PrefixLogger;
 import com.yahoo.vespa.hosted.provision.Node;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -66,6 +68,35 @@ public class NodeRepositoryImpl implements NodeRepository {
         }
     }
 
+    @Override
+    public ContainerNodeChanges getContainersChangedSince(String baseHostName, long generation, Duration maxWait)
+            throws IOException {
+        try {
+            final GetNodeChangesResponse changes = requestExecutor.get(
+                    "/nodes/v2/changes/?parentHost=" + baseHostName + "&since=" + generation + "&wait=" + maxWait.getSeconds(),
+                    port,
+                    GetNodeChangesResponse.class);
+
+            if (changes.generation == null || changes.nodes == null || changes.hostnames == null) {
+                throw new IOException("Response didn't contain generation, nodes and hostnames elements");
+            }
+            List<ContainerNodeSpec> nodes = new ArrayList<>(changes.nodes.size());
+            for (GetNodesResponse.Node node : changes.nodes) {
+                try {
+                    nodes.add(createContainerNodeSpec(node));
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    NODE_ADMIN_LOGGER.warning("Bad node received from node repo when requesting changes to the children of the "
+                            + baseHostName + " host: " + node, e);
+                }
+            }
+            return new ContainerNodeChanges(changes.generation, nodes, changes.hostnames);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
     @Override
     public Optional<ContainerNodeSpec> getContainerNodeSpec(String hostName) {
         try {
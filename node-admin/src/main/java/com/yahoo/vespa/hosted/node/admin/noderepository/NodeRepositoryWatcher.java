@@ -0,0 +1,121 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.noderepository;
+
+import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
+import com.yahoo.vespa.hosted.node.admin.util.PrefixLogger;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an up to date view of the nodes of a docker host by long polling the node repository for the nodes
+ * changed since the last generation seen, and tells listeners which nodes changed.
+ *
+ * @author agent
+ */
+public class NodeRepositoryWatcher {
+
+    private static final PrefixLogger logger = PrefixLogger.getNodeAdminLogger(NodeRepositoryWatcher.class);
+
+    /** The max time to wait for changes in each request */
+    private static final Duration maxWait = Duration.ofSeconds(30);
+    /** The time to wait before polling again after a failure */
+    private static final Duration retryDelay = Duration.ofSeconds(5);
+
+    private final NodeRepository nodeRepository;
+    private final String baseHostName;
+    private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread pollThread;
+
+    private volatile boolean stopped = false;
+
+    private long generation = -1;
+    private volatile Optional<Map<String, ContainerNodeSpec>> nodes = Optional.empty();
+
+    public NodeRepositoryWatcher(NodeRepository nodeRepository, String baseHostName) {
+        this.nodeRepository = nodeRepository;
+        this.baseHostName = baseHostName;
+        this.pollThread = new Thread(() -> {
+            while ( ! stopped) pollOrWait();
+        });
+        this.pollThread.setName("noderepositorywatcher");
+        this.pollThread.setDaemon(true);
+    }
+
+    /**
+     * Adds a listener which is called from the polling thread with the hostnames of the nodes
+     * which are added, changed or removed
+     */
+    public void addListener(Consumer<Set<String>> listener) {
+        listeners.add(listener);
+    }
+
+    public void start() {
+        pollThread.start();
+    }
+
+    /** Stops polling. A request in progress is not waited for. */
+    public void stop() {
+        stopped = true;
+        pollThread.interrupt();
+    }
+
+    /**
+     * Returns the current nodes of the host by hostname,
+     * or empty if the nodes are not known because the last request to the node repository failed
+     */
+    public Optional<Map<String, ContainerNodeSpec>> getNodes() { return nodes; }
+
+    private void pollOrWait() {
+        try {
+            poll();
+        } catch (Exception e) {
+            if (stopped) return;
+            logger.warning("Failed getting changes to the nodes of " + baseHostName + ", retrying in " +
+                           retryDelay.getSeconds() + " seconds: " + e.getMessage());
+            try {
+                Thread.sleep(retryDelay.toMillis());
+            } catch (InterruptedException interrupted) {
+                // continue, or stop
+            }
+        }
+    }
+
+    /** Requests the changes since the last generation seen and updates the nodes of this. Package private for testing. */
+    void poll() throws Exception {
+        ContainerNodeChanges changes;
+        try {
+            changes = nodeRepository.getContainersChangedSince(baseHostName, generation, maxWait);
+        } catch (Exception e) {
+            generation = -1; // we may have missed changes
+            nodes = Optional.empty();
+            throw e;
+        }
+
+        Map<String, ContainerNodeSpec> updated = new HashMap<>(nodes.orElse(Collections.emptyMap()));
+        Set<String> changedHostnames = new HashSet<>();
+        for (String hostname : new HashSet<>(updated.keySet())) {
+            if (changes.hostnames().contains(hostname)) continue;
+            updated.remove(hostname);
+            changedHostnames.add(hostname);
+        }
+        for (ContainerNodeSpec node : changes.changed()) {
+            if ( ! node.equals(updated.put(node.hostname, node)))
+                changedHostnames.add(node.hostname);
+        }
+        nodes = Optional.of(Collections.unmodifiableMap(updated));
+        generation = changes.generation();
+
+        if ( ! changedHostnames.isEmpty())
+            listeners.forEach(listener -> listener.accept(changedHostnames));
+    }
+
+}
@@ -0,0 +1,34 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.noderepository.bindings;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a response from the /nodes/v2/changes/ API. It is designed to be
+ * usable by any module, by not depending itself on any module-specific classes.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GetNodeChangesResponse {
+
+    public final Long generation;
+    public final List<GetNodesResponse.Node> nodes;
+    public final List<String> removed;
+    public final List<String> hostnames;
+
+    @JsonCreator
+    public GetNodeChangesResponse(@JsonProperty("generation") Long generation,
+                                  @JsonProperty("nodes") List<GetNodesResponse.Node> nodes,
+                                  @JsonProperty("removed") List<String> removed,
+                                  @JsonProperty("hostnames") List<String> hostnames) {
+        this.generation = generation;
+        this.nodes = nodes == null ? Collections.emptyList() : Collections.unmodifiableList(nodes);
+        this.removed = removed == null ? Collections.emptyList() : Collections.unmodifiableList(removed);
+        this.hostnames = hostnames == null ? Collections.emptyList() : Collections.unmodifiableList(hostnames);
+    }
+
+}
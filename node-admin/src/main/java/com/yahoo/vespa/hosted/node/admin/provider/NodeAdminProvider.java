@@ -17,9 +17,11 @@ import com.yahoo.vespa.hosted.node.admin.nodeadmin.NodeAdminImpl;
 import com.yahoo.vespa.hosted.node.admin.nodeadmin.NodeAdminStateUpdater;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAgent;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAgentImpl;
+import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAgentScheduler;
 import com.yahoo.vespa.hosted.node.admin.docker.DockerOperationsImpl;
 import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepository;
 import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepositoryImpl;
+import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepositoryWatcher;
 import com.yahoo.vespa.hosted.node.admin.orchestrator.Orchestrator;
 import com.yahoo.vespa.hosted.node.admin.orchestrator.OrchestratorImpl;
 import com.yahoo.vespa.hosted.node.admin.util.ConfigServerHttpRequestExecutor;
@@ -27,6 +29,7 @@ import com.yahoo.vespa.hosted.node.admin.util.Environment;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Optional;
 import java.util.function.Function;
 
 import static com.yahoo.vespa.defaults.Defaults.getDefaults;
@@ -41,7 +44,10 @@ public class NodeAdminProvider implements Provider<NodeAdminStateUpdater> {
     private static final int WEB_SERVICE_PORT = getDefaults().vespaWebServicePort();
     private static final Duration NODE_AGENT_SCAN_INTERVAL = Duration.ofSeconds(30);
     private static final Duration NODE_ADMIN_CONVERGE_STATE_INTERVAL = Duration.ofSeconds(30);
+    private static final int NODE_AGENT_TICK_THREADS = 4;
 
+    private final NodeRepositoryWatcher nodeRepositoryWatcher;
+    private final NodeAgentScheduler nodeAgentScheduler;
     private final NodeAdminStateUpdater nodeAdminStateUpdater;
 
     @Inject
@@ -57,17 +63,23 @@ public class NodeAdminProvider implements Provider<NodeAdminStateUpdater> {
         DockerOperations dockerOperations = new DockerOperationsImpl(docker, environment, processExecuter);
 
         StorageMaintainer storageMaintainer = new StorageMaintainer(docker, processExecuter, metricReceiver, environment, clock);
-        AclMaintainer aclMaintainer = new AclMaintainer(dockerOperations, nodeRepository, dockerHostHostName);
+        nodeRepositoryWatcher = new NodeRepositoryWatcher(nodeRepository, dockerHostHostName);
+        AclMaintainer aclMaintainer = new AclMaintainer(dockerOperations, nodeRepository, dockerHostHostName,
+                Optional.of(nodeRepositoryWatcher), clock);
 
+        nodeAgentScheduler = new NodeAgentScheduler(nodeRepository, dockerOperations, dockerHostHostName,
+                metricReceiver, clock, NODE_AGENT_TICK_THREADS, Optional.of(nodeRepositoryWatcher));
         Function<String, NodeAgent> nodeAgentFactory =
                 (hostName) -> new NodeAgentImpl(hostName, nodeRepository, orchestrator, dockerOperations,
-                        storageMaintainer, aclMaintainer, environment, clock, NODE_AGENT_SCAN_INTERVAL);
+                        storageMaintainer, aclMaintainer, environment, clock, NODE_AGENT_SCAN_INTERVAL,
+                        Optional.of(nodeAgentScheduler));
         NodeAdmin nodeAdmin = new NodeAdminImpl(dockerOperations, nodeAgentFactory, storageMaintainer, aclMaintainer,
                 metricReceiver, clock);
 
-        nodeAdminStateUpdater = new NodeAdminStateUpdater(nodeRepository, orchestrator, storageMaintainer, nodeAdmin,
-                dockerHostHostName, clock, NODE_ADMIN_CONVERGE_STATE_INTERVAL, classLocking);
+        nodeAdminStateUpdater = new NodeAdminStateUpdater(nodeRepository, Optional.of(nodeRepositoryWatcher), orchestrator,
+                storageMaintainer, nodeAdmin, dockerHostHostName, clock, NODE_ADMIN_CONVERGE_STATE_INTERVAL, classLocking);
 
+        nodeRepositoryWatcher.start();
         nodeAdminStateUpdater.start();
     }
 
@@ -79,5 +91,7 @@ public class NodeAdminProvider implements Provider<NodeAdminStateUpdater> {
     @Override
     public void deconstruct() {
         nodeAdminStateUpdater.stop();
+        nodeAgentScheduler.stop();
+        nodeRepositoryWatcher.stop();
     }
 }
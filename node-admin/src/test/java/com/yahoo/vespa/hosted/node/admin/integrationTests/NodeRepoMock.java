@@ -4,10 +4,12 @@ package com.yahoo.vespa.hosted.node.admin.integrationTests;
 import com.yahoo.vespa.hosted.node.admin.ContainerAclSpec;
 import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAttributes;
+import com.yahoo.vespa.hosted.node.admin.noderepository.ContainerNodeChanges;
 import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepository;
 import com.yahoo.vespa.hosted.provision.Node;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -38,6 +40,13 @@ public class NodeRepoMock implements NodeRepository {
         }
     }
 
+    @Override
+    public ContainerNodeChanges getContainersChangedSince(String dockerHostHostname, long generation, Duration maxWait) {
+        synchronized (monitor) {
+            return new ContainerNodeChanges(0, containerNodeSpecsByHostname.values(), containerNodeSpecsByHostname.keySet());
+        }
+    }
+
     @Override
     public Optional<ContainerNodeSpec> getContainerNodeSpec(String hostName) {
         synchronized (monitor) {
@@ -0,0 +1,119 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.nodeagent;
+
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.test.ManualClock;
+import com.yahoo.vespa.hosted.dockerapi.Container;
+import com.yahoo.vespa.hosted.dockerapi.ContainerName;
+import com.yahoo.vespa.hosted.dockerapi.ContainerStatsImpl;
+import com.yahoo.vespa.hosted.dockerapi.DockerImage;
+import com.yahoo.vespa.hosted.dockerapi.metrics.MetricReceiverWrapper;
+import com.yahoo.vespa.hosted.node.admin.ContainerNodeSpec;
+import com.yahoo.vespa.hosted.node.admin.docker.DockerOperations;
+import com.yahoo.vespa.hosted.node.admin.maintenance.StorageMaintainer;
+import com.yahoo.vespa.hosted.node.admin.maintenance.acl.AclMaintainer;
+import com.yahoo.vespa.hosted.node.admin.noderepository.NodeRepository;
+import com.yahoo.vespa.hosted.node.admin.orchestrator.Orchestrator;
+import com.yahoo.vespa.hosted.node.admin.util.Environment;
+import com.yahoo.vespa.hosted.node.admin.util.InetAddressResolver;
+import com.yahoo.vespa.hosted.node.admin.util.PathResolver;
+import com.yahoo.vespa.hosted.provision.Node;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author agent
+ */
+public class NodeAgentSchedulerTest {
+
+    private static final String parentHostname = "parent.host.name.yahoo.com";
+    private static final DockerImage dockerImage = new DockerImage("dockerImage");
+
+    private final DockerOperations dockerOperations = mock(DockerOperations.class);
+    private final NodeRepository nodeRepository = mock(NodeRepository.class);
+    private final Orchestrator orchestrator = mock(Orchestrator.class);
+    private final StorageMaintainer storageMaintainer = mock(StorageMaintainer.class);
+    private final AclMaintainer aclMaintainer = mock(AclMaintainer.class);
+    private final MetricReceiverWrapper metricReceiver = new MetricReceiverWrapper(MetricReceiver.nullImplementation);
+    private final ManualClock clock = new ManualClock();
+    private final Environment environment = new Environment.Builder()
+            .environment("dev")
+            .region("us-east-1")
+            .parentHostHostname(parentHostname)
+            .inetAddressResolver(new InetAddressResolver())
+            .pathResolver(mock(PathResolver.class)).build();
+
+    @Test
+    public void agents_share_node_repository_and_docker_lookups() throws Exception {
+        List<String> hostnames = Arrays.asList("host1.test.yahoo.com", "host2.test.yahoo.com");
+        List<ContainerNodeSpec> nodeSpecs = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        for (String hostname : hostnames) {
+            nodeSpecs.add(new ContainerNodeSpec.Builder()
+                                  .hostname(hostname)
+                                  .nodeType("tenant")
+                                  .nodeFlavor("docker")
+                                  .minCpuCores(2)
+                                  .minMainMemoryAvailableGb(16)
+                                  .minDiskAvailableGb(250)
+                                  .wantedDockerImage(dockerImage)
+                                  .currentDockerImage(dockerImage)
+                                  .nodeState(Node.State.active)
+                                  .wantedVespaVersion("1.2.3")
+                                  .vespaVersion("1.2.3")
+                                  .wantedRestartGeneration(1L)
+                                  .currentRestartGeneration(1L)
+                                  .wantedRebootGeneration(0L)
+                                  .build());
+            containers.add(new Container(hostname, dockerImage, ContainerName.fromHostname(hostname),
+                                         Container.State.RUNNING, 1));
+        }
+        when(nodeRepository.getContainersToRun(parentHostname)).thenReturn(nodeSpecs);
+        when(dockerOperations.getAllManagedContainers()).thenReturn(containers);
+        when(dockerOperations.getContainerStats(any())).thenReturn(Optional.of(
+                new ContainerStatsImpl(Collections.emptyMap(), Collections.emptyMap(),
+                                       Collections.emptyMap(), Collections.emptyMap())));
+        when(storageMaintainer.getDiskUsageFor(any())).thenReturn(Optional.of(187500000000L));
+
+        NodeAgentScheduler scheduler = new NodeAgentScheduler(nodeRepository, dockerOperations, parentHostname,
+                                                              metricReceiver, clock, 2);
+        List<NodeAgentImpl> agents = new ArrayList<>();
+        for (String hostname : hostnames)
+            agents.add(new NodeAgentImpl(hostname, nodeRepository, orchestrator, dockerOperations, storageMaintainer,
+                                         aclMaintainer, environment, clock, Duration.ofSeconds(30),
+                                         Optional.of(scheduler)));
+        agents.forEach(NodeAgentImpl::start);
+
+        for (String hostname : hostnames)
+            verify(orchestrator, timeout(10000)).resume(hostname);
+        assertTrue(metricReceiver.getAllMetricsRaw().toString().contains("node-agent.tick.duration"));
+        agents.forEach(NodeAgentImpl::stop);
+        scheduler.stop();
+
+        // At most one round per agent start, each fetching all nodes and containers of the host once
+        verify(nodeRepository, atMost(2)).getContainersToRun(parentHostname);
+        verify(dockerOperations, atMost(2)).getAllManagedContainers();
+        verify(nodeRepository, never()).getContainerNodeSpec(any());
+        verify(dockerOperations, never()).getContainer(any());
+
+        assertFalse("Agent metrics are removed when the agents are stopped",
+                    metricReceiver.getAllMetricsRaw().toString().contains("node-agent.tick.duration"));
+    }
+
+}
@@ -17,6 +17,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
@@ -101,6 +102,22 @@ public class NodeRepositoryImplTest {
         assertThat(nodeSpec.minDiskAvailableGb, is(100.0));
     }
 
+    @Test
+    public void testGetContainersChangedSinceApi() throws IOException, InterruptedException {
+        waitForJdiscContainerToServe();
+        NodeRepository nodeRepositoryApi = new NodeRepositoryImpl(requestExecutor, port);
+        String dockerHostHostname = "dockerhost1.yahoo.com";
+
+        ContainerNodeChanges all = nodeRepositoryApi.getContainersChangedSince(dockerHostHostname, -1, Duration.ZERO);
+        assertThat(all.changed().size(), is(1));
+        assertThat(all.changed().get(0).hostname, is("host4.yahoo.com"));
+        assertThat(all.hostnames(), is(Collections.singleton("host4.yahoo.com")));
+
+        ContainerNodeChanges none = nodeRepositoryApi.getContainersChangedSince(dockerHostHostname, all.generation(), Duration.ZERO);
+        assertThat(none.changed().size(), is(0));
+        assertThat(none.hostnames(), is(Collections.singleton("host4.yahoo.com")));
+    }
+
     @Test
     public void testGetContainer() throws InterruptedException, IOException {
         waitForJdiscContainerToServe();
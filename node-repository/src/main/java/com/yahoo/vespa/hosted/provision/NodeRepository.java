@@ -24,6 +24,7 @@ import com.yahoo.vespa.hosted.provision.node.filter.NodeListFilter;
 import com.yahoo.vespa.hosted.provision.node.filter.StateFilter;
 import com.yahoo.vespa.hosted.provision.persistence.CuratorDatabaseClient;
 import com.yahoo.vespa.hosted.provision.persistence.DnsNameResolver;
+import com.yahoo.vespa.hosted.provision.persistence.NodeIndex;
 import com.yahoo.vespa.hosted.provision.persistence.NameResolver;
 import com.yahoo.vespa.hosted.provision.restapi.v2.NotFoundException;
 
@@ -31,6 +32,7 @@ import java.time.Clock;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -145,7 +147,7 @@ public class NodeRepository extends AbstractComponent {
      * @return the node, or empty if it was not found in any of the given states
      */
     public List<Node> getNodes(NodeType type, Node.State ... inState) {
-        return db.getNodes(inState).stream().filter(node -> node.type().equals(type)).collect(Collectors.toList());
+        return db.getNodeIndex().nodes(type, inState);
     }
 
     /**
@@ -155,29 +157,28 @@ public class NodeRepository extends AbstractComponent {
      * @return List of child nodes
      */
     public List<Node> getChildNodes(String hostname) {
-        return db.getNodes().stream()
-                .filter(node -> node.parentHostname()
-                        .map(parentHostname -> parentHostname.equals(hostname))
-                        .orElse(false))
-                .collect(Collectors.toList());
+        return db.getNodeIndex().childNodes(hostname);
     }
 
-    public List<Node> getNodes(ApplicationId id, Node.State ... inState) { return db.getNodes(id, inState); }
+    /** Returns an index of all the nodes at the current change generation, which also tells which nodes changed when */
+    public NodeIndex getNodeIndex() { return db.getNodeIndex(); }
+
+    public List<Node> getNodes(ApplicationId id, Node.State ... inState) { return db.getNodeIndex().nodes(id, inState); }
     public List<Node> getInactive() { return db.getNodes(Node.State.inactive); }
     public List<Node> getFailed() { return db.getNodes(Node.State.failed); }
 
     /**
      * Returns a set of nodes that should be trusted by the given node.
      */
-    private NodeAcl getNodeAcl(Node node, NodeList candidates) {
+    private NodeAcl getNodeAcl(Node node, NodeIndex candidates, List<Node> configNodes) {
         Set<Node> trustedNodes = new TreeSet<>(Comparator.comparing(Node::hostname));
         Set<String> trustedNetworks = new HashSet<>();
 
         // For all cases below, trust:
         // - nodes in same application
         // - config servers
-        node.allocation().ifPresent(allocation -> trustedNodes.addAll(candidates.owner(allocation.owner()).asList()));
-        trustedNodes.addAll(getConfigNodes());
+        node.allocation().ifPresent(allocation -> trustedNodes.addAll(candidates.nodes(allocation.owner())));
+        trustedNodes.addAll(configNodes);
 
         switch (node.type()) {
             case tenant:
@@ -185,20 +186,20 @@ public class NodeRepository extends AbstractComponent {
                 // - proxy nodes
                 // - parent (Docker) hosts of already trusted nodes. This is needed in a transition period, while
                 //   we migrate away from IPv4-only nodes
-                trustedNodes.addAll(candidates.parentNodes(trustedNodes).asList()); // TODO: Remove when we no longer have IPv4-only nodes
-                trustedNodes.addAll(candidates.nodeType(NodeType.proxy).asList());
+                trustedNodes.addAll(parentNodes(trustedNodes, candidates)); // TODO: Remove when we no longer have IPv4-only nodes
+                trustedNodes.addAll(candidates.nodes(NodeType.proxy));
                 if (node.state() == Node.State.ready) {
                     // Tenant nodes in state ready, trust:
                     // - All tenant nodes in zone. When a ready node is allocated to a an application there's a brief
                     //   window where current ACLs have not yet been applied on the node. To avoid service disruption
                     //   during this window, ready tenant nodes trust all other tenant nodes.
-                    trustedNodes.addAll(candidates.nodeType(NodeType.tenant).asList());
+                    trustedNodes.addAll(candidates.nodes(NodeType.tenant));
                 }
                 break;
 
             case config:
                 // Config servers trust all nodes
-                trustedNodes.addAll(candidates.asList());
+                trustedNodes.addAll(candidates.nodes());
                 break;
 
             case proxy:
@@ -227,16 +228,28 @@ public class NodeRepository extends AbstractComponent {
      * @return List of node ACLs
      */
     public List<NodeAcl> getNodeAcls(Node node, boolean children) {
-        NodeList candidates = new NodeList(getNodes());
+        NodeIndex candidates = db.getNodeIndex();
+        List<Node> configNodes = getConfigNodes();
         if (children) {
-            return candidates.childNodes(node).asList().stream()
-                    .map(childNode -> getNodeAcl(childNode, candidates))
+            return candidates.childNodes(node.hostname()).stream()
+                    .map(childNode -> getNodeAcl(childNode, candidates, configNodes))
                     .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
         } else {
-            return Collections.singletonList(getNodeAcl(node, candidates));
+            return Collections.singletonList(getNodeAcl(node, candidates, configNodes));
         }
     }
 
+    /** Returns the parent nodes of the given child nodes which are present in the given index */
+    private List<Node> parentNodes(Collection<Node> childNodes, NodeIndex candidates) {
+        return childNodes.stream()
+                .map(Node::parentHostname)
+                .filter(Optional::isPresent)
+                .map(parentHostname -> candidates.node(parentHostname.get()))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+    }
+
     /** Get config node by hostname */
     public Optional<Node> getConfigNode(String hostname) {
         return getConfigNodes().stream()
@@ -368,7 +381,8 @@ public class NodeRepository extends AbstractComponent {
 
     /** Move nodes to the dirty state */
     public List<Node> setDirty(List<Node> nodes) {
-        return performOn(NodeListFilter.from(nodes), this::setDirty);
+        return performOnAll(NodeListFilter.from(nodes),
+                            lockedNodes -> db.writeTo(Node.State.dirty, lockedNodes, Agent.system, Optional.empty()));
     }
 
     /** Move a single node to the dirty state */
@@ -594,6 +608,18 @@ public class NodeRepository extends AbstractComponent {
      * @return the set of nodes on which the action was performed, as they became as a result of the operation
      */
     private List<Node> performOn(NodeFilter filter, UnaryOperator<Node> action) {
+        return performOnAll(filter, nodes -> nodes.stream().map(action).collect(Collectors.toList()));
+    }
+
+    /**
+     * Performs an operation requiring locking on all nodes matching some filter, where the operation is applied
+     * to all the nodes requiring the same lock at once, such that they can be written in few transactions.
+     *
+     * @param filter the filter determining the set of nodes where the operation will be performed
+     * @param action the action to perform on a list of nodes, returning the resulting nodes
+     * @return the set of nodes on which the action was performed, as they became as a result of the operation
+     */
+    private List<Node> performOnAll(NodeFilter filter, UnaryOperator<List<Node>> action) {
         List<Node> unallocatedNodes = new ArrayList<>();
         ListMap<ApplicationId, Node> allocatedNodes = new ListMap<>();
 
@@ -608,14 +634,14 @@ public class NodeRepository extends AbstractComponent {
 
         // perform operation while holding locks
         List<Node> resultingNodes = new ArrayList<>();
-        try (Mutex lock = lockUnallocated()) {
-            for (Node node : unallocatedNodes)
-                resultingNodes.add(action.apply(node));
+        if ( ! unallocatedNodes.isEmpty()) {
+            try (Mutex lock = lockUnallocated()) {
+                resultingNodes.addAll(action.apply(unallocatedNodes));
+            }
         }
         for (Map.Entry<ApplicationId, List<Node>> applicationNodes : allocatedNodes.entrySet()) {
             try (Mutex lock = lock(applicationNodes.getKey())) {
-                for (Node node : applicationNodes.getValue())
-                    resultingNodes.add(action.apply(node));
+                resultingNodes.addAll(action.apply(applicationNodes.getValue()));
             }
         }
         return resultingNodes;
@@ -8,6 +8,7 @@ import com.yahoo.vespa.hosted.provision.node.History;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,13 +39,14 @@ public class InactiveExpirer extends Expirer {
 
     @Override
     protected void expire(List<Node> expired) {
-        expired.forEach(node -> {
-            if (node.status().wantToRetire()) {
+        List<Node> toDirty = new ArrayList<>();
+        for (Node node : expired) {
+            if (node.status().wantToRetire())
                 nodeRepository.park(node.hostname(), Agent.system, "Parked by InactiveExpirer");
-            } else {
-                nodeRepository.setDirty(node);
-            }
-        });
+            else
+                toDirty.add(node);
+        }
+        nodeRepository.setDirty(toDirty); // in batches
     }
 
 }
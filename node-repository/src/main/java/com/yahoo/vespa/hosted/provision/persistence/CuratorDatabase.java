@@ -94,6 +94,15 @@ public class CuratorDatabase {
 
     public Optional<byte[]> getData(Path path) { return getCache().getData(path); }
 
+    /**
+     * Returns the current change generation of this database.
+     * Any data read from this at the same generation is unchanged.
+     */
+    public long generation() { return getCache().generation(); }
+
+    /** Returns whether reads are served from an in-memory cache of the current generation */
+    public boolean isCaching() { return useCache; }
+
     private CuratorDatabaseCache getCache() {
         CuratorDatabaseCache cache = this.cache.get();
         long currentCuratorGeneration = changeGenerationCounter.get();
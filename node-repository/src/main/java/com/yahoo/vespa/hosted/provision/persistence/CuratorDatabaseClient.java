@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision.persistence;
 
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.UncheckedTimeoutException;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.ApplicationLockException;
@@ -29,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -50,6 +52,12 @@ public class CuratorDatabaseClient {
 
     private static final Duration defaultLockTimeout = Duration.ofMinutes(1);
 
+    /** The max number of nodes to write in one transaction, when the write is not part of a transaction given by the caller */
+    static final int maxNodesPerBatch = 100;
+
+    /** The max bytes of node data to write in one such transaction, well below the default max ZooKeeper request size of 1 Mb */
+    static final int maxBytesPerBatch = 500 * 1000;
+
     private final NodeSerializer nodeSerializer;
     private final StringSetSerializer stringSetSerializer = new StringSetSerializer();
 
@@ -59,6 +67,9 @@ public class CuratorDatabaseClient {
     
     private final Zone zone;
 
+    /** The last built index of all nodes */
+    private final AtomicReference<NodeIndex> nodeIndex = new AtomicReference<>(NodeIndex.empty);
+
     public CuratorDatabaseClient(NodeFlavors flavors, Curator curator, Clock clock, Zone zone) {
         this.nodeSerializer = new NodeSerializer(flavors);
         this.zone = zone;
@@ -106,25 +117,25 @@ public class CuratorDatabaseClient {
     }
 
     /**
-     * Removes multiple nodes in a single transaction.
+     * Removes multiple nodes, in transactions of at most {@link #maxNodesPerBatch} nodes.
      *
      * @param nodes list of the nodes to remove
      */
     public void removeNodes(List<Node> nodes) {
-        NestedTransaction transaction = new NestedTransaction();
-
-        for (Node node : nodes) {
-            Path path = toPath(node.state(), node.hostname());
-            CuratorTransaction curatorTransaction = curatorDatabase.newCuratorTransactionIn(transaction);
-            curatorTransaction.add(CuratorOperations.delete(path.getAbsolute()));
+        for (List<Node> batch : Lists.partition(nodes, maxNodesPerBatch)) {
+            try (NestedTransaction transaction = new NestedTransaction()) {
+                CuratorTransaction curatorTransaction = curatorDatabase.newCuratorTransactionIn(transaction);
+                for (Node node : batch)
+                    curatorTransaction.add(CuratorOperations.delete(toPath(node.state(), node.hostname()).getAbsolute()));
+                transaction.commit();
+            }
+            batch.forEach(node -> log.log(LogLevel.INFO, "Removed node " + node.hostname() + " in state " + node.state()));
         }
-
-        transaction.commit();
-        nodes.forEach(node -> log.log(LogLevel.INFO, "Removed node " + node.hostname() + " in state " + node.state()));
     }
 
     /**
      * Writes the given nodes and returns a copy of the incoming nodes in their persisted state.
+     * Large lists of nodes are written in multiple transactions, see {@link #writeTo(Node.State, List, Agent, Optional)}.
      *
      * @param  nodes the list of nodes to write
      * @param  agent the agent causing this change
@@ -134,15 +145,9 @@ public class CuratorDatabaseClient {
         if (nodes.isEmpty()) return Collections.emptyList();
 
         List<Node> writtenNodes = new ArrayList<>(nodes.size());
-
-        try (NestedTransaction nestedTransaction = new NestedTransaction()) {
-            Map<Node.State, List<Node>> nodesByState = nodes.stream().collect(Collectors.groupingBy(Node::state));
-            for (Map.Entry<Node.State, List<Node>> entry : nodesByState.entrySet()) {
-                writtenNodes.addAll(writeTo(entry.getKey(), entry.getValue(), agent, reason, nestedTransaction));
-                nestedTransaction.commit();
-            }
-        }
-
+        Map<Node.State, List<Node>> nodesByState = nodes.stream().collect(Collectors.groupingBy(Node::state));
+        for (Map.Entry<Node.State, List<Node>> entry : nodesByState.entrySet())
+            writtenNodes.addAll(writeTo(entry.getKey(), entry.getValue(), agent, reason));
         return writtenNodes;
     }
 
@@ -150,6 +155,10 @@ public class CuratorDatabaseClient {
      * Writes the given nodes to the given state (whether or not they are already in this state or another),
      * and returns a copy of the incoming nodes in their persisted state.
      *
+     * The nodes are written in transactions of at most {@link #maxNodesPerBatch} nodes and {@link #maxBytesPerBatch}
+     * bytes of node data, to keep each transaction within the size limits of ZooKeeper requests.
+     * Hence, when many nodes are written, a failure may cause only some of them to be written.
+     *
      * @param  toState the state to write the nodes to
      * @param  nodes the list of nodes to write
      * @param  agent the agent causing this change
@@ -157,12 +166,25 @@ public class CuratorDatabaseClient {
      */
     public List<Node> writeTo(Node.State toState, List<Node> nodes,
                               Agent agent, Optional<String> reason) {
-        try (NestedTransaction nestedTransaction = new NestedTransaction()) {
-            List<Node> writtenNodes = writeTo(toState, nodes, agent, reason, nestedTransaction);
-            nestedTransaction.commit();
-            return writtenNodes;
+        List<NodeWrite> writes = toWrites(toState, nodes, agent);
+        List<Node> writtenNodes = new ArrayList<>(nodes.size());
+        int batchStart = 0;
+        while (batchStart < writes.size()) {
+            int batchEnd = batchStart;
+            long batchBytes = 0;
+            while (batchEnd < writes.size() && batchEnd - batchStart < maxNodesPerBatch &&
+                   (batchEnd == batchStart || batchBytes + writes.get(batchEnd).data.length <= maxBytesPerBatch))
+                batchBytes += writes.get(batchEnd++).data.length;
+
+            try (NestedTransaction transaction = new NestedTransaction()) {
+                writtenNodes.addAll(addWrites(toState, writes.subList(batchStart, batchEnd), agent, reason, transaction));
+                transaction.commit();
+            }
+            batchStart = batchEnd;
         }
+        return writtenNodes;
     }
+
     public Node writeTo(Node.State toState, Node node, Agent agent, Optional<String> reason) {
         return writeTo(toState, Collections.singletonList(node), agent, reason).get(0);
     }
@@ -182,10 +204,11 @@ public class CuratorDatabaseClient {
                               Agent agent, Optional<String> reason,
                               NestedTransaction transaction) {
         if (nodes.isEmpty()) return nodes;
+        return addWrites(toState, toWrites(toState, nodes, agent), agent, reason, transaction);
+    }
 
-        List<Node> writtenNodes = new ArrayList<>(nodes.size());
-
-        CuratorTransaction curatorTransaction = curatorDatabase.newCuratorTransactionIn(transaction);
+    private List<NodeWrite> toWrites(Node.State toState, List<Node> nodes, Agent agent) {
+        List<NodeWrite> writes = new ArrayList<>(nodes.size());
         for (Node node : nodes) {
             Node newNode = new Node(node.openStackId(), node.ipAddresses(), node.additionalIpAddresses(), node.hostname(),
                                     node.parentHostname(), node.flavor(),
@@ -194,20 +217,48 @@ public class CuratorDatabaseClient {
                                     toState.isAllocated() ? node.allocation() : Optional.empty(),
                                     node.history().recordStateTransition(node.state(), toState, agent, clock.instant()),
                                     node.type());
-            curatorTransaction.add(CuratorOperations.delete(toPath(node).getAbsolute()))
-                              .add(CuratorOperations.create(toPath(toState, newNode.hostname()).getAbsolute(), nodeSerializer.toJson(newNode)));
-            writtenNodes.add(newNode);
+            writes.add(new NodeWrite(node, newNode, nodeSerializer.toJson(newNode)));
+        }
+        return writes;
+    }
+
+    private List<Node> addWrites(Node.State toState, List<NodeWrite> writes, Agent agent, Optional<String> reason,
+                                 NestedTransaction transaction) {
+        List<Node> writtenNodes = new ArrayList<>(writes.size());
+        CuratorTransaction curatorTransaction = curatorDatabase.newCuratorTransactionIn(transaction);
+        for (NodeWrite write : writes) {
+            if (write.node.state() == toState) // no need to move it
+                curatorTransaction.add(CuratorOperations.setData(toPath(toState, write.newNode.hostname()).getAbsolute(), write.data));
+            else
+                curatorTransaction.add(CuratorOperations.delete(toPath(write.node).getAbsolute()))
+                                  .add(CuratorOperations.create(toPath(toState, write.newNode.hostname()).getAbsolute(), write.data));
+            writtenNodes.add(write.newNode);
         }
 
         transaction.onCommitted(() -> { // schedule logging on commit of nodes which changed state
-            for (Node node : nodes) {
-                if (toState != node.state())
-                    log.log(LogLevel.INFO, agent + " moved " + node + " to " + toState + reason.map(s -> ": " + s).orElse(""));
+            for (NodeWrite write : writes) {
+                if (toState != write.node.state())
+                    log.log(LogLevel.INFO, agent + " moved " + write.node + " to " + toState + reason.map(s -> ": " + s).orElse(""));
             }
         });
         return writtenNodes;
     }
 
+    /** A node to be written, in its current and new state, and its new serialized form */
+    private static class NodeWrite {
+
+        final Node node;
+        final Node newNode;
+        final byte[] data;
+
+        NodeWrite(Node node, Node newNode, byte[] data) {
+            this.node = node;
+            this.newNode = newNode;
+            this.data = data;
+        }
+
+    }
+
     private Status newNodeStatus(Node node, Node.State toState) {
         if (node.state() != Node.State.failed && toState == Node.State.failed) return node.status().withIncreasedFailCount();
         if (node.state() == Node.State.failed && toState == Node.State.active) return node.status().withDecreasedFailCount(); // fail undo
@@ -241,6 +292,31 @@ public class CuratorDatabaseClient {
         return nodes;
     }
 
+    /**
+     * Returns an index of all nodes at the current change generation of the database.
+     * When the database is caching, the index is reused until the generation changes. When it is rebuilt,
+     * nodes whose stored data is unchanged are reused from the previous index rather than deserialized again.
+     */
+    public NodeIndex getNodeIndex() {
+        NodeIndex index = nodeIndex.get();
+        long generation = curatorDatabase.generation();
+        if (curatorDatabase.isCaching() && index.generation() == generation) return index;
+
+        NodeIndex.Builder builder = new NodeIndex.Builder(generation, index);
+        for (Node.State state : Node.State.values()) {
+            for (String hostname : curatorDatabase.getChildren(toPath(state))) {
+                Optional<byte[]> data = curatorDatabase.getData(toPath(state, hostname));
+                if ( ! data.isPresent()) continue; // node might disappear between getChildren and getData
+                Node node = builder.reusableNode(hostname, state, data.get())
+                                   .orElseGet(() -> nodeSerializer.fromJson(state, data.get()));
+                builder.add(node, data.get());
+            }
+        }
+        index = builder.build();
+        nodeIndex.set(index);
+        return index;
+    }
+
     /** 
      * Returns all nodes allocated to the given application which are in one of the given states 
      * If no states are given this returns all nodes.
@@ -0,0 +1,231 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.persistence;
+
+import com.google.common.collect.ImmutableList;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.NodeType;
+import com.yahoo.vespa.hosted.provision.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of all the nodes in the node repository at a given change generation of the
+ * curator database, indexed by hostname, state, type, parent hostname and owner application.
+ * Within each index entry nodes are ordered by state, and then in the order they are stored in ZooKeeper,
+ * which is the same order as they are returned by {@link CuratorDatabaseClient#getNodes}.
+ *
+ * The index also tracks the generation at which each node was last changed, and the most recently removed nodes,
+ * such that clients can ask for the nodes changed since a generation. As this is tracked by each index, the change
+ * generation of a node may be later than the generation at which it actually changed, but never earlier.
+ *
+ * Instances are obtained from {@link CuratorDatabaseClient#getNodeIndex}.
+ *
+ * @author agent
+ */
+public class NodeIndex {
+
+    static final NodeIndex empty = new Builder(-1, null).build();
+
+    /** The max number of removed nodes to remember */
+    private static final int maxRemovedNodes = 1000;
+
+    private final long generation;
+
+    /** The serialized data of each node, to allow reusing the deserialized nodes which do not change */
+    private final Map<String, byte[]> dataByHostname;
+    private final Map<String, Node> byHostname;
+    private final Map<Node.State, List<Node>> byState;
+    private final Map<Node.State, Map<NodeType, List<Node>>> byStateAndType;
+    private final Map<String, List<Node>> byParentHostname;
+    private final Map<ApplicationId, List<Node>> byOwner;
+
+    /** The generation at which each node was last changed or removed */
+    private final Map<String, Long> changeGenerationByHostname;
+    /** The most recently removed nodes, in the order they were removed */
+    private final LinkedHashMap<String, Node> removed;
+
+    private NodeIndex(Builder builder) {
+        this.generation = builder.generation;
+        this.dataByHostname = builder.dataByHostname;
+        this.byHostname = builder.byHostname;
+        this.byState = freeze(builder.byState);
+        this.byStateAndType = new EnumMap<>(Node.State.class);
+        builder.byStateAndType.forEach((state, byType) -> byStateAndType.put(state, freeze(byType)));
+        this.byParentHostname = freeze(builder.byParentHostname);
+        this.byOwner = freeze(builder.byOwner);
+        this.changeGenerationByHostname = builder.changeGenerationByHostname;
+        this.removed = builder.removed;
+    }
+
+    /** Returns the change generation of the curator database this was built from */
+    public long generation() { return generation; }
+
+    /** Returns the node with the given hostname, or empty if it is not present in any state */
+    public Optional<Node> node(String hostname) {
+        return Optional.ofNullable(byHostname.get(hostname));
+    }
+
+    /** Returns the number of nodes in this */
+    public int size() { return byHostname.size(); }
+
+    /**
+     * Returns all nodes in any of the given states.
+     * If no states are given this returns all nodes.
+     */
+    public List<Node> nodes(Node.State ... states) {
+        if (states.length == 0) states = Node.State.values();
+        List<Node> nodes = new ArrayList<>();
+        for (Node.State state : states)
+            nodes.addAll(byState.getOrDefault(state, Collections.emptyList()));
+        return nodes;
+    }
+
+    /**
+     * Returns the nodes of the given type in any of the given states.
+     * If no states are given this returns all nodes of the given type.
+     */
+    public List<Node> nodes(NodeType type, Node.State ... states) {
+        if (states.length == 0) states = Node.State.values();
+        List<Node> nodes = new ArrayList<>();
+        for (Node.State state : states) {
+            Map<NodeType, List<Node>> byType = byStateAndType.get(state);
+            if (byType != null)
+                nodes.addAll(byType.getOrDefault(type, Collections.emptyList()));
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the nodes allocated to the given application in any of the given states.
+     * If no states are given this returns all nodes allocated to the application.
+     */
+    public List<Node> nodes(ApplicationId owner, Node.State ... states) {
+        List<Node> owned = byOwner.getOrDefault(owner, Collections.emptyList());
+        if (states.length == 0) return new ArrayList<>(owned);
+        List<Node> nodes = new ArrayList<>();
+        for (Node.State state : states) // preserve the order of the given states
+            for (Node node : owned)
+                if (node.state() == state) nodes.add(node);
+        return nodes;
+    }
+
+    /** Returns the nodes having the given parent hostname, in any state */
+    public List<Node> childNodes(String parentHostname) {
+        return new ArrayList<>(byParentHostname.getOrDefault(parentHostname, Collections.emptyList()));
+    }
+
+    /**
+     * Returns the nodes which are changed after the given generation, including the nodes which are added.
+     * If the given generation is older than any generation tracked by this, all nodes are returned.
+     */
+    public List<Node> changedSince(long generation) {
+        List<Node> changed = new ArrayList<>();
+        for (Node node : nodes())
+            if (changeGenerationByHostname.get(node.hostname()) > generation) changed.add(node);
+        return changed;
+    }
+
+    /**
+     * Returns the nodes which are removed after the given generation, as they were before removal.
+     * Only a limited number of the most recently removed nodes are remembered, so clients
+     * must also compare the nodes they know with those returned by {@link #nodes}.
+     */
+    public List<Node> removedSince(long generation) {
+        List<Node> removedNodes = new ArrayList<>();
+        for (Node node : removed.values())
+            if (changeGenerationByHostname.get(node.hostname()) > generation) removedNodes.add(node);
+        return removedNodes;
+    }
+
+    /** Returns a deserialized node from this if it was deserialized from exactly the given data, or empty otherwise */
+    Optional<Node> nodeWithData(String hostname, Node.State state, byte[] data) {
+        Node node = byHostname.get(hostname);
+        if (node == null || node.state() != state) return Optional.empty();
+        byte[] nodeData = dataByHostname.get(hostname);
+        if (nodeData != data && ! Arrays.equals(nodeData, data)) return Optional.empty();
+        return Optional.of(node);
+    }
+
+    private static <KEY> Map<KEY, List<Node>> freeze(Map<KEY, List<Node>> map) {
+        map.replaceAll((key, nodes) -> ImmutableList.copyOf(nodes));
+        return map;
+    }
+
+    /** Builds a node index by adding nodes in the order they should be returned from the index */
+    static class Builder {
+
+        private final long generation;
+        private final NodeIndex previous;
+
+        private final Map<String, byte[]> dataByHostname = new HashMap<>();
+        private final Map<String, Node> byHostname = new HashMap<>();
+        private final Map<Node.State, List<Node>> byState = new EnumMap<>(Node.State.class);
+        private final Map<Node.State, Map<NodeType, List<Node>>> byStateAndType = new EnumMap<>(Node.State.class);
+        private final Map<String, List<Node>> byParentHostname = new HashMap<>();
+        private final Map<ApplicationId, List<Node>> byOwner = new HashMap<>();
+        private final Map<String, Long> changeGenerationByHostname = new HashMap<>();
+        private final LinkedHashMap<String, Node> removed = new LinkedHashMap<>();
+
+        /**
+         * Creates a builder of an index for the given generation
+         *
+         * @param previous the index this replaces, from which nodes with unchanged data are reused, or null if none
+         */
+        Builder(long generation, NodeIndex previous) {
+            this.generation = generation;
+            this.previous = previous;
+        }
+
+        /** Returns the node deserialized from the given data in the previous index, or empty if none */
+        Optional<Node> reusableNode(String hostname, Node.State state, byte[] data) {
+            if (previous == null) return Optional.empty();
+            return previous.nodeWithData(hostname, state, data);
+        }
+
+        /** Adds a node, unless a node with this hostname is already added */
+        Builder add(Node node, byte[] data) {
+            if (byHostname.putIfAbsent(node.hostname(), node) != null) return this; // moved between reads of two states
+            dataByHostname.put(node.hostname(), data);
+            boolean unchanged = previous != null && previous.nodeWithData(node.hostname(), node.state(), data).isPresent();
+            changeGenerationByHostname.put(node.hostname(),
+                                           unchanged ? previous.changeGenerationByHostname.get(node.hostname()) : generation);
+            byState.computeIfAbsent(node.state(), state -> new ArrayList<>()).add(node);
+            byStateAndType.computeIfAbsent(node.state(), state -> new EnumMap<>(NodeType.class))
+                          .computeIfAbsent(node.type(), type -> new ArrayList<>()).add(node);
+            node.parentHostname().ifPresent(parent -> byParentHostname.computeIfAbsent(parent, p -> new ArrayList<>()).add(node));
+            node.allocation().ifPresent(allocation -> byOwner.computeIfAbsent(allocation.owner(), o -> new ArrayList<>()).add(node));
+            return this;
+        }
+
+        NodeIndex build() {
+            if (previous != null) {
+                for (Node node : previous.removed.values())
+                    if ( ! byHostname.containsKey(node.hostname())) removed(node, previous.changeGenerationByHostname.get(node.hostname()));
+                for (Node node : previous.byHostname.values())
+                    if ( ! byHostname.containsKey(node.hostname())) removed(node, generation);
+            }
+            return new NodeIndex(this);
+        }
+
+        private void removed(Node node, long removalGeneration) {
+            removed.remove(node.hostname()); // keep the removal order
+            removed.put(node.hostname(), node);
+            changeGenerationByHostname.put(node.hostname(), removalGeneration);
+            if (removed.size() > maxRemovedNodes) {
+                String oldest = removed.keySet().iterator().next();
+                removed.remove(oldest);
+                changeGenerationByHostname.remove(oldest);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.restapi.v2;
+
+import com.yahoo.concurrent.ThreadFactoryFactory;
+import com.yahoo.log.LogLevel;
+import com.yahoo.vespa.hosted.provision.NodeRepository;
+import com.yahoo.vespa.hosted.provision.persistence.NodeIndex;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Keeps requests waiting for node changes until there are changes they are interested in, or they time out,
+ * without holding a request handler thread for each waiting request. A single thread checks the node repository
+ * for changes at regular intervals while any requests are waiting, and completes the requests which are done.
+ *
+ * @author agent
+ */
+class NodeChangeWaiters {
+
+    private static final Logger log = Logger.getLogger(NodeChangeWaiters.class.getName());
+
+    /** How often to check for changes while requests are waiting */
+    private static final Duration checkInterval = Duration.ofSeconds(1);
+
+    private final NodeRepository nodeRepository;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService checker =
+            Executors.newSingleThreadScheduledExecutor(ThreadFactoryFactory.getDaemonThreadFactory("node-changes"));
+
+    NodeChangeWaiters(NodeRepository nodeRepository) {
+        this.nodeRepository = nodeRepository;
+        checker.scheduleWithFixedDelay(this::check, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the given response when the node repository has changes accepted by the given predicate,
+     * or when the given time has passed. This returns immediately, and the response is run in this thread
+     * if it need not wait, and in the thread checking for changes otherwise.
+     */
+    void await(Predicate<NodeIndex> hasChanges, Duration wait, Runnable response) {
+        if (wait.isZero() || wait.isNegative() || hasChanges.test(nodeRepository.getNodeIndex())) {
+            response.run();
+            return;
+        }
+
+        Waiter waiter = new Waiter(hasChanges, System.nanoTime() + wait.toNanos(), response);
+        waiters.add(waiter);
+        if (checker.isShutdown() && waiters.remove(waiter)) // stopped meanwhile: Respond now
+            waiter.response.run();
+    }
+
+    /** Stops checking for changes and completes all waiting requests */
+    void shutdown() {
+        checker.shutdown();
+        try {
+            checker.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            // Respond to the remaining waiters below
+        }
+        for (Waiter waiter : waiters)
+            if (waiters.remove(waiter))
+                waiter.response.run();
+    }
+
+    private void check() {
+        if (waiters.isEmpty()) return;
+        try {
+            NodeIndex index = nodeRepository.getNodeIndex();
+            long now = System.nanoTime();
+            for (Waiter waiter : waiters) {
+                if (waiter.isDone(index, now) && waiters.remove(waiter))
+                    waiter.response.run();
+            }
+        }
+        catch (RuntimeException e) {
+            log.log(LogLevel.WARNING, "Failed checking for node changes", e);
+        }
+    }
+
+    private static class Waiter {
+
+        private final Predicate<NodeIndex> hasChanges;
+        private final long deadlineNanos;
+        private final Runnable response;
+
+        Waiter(Predicate<NodeIndex> hasChanges, long deadlineNanos, Runnable response) {
+            this.hasChanges = hasChanges;
+            this.deadlineNanos = deadlineNanos;
+            this.response = response;
+        }
+
+        boolean isDone(NodeIndex index, long now) {
+            return now - deadlineNanos >= 0 || hasChanges.test(index);
+        }
+
+    }
+
+}
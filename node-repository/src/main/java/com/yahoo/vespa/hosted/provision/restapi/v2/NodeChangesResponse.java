@@ -0,0 +1,80 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.restapi.v2;
+
+import com.yahoo.container.jdisc.AsyncHttpResponse;
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.log.LogLevel;
+import com.yahoo.vespa.hosted.provision.NodeRepository;
+import com.yahoo.vespa.hosted.provision.node.filter.NodeFilter;
+import com.yahoo.vespa.hosted.provision.persistence.NodeIndex;
+import com.yahoo.vespa.hosted.provision.restapi.v2.NodesResponse.ResponseType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.logging.Logger;
+
+/**
+ * Responds with the nodes changed since the generation given by the "since" parameter.
+ * If there are no changes, the response is held back, without holding a request handler thread,
+ * until there are changes or the number of seconds given by the "wait" parameter has passed.
+ *
+ * @author agent
+ */
+class NodeChangesResponse extends AsyncHttpResponse {
+
+    private static final Logger log = Logger.getLogger(NodeChangesResponse.class.getName());
+
+    /** The max time a request for node changes may wait for changes */
+    private static final Duration maxWait = Duration.ofSeconds(60);
+
+    private final HttpRequest request;
+    private final NodeRepository nodeRepository;
+    private final NodeChangeWaiters waiters;
+    private final NodeFilter filter;
+    private final long since;
+    private final Duration wait;
+
+    NodeChangesResponse(HttpRequest request, NodeRepository nodeRepository, NodeChangeWaiters waiters) {
+        super(200);
+        this.request = request;
+        this.nodeRepository = nodeRepository;
+        this.waiters = waiters;
+        this.filter = NodesApiHandler.toNodeFilter(request);
+        this.since = NodesResponse.longProperty("since", -1, request);
+        Duration wait = Duration.ofSeconds(NodesResponse.longProperty("wait", 0, request));
+        this.wait = wait.compareTo(maxWait) < 0 ? wait : maxWait;
+    }
+
+    @Override
+    public void render(OutputStream output, ContentChannel networkChannel, CompletionHandler handler) {
+        waiters.await(this::hasChanges, wait, () -> respond(output, networkChannel, handler));
+    }
+
+    private boolean hasChanges(NodeIndex index) {
+        if (index.generation() <= since) return false;
+        return index.changedSince(since).stream().anyMatch(filter::matches) ||
+               index.removedSince(since).stream().anyMatch(filter::matches);
+    }
+
+    private void respond(OutputStream output, ContentChannel networkChannel, CompletionHandler handler) {
+        try {
+            new NodesResponse(ResponseType.nodeChanges, request, nodeRepository).render(output);
+            output.flush();
+        }
+        catch (IOException | RuntimeException e) {
+            log.log(LogLevel.WARNING, "Failed responding to '" + request.getUri() + "'", e);
+        }
+        finally {
+            networkChannel.close(handler);
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/json";
+    }
+
+}
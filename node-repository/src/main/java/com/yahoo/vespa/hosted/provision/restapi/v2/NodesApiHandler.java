@@ -51,6 +51,7 @@ public class NodesApiHandler extends LoggingRequestHandler {
     private final NodeRepository nodeRepository;
     private final NodeRepositoryMaintenance maintenance;
     private final NodeFlavors nodeFlavors;
+    private final NodeChangeWaiters changeWaiters;
     private static final String nodeTypeKey = "type";
 
 
@@ -60,6 +61,13 @@ public class NodesApiHandler extends LoggingRequestHandler {
         this.nodeRepository = nodeRepository;
         this.maintenance = maintenance;
         this.nodeFlavors = flavors;
+        this.changeWaiters = new NodeChangeWaiters(nodeRepository);
+    }
+
+    @Override
+    protected void destroy() {
+        super.destroy();
+        changeWaiters.shutdown();
     }
 
     @Override
@@ -88,11 +96,12 @@ public class NodesApiHandler extends LoggingRequestHandler {
 
     private HttpResponse handleGET(HttpRequest request) {
         String path = request.getUri().getPath();
-        if (path.equals(    "/nodes/v2/")) return ResourcesResponse.fromStrings(request.getUri(), "state", "node", "command", "maintenance");
+        if (path.equals(    "/nodes/v2/")) return ResourcesResponse.fromStrings(request.getUri(), "state", "node", "command", "maintenance", "changes");
         if (path.equals(    "/nodes/v2/node/")) return new NodesResponse(ResponseType.nodeList, request, nodeRepository);
         if (path.startsWith("/nodes/v2/node/")) return new NodesResponse(ResponseType.singleNode, request, nodeRepository);
         if (path.equals(    "/nodes/v2/state/")) return new NodesResponse(ResponseType.stateList, request, nodeRepository);
         if (path.startsWith("/nodes/v2/state/")) return new NodesResponse(ResponseType.nodesInStateList, request, nodeRepository);
+        if (path.equals(    "/nodes/v2/changes/")) return new NodeChangesResponse(request, nodeRepository, changeWaiters);
         if (path.startsWith("/nodes/v2/acl/")) return new NodeAclResponse(request, nodeRepository);
         if (path.equals(    "/nodes/v2/command/")) return ResourcesResponse.fromStrings(request.getUri(), "restart", "reboot");
         if (path.equals(    "/nodes/v2/maintenance/")) return new JobsResponse(maintenance.jobControl());
@@ -13,6 +13,7 @@ import com.yahoo.vespa.hosted.provision.Node;
 import com.yahoo.vespa.hosted.provision.NodeRepository;
 import com.yahoo.vespa.hosted.provision.node.History;
 import com.yahoo.vespa.hosted.provision.node.filter.NodeFilter;
+import com.yahoo.vespa.hosted.provision.persistence.NodeIndex;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -26,7 +27,7 @@ import java.util.Set;
 class NodesResponse extends HttpResponse {
 
     /** The responses this can create */
-    public enum ResponseType { nodeList, stateList, nodesInStateList, singleNode }
+    public enum ResponseType { nodeList, stateList, nodesInStateList, singleNode, nodeChanges }
 
     /** The request url minus parameters, with a trailing slash added if missing */
     private final String parentUrl;
@@ -55,6 +56,7 @@ class NodesResponse extends HttpResponse {
             case stateList : statesToSlime(root); break;
             case nodesInStateList: nodesToSlime(stateFromString(lastElement(parentUrl)), root); break;
             case singleNode : nodeToSlime(lastElement(parentUrl), root); break;
+            case nodeChanges : changesToSlime(request, root); break;
             default: throw new IllegalArgumentException();
         }
     }
@@ -112,9 +114,41 @@ class NodesResponse extends HttpResponse {
     }
 
     private void toSlime(List<Node> nodes, Cursor array) {
+        toSlime(nodes, recursive, array);
+    }
+
+    private void toSlime(List<Node> nodes, boolean allFields, Cursor array) {
         for (Node node : nodes) {
             if ( ! filter.matches(node)) continue;
-            toSlime(node, recursive, array.addObject());
+            toSlime(node, allFields, array.addObject());
+        }
+    }
+
+    /**
+     * Outputs the nodes changed and removed since the generation given by the "since" parameter,
+     * as well as the current generation and the hostnames of all the nodes.
+     * Waiting for changes is done by {@link NodeChangesResponse}.
+     */
+    private void changesToSlime(HttpRequest request, Cursor root) {
+        long since = longProperty("since", -1, request);
+        NodeIndex index = nodeRepository.getNodeIndex();
+        root.setLong("generation", index.generation());
+        toSlime(index.changedSince(since), true, root.setArray("nodes"));
+        Cursor removedArray = root.setArray("removed");
+        for (Node node : index.removedSince(since))
+            if (filter.matches(node)) removedArray.addString(node.hostname());
+        Cursor hostnameArray = root.setArray("hostnames");
+        for (Node node : index.nodes())
+            if (filter.matches(node)) hostnameArray.addString(node.hostname());
+    }
+
+    static long longProperty(String name, long defaultValue, HttpRequest request) {
+        String value = request.getProperty(name);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected an integer value of '" + name + "' but got '" + value + "'");
         }
     }
 
@@ -0,0 +1,77 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.persistence;
+
+import com.yahoo.config.provision.Flavor;
+import com.yahoo.config.provision.NodeFlavors;
+import com.yahoo.config.provision.NodeType;
+import com.yahoo.config.provision.Zone;
+import com.yahoo.vespa.curator.mock.MockCurator;
+import com.yahoo.vespa.hosted.provision.Node;
+import com.yahoo.vespa.hosted.provision.node.Agent;
+import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Measures the number of nodes written per second when moving many nodes between states,
+ * and when writing many nodes in the state they are already in, against a mock curator.
+ *
+ * @author agent
+ */
+public class CuratorDatabaseClientBenchmark {
+
+    private static final int nodeCount = 1000;
+
+    private final NodeFlavors flavors = FlavorConfigBuilder.createDummies("default");
+
+    public void run() {
+        CuratorDatabaseClient client = new CuratorDatabaseClient(flavors, new MockCurator(), Clock.systemUTC(), Zone.defaultZone());
+        client.addNodes(createNodes(flavors.getFlavorOrThrow("default")));
+
+        out("Warming up...");
+        for (int i = 0; i < 10; i++)
+            moveAndRewrite(client);
+
+        out("Running...");
+        long movedNodes = 0, rewrittenNodes = 0, moveNanos = 0, rewriteNanos = 0;
+        for (int i = 0; i < 50; i++) {
+            long start = System.nanoTime();
+            movedNodes += client.writeTo(Node.State.dirty, client.getNodes(Node.State.provisioned), Agent.system, Optional.empty()).size();
+            movedNodes += client.writeTo(Node.State.provisioned, client.getNodes(Node.State.dirty), Agent.system, Optional.empty()).size();
+            long moved = System.nanoTime();
+            rewrittenNodes += client.writeTo(client.getNodes(Node.State.provisioned), Agent.system, Optional.empty()).size();
+            long rewritten = System.nanoTime();
+            moveNanos += moved - start;
+            rewriteNanos += rewritten - moved;
+        }
+        out("Moved " + (movedNodes * 1000_000_000L / moveNanos) + " nodes per second between states");
+        out("Rewrote " + (rewrittenNodes * 1000_000_000L / rewriteNanos) + " nodes per second in the same state");
+    }
+
+    private void moveAndRewrite(CuratorDatabaseClient client) {
+        client.writeTo(Node.State.dirty, client.getNodes(Node.State.provisioned), Agent.system, Optional.empty());
+        client.writeTo(Node.State.provisioned, client.getNodes(Node.State.dirty), Agent.system, Optional.empty());
+        client.writeTo(client.getNodes(Node.State.provisioned), Agent.system, Optional.empty());
+    }
+
+    private List<Node> createNodes(Flavor flavor) {
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++)
+            nodes.add(Node.create("id" + i, Collections.singleton("::" + i), Collections.emptySet(), "host" + i + ".yahoo.com",
+                                  Optional.empty(), flavor, NodeType.tenant));
+        return nodes;
+    }
+
+    private void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) {
+        new CuratorDatabaseClientBenchmark().run();
+    }
+
+}
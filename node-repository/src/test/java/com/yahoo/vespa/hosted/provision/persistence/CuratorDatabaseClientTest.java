@@ -3,21 +3,35 @@ package com.yahoo.vespa.hosted.provision.persistence;
 
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.ApplicationName;
+import com.yahoo.config.provision.Environment;
+import com.yahoo.config.provision.Flavor;
 import com.yahoo.config.provision.InstanceName;
+import com.yahoo.config.provision.NodeFlavors;
 import com.yahoo.config.provision.NodeType;
+import com.yahoo.config.provision.RegionName;
+import com.yahoo.config.provision.SystemName;
 import com.yahoo.config.provision.TenantName;
 import com.yahoo.config.provision.Zone;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.Lock;
 import com.yahoo.vespa.curator.mock.MockCurator;
 import com.yahoo.vespa.hosted.provision.Node;
+import com.yahoo.vespa.hosted.provision.node.Agent;
 import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
 import org.junit.Test;
 
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author mpolden
@@ -39,6 +53,70 @@ public class CuratorDatabaseClientTest {
         assertEquals(NodeType.host, allocatedNodes.get(0).type());
     }
 
+    @Test
+    public void node_index_is_reused_until_the_database_changes() {
+        NodeFlavors flavors = FlavorConfigBuilder.createDummies("default");
+        Flavor flavor = flavors.getFlavorOrThrow("default");
+        CuratorDatabaseClient client = new CuratorDatabaseClient(flavors, new MockCurator(), Clock.systemUTC(),
+                                                                 new Zone(SystemName.cd, Environment.prod, RegionName.from("cd-region")));
+        client.addNodes(Arrays.asList(
+                Node.create("id1", Collections.singleton("::1"), Collections.emptySet(), "host1", Optional.empty(), flavor, NodeType.host),
+                Node.create("id2", Collections.singleton("::2"), Collections.emptySet(), "child1", Optional.of("host1"), flavor, NodeType.tenant),
+                Node.create("id3", Collections.singleton("::3"), Collections.emptySet(), "child2", Optional.of("host1"), flavor, NodeType.tenant)));
+
+        NodeIndex index = client.getNodeIndex();
+        assertSame(index, client.getNodeIndex());
+        assertEquals(3, index.size());
+        assertEquals(2, index.childNodes("host1").size());
+        assertEquals(Collections.singletonList("host1"), hostnames(index.nodes(NodeType.host, Node.State.provisioned)));
+        assertEquals(Collections.emptyList(), hostnames(index.nodes(NodeType.host, Node.State.dirty)));
+
+        client.writeTo(Node.State.dirty, index.node("child1").get(), Agent.system, Optional.empty());
+        NodeIndex newIndex = client.getNodeIndex();
+        assertNotSame(index, newIndex);
+        assertSame("Unchanged nodes are reused", index.node("host1").get(), newIndex.node("host1").get());
+        assertEquals(Node.State.dirty, newIndex.node("child1").get().state());
+        assertEquals(Arrays.asList("child2", "child1"), hostnames(newIndex.childNodes("host1")));
+        assertEquals(Collections.singletonList("child1"), hostnames(newIndex.nodes(NodeType.tenant, Node.State.dirty)));
+    }
+
+    @Test
+    public void many_nodes_are_written_in_batches() {
+        NodeFlavors flavors = FlavorConfigBuilder.createDummies("default");
+        Flavor flavor = flavors.getFlavorOrThrow("default");
+        CuratorDatabaseClient client = new CuratorDatabaseClient(flavors, new MockCurator(), Clock.systemUTC(), Zone.defaultZone());
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < CuratorDatabaseClient.maxNodesPerBatch * 2 + 1; i++)
+            nodes.add(Node.create("id" + i, Collections.singleton("::" + i), Collections.emptySet(), "host" + i,
+                                  Optional.empty(), flavor, NodeType.tenant));
+        client.addNodes(nodes);
+        int batches = 3; // of 2 * maxNodesPerBatch + 1 nodes, each transaction incrementing the generation once
+
+        long generation = client.getNodeIndex().generation();
+        List<Node> dirty = client.writeTo(Node.State.dirty, client.getNodes(Node.State.provisioned), Agent.system, Optional.empty());
+        assertEquals(nodes.size(), dirty.size());
+        assertEquals(0, client.getNodes(Node.State.provisioned).size());
+        assertEquals(nodes.size(), client.getNodes(Node.State.dirty).size());
+        assertEquals(generation + batches, client.getNodeIndex().generation());
+
+        // Writing to the same state
+        generation = client.getNodeIndex().generation();
+        List<Node> retired = dirty.stream().map(node -> node.with(node.status().withWantToRetire(true))).collect(Collectors.toList());
+        client.writeTo(retired, Agent.system, Optional.empty());
+        assertEquals(nodes.size(), client.getNodes(Node.State.dirty).size());
+        assertTrue(client.getNodes(Node.State.dirty).stream().allMatch(node -> node.status().wantToRetire()));
+        assertEquals(generation + batches, client.getNodeIndex().generation());
+
+        generation = client.getNodeIndex().generation();
+        client.removeNodes(client.getNodes(Node.State.dirty));
+        assertEquals(0, client.getNodes().size());
+        assertEquals(generation + batches, client.getNodeIndex().generation());
+    }
+
+    private static List<String> hostnames(List<Node> nodes) {
+        return nodes.stream().map(Node::hostname).collect(Collectors.toList());
+    }
+
     @Test
     public void locks_can_be_acquired_and_released() {
         ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
@@ -22,6 +22,10 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -213,6 +217,46 @@ public class RestApiTest {
         assertFile(new Request("http://localhost:8080/nodes/v2/node/host4.yahoo.com"), "node4-after-changes.json");
     }
 
+    @Test
+    public void test_node_changes() throws Exception {
+        String changesUrl = "http://localhost:8080/nodes/v2/changes/?parentHost=parent1.yahoo.com";
+        Slime initial = SlimeUtils.jsonToSlime(Utf8.toBytes(container.handleRequest(new Request(changesUrl)).getBodyAsString()));
+        assertEquals(2, initial.get().field("nodes").entries());
+        assertEquals(2, initial.get().field("hostnames").entries());
+        long generation = initial.get().field("generation").asLong();
+
+        assertResponse(new Request("http://localhost:8080/nodes/v2/node/host5.yahoo.com",
+                                   Utf8.toBytes("{\"wantToRetire\": true}"), Request.Method.PATCH),
+                       "{\"message\":\"Updated host5.yahoo.com\"}");
+
+        Slime changes = SlimeUtils.jsonToSlime(Utf8.toBytes(container.handleRequest(new Request(changesUrl + "&since=" + generation + "&wait=10"))
+                                                                     .getBodyAsString()));
+        assertEquals(1, changes.get().field("nodes").entries());
+        assertEquals("host5.yahoo.com", changes.get().field("nodes").entry(0).field("hostname").asString());
+        assertEquals(2, changes.get().field("hostnames").entries());
+        assertEquals(0, changes.get().field("removed").entries());
+        assertTrue(changes.get().field("generation").asLong() > generation);
+
+        long newGeneration = changes.get().field("generation").asLong();
+        assertResponseContains(new Request(changesUrl + "&since=" + newGeneration),
+                               "{\"generation\":" + newGeneration + ",\"nodes\":[],\"removed\":[],");
+
+        // A waiting request is answered as soon as a matching node changes
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> waiting = executor.submit(() -> container.handleRequest(new Request(changesUrl + "&since=" + newGeneration + "&wait=60"))
+                                                                .getBodyAsString());
+        assertResponse(new Request("http://localhost:8080/nodes/v2/node/host5.yahoo.com",
+                                   Utf8.toBytes("{\"wantToRetire\": false}"), Request.Method.PATCH),
+                       "{\"message\":\"Updated host5.yahoo.com\"}");
+        Slime waited = SlimeUtils.jsonToSlime(Utf8.toBytes(waiting.get(30, TimeUnit.SECONDS)));
+        executor.shutdown();
+        assertEquals(1, waited.get().field("nodes").entries());
+        assertEquals("host5.yahoo.com", waited.get().field("nodes").entry(0).field("hostname").asString());
+
+        assertResponse(new Request(changesUrl + "&since=foo"), 400,
+                       "{\"error-code\":\"BAD_REQUEST\",\"message\":\"Expected an integer value of 'since' but got 'foo'\"}");
+    }
+
     @Test
     public void post_with_patch_method_override_in_header_is_handled_as_patch() throws Exception  {
         Request req = new Request("http://localhost:8080/nodes/v2/node/host4.yahoo.com",
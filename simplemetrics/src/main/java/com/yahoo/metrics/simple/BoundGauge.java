@@ -0,0 +1,34 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A gauge bound to a single point. The metric name, point and histogram
+ * settings are resolved once when binding, and recording a sample neither
+ * allocates nor locks. Create a bound gauge with {@link Gauge#bind()} or
+ * {@link Gauge#bind(Point)}, and keep it for the life cycle of the component
+ * using it.
+ *
+ * @author agent
+ */
+@Beta
+public class BoundGauge {
+
+    private final StripedValue value;
+
+    BoundGauge(StripedValue value) {
+        this.value = value;
+    }
+
+    /**
+     * Record a sample.
+     *
+     * @param x
+     *            sample value
+     */
+    public void sample(double x) {
+        value.sample(x);
+    }
+
+}
@@ -0,0 +1,44 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
+
+/**
+ * The values of all bound metric handles created from a receiver. Handles
+ * bound to the same metric and point share values. Values are never removed,
+ * as handles are meant to be bound once, for a limited set of points.
+ *
+ * @author agent
+ */
+final class BoundMetrics {
+
+    private final ConcurrentMap<Identifier, StripedValue> values = new ConcurrentHashMap<>();
+
+    StripedValue bind(Identifier id, AssumedType type, MetricSettings settings) {
+        StripedValue value = values.computeIfAbsent(id, k -> new StripedValue(k, type, settings));
+        if (value.type() != type) {
+            throw new IllegalArgumentException("Metric " + id.getName() + " at " + id.getLocation()
+                                               + " is already bound as " + value.type() + ", not " + type + ".");
+        }
+        return value;
+    }
+
+    /**
+     * Collect the values recorded by all bound handles since the last
+     * invocation. Must only be invoked from a single thread at a time.
+     */
+    Bucket harvest() {
+        Bucket harvested = new Bucket();
+        for (StripedValue value : values.values()) {
+            UntypedMetric metric = value.harvest();
+            if (metric != null) {
+                harvested.put(value.identifier(), metric);
+            }
+        }
+        return harvested;
+    }
+
+}
@@ -60,6 +60,29 @@ public class Counter {
         metricReceiver.update(new Sample(new Measurement(Long.valueOf(n)), new Identifier(name, p), AssumedType.COUNTER));
     }
 
+    /**
+     * Bind this counter to the dimension-less/zero-point, or the default
+     * position given when this counter was declared.
+     *
+     * @return a counter which may be updated without allocating
+     */
+    public BoundCounter bind() {
+        return bind(defaultPosition);
+    }
+
+    /**
+     * Bind this counter to the given point. Updating the returned counter is
+     * considerably cheaper than {@link #add(long, Point)}, as the point is
+     * only resolved once.
+     *
+     * @param p
+     *            the point in the metric space to bind to
+     * @return a counter which may be updated without allocating
+     */
+    public BoundCounter bind(Point p) {
+        return new BoundCounter(metricReceiver.bind(name, p, AssumedType.COUNTER));
+    }
+
     /**
      * Create a PointBuilder with default dimension values as given when this
      * counter was declared.
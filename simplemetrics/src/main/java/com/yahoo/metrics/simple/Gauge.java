@@ -48,6 +48,29 @@ public class Gauge {
         receiver.update(new Sample(new Measurement(Double.valueOf(x)), new Identifier(name, p), AssumedType.GAUGE));
     }
 
+    /**
+     * Bind this gauge to the default position given when it was declared, or
+     * no position.
+     *
+     * @return a gauge which may be sampled without allocating
+     */
+    public BoundGauge bind() {
+        return bind(defaultPosition);
+    }
+
+    /**
+     * Bind this gauge to the given position. Sampling the returned gauge is
+     * considerably cheaper than {@link #sample(double, Point)}, as the
+     * position is only resolved once.
+     *
+     * @param p
+     *            position/dimension values to bind to
+     * @return a gauge which may be sampled without allocating
+     */
+    public BoundGauge bind(Point p) {
+        return new BoundGauge(receiver.bind(name, p, AssumedType.GAUGE));
+    }
+
     /**
      * Create a PointBuilder with the default dimension values reflecting those
      * given when this gauge was declared.
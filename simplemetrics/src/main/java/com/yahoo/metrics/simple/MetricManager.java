@@ -42,8 +42,9 @@ public class MetricManager extends AbstractComponent implements Provider<MetricR
         // bucket has data for exactly one second, but one should strive for
         // this.buffer to contain data for as close a period to the report
         // interval as possible
-        executor.scheduleAtFixedRate(new MetricAggregator(metricsCollection, currentSnapshot, settings), 1, 1, TimeUnit.SECONDS);
-        receiver = new MetricReceiver(metricsCollection, currentSnapshot);
+        final BoundMetrics boundMetrics = new BoundMetrics();
+        executor.scheduleAtFixedRate(new MetricAggregator(metricsCollection, boundMetrics, currentSnapshot, settings), 1, 1, TimeUnit.SECONDS);
+        receiver = new MetricReceiver(metricsCollection, boundMetrics, currentSnapshot);
     }
 
     static MetricManager constructWithCustomUpdater(ManagerConfig settings, Updater<Bucket, Sample> updater) {
@@ -9,6 +9,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.concurrent.ThreadLocalDirectory;
+import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
 
 /**
  * The reception point for measurements. This is the class users should inject
@@ -22,6 +23,7 @@ public class MetricReceiver {
 
     public static final MetricReceiver nullImplementation = new NullReceiver();
     private final ThreadLocalDirectory<Bucket, Sample> metricsCollection;
+    private final BoundMetrics boundMetrics;
     private final AtomicReference<Bucket> currentSnapshot;
 
     // metricSettings is volatile for reading, the lock is for updates
@@ -49,12 +51,31 @@ public class MetricReceiver {
         public void add(long n, Point p) {
         }
 
+        @Override
+        public BoundCounter bind(Point p) {
+            return new NullBoundCounter();
+        }
+
         @Override
         public PointBuilder builder() {
             return super.builder();
         }
     }
 
+    private static final class NullBoundCounter extends BoundCounter {
+        NullBoundCounter() {
+            super(null);
+        }
+
+        @Override
+        public void add() {
+        }
+
+        @Override
+        public void add(long n) {
+        }
+    }
+
     private static final class NullGauge extends Gauge {
         NullGauge() {
             super(null, null, null);
@@ -68,20 +89,37 @@ public class MetricReceiver {
         public void sample(double x, Point p) {
         }
 
+        @Override
+        public BoundGauge bind(Point p) {
+            return new NullBoundGauge();
+        }
+
         @Override
         public PointBuilder builder() {
             return super.builder();
         }
     }
 
+    private static final class NullBoundGauge extends BoundGauge {
+        NullBoundGauge() {
+            super(null);
+        }
+
+        @Override
+        public void sample(double x) {
+        }
+    }
+
     public static final class MockReceiver extends MetricReceiver {
         private final ThreadLocalDirectory<Bucket, Sample> collection;
-        private MockReceiver(ThreadLocalDirectory<Bucket, Sample> collection) {
-            super(collection, null);
+        private final BoundMetrics boundMetrics;
+        private MockReceiver(ThreadLocalDirectory<Bucket, Sample> collection, BoundMetrics boundMetrics) {
+            super(collection, boundMetrics, null);
             this.collection = collection;
+            this.boundMetrics = boundMetrics;
         }
         public MockReceiver() {
-            this(new ThreadLocalDirectory<>(new MetricUpdater()));
+            this(new ThreadLocalDirectory<>(new MetricUpdater()), new BoundMetrics());
         }
         /** gathers all data since last snapshot */
         public Bucket getSnapshot() {
@@ -89,6 +127,7 @@ public class MetricReceiver {
             for (Bucket b : collection.fetch()) {
                 merged.merge(b, true);
             }
+            merged.merge(boundMetrics.harvest(), true);
             return merged;
         }
         /** utility method for testing */
@@ -99,7 +138,7 @@ public class MetricReceiver {
 
     private static final class NullReceiver extends MetricReceiver {
         NullReceiver() {
-            super(null, null);
+            super(null, null, null);
         }
 
         @Override
@@ -152,7 +191,13 @@ public class MetricReceiver {
     }
 
     public MetricReceiver(ThreadLocalDirectory<Bucket, Sample> metricsCollection, AtomicReference<Bucket> currentSnapshot) {
+        this(metricsCollection, new BoundMetrics(), currentSnapshot);
+    }
+
+    MetricReceiver(ThreadLocalDirectory<Bucket, Sample> metricsCollection, BoundMetrics boundMetrics,
+                   AtomicReference<Bucket> currentSnapshot) {
         this.metricsCollection = metricsCollection;
+        this.boundMetrics = boundMetrics;
         this.currentSnapshot = currentSnapshot;
         metricSettings = new ImmutableMap.Builder<String, MetricSettings>().build();
     }
@@ -258,6 +303,24 @@ public class MetricReceiver {
         return new Gauge(name, defaultDimensions, this);
     }
 
+    /**
+     * Resolve the values a bound metric handle records into. Histogram
+     * settings are read once, when binding, so declare any custom settings
+     * before binding a gauge.
+     *
+     * @param name
+     *            the name of the metric
+     * @param p
+     *            the point the handle is bound to, or null
+     * @param type
+     *            whether this is a counter or a gauge
+     * @return the values shared by all handles bound to this metric and point
+     */
+    StripedValue bind(String name, Point p, AssumedType type) {
+        Identifier id = new Identifier(name, p);
+        return boundMetrics.bind(id, type, getMetricDefinition(id.getName()));
+    }
+
     /**
      * Create a PointBuilder instance with no default settings. PointBuilder
      * instances are not thread-safe.
@@ -0,0 +1,150 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.HdrHistogram.DoubleHistogram;
+import org.HdrHistogram.DoubleRecorder;
+
+import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
+
+/**
+ * The values recorded through a bound metric handle, i.e. a metric at a
+ * single, already resolved, point. Values are accumulated in primitive cells,
+ * striped by thread, using only atomic operations, so recording does neither
+ * lock nor allocate. Histograms are recorded in an HdrHistogram recorder, which
+ * is wait free for writers.
+ *
+ * <p>
+ * The cells of a single sample are not updated atomically as a group, so a
+ * sample recorded concurrently with {@link #harvest()} may be split between two
+ * consecutive harvests. This is of no consequence for the aggregated values.
+ * </p>
+ *
+ * @author agent
+ */
+final class StripedValue {
+
+    // one cache line for each stripe, to avoid false sharing between threads
+    private static final int stride = 8;
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+    private static final int LAST = 4;
+
+    private static final int stripes = stripeCount(Runtime.getRuntime().availableProcessors());
+    private static final long positiveInfinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+    private static final long negativeInfinity = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+    private static final long zero = Double.doubleToRawLongBits(0.0d);
+
+    private final Identifier identifier;
+    private final AssumedType type;
+    private final MetricSettings settings;
+    private final AtomicLongArray cells = new AtomicLongArray(stripes * stride);
+    private final DoubleRecorder histogram;
+
+    /** Only accessed by the harvesting thread */
+    private DoubleHistogram recycledHistogram = null;
+
+    StripedValue(Identifier identifier, AssumedType type, MetricSettings settings) {
+        this.identifier = identifier;
+        this.type = type;
+        this.settings = settings;
+        if (type == AssumedType.GAUGE && settings != null && settings.isHistogram()) {
+            histogram = new DoubleRecorder(settings.getSignificantdigits());
+        } else {
+            histogram = null;
+        }
+        for (int stripe = 0; stripe < stripes * stride; stripe += stride) {
+            cells.set(stripe + MIN, positiveInfinity);
+            cells.set(stripe + MAX, negativeInfinity);
+        }
+    }
+
+    Identifier identifier() { return identifier; }
+
+    AssumedType type() { return type; }
+
+    void add(long n) {
+        cells.getAndAdd(stripe() + COUNT, n);
+    }
+
+    void sample(double x) {
+        int stripe = stripe();
+        if (histogram != null) {
+            histogram.recordValue(x);
+        }
+        cells.set(stripe + LAST, Double.doubleToRawLongBits(x));
+        long sum;
+        do {
+            sum = cells.get(stripe + SUM);
+        } while ( ! cells.compareAndSet(stripe + SUM, sum, Double.doubleToRawLongBits(Double.longBitsToDouble(sum) + x)));
+        long min;
+        do {
+            min = cells.get(stripe + MIN);
+        } while (x < Double.longBitsToDouble(min) && ! cells.compareAndSet(stripe + MIN, min, Double.doubleToRawLongBits(x)));
+        long max;
+        do {
+            max = cells.get(stripe + MAX);
+        } while (x > Double.longBitsToDouble(max) && ! cells.compareAndSet(stripe + MAX, max, Double.doubleToRawLongBits(x)));
+        // count last, the harvester uses it to decide whether a stripe has data
+        cells.getAndIncrement(stripe + COUNT);
+    }
+
+    /**
+     * Collect and reset the values recorded since the last invocation. Must
+     * only be invoked from a single thread at a time.
+     *
+     * @return the recorded values, or null if nothing was recorded
+     */
+    UntypedMetric harvest() {
+        long count = 0L;
+        double sum = 0.0d;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double last = 0.0d;
+        for (int stripe = 0; stripe < stripes * stride; stripe += stride) {
+            long n = cells.getAndSet(stripe + COUNT, 0L);
+            if (n == 0L) {
+                continue;
+            }
+            count += n;
+            if (type == AssumedType.GAUGE) {
+                sum += Double.longBitsToDouble(cells.getAndSet(stripe + SUM, zero));
+                min = Math.min(min, Double.longBitsToDouble(cells.getAndSet(stripe + MIN, positiveInfinity)));
+                max = Math.max(max, Double.longBitsToDouble(cells.getAndSet(stripe + MAX, negativeInfinity)));
+                last = Double.longBitsToDouble(cells.get(stripe + LAST));
+            }
+        }
+        if (count == 0L) {
+            return null;
+        }
+        if (min > max) {
+            // only the counts of samples racing with the previous harvest
+            min = last;
+            max = last;
+        }
+        UntypedMetric metric = new UntypedMetric(settings);
+        if (type == AssumedType.COUNTER) {
+            metric.add(count);
+        } else {
+            metric.put(count, sum, min, max, last);
+            if (histogram != null && metric.getHistogram() != null) {
+                recycledHistogram = histogram.getIntervalHistogram(recycledHistogram);
+                metric.getHistogram().add(recycledHistogram);
+            }
+        }
+        return metric;
+    }
+
+    private static int stripe() {
+        return ((int) Thread.currentThread().getId() & (stripes - 1)) * stride;
+    }
+
+    static int stripeCount(int processors) {
+        int wanted = Math.min(Math.max(2 * processors, 2), 64);
+        return Integer.highestOneBit(wanted - 1) << 1;
+    }
+
+}
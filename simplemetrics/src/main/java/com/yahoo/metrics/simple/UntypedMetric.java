@@ -60,6 +60,25 @@ public class UntypedMetric {
         ++count;
     }
 
+    /**
+     * Add a set of already aggregated gauge samples, i.e. the values harvested
+     * from a bound gauge. The histogram, if any, is not touched.
+     */
+    void put(long samples, double sampleSum, double sampleMin, double sampleMax, double last) {
+        outputFormat = AssumedType.GAUGE;
+        current = last;
+        if (count > 0) {
+            max = Math.max(sampleMax, max);
+            min = Math.min(sampleMin, min);
+            sum += sampleSum;
+        } else {
+            max = sampleMax;
+            min = sampleMin;
+            sum = sampleSum;
+        }
+        count += samples;
+    }
+
     UntypedMetric pruneData() {
         UntypedMetric pruned = new UntypedMetric(null);
         pruned.outputFormat = this.outputFormat;
@@ -16,6 +16,15 @@
  * </p>
  *
  * <p>
+ * Metrics updated for every request should be bound to their points up front,
+ * using {@link com.yahoo.metrics.simple.Counter#bind(Point)} or
+ * {@link com.yahoo.metrics.simple.Gauge#bind(Point)}. The resulting
+ * {@link com.yahoo.metrics.simple.BoundCounter} and
+ * {@link com.yahoo.metrics.simple.BoundGauge} record into striped primitive
+ * cells without allocating, and are merged by the aggregator.
+ * </p>
+ *
+ * <p>
  * Clients input data through the API in {@link com.yahoo.metrics.simple.MetricReceiver},
  * while the internal work is done by {@link com.yahoo.metrics.simple.MetricAggregator}.
  * Initialization is done top-down from {@link com.yahoo.metrics.simple.MetricManager}.
@@ -0,0 +1,76 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A benchmark of the per call cost of updating metrics from several threads,
+ * through the sample based API and through bound handles. Reports updates per
+ * second and bytes allocated per update.
+ *
+ * @author agent
+ */
+public class BoundMetricsBenchmark {
+
+    private static final int threadCount = 4;
+
+    private final MetricReceiver.MockReceiver receiver = new MetricReceiver.MockReceiver();
+    private final Point point = receiver.pointBuilder().set("chain", "default").set("handler", "search").build();
+
+    public void benchmark(int repetitions) throws InterruptedException {
+        Counter counter = receiver.declareCounter("queries", point);
+        Gauge gauge = receiver.declareGauge("latency", point);
+        BoundCounter boundCounter = counter.bind();
+        BoundGauge boundGauge = gauge.bind();
+
+        System.out.println("Metric updates from " + threadCount + " threads");
+        System.out.println("  warming up");
+        run("sample based", repetitions / 10, () -> { counter.add(point); gauge.sample(1.5d, point); });
+        run("bound handles", repetitions / 10, () -> { boundCounter.add(); boundGauge.sample(1.5d); });
+
+        run("sample based", repetitions, () -> { counter.add(point); gauge.sample(1.5d, point); });
+        run("bound handles", repetitions, () -> { boundCounter.add(); boundGauge.sample(1.5d); });
+    }
+
+    private void run(String name, int repetitions, Runnable update) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        long[] allocated = new long[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                long before = allocatedBytes();
+                for (int i = 0; i < repetitions; i++)
+                    update.run();
+                allocated[thread] = allocatedBytes() - before;
+            }));
+        }
+        long startTime = System.nanoTime();
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        long nanos = System.nanoTime() - startTime;
+
+        Bucket snapshot = receiver.getSnapshot();
+        long updates = (long) repetitions * threadCount;
+        long totalAllocated = 0;
+        for (long bytes : allocated)
+            totalAllocated += bytes;
+        System.out.println("  " + name + ": " + (updates * 1000_000_000L / nanos) + " updates per second, " +
+                           (totalAllocated / updates) + " bytes allocated per update" +
+                           " (counted " + snapshot.getMapForMetric("queries").get(point).getCount() + ")");
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( ! (bean instanceof com.sun.management.ThreadMXBean)) return 0;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new BoundMetricsBenchmark().benchmark(1000 * 1000);
+    }
+
+}
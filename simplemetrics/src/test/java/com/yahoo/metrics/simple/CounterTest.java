@@ -108,4 +108,34 @@ public class CounterTest {
         assertEquals(twoToThePowerOfFourtyeight, x.get(0).getValue().getCount());
     }
 
+    @Test
+    public final void testBoundCounter() {
+        final String metricName = "unitTestCounter";
+        Point p = receiver.pointBuilder().set("x", 2L).build();
+        Counter c = receiver.declareCounter(metricName, p);
+        BoundCounter bound = c.bind();
+        bound.add();
+        bound.add(5L);
+        c.bind(p).add();
+        c.add(p);
+        Bucket b = receiver.getSnapshot();
+        final Map<String, List<Entry<Point, UntypedMetric>>> valuesByMetricName = b.getValuesByMetricName();
+        assertEquals(1, valuesByMetricName.size());
+        List<Entry<Point, UntypedMetric>> x = valuesByMetricName.get(metricName);
+        assertEquals(1, x.size());
+        assertEquals(p, x.get(0).getKey());
+        assertTrue(x.get(0).getValue().isCounter());
+        assertEquals(8L, x.get(0).getValue().getCount());
+
+        bound.add();
+        b = receiver.getSnapshot();
+        assertEquals(1L, b.getMapForMetric(metricName).get(p).getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testBindingCounterAndGaugeToSamePointFails() {
+        receiver.declareCounter("unitTestMetric").bind();
+        receiver.declareGauge("unitTestMetric").bind();
+    }
+
 }
@@ -8,6 +8,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
@@ -80,4 +81,26 @@ public class GaugeTest {
         assertEquals(Math.E, x.get(0).getValue().getLast(), 1e-15);
     }
 
+    @Test
+    public final void testBoundGauge() throws InterruptedException {
+        final String metricName = "unitTestGauge";
+        Point p = receiver.pointBuilder().set("x", 2L).build();
+        BoundGauge g = receiver.declareGauge(metricName, Optional.of(p), new MetricSettings.Builder().histogram(true).build()).bind();
+        Thread other = new Thread(() -> g.sample(7.0d));
+        other.start();
+        other.join();
+        g.sample(1.0d);
+        g.sample(3.0d);
+        Bucket b = receiver.getSnapshot();
+        UntypedMetric value = b.getMapForMetric(metricName).get(p);
+        assertFalse(value.isCounter());
+        assertEquals(3L, value.getCount());
+        assertEquals(11.0d, value.getSum(), 0.0d);
+        assertEquals(7.0d, value.getMax(), 0.0d);
+        assertEquals(3L, value.getHistogram().getTotalCount());
+
+        b = receiver.getSnapshot();
+        assertNull(b.getMapForMetric(metricName).get(p));
+    }
+
 }
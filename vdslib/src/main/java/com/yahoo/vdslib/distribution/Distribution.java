@@ -9,6 +9,7 @@ import com.yahoo.vdslib.state.*;
 import com.yahoo.document.BucketId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.text.ParseException;
 
 public class Distribution {
@@ -19,6 +20,11 @@ public class Distribution {
     private boolean distributorAutoOwnershipTransferOnWholeGroupDown = false;
     private ConfigSubscriber configSub;
 
+    /** Incremented on each config change, to invalidate ideal node caches */
+    private volatile long configGeneration = 0;
+    /** The current ideal node cache for each set of up states */
+    private final Map<String, IdealNodeCache> idealNodeCaches = new ConcurrentHashMap<>();
+
     public Group getRootGroup() {
         return nodeGraph;
     }
@@ -83,6 +89,8 @@ public class Distribution {
                 Distribution.this.redundancy = config.redundancy();
                 //Distribution.this.diskDistribution = config.disk_distribution();
                 distributorAutoOwnershipTransferOnWholeGroupDown = config.distributor_auto_ownership_transfer_on_whole_group_down();
+                configGeneration++;
+                idealNodeCaches.clear();
             } catch (ParseException e) {
                 throw (IllegalStateException) new IllegalStateException("Failed to parse config").initCause(e);
             }
@@ -119,13 +127,27 @@ public class Distribution {
         if (configSub!=null) configSub.close();
     }
 
+    /**
+     * Returns a cache of the ideal nodes of buckets in the given cluster state, when nodes must be in one
+     * of the given up states. The same cache is returned until the distribution config changes, or this is
+     * called with another cluster state instance or version for the same up states.
+     */
+    public IdealNodeCache getIdealNodeCache(ClusterState clusterState, String upStates) {
+        long generation = configGeneration;
+        return idealNodeCaches.compute(upStates, (key, cache) ->
+                (cache != null && cache.isFor(generation, clusterState, upStates))
+                ? cache
+                : new IdealNodeCache(this, generation, clusterState, upStates, IdealNodeCache.defaultMaxBuckets));
+    }
+
     private int getGroupSeed(BucketId bucket, ClusterState state, Group group) {
         int seed = ((int) bucket.getRawId()) & distributionBitMasks[state.getDistributionBitCount()];
         seed ^= group.getDistributionHash();
         return seed;
     }
 
-    private int getDistributorSeed(BucketId bucket, ClusterState state) {
+    /** Returns the distribution bits of the given bucket, which are all that determines its ideal distributor */
+    int getDistributorSeed(BucketId bucket, ClusterState state) {
         return ((int) bucket.getRawId()) & distributionBitMasks[state.getDistributionBitCount()];
     }
 
@@ -311,14 +333,7 @@ public class Distribution {
                                               String upStates) throws TooFewBucketBitsInUseException {
         List<Integer> resultNodes = new ArrayList<>();
 
-        // If bucket is split less than distribution bit, we cannot distribute
-        // it. Different nodes own various parts of the bucket.
-        if (bucket.getUsedBits() < clusterState.getDistributionBitCount()) {
-            String msg = "Cannot get ideal state for bucket " + bucket + " using "
-                    + bucket.getUsedBits() + " bits when cluster uses "
-                    + clusterState.getDistributionBitCount() + " distribution bits.";
-            throw new TooFewBucketBitsInUseException(msg);
-        }
+        verifyBucketBits(clusterState, bucket);
 
         // Find what hierarchical groups we should have copies in
         List<ResultGroup> groupDistribution = new ArrayList<>();
@@ -394,6 +409,19 @@ public class Distribution {
         return resultNodes;
     }
 
+    /**
+     * If bucket is split less than distribution bit, we cannot distribute
+     * it. Different nodes own various parts of the bucket.
+     */
+    void verifyBucketBits(ClusterState clusterState, BucketId bucket) throws TooFewBucketBitsInUseException {
+        if (bucket.getUsedBits() < clusterState.getDistributionBitCount()) {
+            String msg = "Cannot get ideal state for bucket " + bucket + " using "
+                    + bucket.getUsedBits() + " bits when cluster uses "
+                    + clusterState.getDistributionBitCount() + " distribution bits.";
+            throw new TooFewBucketBitsInUseException(msg);
+        }
+    }
+
     public static class TooFewBucketBitsInUseException extends Exception {
         public TooFewBucketBitsInUseException(String message) {
             super(message);
@@ -0,0 +1,126 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vdslib.distribution;
+
+import com.yahoo.document.BucketId;
+import com.yahoo.vdslib.state.ClusterState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * A cache of the ideal storage and distributor nodes of buckets, for one distribution config and one
+ * cluster state version. Instances are obtained from {@link Distribution#getIdealNodeCache}, which returns
+ * a new cache whenever the distribution config or the cluster state changes.
+ * The cluster state must not be modified while a cache for it is in use.
+ * <p>
+ * Ideal distributors are cached by the distribution bits of buckets, which are all that determines the
+ * ideal distributor, such that the number of distributor entries is bounded by the number of distribution
+ * bit values, and all the buckets of documents routed to a distributor share the same entry.
+ * Ideal storage nodes depend on all the used bits of buckets, and are cached by the full bucket id.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+public class IdealNodeCache {
+
+    /** The default max number of buckets to cache ideal nodes for, per node type */
+    public static final int defaultMaxBuckets = 1 << 20;
+
+    private final Distribution distribution;
+    private final long configGeneration;
+    private final ClusterState state;
+    private final int stateVersion;
+    private final String upStates;
+    private final int maxBuckets;
+
+    private final Map<Long, List<Integer>> storageNodes = new ConcurrentHashMap<>();
+    /** Ideal distributors by the distribution bits of buckets */
+    private final Map<Integer, Integer> distributorNodes = new ConcurrentHashMap<>();
+
+    IdealNodeCache(Distribution distribution, long configGeneration, ClusterState state, String upStates, int maxBuckets) {
+        this.distribution = distribution;
+        this.configGeneration = configGeneration;
+        this.state = state;
+        this.stateVersion = state.getVersion();
+        this.upStates = upStates;
+        this.maxBuckets = maxBuckets;
+    }
+
+    /** Returns whether this caches the ideal nodes for the given config generation, cluster state and up states */
+    boolean isFor(long configGeneration, ClusterState state, String upStates) {
+        return this.configGeneration == configGeneration
+               && this.state == state
+               && this.stateVersion == state.getVersion()
+               && this.upStates.equals(upStates);
+    }
+
+    public ClusterState getClusterState() { return state; }
+
+    /** Returns the ideal storage nodes of the given bucket, see {@link Distribution#getIdealStorageNodes} */
+    public List<Integer> getIdealStorageNodes(BucketId bucket) throws Distribution.TooFewBucketBitsInUseException {
+        List<Integer> nodes = storageNodes.get(bucket.getRawId());
+        if (nodes != null) return nodes;
+
+        nodes = Collections.unmodifiableList(distribution.getIdealStorageNodes(state, bucket, upStates));
+        if (storageNodes.size() < maxBuckets)
+            storageNodes.put(bucket.getRawId(), nodes);
+        return nodes;
+    }
+
+    /** Returns the ideal distributor node of the given bucket, see {@link Distribution#getIdealDistributorNode} */
+    public int getIdealDistributorNode(BucketId bucket) throws Distribution.TooFewBucketBitsInUseException,
+                                                               Distribution.NoDistributorsAvailableException {
+        distribution.verifyBucketBits(state, bucket);
+        int distributionBits = distribution.getDistributorSeed(bucket, state);
+        Integer node = distributorNodes.get(distributionBits);
+        if (node != null) return node;
+
+        node = distribution.getIdealDistributorNode(state, bucket, upStates);
+        if (distributorNodes.size() < maxBuckets)
+            distributorNodes.put(distributionBits, node);
+        return node;
+    }
+
+    /**
+     * Returns the ideal storage nodes of all the given buckets, in the order of the given buckets.
+     * Nodes which are not already cached are computed in parallel, and cached.
+     *
+     * @throws Distribution.TooFewBucketBitsInUseException if any of the buckets use too few bits, before computing any nodes
+     */
+    public Map<BucketId, List<Integer>> getIdealStorageNodes(Collection<BucketId> buckets)
+            throws Distribution.TooFewBucketBitsInUseException {
+        List<BucketId> bucketList = new ArrayList<>(buckets);
+        for (BucketId bucket : bucketList)
+            distribution.verifyBucketBits(state, bucket);
+
+        @SuppressWarnings("unchecked")
+        List<Integer>[] results = new List[bucketList.size()];
+        IntStream.range(0, results.length).parallel().forEach(i -> results[i] = getVerifiedIdealStorageNodes(bucketList.get(i)));
+
+        Map<BucketId, List<Integer>> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++)
+            nodes.put(bucketList.get(i), results[i]);
+        return nodes;
+    }
+
+    private List<Integer> getVerifiedIdealStorageNodes(BucketId bucket) {
+        try {
+            return getIdealStorageNodes(bucket);
+        } catch (Distribution.TooFewBucketBitsInUseException e) {
+            throw new IllegalStateException("Bucket bits were verified", e);
+        }
+    }
+
+    /** Returns the number of cached storage node entries plus the number of cached distributor entries */
+    public int size() {
+        return storageNodes.size() + distributorNodes.size();
+    }
+
+}
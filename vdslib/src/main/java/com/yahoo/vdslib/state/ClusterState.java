@@ -16,8 +16,9 @@ public class ClusterState implements Cloneable {
 
     private int version = 0;
     private State state = State.DOWN;
-    // nodeStates maps each of the non-up nodes that have an index <= the node count for its type.
-    private Map<Node, NodeState> nodeStates = new TreeMap<>();
+    // nodeStates holds the state of each of the non-up nodes that have an index <= the node count for its type,
+    // indexed by node type ordinal and node index. Nodes without a state, or beyond the end of an array, are up.
+    private NodeState[][] nodeStates = new NodeState[][] { new NodeState[0], new NodeState[0] };
 
     // TODO: Change to one count for distributor and one for storage, rather than an array
     // TODO: RenameFunction, this is not the highest node count but the highest index
@@ -52,9 +53,14 @@ public class ClusterState implements Cloneable {
     public ClusterState clone() {
         try{
             ClusterState state = (ClusterState) super.clone();
-            state.nodeStates = new TreeMap<>();
-            for (Map.Entry<Node, NodeState> entry : nodeStates.entrySet()) {
-                state.nodeStates.put(entry.getKey(), entry.getValue().clone());
+            state.nodeStates = new NodeState[nodeStates.length][];
+            for (int type = 0; type < nodeStates.length; type++) {
+                state.nodeStates[type] = new NodeState[nodeStates[type].length];
+                for (int index = 0; index < nodeStates[type].length; index++) {
+                    if (nodeStates[type][index] != null) {
+                        state.nodeStates[type][index] = nodeStates[type][index].clone();
+                    }
+                }
             }
             state.nodeCount = new ArrayList<>(2);
             state.nodeCount.add(nodeCount.get(0));
@@ -73,17 +79,34 @@ public class ClusterState implements Cloneable {
         if (version != other.version
             || !state.equals(other.state)
             || distributionBits != other.distributionBits
-            || !nodeCount.equals(other.nodeCount)
-            || !nodeStates.equals(other.nodeStates))
+            || !nodeCount.equals(other.nodeCount))
         {
             return false;
         }
+        for (NodeType type : NodeType.values()) {
+            for (int index = 0, n = Math.max(nodeStates[type.ordinal()].length, other.nodeStates[type.ordinal()].length); index < n; index++) {
+                NodeState lhs = getStoredNodeState(type, index);
+                NodeState rhs = other.getStoredNodeState(type, index);
+                if (lhs == null ? rhs != null : !lhs.equals(rhs)) {
+                    return false;
+                }
+            }
+        }
         return true;
     }
 
     @Override
     public int hashCode() {
-        return java.util.Objects.hash(version, state, distributionBits, nodeCount, nodeStates);
+        int nodeStatesHash = 0;
+        for (NodeType type : NodeType.values()) {
+            for (int index = 0; index < nodeStates[type.ordinal()].length; index++) {
+                NodeState nodeState = nodeStates[type.ordinal()][index];
+                if (nodeState != null) {
+                    nodeStatesHash += new Node(type, index).hashCode() ^ nodeState.hashCode();
+                }
+            }
+        }
+        return java.util.Objects.hash(version, state, distributionBits, nodeCount, nodeStatesHash);
     }
 
     @FunctionalInterface
@@ -113,22 +136,19 @@ public class ClusterState implements Cloneable {
             return false;
         }
         // TODO verify behavior of C++ impl against this
-        for (Node node : unionNodeSetWith(other.nodeStates.keySet())) {
-            final NodeState lhs = nodeStates.get(node);
-            final NodeState rhs = other.nodeStates.get(node);
-            if (!nodeStateCmp.similar(node.getType(), lhs, rhs)) {
-                return false;
+        for (NodeType type : NodeType.values()) {
+            for (int index = 0, n = Math.max(nodeStates[type.ordinal()].length, other.nodeStates[type.ordinal()].length); index < n; index++) {
+                final NodeState lhs = getStoredNodeState(type, index);
+                final NodeState rhs = other.getStoredNodeState(type, index);
+                if (lhs == null && rhs == null) continue;
+                if (!nodeStateCmp.similar(type, lhs, rhs)) {
+                    return false;
+                }
             }
         }
         return true;
     }
 
-    private Set<Node> unionNodeSetWith(final Set<Node> otherNodes) {
-        final Set<Node> unionNodeSet = new TreeSet<Node>(nodeStates.keySet());
-        unionNodeSet.addAll(otherNodes);
-        return unionNodeSet;
-    }
-
     private boolean metaInformationSimilarTo(final ClusterState other) {
         if (version != other.version || !state.equals(other.state)) {
             return false;
@@ -182,7 +202,7 @@ public class ClusterState implements Cloneable {
             if (!empty) {
                 NodeState ns = NodeState.deserialize(node.getType(), sb.toString());
                 if (!ns.equals(defaultUpNodeState(node.getType()))) {
-                    nodeStates.put(node, ns);
+                    putNodeState(node.getType(), node.getIndex(), ns);
                 }
                 if (nodeCount.get(node.getType().ordinal()) <= node.getIndex()) {
                     nodeCount.set(node.getType().ordinal(), node.getIndex() + 1);
@@ -383,7 +403,30 @@ public class ClusterState implements Cloneable {
     public NodeState getNodeState(Node node) {
         if (node.getIndex() >= nodeCount.get(node.getType().ordinal()))
             return new NodeState(node.getType(), State.DOWN);
-        return nodeStates.getOrDefault(node, new NodeState(node.getType(), State.UP));
+        NodeState nodeState = getStoredNodeState(node.getType(), node.getIndex());
+        return nodeState != null ? nodeState : new NodeState(node.getType(), State.UP);
+    }
+
+    /** Returns the explicitly stored state of the given node, or null if it has the default state */
+    NodeState getStoredNodeState(NodeType type, int index) {
+        NodeState[] states = nodeStates[type.ordinal()];
+        return index < states.length ? states[index] : null;
+    }
+
+    private void putNodeState(NodeType type, int index, NodeState nodeState) {
+        NodeState[] states = nodeStates[type.ordinal()];
+        if (index >= states.length) {
+            states = Arrays.copyOf(states, Math.max(index + 1, states.length * 2));
+            nodeStates[type.ordinal()] = states;
+        }
+        states[index] = nodeState;
+    }
+
+    private void removeNodeState(NodeType type, int index) {
+        NodeState[] states = nodeStates[type.ordinal()];
+        if (index < states.length) {
+            states[index] = null;
+        }
     }
 
     /**
@@ -395,14 +438,14 @@ public class ClusterState implements Cloneable {
         newState.verifyValidInSystemState(node.getType());
         if (node.getIndex() >= nodeCount.get(node.getType().ordinal())) {
             for (int i= nodeCount.get(node.getType().ordinal()); i<node.getIndex(); ++i) {
-                nodeStates.put(new Node(node.getType(), i), new NodeState(node.getType(), State.DOWN));
+                putNodeState(node.getType(), i, new NodeState(node.getType(), State.DOWN));
             }
             nodeCount.set(node.getType().ordinal(), node.getIndex() + 1);
         }
-        if (newState.equals(new NodeState(node.getType(), State.UP))) {
-            nodeStates.remove(node);
+        if (newState.equals(defaultUpNodeState(node.getType()))) {
+            removeNodeState(node.getType(), node.getIndex());
         } else {
-            nodeStates.put(node, newState);
+            putNodeState(node.getType(), node.getIndex(), newState);
         }
         if (newState.getState().equals(State.DOWN)) {
             // We might be setting the last node down, so we can remove some states
@@ -413,13 +456,12 @@ public class ClusterState implements Cloneable {
     private void removeLastNodesDownWithoutReason() {
         for (NodeType nodeType : NodeType.values()) {
             for (int index = nodeCount.get(nodeType.ordinal()) - 1; index >= 0; --index) {
-                Node node = new Node(nodeType, index);
-                NodeState nodeState = nodeStates.get(node);
+                NodeState nodeState = getStoredNodeState(nodeType, index);
                 if (nodeState == null) break; // Node not existing is up
                 if ( ! nodeState.getState().equals(State.DOWN)) break; // Node not down can not be removed
                 if (nodeState.hasDescription()) break; // Node have reason to be down. Don't remove node as we will forget reason
-                nodeStates.remove(node);
-                nodeCount.set(nodeType.ordinal(), node.getIndex());
+                removeNodeState(nodeType, index);
+                nodeCount.set(nodeType.ordinal(), index);
             }
         }
     }
@@ -459,29 +501,27 @@ public class ClusterState implements Cloneable {
         }
         if (distributorNodeCount > 0){
             sb.append(" distributor:").append(distributorNodeCount);
-            for (Map.Entry<Node, NodeState> entry : nodeStates.entrySet()) {
-                if (entry.getKey().getType().equals(NodeType.DISTRIBUTOR) && entry.getKey().getIndex() < distributorNodeCount) {
-                    String nodeState = entry.getValue().serialize(entry.getKey().getIndex(), verbose);
-                    if (!nodeState.isEmpty()) {
-                        sb.append(' ').append(nodeState);
-                    }
-                }
-            }
+            appendNodeStates(sb, NodeType.DISTRIBUTOR, distributorNodeCount, verbose);
         }
         if (storageNodeCount > 0){
             sb.append(" storage:").append(storageNodeCount);
-            for (Map.Entry<Node, NodeState> entry : nodeStates.entrySet()) {
-                if (entry.getKey().getType().equals(NodeType.STORAGE) && entry.getKey().getIndex() < storageNodeCount) {
-                    String nodeState = entry.getValue().serialize(entry.getKey().getIndex(), verbose);
-                    if (!nodeState.isEmpty()) {
-                        sb.append(' ').append(nodeState);
-                    }
-                }
-            }
+            appendNodeStates(sb, NodeType.STORAGE, storageNodeCount, verbose);
         }
         if (sb.length() > 0) { // Remove first space if not empty
             sb.deleteCharAt(0);
         }
         return sb.toString();
     }
+
+    private void appendNodeStates(StringBuilder sb, NodeType type, int nodeCount, boolean verbose) {
+        NodeState[] states = nodeStates[type.ordinal()];
+        for (int index = 0; index < Math.min(nodeCount, states.length); index++) {
+            if (states[index] == null) continue;
+            String nodeState = states[index].serialize(index, verbose);
+            if (!nodeState.isEmpty()) {
+                sb.append(' ').append(nodeState);
+            }
+        }
+    }
+
 }
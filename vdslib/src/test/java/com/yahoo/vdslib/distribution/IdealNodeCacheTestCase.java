@@ -0,0 +1,98 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vdslib.distribution;
+
+import com.yahoo.document.BucketId;
+import com.yahoo.vdslib.state.ClusterState;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class IdealNodeCacheTestCase extends junit.framework.TestCase {
+
+    private static List<BucketId> getTestBuckets() {
+        List<BucketId> buckets = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            buckets.add(new BucketId(16, i * 7919L));
+        }
+        return buckets;
+    }
+
+    public void testCachedNodesAreEqualToComputedNodes() throws Exception {
+        Distribution distribution = new Distribution(Distribution.getSimpleGroupConfig(2, 10));
+        ClusterState state = new ClusterState("version:3 distributor:10 .3.s:d storage:10 .4.s:d");
+        IdealNodeCache cache = distribution.getIdealNodeCache(state, "uim");
+
+        Map<BucketId, List<Integer>> bulkNodes = cache.getIdealStorageNodes(getTestBuckets());
+        assertEquals(1000, bulkNodes.size());
+        for (BucketId bucket : getTestBuckets()) {
+            List<Integer> expected = distribution.getIdealStorageNodes(state, bucket, "uim");
+            assertEquals(expected, bulkNodes.get(bucket));
+            assertEquals(expected, cache.getIdealStorageNodes(bucket));
+            assertEquals(distribution.getIdealDistributorNode(state, bucket, "uim"), cache.getIdealDistributorNode(bucket));
+        }
+        assertEquals(1000 + distinctDistributionBits(getTestBuckets()), cache.size());
+        distribution.close();
+    }
+
+    public void testDistributorsAreCachedByDistributionBits() throws Exception {
+        Distribution distribution = new Distribution(Distribution.getSimpleGroupConfig(2, 10));
+        ClusterState state = new ClusterState("version:3 distributor:10 storage:10");
+        IdealNodeCache cache = distribution.getIdealNodeCache(state, "uim");
+        for (long i = 0; i < 100; i++) {
+            BucketId bucket = new BucketId(58, (i << 32) | 0x1234);
+            assertEquals(distribution.getIdealDistributorNode(state, bucket, "uim"), cache.getIdealDistributorNode(bucket));
+        }
+        assertEquals(1, cache.size());
+        try {
+            cache.getIdealDistributorNode(new BucketId(8, 0x34));
+            fail("Expected exception");
+        } catch (Distribution.TooFewBucketBitsInUseException e) {
+            assertEquals(1, cache.size());
+        }
+        distribution.close();
+    }
+
+    private static int distinctDistributionBits(List<BucketId> buckets) {
+        Set<Long> distributionBits = new HashSet<>();
+        for (BucketId bucket : buckets)
+            distributionBits.add(bucket.getRawId() & 0xffff);
+        return distributionBits.size();
+    }
+
+    public void testCacheIsReplacedWhenClusterStateChanges() throws Exception {
+        Distribution distribution = new Distribution(Distribution.getDefaultDistributionConfig(2, 10));
+        ClusterState state = new ClusterState("version:3 distributor:10 storage:10");
+        IdealNodeCache cache = distribution.getIdealNodeCache(state, "uim");
+        assertSame(cache, distribution.getIdealNodeCache(state, "uim"));
+        assertNotSame(cache, distribution.getIdealNodeCache(state, "ui"));
+
+        ClusterState newState = new ClusterState("version:4 distributor:10 storage:10 .0.s:d");
+        IdealNodeCache newCache = distribution.getIdealNodeCache(newState, "uim");
+        assertNotSame(cache, newCache);
+        assertSame(newState, newCache.getClusterState());
+
+        newState.setVersion(5);
+        assertNotSame(newCache, distribution.getIdealNodeCache(newState, "uim"));
+        distribution.close();
+    }
+
+    public void testTooFewBucketBitsAreReportedBeforeComputing() throws Exception {
+        Distribution distribution = new Distribution(Distribution.getDefaultDistributionConfig(2, 10));
+        ClusterState state = new ClusterState("version:3 bits:17 distributor:10 storage:10");
+        IdealNodeCache cache = distribution.getIdealNodeCache(state, "uim");
+        List<BucketId> buckets = new ArrayList<>();
+        buckets.add(new BucketId(17, 1));
+        buckets.add(new BucketId(16, 1));
+        try {
+            cache.getIdealStorageNodes(buckets);
+            fail("Expected exception");
+        } catch (Distribution.TooFewBucketBitsInUseException e) {
+            assertEquals(0, cache.size());
+        }
+        distribution.close();
+    }
+
+}
@@ -350,6 +350,80 @@ public class ClusterStateTestCase{
         assertEquals(new NodeState(NodeType.STORAGE, State.MAINTENANCE), state.getNodeState(new Node(NodeType.STORAGE, 1)));
     }
 
+    @Test
+    public void testSetAndGetNodeStatesWithGaps() throws ParseException {
+        ClusterState state = new ClusterState("");
+        state.setNodeState(new Node(NodeType.STORAGE, 2), new NodeState(NodeType.STORAGE, State.UP));
+        state.setNodeState(new Node(NodeType.STORAGE, 40), new NodeState(NodeType.STORAGE, State.MAINTENANCE));
+        state.setNodeState(new Node(NodeType.STORAGE, 7), new NodeState(NodeType.STORAGE, State.RETIRED));
+        state.setNodeState(new Node(NodeType.DISTRIBUTOR, 1), new NodeState(NodeType.DISTRIBUTOR, State.UP).setDescription("fine"));
+
+        assertEquals(41, state.getNodeCount(NodeType.STORAGE));
+        assertEquals(new NodeState(NodeType.STORAGE, State.DOWN), state.getNodeState(new Node(NodeType.STORAGE, 0)));
+        assertEquals(new NodeState(NodeType.STORAGE, State.UP), state.getNodeState(new Node(NodeType.STORAGE, 2)));
+        assertEquals(new NodeState(NodeType.STORAGE, State.RETIRED), state.getNodeState(new Node(NodeType.STORAGE, 7)));
+        assertEquals(new NodeState(NodeType.STORAGE, State.DOWN), state.getNodeState(new Node(NodeType.STORAGE, 39)));
+        assertEquals(new NodeState(NodeType.STORAGE, State.MAINTENANCE), state.getNodeState(new Node(NodeType.STORAGE, 40)));
+        assertEquals(new NodeState(NodeType.STORAGE, State.DOWN), state.getNodeState(new Node(NodeType.STORAGE, 41)));
+        assertEquals(new NodeState(NodeType.STORAGE, State.DOWN), state.getNodeState(new Node(NodeType.STORAGE, 1000)));
+
+        assertEquals(2, state.getNodeCount(NodeType.DISTRIBUTOR));
+        assertEquals(new NodeState(NodeType.DISTRIBUTOR, State.DOWN), state.getNodeState(new Node(NodeType.DISTRIBUTOR, 0)));
+        assertEquals(new NodeState(NodeType.DISTRIBUTOR, State.UP).setDescription("fine"), state.getNodeState(new Node(NodeType.DISTRIBUTOR, 1)));
+
+        state.setNodeState(new Node(NodeType.STORAGE, 7), new NodeState(NodeType.STORAGE, State.UP));
+        assertEquals(new NodeState(NodeType.STORAGE, State.UP), state.getNodeState(new Node(NodeType.STORAGE, 7)));
+        state.setNodeState(new Node(NodeType.STORAGE, 40), new NodeState(NodeType.STORAGE, State.DOWN));
+        assertEquals(8, state.getNodeCount(NodeType.STORAGE));
+        assertEquals(new NodeState(NodeType.STORAGE, State.DOWN), state.getNodeState(new Node(NodeType.STORAGE, 40)));
+    }
+
+    @Test
+    public void testEqualityAndHashDoNotDependOnHowNodeStatesWereSet() throws ParseException {
+        ClusterState parsed = new ClusterState("distributor:3 .1.s:d storage:12 .0.s:m .11.s:r");
+
+        ClusterState set = new ClusterState("");
+        set.setNodeState(new Node(NodeType.STORAGE, 100), new NodeState(NodeType.STORAGE, State.MAINTENANCE)); // Grows the arrays
+        set.setNodeState(new Node(NodeType.STORAGE, 100), new NodeState(NodeType.STORAGE, State.DOWN));
+        set.setNodeState(new Node(NodeType.STORAGE, 11), new NodeState(NodeType.STORAGE, State.RETIRED));
+        set.setNodeState(new Node(NodeType.STORAGE, 0), new NodeState(NodeType.STORAGE, State.MAINTENANCE));
+        for (int i = 1; i < 11; i++)
+            set.setNodeState(new Node(NodeType.STORAGE, i), new NodeState(NodeType.STORAGE, State.UP));
+        set.setNodeState(new Node(NodeType.DISTRIBUTOR, 2), new NodeState(NodeType.DISTRIBUTOR, State.UP));
+        set.setNodeState(new Node(NodeType.DISTRIBUTOR, 0), new NodeState(NodeType.DISTRIBUTOR, State.UP));
+
+        assertEquals(parsed.toString(), set.toString());
+        assertEquals(parsed, set);
+        assertEquals(set, parsed);
+        assertEquals(parsed.hashCode(), set.hashCode());
+        assertEquals(parsed, set.clone());
+        assertEquals(parsed.hashCode(), set.clone().hashCode());
+
+        set.setNodeState(new Node(NodeType.STORAGE, 5), new NodeState(NodeType.STORAGE, State.INITIALIZING));
+        assertFalse(parsed.equals(set));
+        assertFalse(set.equals(parsed));
+        set.setNodeState(new Node(NodeType.STORAGE, 5), new NodeState(NodeType.STORAGE, State.UP));
+        assertEquals(parsed, set);
+        assertEquals(parsed.hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testSerializationRoundTripsWithGaps() throws ParseException {
+        assertRoundTrip("distributor:5 .3.s:d storage:3 .0.s:m", false);
+        assertRoundTrip("version:7 distributor:20 .3.s:d .19.s:m storage:64 .1.s:r .10.s:i .10.i:0.5 .63.s:m", false);
+        assertRoundTrip("distributor:3 .0.s:d .0.m:gone storage:40 .2.s:m .2.m:Under\\x20maintenance .39.s:d .39.m:broken", true);
+        assertRoundTrip("cluster:d bits:20 storage:1000 .999.s:r", false);
+    }
+
+    private void assertRoundTrip(String serialized, boolean verbose) throws ParseException {
+        ClusterState state = new ClusterState(serialized);
+        assertEquals(serialized, state.toString(verbose));
+        ClusterState reparsed = new ClusterState(state.toString(verbose));
+        assertEquals(state, reparsed);
+        assertEquals(state.hashCode(), reparsed.hashCode());
+        assertEquals(serialized, reparsed.toString(verbose));
+    }
+
     @Test
     public void empty_state_factory_method_returns_empty_state() {
         final ClusterState state = ClusterState.emptyState();
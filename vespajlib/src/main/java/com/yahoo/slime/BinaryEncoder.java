@@ -23,6 +23,13 @@ ArrayTraverser, ObjectSymbolTraverser
         return out.toArray();
     }
 
+    public byte[] encode(CompactSlime slime) {
+        out.reset();
+        encodeSymbolTable(slime.names());
+        encodeNode(slime, slime.root());
+        return out.toArray();
+    }
+
     void encode_cmpr_long(long value) {
         byte next = (byte)(value & 0x7f);
         value >>>= 7; // unsigned shift
@@ -123,16 +130,53 @@ ArrayTraverser, ObjectSymbolTraverser
     }
 
     void encodeSymbolTable(Slime slime) {
-        int numSymbols = slime.symbols();
+        encodeSymbolTable(slime.names());
+    }
+
+    void encodeSymbolTable(SymbolTable names) {
+        int numSymbols = names.symbols();
         encode_cmpr_long(numSymbols);
         for (int i = 0 ; i < numSymbols; ++i) {
-            String name = slime.inspect(i);
+            String name = names.inspect(i);
             byte[] bytes = Utf8Codec.encode(name);
             encode_cmpr_long(bytes.length);
             out.put(bytes);
         }
     }
 
+    /** Encodes a value of a compact slime, writing payloads directly from its arena */
+    void encodeNode(CompactSlime slime, int node) {
+        switch(slime.type(node)) {
+        case NIX:    encodeNIX();                                                   return;
+        case BOOL:   encodeBOOL(slime.value(node) != 0);                            return;
+        case LONG:   encodeLONG(slime.value(node));                                 return;
+        case DOUBLE: write_type_and_bytes_be(Type.DOUBLE.ID, slime.value(node));    return;
+        case STRING: encodePayload(Type.STRING.ID, slime, node);                    return;
+        case DATA:   encodePayload(Type.DATA.ID, slime, node);                      return;
+        case ARRAY:
+            write_type_and_size(Type.ARRAY.ID, slime.size(node));
+            for (int i = 0, size = slime.size(node); i < size; i++) {
+                int child = slime.childAt(node, i);
+                encodeNode(slime, child);
+            }
+            return;
+        case OBJECT:
+            write_type_and_size(Type.OBJECT.ID, slime.size(node));
+            for (int i = 0, size = slime.size(node); i < size; i++) {
+                int child = slime.childAt(node, i);
+                encode_cmpr_long(slime.symbol(child));
+                encodeNode(slime, child);
+            }
+            return;
+        }
+        assert false : "Should not be reached";
+    }
+
+    private void encodePayload(int type, CompactSlime slime, int node) {
+        write_type_and_size(type, slime.size(node));
+        out.put(slime.arena(), slime.payloadOffset(node), slime.size(node));
+    }
+
     public void entry(int idx, Inspector inspector) {
         encodeValue(inspector);
     }
@@ -44,6 +44,17 @@ public class BinaryFormat {
         return encoder.encode(slime);
     }
 
+    /**
+     * Take a CompactSlime object and serialize it into binary format.
+     * The result is identical to encoding a Slime with the same content.
+     * @param slime the object which is to be serialized.
+     * @return a new byte array with just the encoded slime.
+     **/
+    public static byte[] encode(CompactSlime slime) {
+        BinaryEncoder encoder = new BinaryEncoder();
+        return encoder.encode(slime);
+    }
+
     /**
      * Take binary data and deserialize it into a Slime object.
      * The data is assumed to be the binary representation
@@ -85,4 +96,39 @@ public class BinaryFormat {
         BinaryDecoder decoder = new BinaryDecoder();
         return decoder.decode(data, offset, length);
     }
+
+    /**
+     * Take binary data and return a read-only Inspector for the
+     * encoded root value, which reads the values directly from the
+     * given data instead of decoding them into a Slime object. This
+     * is cheaper than decoding when only parts of the data is
+     * accessed, as nothing is decoded before it is accessed. The data
+     * is not copied, and must not be modified while the returned
+     * Inspector is in use.
+     *
+     * If the binary data can't be indexed without problems, this
+     * returns the root of the Slime object returned by
+     * {@link #decode(byte[])} instead.
+     *
+     * @param data the data to be inspected.
+     * @return an Inspector for the root value of the data.
+     **/
+    public static Inspector view(byte[] data) {
+        return view(data, 0, data.length);
+    }
+
+    /**
+     * Take binary data and return a read-only Inspector for the
+     * encoded root value, reading the values directly from the data.
+     * See {@link #view(byte[])}.
+     *
+     * @param data array containing the data to be inspected.
+     * @param offset where in the array the data starts.
+     * @param length how many bytes the data consists of.
+     * @return an Inspector for the root value of the data.
+     **/
+    public static Inspector view(byte[] data, int offset, int length) {
+        Inspector view = BinaryView.inspect(data, offset, length);
+        return (view != null) ? view : decode(data, offset, length).get();
+    }
 }
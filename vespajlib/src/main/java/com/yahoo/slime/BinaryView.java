@@ -0,0 +1,356 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A read-only view of binary slime data, inspecting the values in
+ * place instead of decoding them into a tree of Value objects. A
+ * compact offset index (a few ints per value) is built with a single
+ * pass over the data; strings, data and symbol names are only
+ * decoded when they are actually accessed. Fields are looked up by
+ * comparing the UTF-8 bytes of their symbol names.
+ *
+ * Inspectors for contained values are created on access and share
+ * the data and index of the root. The view does not copy the data,
+ * which must not be modified while the view is in use.
+ **/
+final class BinaryView implements Inspector {
+
+    // node layout in the index
+    private static final int OFFSET = 0;      // offset of the type and meta byte
+    private static final int SYMBOL = 1;      // symbol of object fields, -1 otherwise
+    private static final int FIRST = 2;       // first child node of containers, payload offset of strings and data
+    private static final int SIZE = 3;        // number of children of containers, payload size of strings and data
+    private static final int nodeSize = 4;
+
+    private static final String emptyString = "";
+    private static final byte[] emptyData = new byte[0];
+
+    private final Index index;
+    private final int node;
+
+    private BinaryView(Index index, int node) {
+        this.index = index;
+        this.node = node;
+    }
+
+    /**
+     * Create a view of binary slime data, or return null if the data
+     * could not be indexed.
+     **/
+    static Inspector inspect(byte[] data, int offset, int length) {
+        Index index = new Index(data, offset, length);
+        if ( ! index.build()) {
+            return null;
+        }
+        return new BinaryView(index, 0);
+    }
+
+    private byte typeAndMeta() { return index.data[index.nodes[node * nodeSize + OFFSET]]; }
+    private int first() { return index.nodes[node * nodeSize + FIRST]; }
+    private int size() { return index.nodes[node * nodeSize + SIZE]; }
+    private int meta() { return BinaryFormat.decode_meta(typeAndMeta()); }
+
+    public boolean valid() { return true; }
+    public Type type() { return BinaryFormat.decode_type(typeAndMeta()); }
+
+    public int children() {
+        Type type = type();
+        return (type == Type.ARRAY || type == Type.OBJECT) ? size() : 0;
+    }
+    public int entries() { return (type() == Type.ARRAY) ? size() : 0; }
+    public int fields() { return (type() == Type.OBJECT) ? size() : 0; }
+
+    public boolean asBool() { return (type() == Type.BOOL) && meta() != 0; }
+
+    public long asLong() {
+        switch (type()) {
+        case LONG:   return decodeLong();
+        case DOUBLE: return (long)decodeDouble();
+        default:     return 0;
+        }
+    }
+
+    public double asDouble() {
+        switch (type()) {
+        case LONG:   return decodeLong();
+        case DOUBLE: return decodeDouble();
+        default:     return 0.0;
+        }
+    }
+
+    public String asString() {
+        return (type() == Type.STRING) ? Utf8Codec.decode(index.data, first(), size()) : emptyString;
+    }
+
+    public byte[] asUtf8() { return (type() == Type.STRING) ? copyPayload() : emptyData; }
+    public byte[] asData() { return (type() == Type.DATA) ? copyPayload() : emptyData; }
+
+    public void accept(Visitor v) {
+        switch (type()) {
+        case NIX:    v.visitNix(); break;
+        case BOOL:   v.visitBool(asBool()); break;
+        case LONG:   v.visitLong(decodeLong()); break;
+        case DOUBLE: v.visitDouble(decodeDouble()); break;
+        case STRING: v.visitString(copyPayload()); break;
+        case DATA:   v.visitData(copyPayload()); break;
+        case ARRAY:  v.visitArray(this); break;
+        case OBJECT: v.visitObject(this); break;
+        }
+    }
+
+    public void traverse(ArrayTraverser at) {
+        if (type() != Type.ARRAY) return;
+        for (int i = 0, first = first(), size = size(); i < size; i++) {
+            at.entry(i, new BinaryView(index, first + i));
+        }
+    }
+
+    public void traverse(ObjectSymbolTraverser ot) {
+        if (type() != Type.OBJECT) return;
+        for (int child = first(), end = child + size(); child < end; child++) {
+            ot.field(index.nodes[child * nodeSize + SYMBOL], new BinaryView(index, child));
+        }
+    }
+
+    public void traverse(ObjectTraverser ot) {
+        if (type() != Type.OBJECT) return;
+        SymbolTable names = index.names();
+        for (int child = first(), end = child + size(); child < end; child++) {
+            ot.field(names.inspect(index.nodes[child * nodeSize + SYMBOL]), new BinaryView(index, child));
+        }
+    }
+
+    public Inspector entry(int idx) {
+        if (type() != Type.ARRAY || idx < 0 || idx >= size()) return NixValue.invalid();
+        return new BinaryView(index, first() + idx);
+    }
+
+    public Inspector field(int sym) {
+        if (type() != Type.OBJECT) return NixValue.invalid();
+        for (int child = first(), end = child + size(); child < end; child++) {
+            if (index.nodes[child * nodeSize + SYMBOL] == sym) {
+                return new BinaryView(index, child);
+            }
+        }
+        return NixValue.invalid();
+    }
+
+    public Inspector field(String name) {
+        if (type() != Type.OBJECT) return NixValue.invalid();
+        byte[] utf8 = Utf8Codec.encode(name);
+        for (int child = first(), end = child + size(); child < end; child++) {
+            if (index.symbolEquals(index.nodes[child * nodeSize + SYMBOL], utf8)) {
+                return new BinaryView(index, child);
+            }
+        }
+        return NixValue.invalid();
+    }
+
+    private long decodeLong() {
+        return BinaryFormat.decode_zigzag(readBytesLE(index.data, index.nodes[node * nodeSize + OFFSET] + 1, meta()));
+    }
+
+    private double decodeDouble() {
+        return BinaryFormat.decode_double(readBytesBE(index.data, index.nodes[node * nodeSize + OFFSET] + 1, meta()));
+    }
+
+    private byte[] copyPayload() {
+        byte[] ret = new byte[size()];
+        System.arraycopy(index.data, first(), ret, 0, ret.length);
+        return ret;
+    }
+
+    private static long readBytesLE(byte[] data, int pos, int bytes) {
+        long value = 0;
+        int shift = 0;
+        for (int i = 0; i < bytes; ++i) {
+            value |= (data[pos + i] & 0xffL) << shift;
+            shift += 8;
+        }
+        return value;
+    }
+
+    private static long readBytesBE(byte[] data, int pos, int bytes) {
+        long value = 0;
+        int shift = 56;
+        for (int i = 0; i < bytes; ++i) {
+            value |= (data[pos + i] & 0xffL) << shift;
+            shift -= 8;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            ByteArrayOutputStream a = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(a, this);
+            byte[] utf8 = a.toByteArray();
+            return Utf8Codec.decode(utf8, 0, utf8.length);
+        } catch (Exception e) {
+            return "null";
+        }
+    }
+
+    /**
+     * The data and offset index shared by all inspectors of a view.
+     * Children of a container are stored as consecutive nodes, so that
+     * entries can be found by position.
+     **/
+    private static final class Index {
+
+        final byte[] data;
+        private final int end;
+        private int position;
+        private boolean failed = false;
+        int[] nodes = new int[16 * nodeSize];
+        private int used = 0;
+        private int numSymbols;
+        private int[] symbols; // offset and size of each symbol name
+        private volatile SymbolTable names = null;
+
+        Index(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        boolean build() {
+            numSymbols = readSize(0);
+            symbols = new int[numSymbols * 2];
+            for (int i = 0; i < numSymbols && !failed; ++i) {
+                int size = readSize(0);
+                symbols[i * 2] = position;
+                symbols[i * 2 + 1] = size;
+                skip(size);
+            }
+            indexValue(allocate(1), -1);
+            return !failed;
+        }
+
+        /** Decodes the symbol table the first time symbol names are traversed */
+        SymbolTable names() {
+            SymbolTable result = names;
+            if (result == null) {
+                result = new SymbolTable();
+                for (int i = 0; i < numSymbols; ++i) {
+                    result.insert(Utf8Codec.decode(data, symbols[i * 2], symbols[i * 2 + 1]));
+                }
+                names = result;
+            }
+            return result;
+        }
+
+        boolean symbolEquals(int symbol, byte[] utf8) {
+            int offset = symbols[symbol * 2];
+            if (symbols[symbol * 2 + 1] != utf8.length) return false;
+            for (int i = 0; i < utf8.length; ++i) {
+                if (data[offset + i] != utf8[i]) return false;
+            }
+            return true;
+        }
+
+        private int allocate(int count) {
+            int first = used;
+            used += count;
+            if (used * nodeSize > nodes.length) {
+                int[] grown = new int[Math.max(nodes.length * 2, used * nodeSize)];
+                System.arraycopy(nodes, 0, grown, 0, first * nodeSize);
+                nodes = grown;
+            }
+            return first;
+        }
+
+        private void indexValue(int node, int symbol) {
+            int base = node * nodeSize;
+            nodes[base + OFFSET] = position;
+            nodes[base + SYMBOL] = symbol;
+            byte typeAndMeta = getByte();
+            int meta = BinaryFormat.decode_meta(typeAndMeta);
+            switch (BinaryFormat.decode_type(typeAndMeta)) {
+            case NIX:
+            case BOOL:
+                break;
+            case LONG:
+            case DOUBLE:
+                skip(meta);
+                break;
+            case STRING:
+            case DATA: {
+                int size = readSize(meta);
+                nodes[base + FIRST] = position;
+                nodes[base + SIZE] = size;
+                skip(size);
+                break;
+            }
+            case ARRAY: {
+                int size = readSize(meta);
+                int first = allocate(size);
+                nodes[base + FIRST] = first;
+                nodes[base + SIZE] = size;
+                for (int i = 0; i < size && !failed; ++i) {
+                    indexValue(first + i, -1);
+                }
+                break;
+            }
+            case OBJECT: {
+                int size = readSize(meta);
+                int first = allocate(size);
+                nodes[base + FIRST] = first;
+                nodes[base + SIZE] = size;
+                for (int i = 0; i < size && !failed; ++i) {
+                    int childSymbol = (int)readCmprLong();
+                    if (childSymbol < 0 || childSymbol >= numSymbols) {
+                        failed = true;
+                        return;
+                    }
+                    indexValue(first + i, childSymbol);
+                }
+                break;
+            }
+            }
+        }
+
+        private byte getByte() {
+            if (position >= end) {
+                failed = true;
+                return 0;
+            }
+            return data[position++];
+        }
+
+        private void skip(int size) {
+            if (size < 0 || position + size > end) {
+                failed = true;
+                position = end;
+            } else {
+                position += size;
+            }
+        }
+
+        private long readCmprLong() {
+            long next = getByte();
+            long value = (next & 0x7f);
+            int shift = 7;
+            while ((next & 0x80) != 0) {
+                next = getByte();
+                value |= ((next & 0x7f) << shift);
+                shift += 7;
+            }
+            return value;
+        }
+
+        private int readSize(int meta) {
+            long size = (meta == 0) ? readCmprLong() : (meta - 1);
+            if (size < 0 || size > end - position) { // every value needs at least one byte
+                failed = true;
+                return 0;
+            }
+            return (int)size;
+        }
+
+    }
+
+}
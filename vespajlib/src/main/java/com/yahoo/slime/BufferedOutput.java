@@ -49,6 +49,12 @@ final class BufferedOutput {
         }
     }
 
+    final void put(byte[] bytes, int offset, int length) {
+        reserve(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+    }
+
     public byte[] toArray() {
         byte[] ret = new byte[pos];
         System.arraycopy(buf, 0, ret, 0, pos);
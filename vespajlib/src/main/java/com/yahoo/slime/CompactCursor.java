@@ -0,0 +1,155 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A Cursor for a single value in a {@link CompactSlime}. Cursors are
+ * light-weight handles holding only the node number of the value, and
+ * are created as needed when navigating and building the tree.
+ **/
+final class CompactCursor implements Cursor {
+
+    private static final String emptyString = "";
+    private static final byte[] emptyData = new byte[0];
+
+    private final CompactSlime slime;
+    private final int node;
+
+    CompactCursor(CompactSlime slime, int node) {
+        this.slime = slime;
+        this.node = node;
+    }
+
+    private Cursor cursor(int node) {
+        return (node == CompactSlime.NONE) ? NixValue.invalid() : new CompactCursor(slime, node);
+    }
+
+    private boolean is(Type type) { return slime.typeId(node) == type.ID; }
+
+    public boolean valid() { return true; }
+    public Type type() { return slime.type(node); }
+
+    public int children() { return (is(Type.ARRAY) || is(Type.OBJECT)) ? slime.size(node) : 0; }
+    public int entries() { return is(Type.ARRAY) ? slime.size(node) : 0; }
+    public int fields() { return is(Type.OBJECT) ? slime.size(node) : 0; }
+
+    public boolean asBool() { return is(Type.BOOL) && slime.value(node) != 0; }
+
+    public long asLong() {
+        if (is(Type.LONG)) return slime.value(node);
+        if (is(Type.DOUBLE)) return (long)Double.longBitsToDouble(slime.value(node));
+        return 0;
+    }
+
+    public double asDouble() {
+        if (is(Type.LONG)) return slime.value(node);
+        if (is(Type.DOUBLE)) return Double.longBitsToDouble(slime.value(node));
+        return 0.0;
+    }
+
+    public String asString() { return is(Type.STRING) ? slime.decodeString(node) : emptyString; }
+    public byte[] asUtf8() { return is(Type.STRING) ? slime.copyPayload(node) : emptyData; }
+    public byte[] asData() { return is(Type.DATA) ? slime.copyPayload(node) : emptyData; }
+
+    public void accept(Visitor v) {
+        switch (type()) {
+        case NIX:    v.visitNix(); break;
+        case BOOL:   v.visitBool(asBool()); break;
+        case LONG:   v.visitLong(asLong()); break;
+        case DOUBLE: v.visitDouble(asDouble()); break;
+        case STRING: v.visitString(asUtf8()); break;
+        case DATA:   v.visitData(asData()); break;
+        case ARRAY:  v.visitArray(this); break;
+        case OBJECT: v.visitObject(this); break;
+        }
+    }
+
+    public void traverse(ArrayTraverser at) {
+        if ( ! is(Type.ARRAY)) return;
+        for (int i = 0, size = slime.size(node); i < size; i++) {
+            at.entry(i, new CompactCursor(slime, slime.childAt(node, i)));
+        }
+    }
+
+    public void traverse(ObjectSymbolTraverser ot) {
+        if ( ! is(Type.OBJECT)) return;
+        for (int i = 0, size = slime.size(node); i < size; i++) {
+            int child = slime.childAt(node, i);
+            ot.field(slime.symbol(child), new CompactCursor(slime, child));
+        }
+    }
+
+    public void traverse(ObjectTraverser ot) {
+        if ( ! is(Type.OBJECT)) return;
+        for (int i = 0, size = slime.size(node); i < size; i++) {
+            int child = slime.childAt(node, i);
+            ot.field(slime.names().inspect(slime.symbol(child)), new CompactCursor(slime, child));
+        }
+    }
+
+    public Cursor entry(int idx) {
+        if ( ! is(Type.ARRAY)) return NixValue.invalid();
+        return cursor(slime.entry(node, idx));
+    }
+
+    public Cursor field(int sym) {
+        if ( ! is(Type.OBJECT)) return NixValue.invalid();
+        return cursor(slime.field(node, sym));
+    }
+
+    public Cursor field(String name) {
+        if ( ! is(Type.OBJECT)) return NixValue.invalid();
+        int sym = slime.names().lookup(name);
+        if (sym == SymbolTable.INVALID) return NixValue.invalid();
+        return cursor(slime.field(node, sym));
+    }
+
+    public Cursor addNix() { return cursor(slime.add(node, Type.NIX, 0)); }
+    public Cursor addBool(boolean bit) { return cursor(slime.add(node, Type.BOOL, bit ? 1 : 0)); }
+    public Cursor addLong(long l) { return cursor(slime.add(node, Type.LONG, l)); }
+    public Cursor addDouble(double d) { return cursor(slime.add(node, Type.DOUBLE, Double.doubleToRawLongBits(d))); }
+    public Cursor addString(String str) { return cursor(slime.addString(node, str)); }
+    public Cursor addString(byte[] utf8) { return cursor(slime.addPayload(node, Type.STRING, utf8)); }
+    public Cursor addData(byte[] data) { return cursor(slime.addPayload(node, Type.DATA, data)); }
+    public Cursor addArray() { return cursor(slime.add(node, Type.ARRAY, 0)); }
+    public Cursor addObject() { return cursor(slime.add(node, Type.OBJECT, 0)); }
+
+    public Cursor setNix(int sym) { return cursor(slime.set(node, sym, Type.NIX, 0)); }
+    public Cursor setBool(int sym, boolean bit) { return cursor(slime.set(node, sym, Type.BOOL, bit ? 1 : 0)); }
+    public Cursor setLong(int sym, long l) { return cursor(slime.set(node, sym, Type.LONG, l)); }
+    public Cursor setDouble(int sym, double d) { return cursor(slime.set(node, sym, Type.DOUBLE, Double.doubleToRawLongBits(d))); }
+    public Cursor setString(int sym, String str) { return cursor(slime.setString(node, sym, str)); }
+    public Cursor setString(int sym, byte[] utf8) { return cursor(slime.setPayload(node, sym, Type.STRING, utf8)); }
+    public Cursor setData(int sym, byte[] data) { return cursor(slime.setPayload(node, sym, Type.DATA, data)); }
+    public Cursor setArray(int sym) { return cursor(slime.set(node, sym, Type.ARRAY, 0)); }
+    public Cursor setObject(int sym) { return cursor(slime.set(node, sym, Type.OBJECT, 0)); }
+
+    public Cursor setNix(String name) { return setNix(insert(name)); }
+    public Cursor setBool(String name, boolean bit) { return setBool(insert(name), bit); }
+    public Cursor setLong(String name, long l) { return setLong(insert(name), l); }
+    public Cursor setDouble(String name, double d) { return setDouble(insert(name), d); }
+    public Cursor setString(String name, String str) { return setString(insert(name), str); }
+    public Cursor setString(String name, byte[] utf8) { return setString(insert(name), utf8); }
+    public Cursor setData(String name, byte[] data) { return setData(insert(name), data); }
+    public Cursor setArray(String name) { return setArray(insert(name)); }
+    public Cursor setObject(String name) { return setObject(insert(name)); }
+
+    /** Symbols are only inserted when setting fields of objects, like for Slime */
+    private int insert(String name) {
+        return is(Type.OBJECT) ? slime.insert(name) : SymbolTable.INVALID;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            ByteArrayOutputStream a = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(a, this);
+            byte[] utf8 = a.toByteArray();
+            return Utf8Codec.decode(utf8, 0, utf8.length);
+        } catch (Exception e) {
+            return "null";
+        }
+    }
+
+}
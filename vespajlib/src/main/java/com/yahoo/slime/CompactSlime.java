@@ -0,0 +1,401 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.util.Arrays;
+
+/**
+ * An alternative to {@link Slime} for building large structures. All
+ * values are stored in primitive arrays indexed by node number (type
+ * tags, long/double payloads, sizes and field symbols), all string and
+ * data payloads are stored in a single shared byte arena, and the
+ * children of arrays and objects are stored as ranges of node numbers
+ * in a shared int arena. Fields of small objects are found by scanning
+ * their children, while fields of large objects are also entered in an
+ * open addressing hash table keyed on the object node and the symbol.
+ * Building a tree of any size therefore only allocates a handful of
+ * arrays, in addition to the short-lived Cursor objects used to
+ * navigate it.
+ *
+ * The Cursor and Inspector API is the same as for Slime, and the
+ * tree may be encoded directly, without copying any payloads, using
+ * {@link BinaryFormat#encode(CompactSlime)} or
+ * {@link JsonFormat#encode(java.io.OutputStream, CompactSlime)}.
+ *
+ * @author agent
+ **/
+public final class CompactSlime {
+
+    static final int NONE = -1;
+
+    /** Objects with at least this many fields have their fields entered in the field hash table */
+    private static final int hashedFieldsThreshold = 16;
+    private static final int initialChildCapacity = 4;
+
+    private final SymbolTable names = new SymbolTable();
+
+    // node storage
+    private byte[] types;
+    private long[] values;      // bool, long and double bits, arena offset of strings and data, or children offset of containers
+    private int[] sizes;        // length of strings and data, or number of children of arrays and objects
+    private int[] symbols;      // symbol of object fields
+    private int nodeCount = 0;
+
+    // payload storage
+    private byte[] arena;
+    private int arenaUsed = 0;
+
+    // child storage, the children of each container are consecutive and
+    // moved to the end when their capacity (the next power of two) is exceeded
+    private int[] children;
+    private int childrenUsed = 0;
+
+    // (object node, symbol) -> field node, for large objects only
+    private long[] fieldKeys = null;
+    private int[] fieldNodes = null;
+    private int fieldCount = 0;
+
+    private int root;
+
+    /**
+     * Construct an empty CompactSlime with an empty top-level value.
+     */
+    public CompactSlime() {
+        this(64);
+    }
+
+    /**
+     * Construct an empty CompactSlime with an empty top-level value,
+     * with room for the given number of values before growing.
+     */
+    public CompactSlime(int expectedValues) {
+        int capacity = Math.max(expectedValues, 16);
+        types = new byte[capacity];
+        values = new long[capacity];
+        sizes = new int[capacity];
+        symbols = new int[capacity];
+        arena = new byte[capacity * 8];
+        children = new int[capacity];
+        root = newNode(Type.NIX, 0);
+    }
+
+    /** Returns a count of names in the symbol table. */
+    public int symbols() {
+        return names.symbols();
+    }
+
+    /**
+     * Return the symbol name associated with an id.
+     *
+     * @param symbol the id, must be in range [0, symbols()-1]
+     */
+    public String inspect(int symbol) {
+        return names.inspect(symbol);
+    }
+
+    /**
+     * Add a name to the symbol table; if the name is already
+     * in the symbol table just returns the id it already had.
+     *
+     * @param name the name to insert
+     * @return the id now associated with the name
+     */
+    public int insert(String name) {
+        return names.insert(name);
+    }
+
+    /**
+     * Find the id associated with a symbol name; if the
+     * name was not in the symbol table returns the
+     * constant Integer.MAX_VALUE instead.
+     */
+    public int lookup(String name) {
+        return names.lookup(name);
+    }
+
+    /** Get a Cursor connected to the top-level data object. */
+    public Cursor get() { return new CompactCursor(this, root); }
+
+    /** Create a new empty value and make it the new top-level data object. */
+    public Cursor setNix() { return setRoot(newNode(Type.NIX, 0)); }
+
+    /** Create a new boolean value and make it the new top-level data object. */
+    public Cursor setBool(boolean bit) { return setRoot(newNode(Type.BOOL, bit ? 1 : 0)); }
+
+    /** Create a new long value and make it the new top-level data object. */
+    public Cursor setLong(long l) { return setRoot(newNode(Type.LONG, l)); }
+
+    /** Create a new double value and make it the new top-level data object. */
+    public Cursor setDouble(double d) { return setRoot(newNode(Type.DOUBLE, Double.doubleToRawLongBits(d))); }
+
+    /** Create a new string value and make it the new top-level data object. */
+    public Cursor setString(String str) { return setRoot(newString(str)); }
+
+    /** Create a new string value (encoded as UTF-8 data) and make it the new top-level data object. */
+    public Cursor setString(byte[] utf8) { return setRoot(newPayload(Type.STRING, utf8)); }
+
+    /** Create a new data value and make it the new top-level data object. */
+    public Cursor setData(byte[] data) { return setRoot(newPayload(Type.DATA, data)); }
+
+    /** Create a new array value and make it the new top-level data object. */
+    public Cursor setArray() { return setRoot(newNode(Type.ARRAY, 0)); }
+
+    /** Create a new object value and make it the new top-level data object. */
+    public Cursor setObject() { return setRoot(newNode(Type.OBJECT, 0)); }
+
+    /**
+     * Take the current top-level data object and make it a field in a
+     * new object with the given symbol id as field id; the new
+     * object will also become the new top-level data object.
+     */
+    public Cursor wrap(int sym) {
+        int wrapper = newNode(Type.OBJECT, 0);
+        link(wrapper, sym, root);
+        return setRoot(wrapper);
+    }
+
+    /**
+     * Take the current top-level data object and make it a field in a
+     * new object with the given symbol name as field name; the new
+     * object will also become the new top-level data object.
+     */
+    public Cursor wrap(String name) {
+        return wrap(names.insert(name));
+    }
+
+    private Cursor setRoot(int node) {
+        if (node == NONE) {
+            node = newNode(Type.NIX, 0);
+        }
+        root = node;
+        return new CompactCursor(this, root);
+    }
+
+    // ---- node access, used by cursors and encoders
+
+    int root() { return root; }
+    SymbolTable names() { return names; }
+    byte[] arena() { return arena; }
+
+    byte typeId(int node) { return types[node]; }
+    Type type(int node) { return Type.asType(types[node]); }
+    long value(int node) { return values[node]; }
+    int size(int node) { return sizes[node]; }
+    int symbol(int node) { return symbols[node]; }
+    int payloadOffset(int node) { return (int)values[node]; }
+
+    /** Returns the child at the given position of an array or object node */
+    int childAt(int container, int idx) { return children[(int)values[container] + idx]; }
+
+    /** Returns the array entry at the given index, or NONE */
+    int entry(int array, int idx) {
+        return (idx >= 0 && idx < sizes[array]) ? childAt(array, idx) : NONE;
+    }
+
+    /** Returns the object field with the given symbol, or NONE */
+    int field(int object, int sym) {
+        int size = sizes[object];
+        if (size >= hashedFieldsThreshold) {
+            long key = fieldKey(object, sym);
+            int mask = fieldKeys.length - 1;
+            for (int slot = hash(key) & mask; fieldNodes[slot] != NONE; slot = (slot + 1) & mask) {
+                if (fieldKeys[slot] == key) {
+                    return fieldNodes[slot];
+                }
+            }
+            return NONE;
+        }
+        int offset = (int)values[object];
+        for (int i = 0; i < size; i++) {
+            int child = children[offset + i];
+            if (symbols[child] == sym) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    byte[] copyPayload(int node) {
+        return Arrays.copyOfRange(arena, (int)values[node], (int)values[node] + sizes[node]);
+    }
+
+    String decodeString(int node) {
+        return Utf8Codec.decode(arena, (int)values[node], sizes[node]);
+    }
+
+    // ---- node creation
+
+    /** Add a new value to the given array node, returning the new node, or NONE if the node is not an array */
+    int add(int array, Type type, long value) {
+        if (types[array] != Type.ARRAY.ID) return NONE;
+        int node = newNode(type, value);
+        link(array, sizes[array], node);
+        return node;
+    }
+
+    int addString(int array, String str) {
+        if (types[array] != Type.ARRAY.ID) return NONE;
+        int node = newString(str);
+        link(array, sizes[array], node);
+        return node;
+    }
+
+    int addPayload(int array, Type type, byte[] payload) {
+        if (types[array] != Type.ARRAY.ID) return NONE;
+        int node = newPayload(type, payload);
+        link(array, sizes[array], node);
+        return node;
+    }
+
+    /** Set a field in the given object node, returning the new node, or NONE if not an object or the field is set */
+    int set(int object, int sym, Type type, long value) {
+        if (types[object] != Type.OBJECT.ID || field(object, sym) != NONE) return NONE;
+        int node = newNode(type, value);
+        link(object, sym, node);
+        return node;
+    }
+
+    int setString(int object, int sym, String str) {
+        if (types[object] != Type.OBJECT.ID || field(object, sym) != NONE) return NONE;
+        int node = newString(str);
+        link(object, sym, node);
+        return node;
+    }
+
+    int setPayload(int object, int sym, Type type, byte[] payload) {
+        if (types[object] != Type.OBJECT.ID || field(object, sym) != NONE) return NONE;
+        int node = newPayload(type, payload);
+        link(object, sym, node);
+        return node;
+    }
+
+    private int newNode(Type type, long value) {
+        if (nodeCount == types.length) {
+            int capacity = nodeCount * 2;
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+        int node = nodeCount++;
+        types[node] = type.ID;
+        values[node] = value;
+        sizes[node] = 0;
+        symbols[node] = NONE;
+        return node;
+    }
+
+    private int newString(String str) {
+        if (str == null) return newNode(Type.NIX, 0);
+        int length = str.length();
+        reserveArena(length);
+        int offset = arenaUsed;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c >= 0x80) {
+                return newPayload(Type.STRING, Utf8Codec.encode(str));
+            }
+            arena[offset + i] = (byte)c;
+        }
+        arenaUsed += length;
+        int node = newNode(Type.STRING, offset);
+        sizes[node] = length;
+        return node;
+    }
+
+    private int newPayload(Type type, byte[] payload) {
+        if (payload == null) return newNode(Type.NIX, 0);
+        reserveArena(payload.length);
+        int offset = arenaUsed;
+        System.arraycopy(payload, 0, arena, offset, payload.length);
+        arenaUsed += payload.length;
+        int node = newNode(type, offset);
+        sizes[node] = payload.length;
+        return node;
+    }
+
+    private void reserveArena(int bytes) {
+        if (arenaUsed + bytes > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + bytes));
+        }
+    }
+
+    private void link(int container, int key, int node) {
+        int size = sizes[container];
+        if (size == 0) {
+            values[container] = reserveChildren(initialChildCapacity);
+        } else if (size >= initialChildCapacity && Integer.bitCount(size) == 1) { // full
+            int offset = reserveChildren(size * 2);
+            System.arraycopy(children, (int)values[container], children, offset, size);
+            values[container] = offset;
+        }
+        children[(int)values[container] + size] = node;
+        sizes[container] = size + 1;
+        if (types[container] == Type.OBJECT.ID) {
+            symbols[node] = key;
+            if (size + 1 == hashedFieldsThreshold) {
+                for (int i = 0; i <= size; i++) {
+                    int field = childAt(container, i);
+                    putField(fieldKey(container, symbols[field]), field);
+                }
+            } else if (size + 1 > hashedFieldsThreshold) {
+                putField(fieldKey(container, key), node);
+            }
+        }
+    }
+
+    private int reserveChildren(int count) {
+        if (childrenUsed + count > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenUsed + count));
+        }
+        int offset = childrenUsed;
+        childrenUsed += count;
+        return offset;
+    }
+
+    private void putField(long key, int node) {
+        if (fieldKeys == null) {
+            fieldKeys = new long[64];
+            fieldNodes = new int[64];
+            Arrays.fill(fieldNodes, NONE);
+        } else if ((fieldCount + 1) * 2 > fieldKeys.length) {
+            rehashFields();
+        }
+        int mask = fieldKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (fieldNodes[slot] != NONE) {
+            slot = (slot + 1) & mask;
+        }
+        fieldKeys[slot] = key;
+        fieldNodes[slot] = node;
+        fieldCount++;
+    }
+
+    private void rehashFields() {
+        long[] oldKeys = fieldKeys;
+        int[] oldNodes = fieldNodes;
+        fieldKeys = new long[oldKeys.length * 2];
+        fieldNodes = new int[oldNodes.length * 2];
+        Arrays.fill(fieldNodes, NONE);
+        fieldCount = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldNodes[i] != NONE) {
+                putField(oldKeys[i], oldNodes[i]);
+            }
+        }
+    }
+
+    private static long fieldKey(int object, int sym) {
+        return ((long)object << 32) | (sym & 0xffffffffL);
+    }
+
+    private static int hash(long key) {
+        key *= 0x9e3779b97f4a7c15L;
+        return (int)(key ^ (key >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+
+}
@@ -40,6 +40,16 @@ public final class JsonFormat implements SlimeFormat
         new Encoder(value, os, compact).encode();
     }
 
+    /** Encodes a compact slime, writing strings and data directly from its arena */
+    public void encode(OutputStream os, CompactSlime slime) throws IOException {
+        new Encoder(slime.get(), os, compact).encode(slime);
+    }
+
+    /** Encodes a compact slime, writing strings and data directly from its arena */
+    public void encode(AbstractByteWriter os, CompactSlime slime) throws IOException {
+        new Encoder(slime.get(), os, compact).encode(slime);
+    }
+
     @Override
     public void decode(InputStream is, Slime slime) throws IOException {
         throw new UnsupportedOperationException("Not implemented");
@@ -52,6 +62,7 @@ public final class JsonFormat implements SlimeFormat
         private boolean head = true;
         private boolean compact;
         private int level = 0;
+        private byte[][] symbolNames;
         final static AbstractUtf8Array NULL=new Utf8String("null");
         final static AbstractUtf8Array FALSE=new Utf8String("false");
         final static AbstractUtf8Array TRUE=new Utf8String("true");
@@ -76,6 +87,53 @@ public final class JsonFormat implements SlimeFormat
             out.flush();
         }
 
+        void encode(CompactSlime slime) throws IOException {
+            symbolNames = new byte[slime.symbols()][];
+            encodeNode(slime, slime.root());
+            if (!compact) {
+                out.append((byte) '\n');
+            }
+            out.flush();
+        }
+
+        private void encodeNode(CompactSlime slime, int node) throws IOException {
+            switch(slime.type(node)) {
+            case NIX:    encodeNIX();                                                                 return;
+            case BOOL:   encodeBOOL(slime.value(node) != 0);                                          return;
+            case LONG:   encodeLONG(slime.value(node));                                               return;
+            case DOUBLE: encodeDOUBLE(Double.longBitsToDouble(slime.value(node)));                    return;
+            case STRING: encodeSTRING(slime.arena(), slime.payloadOffset(node), slime.size(node));    return;
+            case DATA:   encodeDATA(slime.arena(), slime.payloadOffset(node), slime.size(node));      return;
+            case ARRAY:
+                openScope((byte)'[');
+                for (int i = 0, size = slime.size(node); i < size; i++) {
+                    int child = slime.childAt(node, i);
+                    separate(true);
+                    encodeNode(slime, child);
+                }
+                closeScope((byte)']');
+                return;
+            case OBJECT:
+                openScope((byte)'{');
+                for (int i = 0, size = slime.size(node); i < size; i++) {
+                    int child = slime.childAt(node, i);
+                    separate(true);
+                    int symbol = slime.symbol(child);
+                    if (symbolNames[symbol] == null) {
+                        symbolNames[symbol] = Utf8Codec.encode(slime.inspect(symbol));
+                    }
+                    encodeSTRING(symbolNames[symbol]);
+                    out.append((byte)':');
+                    if (!compact)
+                        out.append((byte)' ');
+                    encodeNode(slime, child);
+                }
+                closeScope((byte)'}');
+                return;
+            }
+            assert false : "Should not be reached";
+        }
+
         private void encodeNIX() throws IOException {
             out.write(NULL);
         }
@@ -97,12 +155,16 @@ public final class JsonFormat implements SlimeFormat
         }
 
         private void encodeSTRING(byte[] value) throws IOException {
+            encodeSTRING(value, 0, value.length);
+        }
+
+        private void encodeSTRING(byte[] value, int offset, int length) throws IOException {
 
-            byte [] data = new byte[value.length * 6 + 2];
+            byte [] data = new byte[length * 6 + 2];
             int len = 2;
             int p = 0;
             data[p++] = '"';
-            for (int pos = 0; pos < value.length; pos++) {
+            for (int pos = offset; pos < offset + length; pos++) {
                 byte c = value[pos];
                 switch (c) {
                 case '"':  data[p++] = '\\'; data[p++] = '"';  len += 2; break;
@@ -128,12 +190,16 @@ public final class JsonFormat implements SlimeFormat
         }
 
         private void encodeDATA(byte[] value) throws IOException {
-            int len = value.length * 2 + 4;
+            encodeDATA(value, 0, value.length);
+        }
+
+        private void encodeDATA(byte[] value, int offset, int length) throws IOException {
+            int len = length * 2 + 4;
             byte [] data = new byte[len];
             int p = 0;
 
             data[p++] = '"'; data[p++] = '0'; data[p++] = 'x';
-            for (int pos = 0; pos < value.length; pos++) {
+            for (int pos = offset; pos < offset + length; pos++) {
                 data[p++] = HEX[(value[pos] >> 4) & 0xf]; data[p++] = HEX[value[pos] & 0xf];
             }
             data[p] = '"';
@@ -52,6 +52,10 @@ public final class Slime {
         return names.lookup(name);
     }
 
+    SymbolTable names() {
+        return names;
+    }
+
     /** Get a Cursor connected to the top-level data object. */
     public Cursor get() { return root; }
 
@@ -0,0 +1,63 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+/**
+ * A benchmark of reading a few fields from docsum like binary slime data,
+ * by decoding it into a Slime object and by inspecting it in place.
+ */
+public class BinaryViewBenchmark {
+
+    private static byte[] createDocsum(int numFields) {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setString("documentid", "id:namespace:music::some-document-id");
+        root.setLong("relevance", 1234);
+        for (int i = 0; i < numFields; i++) {
+            root.setString("field" + i, "Some string value of moderate length for field " + i);
+        }
+        Cursor weightedSet = root.setArray("tags");
+        for (int i = 0; i < numFields; i++) {
+            Cursor item = weightedSet.addObject();
+            item.setString("item", "tag" + i);
+            item.setLong("weight", i);
+        }
+        return BinaryFormat.encode(slime);
+    }
+
+    private static long readWithDecode(byte[] data, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            Inspector root = BinaryFormat.decode(data).get();
+            checksum += root.field("relevance").asLong() + root.field("documentid").asString().length();
+        }
+        return checksum;
+    }
+
+    private static long readWithView(byte[] data, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            Inspector root = BinaryFormat.view(data);
+            checksum += root.field("relevance").asLong() + root.field("documentid").asString().length();
+        }
+        return checksum;
+    }
+
+    private static void run(String name, byte[] data, int iterations, boolean view) {
+        long start = System.nanoTime();
+        long checksum = view ? readWithView(data, iterations) : readWithDecode(data, iterations);
+        long nanos = System.nanoTime() - start;
+        System.out.println("  " + name + ": " + (nanos / iterations) + " ns per docsum (checksum " + checksum + ")");
+    }
+
+    public static void main(String[] args) {
+        byte[] data = createDocsum(50);
+        int iterations = 200 * 1000;
+        System.out.println("Reading 2 fields from a " + data.length + " byte docsum");
+        System.out.println("  warming up");
+        readWithDecode(data, iterations / 10);
+        readWithView(data, iterations / 10);
+        run("decode", data, iterations, false);
+        run("view", data, iterations, true);
+    }
+
+}
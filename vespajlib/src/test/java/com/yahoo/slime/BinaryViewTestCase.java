@@ -0,0 +1,116 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryViewTestCase {
+
+    static Slime createSlime() {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -123456789L);
+        root.setDouble("double", 3.5);
+        root.setString("string", "blåbærsyltetøy");
+        root.setData("data", new byte[] { 1, 2, 3, 4 });
+        Cursor array = root.setArray("array");
+        for (int i = 0; i < 100; ++i) {
+            array.addLong(i);
+        }
+        Cursor nested = array.addObject();
+        nested.setString("inner", "value");
+        nested.setArray("empty");
+        root.setObject("object").setObject("deeper").setLong("long", 7);
+        return slime;
+    }
+
+    void assertEqualInspectors(Inspector expected, Inspector actual) {
+        assertEquals(expected.valid(), actual.valid());
+        assertEquals(expected.type(), actual.type());
+        assertEquals(expected.children(), actual.children());
+        assertEquals(expected.entries(), actual.entries());
+        assertEquals(expected.fields(), actual.fields());
+        assertEquals(expected.asBool(), actual.asBool());
+        assertEquals(expected.asLong(), actual.asLong());
+        assertEquals(expected.asDouble(), actual.asDouble(), 0.0);
+        assertEquals(expected.asString(), actual.asString());
+        assertArrayEquals(expected.asUtf8(), actual.asUtf8());
+        assertArrayEquals(expected.asData(), actual.asData());
+        for (int i = 0; i < expected.entries(); ++i) {
+            assertEqualInspectors(expected.entry(i), actual.entry(i));
+        }
+        List<String> names = new ArrayList<>();
+        expected.traverse((ObjectTraverser)(name, inspector) -> names.add(name));
+        for (String name : names) {
+            assertEqualInspectors(expected.field(name), actual.field(name));
+        }
+        List<String> actualNames = new ArrayList<>();
+        actual.traverse((ObjectTraverser)(name, inspector) -> actualNames.add(name));
+        assertEquals(names, actualNames);
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testViewInspectsSameValuesAsDecodedSlime() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        Inspector view = BinaryFormat.view(data);
+        assertTrue(view instanceof BinaryView);
+        assertEqualInspectors(BinaryFormat.decode(data).get(), view);
+    }
+
+    @Test
+    public void testViewOfPartOfArray() {
+        byte[] encoded = BinaryFormat.encode(createSlime());
+        byte[] data = new byte[encoded.length + 7];
+        System.arraycopy(encoded, 0, data, 3, encoded.length);
+        Inspector view = BinaryFormat.view(data, 3, encoded.length);
+        assertEqualInspectors(BinaryFormat.decode(encoded).get(), view);
+    }
+
+    @Test
+    public void testInvalidAccess() {
+        Inspector view = BinaryFormat.view(BinaryFormat.encode(createSlime()));
+        assertFalse(view.field("unknown").valid());
+        assertFalse(view.entry(0).valid());
+        assertFalse(view.field("array").entry(101).valid());
+        assertFalse(view.field("array").entry(-1).valid());
+        assertFalse(view.field("long").field("long").valid());
+        assertEquals(7, view.field("object").field("deeper").field("long").asLong());
+        assertEquals(3, view.field("double").asLong());
+        assertEquals(-123456789.0, view.field("long").asDouble(), 0.0);
+    }
+
+    @Test
+    public void testSymbolTraversal() {
+        Slime slime = createSlime();
+        Inspector view = BinaryFormat.view(BinaryFormat.encode(slime));
+        List<Integer> symbols = new ArrayList<>();
+        view.traverse((ObjectSymbolTraverser)(sym, inspector) -> {
+            symbols.add(sym);
+            assertEquals(sym, slime.lookup(slime.inspect(sym)));
+            assertEqualInspectors(slime.get().field(sym), view.field(sym));
+        });
+        assertEquals(slime.get().fields(), symbols.size());
+    }
+
+    @Test
+    public void testMalformedDataFallsBackToDecodedPartialResult() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        byte[] truncated = new byte[data.length - 10];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        Inspector view = BinaryFormat.view(truncated);
+        assertFalse(view instanceof BinaryView);
+        assertTrue(view.field("partial_result").valid());
+        assertEquals("underflow", view.field("error_message").asString());
+    }
+
+}
@@ -0,0 +1,103 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * A benchmark of building and encoding a large structure (a grouping
+ * result like array of objects) using Slime and CompactSlime.
+ */
+public class CompactSlimeBenchmark {
+
+    private static void build(Cursor root, int numElements) {
+        Cursor array = root.setArray("hits");
+        for (int i = 0; i < numElements; i++) {
+            Cursor hit = array.addObject();
+            hit.setString("id", "group:string:value" + (i % 100));
+            hit.setDouble("relevance", 1.0 / (i + 1));
+            hit.setLong("count", i);
+        }
+    }
+
+    private static long buildSlime(int numElements, int iterations) {
+        long values = 0;
+        for (int i = 0; i < iterations; i++) {
+            Slime slime = new Slime();
+            build(slime.setObject(), numElements);
+            values += slime.get().field("hits").entries();
+        }
+        return values;
+    }
+
+    private static long buildCompact(int numElements, int iterations) {
+        long values = 0;
+        for (int i = 0; i < iterations; i++) {
+            CompactSlime slime = new CompactSlime();
+            build(slime.setObject(), numElements);
+            values += slime.get().field("hits").entries();
+        }
+        return values;
+    }
+
+    private static long runSlime(int numElements, int iterations) throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            Slime slime = new Slime();
+            build(slime.setObject(), numElements);
+            bytes += BinaryFormat.encode(slime).length;
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(json, slime);
+            bytes += json.size();
+        }
+        return bytes;
+    }
+
+    private static long runCompact(int numElements, int iterations) throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            CompactSlime slime = new CompactSlime();
+            build(slime.setObject(), numElements);
+            bytes += BinaryFormat.encode(slime).length;
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(json, slime);
+            bytes += json.size();
+        }
+        return bytes;
+    }
+
+    private static void run(String name, boolean compact, int numElements, int iterations) throws IOException {
+        System.gc();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        long values = compact ? buildCompact(numElements, iterations) : buildSlime(numElements, iterations);
+        long millis = (System.nanoTime() - start) / 1000000;
+        allocated = allocatedBytes() - allocated;
+        System.out.println("  " + name + ": " + (millis / iterations) + " ms and " + (allocated / iterations / 1024) +
+                           " kb allocated per build (" + values + " objects)");
+
+        start = System.nanoTime();
+        long bytes = compact ? runCompact(numElements, iterations) : runSlime(numElements, iterations);
+        millis = (System.nanoTime() - start) / 1000000;
+        System.out.println("  " + name + ": " + (millis / iterations) + " ms per build and encode (" + bytes + " bytes encoded)");
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( ! (bean instanceof com.sun.management.ThreadMXBean)) return 0;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int numElements = 100 * 1000;
+        int iterations = 20;
+        System.out.println("Building and encoding " + numElements + " objects (" + (numElements * 4) + " values)");
+        System.out.println("  warming up");
+        runSlime(numElements, 5);
+        runCompact(numElements, 5);
+        run("Slime", false, numElements, iterations);
+        run("CompactSlime", true, numElements, iterations);
+    }
+
+}
@@ -0,0 +1,143 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactSlimeTestCase {
+
+    static void build(Cursor root) {
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -42);
+        root.setDouble("double", 2.75);
+        root.setString("ascii", "plain \"quoted\"\n");
+        root.setString("unicode", "blåbærsyltetøy");
+        root.setString("utf8", Utf8Codec.encode("ünïcödé"));
+        root.setData("data", new byte[] { 0, 1, 2, (byte)0xff });
+        Cursor array = root.setArray("array");
+        for (int i = 0; i < 1000; i++) {
+            Cursor item = array.addObject();
+            item.setString("item", "item" + i);
+            item.setLong("weight", i);
+        }
+        array.addArray().addDouble(1.5);
+        array.addNix();
+        array.addBool(false);
+        array.addString("last");
+        root.setObject("object").setObject("nested").setArray("empty");
+    }
+
+    static String json(Slime slime) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonFormat(false).encode(out, slime);
+        return out.toString("UTF-8");
+    }
+
+    static String json(CompactSlime slime) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonFormat(false).encode(out, slime);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testEncodingIsIdenticalToSlime() throws IOException {
+        Slime slime = new Slime();
+        build(slime.setObject());
+        CompactSlime compact = new CompactSlime();
+        build(compact.setObject());
+
+        assertArrayEquals(BinaryFormat.encode(slime), BinaryFormat.encode(compact));
+        assertEquals(json(slime), json(compact));
+        assertEquals(slime.get().toString(), compact.get().toString());
+    }
+
+    @Test
+    public void testInspectionMatchesSlime() {
+        Slime slime = new Slime();
+        build(slime.setObject());
+        CompactSlime compact = new CompactSlime(4);
+        build(compact.setObject());
+
+        Inspector expected = slime.get();
+        Inspector actual = compact.get();
+        assertEquals(expected.fields(), actual.fields());
+        assertEquals(expected.field("long").asLong(), actual.field("long").asLong());
+        assertEquals(expected.field("long").asDouble(), actual.field("long").asDouble(), 0.0);
+        assertEquals(expected.field("double").asLong(), actual.field("double").asLong());
+        assertEquals(expected.field("unicode").asString(), actual.field("unicode").asString());
+        assertEquals(expected.field("utf8").asString(), actual.field("utf8").asString());
+        assertArrayEquals(expected.field("data").asData(), actual.field("data").asData());
+        assertEquals(Type.NIX, actual.field("nix").type());
+        assertTrue(actual.field("nix").valid());
+        assertTrue(actual.field("bool").asBool());
+        assertEquals(1004, actual.field("array").entries());
+        assertEquals(500, actual.field("array").entry(500).field("weight").asLong());
+        assertEquals("item999", actual.field("array").entry(999).field("item").asString());
+        assertEquals(1.5, actual.field("array").entry(1000).entry(0).asDouble(), 0.0);
+        assertEquals("last", actual.field("array").entry(1003).asString());
+        assertEquals(Type.ARRAY, actual.field("object").field("nested").field("empty").type());
+    }
+
+    @Test
+    public void testInvalidOperations() {
+        CompactSlime slime = new CompactSlime();
+        Cursor root = slime.setObject();
+        assertTrue(root.setLong("a", 1).valid());
+        assertFalse(root.setLong("a", 2).valid());
+        assertEquals(1, root.field("a").asLong());
+        assertFalse(root.addLong(3).valid());
+        assertFalse(root.field("b").valid());
+        assertFalse(root.entry(0).valid());
+        assertFalse(root.field("a").setLong("c", 1).valid());
+        assertEquals(1, slime.symbols());
+        Cursor array = root.setArray("array");
+        assertFalse(array.setLong("d", 1).valid());
+        assertFalse(array.entry(0).valid());
+        assertTrue(array.addLong(7).valid());
+        assertFalse(array.entry(1).valid());
+        assertFalse(array.entry(-1).valid());
+        assertEquals(Type.NIX, root.setString("null", (String)null).type());
+    }
+
+    @Test
+    public void testLargeObjects() {
+        CompactSlime slime = new CompactSlime();
+        Cursor root = slime.setObject();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(root.setLong("field" + i, i).valid());
+            assertFalse(root.setLong("field" + (i / 2), -1).valid());
+        }
+        assertEquals(100, root.fields());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, root.field("field" + i).asLong());
+        }
+        assertFalse(root.field("field100").valid());
+    }
+
+    @Test
+    public void testRootValuesAndWrapping() {
+        CompactSlime slime = new CompactSlime();
+        assertEquals(Type.NIX, slime.get().type());
+        slime.setLong(5);
+        assertEquals(5, slime.get().asLong());
+        slime.wrap("wrapped");
+        assertEquals(Type.OBJECT, slime.get().type());
+        assertEquals(5, slime.get().field("wrapped").asLong());
+        slime.setString("str");
+        assertEquals("str", slime.get().asString());
+
+        Slime expected = new Slime();
+        expected.insert("wrapped");
+        expected.setString("str");
+        assertArrayEquals(BinaryFormat.encode(expected), BinaryFormat.encode(slime));
+    }
+
+}
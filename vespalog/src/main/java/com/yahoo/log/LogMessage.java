@@ -1,6 +1,8 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.log;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -14,6 +16,10 @@ import com.yahoo.log.event.MalformedEventException;
  * the logserver.  A LogMessage is immutable.  Note that we have
  * chosen the name LogMessage to avoid confusion with LogRecord
  * which is used in java.util.logging.
+ * <p>
+ * Messages created from a {@link NativeLogTokenizer} keep the bytes of
+ * the log line, and only create strings for the fields which are
+ * actually accessed.
  *
  * @author  Bjorn Borud
  */
@@ -31,6 +37,9 @@ public class LogMessage
                         "(.+)$"         // payload
                         );
 
+    /** The charset used to decode log lines, see {@link com.yahoo.io.ReadLine} */
+    private static final Charset charset = StandardCharsets.ISO_8859_1;
+
     private long     time;
     private String   timeStr;
     private String   host;
@@ -41,6 +50,11 @@ public class LogMessage
     private String   payload;
     private Event    event;
 
+    /** The bytes of the log line this was lazily parsed from, or null if all fields are set */
+    private final byte[] line;
+    /** The start and end offsets in line of each field, or null if all fields are set */
+    private final int[]  fieldBounds;
+
     /**
      * Private constructor.  Log messages should never be instantiated
      * directly; only as the result of a static factory method.
@@ -57,16 +71,60 @@ public class LogMessage
         this.component = component;
         this.level = level;
         this.payload = payload;
+        this.line = null;
+        this.fieldBounds = null;
+    }
+
+    private LogMessage (long time, Level level, byte[] line, int[] fieldBounds)
+    {
+        this.time = time;
+        this.level = level;
+        this.line = line;
+        this.fieldBounds = fieldBounds;
     }
 
     public long     getTime ()          {return time;}
     public long     getTimeInSeconds () {return time / 1000;}
-    public String   getHost ()          {return host;}
-    public String   getThreadProcess () {return threadProcess;}
-    public String   getService ()       {return service;}
-    public String   getComponent ()     {return component;}
     public Level    getLevel ()         {return level;}
-    public String   getPayload ()       {return payload;}
+
+    public String getTimeString () {
+        if (timeStr == null) timeStr = field(NativeLogTokenizer.TIME);
+        return timeStr;
+    }
+
+    public String getHost () {
+        if (host == null) host = field(NativeLogTokenizer.HOST);
+        return host;
+    }
+
+    public String getThreadProcess () {
+        if (threadProcess == null) threadProcess = field(NativeLogTokenizer.THREAD_PROCESS);
+        return threadProcess;
+    }
+
+    public String getService () {
+        if (service == null) service = field(NativeLogTokenizer.SERVICE);
+        return service;
+    }
+
+    public String getComponent () {
+        if (component == null) component = field(NativeLogTokenizer.COMPONENT);
+        return component;
+    }
+
+    public String getPayload () {
+        if (payload == null) payload = field(NativeLogTokenizer.PAYLOAD);
+        return payload;
+    }
+
+    private String field (int field) {
+        int start = fieldBounds[2 * field];
+        return decode(line, start, fieldBounds[2 * field + 1] - start);
+    }
+
+    static String decode (byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, length, charset);
+    }
 
     /**
      * Make a log message from the native format of the logging
@@ -92,7 +150,29 @@ public class LogMessage
                               m.group(7));
     }
 
-    private static long parseTimestamp(String timeStr) throws InvalidLogFormatException {
+    /**
+     * Make a log message from the last line tokenized by the given tokenizer.
+     * Only the time and level are parsed up front, the other fields are
+     * turned into strings when first accessed.
+     *
+     * @param tokens a tokenizer which has successfully tokenized a line
+     * @return Returns a LogMessage instance
+     * @throws InvalidLogFormatException if the time of the line
+     *    is invalid
+     */
+    public static LogMessage parseNativeFormat(NativeLogTokenizer tokens) throws InvalidLogFormatException {
+        long timestamp = tokens.time();
+        byte[] line = new byte[tokens.lineLength()];
+        tokens.copyLine(line);
+        int[] fieldBounds = new int[2 * NativeLogTokenizer.fieldCount];
+        for (int i = 0; i < NativeLogTokenizer.fieldCount; i++) {
+            fieldBounds[2 * i] = tokens.relativeStart(i);
+            fieldBounds[2 * i + 1] = tokens.relativeEnd(i);
+        }
+        return new LogMessage(timestamp, tokens.level(), line, fieldBounds);
+    }
+
+    static long parseTimestamp(String timeStr) throws InvalidLogFormatException {
         try {
             return (long) (Double.parseDouble(timeStr) * 1000);
         } catch (NumberFormatException e) {
@@ -131,6 +211,15 @@ public class LogMessage
      * Return valid representation of log message.
      */
     public String toString () {
+        if (line != null && hasCanonicalLevel()) { // the line is already on the canonical form
+            return decode(line, 0, line.length) + "\n";
+        }
+        String timeStr = getTimeString();
+        String host = getHost();
+        String threadProcess = getThreadProcess();
+        String service = getService();
+        String component = getComponent();
+        String payload = getPayload();
         return new StringBuilder(timeStr.length()
                                 + host.length()
                                 + threadProcess.length()
@@ -148,4 +237,16 @@ public class LogMessage
             .append(payload).append("\n")
             .toString();
     }
+
+    /** Returns whether the level in the line is written the way toString writes it */
+    private boolean hasCanonicalLevel () {
+        int start = fieldBounds[2 * NativeLogTokenizer.LEVEL];
+        int length = fieldBounds[2 * NativeLogTokenizer.LEVEL + 1] - start;
+        String name = level.getName();
+        if (length != name.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (line[start + i] != Character.toLowerCase(name.charAt(i))) return false;
+        }
+        return true;
+    }
 }
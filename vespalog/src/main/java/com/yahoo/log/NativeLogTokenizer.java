@@ -0,0 +1,164 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log;
+
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+
+/**
+ * Tokenizes log lines in the native log format (tab separated time, host, thread/process,
+ * service, component, level and payload) directly from a byte buffer, without allocating.
+ * The fields are exposed as views (offsets) into the buffer, and are only turned into
+ * objects by {@link LogMessage#parseNativeFormat(NativeLogTokenizer)} when needed.
+ * <p>
+ * An instance is meant to be reused for all the lines read from a connection.
+ * The views are only valid until the buffer is modified or the next line is tokenized.
+ * This class is not thread safe.
+ *
+ * @author agent
+ */
+public final class NativeLogTokenizer {
+
+    public static final int TIME = 0;
+    public static final int HOST = 1;
+    public static final int THREAD_PROCESS = 2;
+    public static final int SERVICE = 3;
+    public static final int COMPONENT = 4;
+    public static final int LEVEL = 5;
+    public static final int PAYLOAD = 6;
+
+    static final int fieldCount = 7;
+
+    /** Level names in the native format, and the levels they map to, see {@link LogLevel#parse} */
+    private static final byte[][] levelNames = { bytes("fatal"), bytes("error"), bytes("warning"), bytes("config"),
+                                                 bytes("info"), bytes("event"), bytes("debug"), bytes("spam") };
+    private static final Level[] levels = { LogLevel.FATAL, LogLevel.ERROR, LogLevel.WARNING, LogLevel.CONFIG,
+                                            LogLevel.INFO, LogLevel.EVENT, LogLevel.DEBUG, LogLevel.SPAM };
+
+    private final int[] starts = new int[fieldCount];
+    private final int[] ends = new int[fieldCount];
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * Tokenizes the line in the given buffer between start (inclusive) and end (exclusive),
+     * which must not contain the line terminator. The position and limit of the buffer are not used or changed.
+     *
+     * @return whether the line is a valid log line in the native format
+     */
+    public boolean tokenize(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.lineStart = start;
+        this.lineEnd = end;
+
+        int field = TIME;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') return false;
+            if (b == '\t' && field < PAYLOAD) {
+                if (i == fieldStart) return false; // empty field
+                starts[field] = fieldStart;
+                ends[field] = i;
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        if (field != PAYLOAD || fieldStart == end) return false;
+        starts[PAYLOAD] = fieldStart;
+        ends[PAYLOAD] = end;
+        return isDigit(buffer.get(start));
+    }
+
+    /** Returns the start offset in the buffer of the given field of the last tokenized line */
+    public int start(int field) { return starts[field]; }
+
+    /** Returns the end offset (exclusive) in the buffer of the given field of the last tokenized line */
+    public int end(int field) { return ends[field]; }
+
+    /** Returns the length in bytes of the given field of the last tokenized line */
+    public int length(int field) { return ends[field] - starts[field]; }
+
+    /** Returns the length in bytes of the last tokenized line */
+    public int lineLength() { return lineEnd - lineStart; }
+
+    /**
+     * Returns the time of the last tokenized line in milliseconds since epoch.
+     *
+     * @throws InvalidLogFormatException if the time field is not a number
+     */
+    public long time() throws InvalidLogFormatException {
+        long seconds = 0;
+        long millis = 0;
+        int i = starts[TIME];
+        int end = ends[TIME];
+        for (; i < end && isDigit(buffer.get(i)); i++) {
+            seconds = seconds * 10 + (buffer.get(i) - '0');
+        }
+        if (i < end && buffer.get(i) == '.') {
+            int fractionDigits = 0;
+            for (i++; i < end && isDigit(buffer.get(i)); i++) {
+                if (fractionDigits++ < 3)
+                    millis = millis * 10 + (buffer.get(i) - '0');
+            }
+            for (; fractionDigits < 3; fractionDigits++)
+                millis *= 10;
+        }
+        if (i < end || seconds > Long.MAX_VALUE / 1000) { // Not a plain decimal number: Use the general (allocating) path
+            return LogMessage.parseTimestamp(toString(TIME));
+        }
+        return seconds * 1000 + millis;
+    }
+
+    /** Returns the level of the last tokenized line, or {@link LogLevel#UNKNOWN} if it is not a known level */
+    public Level level() {
+        for (int i = 0; i < levelNames.length; i++) {
+            if (fieldEquals(LEVEL, levelNames[i]))
+                return levels[i];
+        }
+        return LogLevel.UNKNOWN;
+    }
+
+    /** Returns whether the given field of the last tokenized line equals the given bytes */
+    public boolean fieldEquals(int field, byte[] value) {
+        if (length(field) != value.length) return false;
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(starts[field] + i) != value[i]) return false;
+        }
+        return true;
+    }
+
+    /** Copies the bytes of the last tokenized line into the given array, which must be at least {@link #lineLength} long */
+    public void copyLine(byte[] destination) {
+        for (int i = lineStart; i < lineEnd; i++) {
+            destination[i - lineStart] = buffer.get(i);
+        }
+    }
+
+    /** Returns the offset of the given field relative to the start of the line */
+    int relativeStart(int field) { return starts[field] - lineStart; }
+
+    /** Returns the end of the given field relative to the start of the line */
+    int relativeEnd(int field) { return ends[field] - lineStart; }
+
+    /** Returns the given field of the last tokenized line as a string. This allocates. */
+    public String toString(int field) {
+        byte[] bytes = new byte[length(field)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(starts[field] + i);
+        }
+        return LogMessage.decode(bytes, 0, bytes.length);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static byte[] bytes(String ascii) {
+        byte[] bytes = new byte[ascii.length()];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) ascii.charAt(i);
+        return bytes;
+    }
+
+}
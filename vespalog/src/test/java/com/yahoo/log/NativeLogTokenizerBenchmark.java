@@ -0,0 +1,81 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A benchmark of the number of native format log lines parsed per second,
+ * using the regular expression based parser and the tokenizer.
+ *
+ * @author agent
+ */
+public class NativeLogTokenizerBenchmark {
+
+    private static final String[] lines = {
+        "1096639280.524133\tmalfunction.example.com\t26851/1\tsearchnode\tproton.server\tinfo\tStarting up, called as ./log/logtest",
+        "1096639281.100000\tmalfunction.example.com\t26851/7\tcontainer\tContainer.com.yahoo.Foo\twarning\tSomething happened: foo=bar",
+        "1096639282.000001\tmalfunction.example.com\t331/331\tlogd\tlogd.watcher\tdebug\tread 4096 bytes from log file",
+        "1096639283.999999\tmalfunction.example.com\t26851/3\tsearchnode\tproton.metrics\tevent\tvalue/1 name=\"docs\" value=1000",
+    };
+
+    public void benchmark(int repetitions) throws InvalidLogFormatException {
+        ByteBuffer buffer = toBuffer();
+        System.out.println("Native log line parsing");
+        System.out.println("  warming up");
+        parseWithRegex(repetitions / 10);
+        parseWithTokenizer(buffer, repetitions / 10);
+
+        long startTime = System.nanoTime();
+        long checksum = parseWithRegex(repetitions);
+        report("regex", repetitions, System.nanoTime() - startTime, checksum);
+
+        startTime = System.nanoTime();
+        checksum = parseWithTokenizer(buffer, repetitions);
+        report("tokenizer", repetitions, System.nanoTime() - startTime, checksum);
+    }
+
+    private long parseWithRegex(int repetitions) throws InvalidLogFormatException {
+        long checksum = 0;
+        for (int i = 0; i < repetitions; i++) {
+            for (String line : lines)
+                checksum += LogMessage.parseNativeFormat(line).getTime();
+        }
+        return checksum;
+    }
+
+    private long parseWithTokenizer(ByteBuffer buffer, int repetitions) throws InvalidLogFormatException {
+        NativeLogTokenizer tokenizer = new NativeLogTokenizer();
+        long checksum = 0;
+        for (int i = 0; i < repetitions; i++) {
+            int start = 0;
+            for (String line : lines) {
+                if ( ! tokenizer.tokenize(buffer, start, start + line.length()))
+                    throw new IllegalStateException("Could not tokenize " + line);
+                checksum += LogMessage.parseNativeFormat(tokenizer).getTime();
+                start += line.length() + 1;
+            }
+        }
+        return checksum;
+    }
+
+    private static ByteBuffer toBuffer() {
+        StringBuilder b = new StringBuilder();
+        for (String line : lines)
+            b.append(line).append('\n');
+        ByteBuffer buffer = ByteBuffer.allocateDirect(b.length());
+        buffer.put(b.toString().getBytes(StandardCharsets.ISO_8859_1));
+        return buffer;
+    }
+
+    private static void report(String name, int repetitions, long nanos, long checksum) {
+        long lineCount = (long) repetitions * lines.length;
+        System.out.println("  " + name + ": " + (lineCount * 1000_000_000L / nanos) + " lines per second" +
+                           " (checksum " + checksum + ")");
+    }
+
+    public static void main(String[] args) throws InvalidLogFormatException {
+        new NativeLogTokenizerBenchmark().benchmark(1000 * 1000);
+    }
+
+}
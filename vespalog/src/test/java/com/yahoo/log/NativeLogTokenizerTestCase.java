@@ -0,0 +1,97 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class NativeLogTokenizerTestCase {
+
+    private static final String line = "1096639280.524133\tmalfunction\t26851/12\tsearchnode\tlogtest\tinfo\tStarting up,\tcalled as ./log/logtest";
+
+    private static ByteBuffer buffer(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testTokenizing() throws InvalidLogFormatException {
+        ByteBuffer buffer = buffer("xx" + line + "\n");
+        NativeLogTokenizer tokenizer = new NativeLogTokenizer();
+        assertTrue(tokenizer.tokenize(buffer, 2, 2 + line.length()));
+        assertEquals("1096639280.524133", tokenizer.toString(NativeLogTokenizer.TIME));
+        assertEquals("malfunction", tokenizer.toString(NativeLogTokenizer.HOST));
+        assertEquals("26851/12", tokenizer.toString(NativeLogTokenizer.THREAD_PROCESS));
+        assertEquals("searchnode", tokenizer.toString(NativeLogTokenizer.SERVICE));
+        assertEquals("logtest", tokenizer.toString(NativeLogTokenizer.COMPONENT));
+        assertEquals("info", tokenizer.toString(NativeLogTokenizer.LEVEL));
+        assertEquals("Starting up,\tcalled as ./log/logtest", tokenizer.toString(NativeLogTokenizer.PAYLOAD));
+        assertEquals(1096639280524L, tokenizer.time());
+        assertEquals(LogLevel.INFO, tokenizer.level());
+    }
+
+    @Test
+    public void testInvalidLines() {
+        NativeLogTokenizer tokenizer = new NativeLogTokenizer();
+        assertFalse(tokenize(tokenizer, "1096639280.524133\tmalfunction\t26851\t-\tlogtest\tinfo"));
+        assertFalse(tokenize(tokenizer, "1096639280.524133\tmalfunction\t26851\t-\tlogtest\tinfo\t"));
+        assertFalse(tokenize(tokenizer, "1096639280.524133\t\t26851\t-\tlogtest\tinfo\tmessage"));
+        assertFalse(tokenize(tokenizer, "x1096639280.524133\tmalfunction\t26851\t-\tlogtest\tinfo\tmessage"));
+        assertFalse(tokenize(tokenizer, "1096639280.524133\tmalfunction\t26851\t-\tlogtest\tinfo\tmessage\rmore"));
+        assertTrue(tokenize(tokenizer, "1096639280.524133\tmalfunction\t26851\t-\tlogtest\tinfo\tmessage"));
+    }
+
+    @Test
+    public void testTimeAndLevelParsing() throws InvalidLogFormatException {
+        NativeLogTokenizer tokenizer = new NativeLogTokenizer();
+        assertTrue(tokenize(tokenizer, "1096639280\th\tt\ts\tc\terror\tm"));
+        assertEquals(1096639280000L, tokenizer.time());
+        assertEquals(LogLevel.ERROR, tokenizer.level());
+        assertTrue(tokenize(tokenizer, "1096639280.5\th\tt\ts\tc\tspam\tm"));
+        assertEquals(1096639280500L, tokenizer.time());
+        assertEquals(LogLevel.SPAM, tokenizer.level());
+        assertTrue(tokenize(tokenizer, "1.5e3\th\tt\ts\tc\tbogus\tm"));
+        assertEquals(1500000L, tokenizer.time());
+        assertEquals(LogLevel.UNKNOWN, tokenizer.level());
+        assertTrue(tokenize(tokenizer, "1.5x\th\tt\ts\tc\tinfo\tm"));
+        try {
+            tokenizer.time();
+            fail("Expected exception");
+        }
+        catch (InvalidLogFormatException expected) {
+        }
+    }
+
+    @Test
+    public void testLazyLogMessage() throws InvalidLogFormatException {
+        NativeLogTokenizer tokenizer = new NativeLogTokenizer();
+        assertTrue(tokenize(tokenizer, line));
+        LogMessage lazy = LogMessage.parseNativeFormat(tokenizer);
+        LogMessage eager = LogMessage.parseNativeFormat(line);
+        assertEquals(eager.getTime(), lazy.getTime());
+        assertEquals(eager.getLevel(), lazy.getLevel());
+        assertEquals(eager.getHost(), lazy.getHost());
+        assertEquals(eager.getThreadProcess(), lazy.getThreadProcess());
+        assertEquals(eager.getService(), lazy.getService());
+        assertEquals(eager.getComponent(), lazy.getComponent());
+        assertEquals(eager.getPayload(), lazy.getPayload());
+        assertEquals(eager.toString(), lazy.toString());
+        assertEquals(line + "\n", lazy.toString());
+
+        // The line is normalized when the level is not in lower case
+        String upperCaseLevel = line.replace("\tinfo\t", "\tINFO\t");
+        assertTrue(tokenize(tokenizer, upperCaseLevel));
+        assertEquals(LogMessage.parseNativeFormat(upperCaseLevel).toString(),
+                     LogMessage.parseNativeFormat(tokenizer).toString());
+    }
+
+    private static boolean tokenize(NativeLogTokenizer tokenizer, String line) {
+        return tokenizer.tokenize(buffer(line), 0, line.length());
+    }
+
+}